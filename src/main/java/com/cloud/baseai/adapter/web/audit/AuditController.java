@@ -5,7 +5,11 @@ import com.cloud.baseai.application.audit.dto.AuditLogDTO;
 import com.cloud.baseai.application.audit.dto.AuditStatisticsDTO;
 import com.cloud.baseai.application.audit.dto.PageResultDTO;
 import com.cloud.baseai.application.audit.service.AuditQueryAppService;
+import com.cloud.baseai.infrastructure.audit.export.AuditExportFormat;
+import com.cloud.baseai.infrastructure.config.properties.AuditProperties;
 import com.cloud.baseai.infrastructure.exception.ApiResult;
+import com.cloud.baseai.infrastructure.exception.AuditException;
+import com.cloud.baseai.infrastructure.exception.ErrorCode;
 import com.cloud.baseai.infrastructure.exception.ErrorResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -20,14 +24,29 @@ import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.time.OffsetDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * <h1>审计日志查询控制器</h1>
@@ -56,10 +75,21 @@ public class AuditController {
 
     private static final Logger log = LoggerFactory.getLogger(AuditController.class);
 
+    /**
+     * 流式导出时每次发送的字节数
+     */
+    private static final int EXPORT_CHUNK_BYTES = 64 * 1024;
+
     private final AuditQueryAppService auditQueryService;
+    private final AsyncTaskExecutor exportExecutor;
+    private final AuditProperties.ReportingProperties reportingProperties;
 
-    public AuditController(AuditQueryAppService auditQueryService) {
+    public AuditController(AuditQueryAppService auditQueryService,
+                           @Qualifier("auditExportExecutor") AsyncTaskExecutor exportExecutor,
+                           AuditProperties auditProperties) {
         this.auditQueryService = auditQueryService;
+        this.exportExecutor = exportExecutor;
+        this.reportingProperties = auditProperties.getReporting();
     }
 
     /**
@@ -299,6 +329,104 @@ public class AuditController {
         return ResponseEntity.ok(ApiResult.success(reportId, message));
     }
 
+    /**
+     * 下载已生成的审计报告
+     */
+    @GetMapping("/reports/{reportId}/download")
+    @Operation(
+            summary = "下载审计报告",
+            description = "下载已生成的审计报告文件。报告生成是异步的，生成完成前返回报告不存在。"
+    )
+    @PreAuthorize("hasRole('ADMIN') or hasRole('COMPLIANCE_OFFICER')")
+    public ResponseEntity<Resource> downloadAuditReport(
+            @Parameter(description = "报告ID", example = "SECURITY_MONTHLY_1704067200000_a1b2c3d4")
+            @PathVariable String reportId) {
+
+        Path file = auditQueryService.getReportFile(reportId);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file.getFileName().toString()).build().toString())
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(new FileSystemResource(file));
+    }
+
+    /**
+     * 流式导出审计日志
+     *
+     * <p>按查询条件把审计日志逐行写入响应体，不分页、不在服务端缓存结果，
+     * 导出一年的数据时服务端内存占用也保持不变。</p>
+     *
+     * <p>导出在后台线程中执行，超时时间由{@code baseai.audit.reporting.export-timeout-seconds}单独控制，
+     * 不受全局异步请求超时限制。超时或客户端断开后，下一次写入失败即终止导出。</p>
+     *
+     * <p>导出使用专用执行器，同时进行的导出数达到{@code max-concurrent-exports}时直接返回繁忙（BIZ_AUDIT_050）。</p>
+     */
+    @GetMapping("/logs/export")
+    @Operation(
+            summary = "流式导出审计日志",
+            description = "按条件导出审计日志明细，支持CSV、JSONL、EXCEL格式，数据边查询边写入响应。"
+    )
+    @PreAuthorize("hasRole('ADMIN') or hasRole('AUDITOR')")
+    public ResponseEntity<ResponseBodyEmitter> exportAuditLogs(
+            @Parameter(description = "用户ID，不填则导出所有用户", example = "123")
+            @RequestParam(required = false) Long userId,
+
+            @Parameter(description = "租户ID", example = "1")
+            @RequestParam Long tenantId,
+
+            @Parameter(description = "开始时间，ISO格式", example = "2024-01-01T00:00:00Z")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime startTime,
+
+            @Parameter(description = "结束时间，ISO格式", example = "2024-12-31T23:59:59Z")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endTime,
+
+            @Parameter(description = "操作类型列表，支持多选", example = "USER_LOGIN,DATA_UPDATE")
+            @RequestParam(required = false) List<String> actions,
+
+            @Parameter(description = "导出格式：CSV、JSONL、EXCEL", example = "CSV")
+            @RequestParam(defaultValue = "CSV") String format) {
+
+        AuditExportFormat exportFormat = AuditExportFormat.fromName(format);
+        if (exportFormat == null) {
+            throw new IllegalArgumentException("导出格式只能是CSV、JSONL或EXCEL");
+        }
+
+        log.info("收到审计日志导出请求: userId={}, tenantId={}, format={}", userId, tenantId, exportFormat);
+
+        AuditQueryCommand command = new AuditQueryCommand(
+                userId, tenantId, startTime, endTime, actions, 0, 1, "createdAt", "asc");
+        MediaType contentType = MediaType.parseMediaType(exportFormat.contentType());
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(
+                TimeUnit.SECONDS.toMillis(reportingProperties.getExportTimeoutSeconds()));
+        emitter.onTimeout(() -> log.warn("审计日志导出超时: tenantId={}, format={}", tenantId, exportFormat));
+        try {
+            exportExecutor.execute(() -> {
+                try (OutputStream out = new BufferedOutputStream(new EmitterOutputStream(emitter, contentType),
+                        EXPORT_CHUNK_BYTES)) {
+                    auditQueryService.exportAuditLogs(command, exportFormat, out);
+                } catch (Exception e) {
+                    log.warn("审计日志导出中断: tenantId={}, format={}, reason={}", tenantId, exportFormat, e.getMessage());
+                    emitter.completeWithError(e);
+                    return;
+                }
+                emitter.complete();
+            });
+        } catch (TaskRejectedException e) {
+            log.warn("审计日志导出繁忙，拒绝请求: tenantId={}, format={}", tenantId, exportFormat);
+            throw AuditException.technicalError(ErrorCode.BIZ_AUDIT_050, e,
+                    reportingProperties.getMaxConcurrentExports());
+        }
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("audit_logs_" + tenantId + "." + exportFormat.extension()).build().toString())
+                .contentType(contentType)
+                .body(emitter);
+    }
+
     /**
      * 获取当前用户的审计摘要
      *
@@ -350,4 +478,35 @@ public class AuditController {
         // 实际实现中，这里应该从当前用户的上下文获取租户信息
         return 1L; // 这应该从用户上下文获取
     }
-}
\ No newline at end of file
+
+    /**
+     * 把导出写入的字节按块发送给{@link ResponseBodyEmitter}，发送失败（超时或客户端断开）时抛出IOException
+     */
+    private static final class EmitterOutputStream extends OutputStream {
+
+        private final ResponseBodyEmitter emitter;
+        private final MediaType contentType;
+
+        EmitterOutputStream(ResponseBodyEmitter emitter, MediaType contentType) {
+            this.emitter = emitter;
+            this.contentType = contentType;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            try {
+                emitter.send(Arrays.copyOfRange(b, off, off + len), contentType);
+            } catch (IllegalStateException e) {
+                throw new IOException("导出响应已结束", e);
+            }
+        }
+    }
+}
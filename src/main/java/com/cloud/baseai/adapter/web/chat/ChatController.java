@@ -20,10 +20,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 
@@ -280,31 +281,23 @@ public class ChatController {
      *
      * <p>这种方式特别适合长文本生成、代码编写、复杂问题分析等场景，
      * 能够显著提升用户的交互体验和参与感。</p>
+     *
+     * <p>响应以异步方式写出，等待模型输出期间不占用请求线程；客户端断开连接会取消对模型的请求。</p>
      */
-    @PostMapping("/threads/{threadId}/messages/stream")
+    @PostMapping(value = "/threads/{threadId}/messages/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @Operation(
             summary = "流式发送消息",
             description = "向指定对话线程发送消息并以流式方式返回回复，提供实时的回复体验。"
     )
     @PreAuthorize("hasPermission(#threadId, 'CHAT_THREAD', 'WRITE')")
-    public SseEmitter sendMessageStream(
+    public Flux<ServerSentEvent<Object>> sendMessageStream(
             @PathVariable Long threadId,
             @Valid @RequestBody SendMessageCommand cmd) {
 
-        log.info("开始流式消息处理: threadId={}", threadId);
-
-        // 创建SSE发射器，超时时间为5分钟
-        SseEmitter emitter = new SseEmitter(300_000L);
-
-        try {
-            appService.sendMessageStream(threadId, cmd, emitter);
-            return emitter;
-
-        } catch (Exception e) {
-            log.error("流式消息处理失败: threadId={}", threadId, e);
-            emitter.completeWithError(e);
-            return emitter;
-        }
+        return appService.streamMessage(threadId, cmd)
+                .map(event -> ServerSentEvent.builder(event.data())
+                        .event(event.event())
+                        .build());
     }
 
     /**
@@ -517,7 +517,25 @@ public class KnowledgeBaseController {
         log.info("批量向量生成: 文档数量={}, model={}", cmd.documentIds().size(), cmd.modelCode());
 
         BatchVectorGenerationResult result = appService.batchGenerateEmbeddings(cmd);
-        return ResponseEntity.ok(ApiResult.success(result, "批量向量生成任务已启动"));
+        return ResponseEntity.ok(ApiResult.success(result, "批量向量生成任务已加入队列"));
+    }
+
+    /**
+     * 查询向量生成任务进度
+     *
+     * <p>按批量生成返回的 taskId 汇总各文档的处理进度，任务在节点重启后会从检查点继续。</p>
+     */
+    @GetMapping("/embeddings/tasks/{taskId}")
+    @Operation(
+            summary = "查询向量生成任务进度",
+            description = "返回批量向量生成任务的整体状态、知识块处理进度以及每个文档的执行明细。"
+    )
+    public ResponseEntity<ApiResult<EmbeddingTaskStatusDTO>> getEmbeddingTaskStatus(
+            @Parameter(description = "任务ID", required = true)
+            @PathVariable String taskId) {
+
+        EmbeddingTaskStatusDTO result = appService.getEmbeddingTaskStatus(taskId);
+        return ResponseEntity.ok(ApiResult.success(result));
     }
 
     // =================== 统计和监控接口 ===================
@@ -226,7 +226,7 @@ public record AuditQueryCommand(
             @NotNull OffsetDateTime endTime,
 
             @Schema(description = "导出格式", example = "PDF")
-            @Pattern(regexp = "PDF|EXCEL|CSV", message = "格式只能是PDF、EXCEL或CSV")
+            @Pattern(regexp = "PDF|EXCEL|CSV|JSONL", message = "格式只能是PDF、EXCEL、CSV或JSONL")
             String format,
 
             @Schema(description = "是否包含详细信息", example = "true")
@@ -5,14 +5,19 @@ import com.cloud.baseai.application.audit.dto.AuditLogDTO;
 import com.cloud.baseai.application.audit.dto.AuditStatisticsDTO;
 import com.cloud.baseai.application.audit.dto.PageResultDTO;
 import com.cloud.baseai.domain.audit.model.SysAuditLog;
+import com.cloud.baseai.domain.audit.repository.AuditRollupRepository.Dimension;
 import com.cloud.baseai.domain.audit.repository.SysAuditLogRepository;
 import com.cloud.baseai.domain.user.service.UserInfoService;
+import com.cloud.baseai.infrastructure.audit.AuditReportStore;
+import com.cloud.baseai.infrastructure.audit.AuditRollupService;
+import com.cloud.baseai.infrastructure.audit.export.AuditExportFormat;
 import com.cloud.baseai.infrastructure.exception.AuditException;
 import com.cloud.baseai.infrastructure.exception.ErrorCode;
 import com.cloud.baseai.infrastructure.i18n.MessageManager;
 import com.cloud.baseai.infrastructure.utils.AuditUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.Getter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,12 +28,16 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -60,6 +69,8 @@ public class AuditQueryAppService {
     // 核心仓储依赖
     private final SysAuditLogRepository auditLogRepository;
     private final ObjectMapper objectMapper;
+    private final AuditReportStore reportStore;
+    private final AuditRollupService rollupService;
 
     // 可选的用户信息服务，用于丰富审计数据的显示
     @Autowired(required = false)
@@ -68,9 +79,12 @@ public class AuditQueryAppService {
     // 异步处理线程池，用于复杂统计计算
     private final ExecutorService statisticsExecutor;
 
-    // 缓存管理器，用于提高查询性能
-    private final Map<String, Object> queryCache = new HashMap<>();
+    // 查询结果缓存，会被多个请求线程并发读写
     private static final long CACHE_TTL_MINUTES = 10; // 缓存10分钟
+    private final Cache<String, PageResultDTO<AuditLogDTO>> queryCache = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(CACHE_TTL_MINUTES, TimeUnit.MINUTES)
+            .build();
 
     // 性能监控数据
     private final Map<String, Long> operationCounts = new HashMap<>();
@@ -82,9 +96,12 @@ public class AuditQueryAppService {
      * <p>在构造函数中，我们建立了必要的依赖关系，并初始化了用于性能优化的组件。
      * 这就像是为数据分析师配备专业的工具和助手。</p>
      */
-    public AuditQueryAppService(SysAuditLogRepository auditLogRepository, ObjectMapper objectMapper) {
+    public AuditQueryAppService(SysAuditLogRepository auditLogRepository, ObjectMapper objectMapper,
+                                AuditReportStore reportStore, AuditRollupService rollupService) {
         this.auditLogRepository = auditLogRepository;
         this.objectMapper = objectMapper;
+        this.reportStore = reportStore;
+        this.rollupService = rollupService;
 
         // 创建专门用于统计计算的线程池
         this.statisticsExecutor = Executors.newFixedThreadPool(
@@ -277,6 +294,9 @@ public class AuditQueryAppService {
      * <p>我们提供多个维度的统计分析，包括时间维度（按小时、天、周、月统计）、
      * 用户维度（用户活跃度、操作频率）、功能维度（各功能模块的使用情况）、
      * 安全维度（异常行为、风险事件）等。</p>
+     *
+     * <p>计数从预聚合的统计汇总表读取，并合并尚未汇总的最近一段原始日志，
+     * 耗时与审计表总大小无关。</p>
      */
     public AuditStatisticsDTO getAuditStatistics(Long tenantId, String timeRange, String dimension) {
         log.debug("获取审计统计: tenantId={}, timeRange={}, dimension={}",
@@ -293,13 +313,10 @@ public class AuditQueryAppService {
             CompletableFuture<Map<String, Long>> userActivityFuture =
                     CompletableFuture.supplyAsync(() -> calculateUserActivity(tenantId, range), statisticsExecutor);
 
-            CompletableFuture<Map<String, Long>> securityEventsFuture =
-                    CompletableFuture.supplyAsync(() -> calculateSecurityEvents(tenantId, range), statisticsExecutor);
-
             // 等待所有计算完成并合并结果
             Map<String, Long> operationCounts = operationCountsFuture.join();
             Map<String, Long> userActivity = userActivityFuture.join();
-            Map<String, Long> securityEvents = securityEventsFuture.join();
+            Map<String, Long> securityEvents = calculateSecurityEvents(operationCounts);
 
             // 计算额外的洞察信息
             Map<String, Object> insights = calculateInsights(operationCounts, userActivity, securityEvents);
@@ -335,34 +352,28 @@ public class AuditQueryAppService {
             OffsetDateTime startTime = OffsetDateTime.now().minusDays(days);
             OffsetDateTime endTime = OffsetDateTime.now();
 
-            // 查询用户在指定时间内的所有操作
-            Page<SysAuditLog> userLogs = auditLogRepository.findUserActions(
-                    userId, startTime, endTime, null,
-                    PageRequest.of(0, Integer.MAX_VALUE)
-            );
-
-            // 按操作类型统计
-            Map<String, Long> operationCounts = userLogs.getContent().stream()
-                    .collect(Collectors.groupingBy(
-                            SysAuditLog::action,
-                            Collectors.counting()
-                    ));
+            // 按操作类型统计，分组在数据库中完成
+            Map<String, Long> operationCounts = new HashMap<>();
+            for (Object[] row : auditLogRepository.countUserActionsByAction(userId, startTime, endTime)) {
+                operationCounts.put((String) row[0], ((Number) row[1]).longValue());
+            }
+            long totalOperations = operationCounts.values().stream().mapToLong(Long::longValue).sum();
 
             // 计算用户特有的统计信息
             Map<String, Object> userInsights = new HashMap<>();
-            userInsights.put("totalOperations", userLogs.getTotalElements());
-            userInsights.put("avgOperationsPerDay", Math.round((double) userLogs.getTotalElements() / days));
+            userInsights.put("totalOperations", totalOperations);
+            userInsights.put("avgOperationsPerDay", Math.round((double) totalOperations / days));
             userInsights.put("mostActiveDay", findMostActiveDay(userId, startTime, endTime));
             userInsights.put("recentSecurityEvents", countRecentSecurityEvents(userId, startTime, endTime));
 
             AuditStatisticsDTO summary = new AuditStatisticsDTO(
                     operationCounts,
-                    Map.of("user_" + userId, userLogs.getTotalElements()),
+                    Map.of("user_" + userId, totalOperations),
                     Map.of(), // 用户摘要中不显示其他用户的安全事件
                     userInsights
             );
 
-            log.debug("用户审计摘要生成完成: userId={}, totalOps={}", userId, userLogs.getTotalElements());
+            log.debug("用户审计摘要生成完成: userId={}, totalOps={}", userId, totalOperations);
             return summary;
 
         } catch (Exception e) {
@@ -407,6 +418,51 @@ public class AuditQueryAppService {
         }
     }
 
+    /**
+     * 流式导出审计日志
+     *
+     * <p>按查询条件逐行读取并写入输出流，不分页、不缓存，堆内存占用与导出行数无关。
+     * 分页参数被忽略，写完后关闭输出流。</p>
+     *
+     * @param command 查询条件
+     * @param format  导出格式
+     * @param out     输出流，通常是HTTP响应体
+     * @return 导出的行数
+     */
+    public long exportAuditLogs(AuditQueryCommand command, AuditExportFormat format, OutputStream out)
+            throws IOException {
+        if (command.tenantId() == null) {
+            throw new IllegalArgumentException(MessageManager.getMessage(ErrorCode.PARAM_011));
+        }
+        if (command.startTime() != null && command.endTime() != null
+                && command.startTime().isAfter(command.endTime())) {
+            throw AuditException.invalidTimeRange();
+        }
+
+        long startTime = System.currentTimeMillis();
+        long rows = reportStore.exportLogs(format, out, command.tenantId(), command.userId(),
+                command.startTime(), command.endTime(), command.actions());
+        recordPerformanceMetric("exportAuditLogs", startTime);
+
+        log.info("审计日志导出完成: tenantId={}, format={}, rows={}, 耗时={}ms",
+                command.tenantId(), format, rows, System.currentTimeMillis() - startTime);
+        return rows;
+    }
+
+    /**
+     * 获取已生成的报告文件
+     *
+     * @param reportId 报告ID
+     * @return 报告文件路径
+     * @throws AuditException 报告不存在或已过期时抛出
+     */
+    public Path getReportFile(String reportId) {
+        return reportStore.find(reportId)
+                .orElseThrow(() -> new AuditException(ErrorCode.BIZ_AUDIT_048,
+                        AuditException.ErrorType.BUSINESS_ERROR, AuditException.ErrorSeverity.LOW,
+                        false, null, reportId));
+    }
+
     // =================== 私有辅助方法 ===================
 
     /**
@@ -572,14 +628,7 @@ public class AuditQueryAppService {
      */
     private Map<String, Long> calculateOperationCounts(Long tenantId, TimeRange range) {
         try {
-            List<Object[]> results = auditLogRepository.countByActionAndTimeRange(
-                    range.start(), range.end());
-
-            return results.stream()
-                    .collect(Collectors.toMap(
-                            row -> (String) row[0],
-                            row -> (Long) row[1]
-                    ));
+            return rollupService.count(tenantId, Dimension.ACTION, range.start(), range.end());
         } catch (Exception e) {
             log.warn("计算操作统计失败", e);
             return new HashMap<>();
@@ -593,13 +642,11 @@ public class AuditQueryAppService {
      */
     private Map<String, Long> calculateUserActivity(Long tenantId, TimeRange range) {
         try {
-            List<Object[]> results = auditLogRepository.countByUserAndTimeRange(
-                    range.start(), range.end());
-
-            return results.stream()
+            return rollupService.count(tenantId, Dimension.USER, range.start(), range.end())
+                    .entrySet().stream()
                     .collect(Collectors.toMap(
-                            row -> "user_" + row[0],
-                            row -> (Long) row[1]
+                            entry -> "user_" + entry.getKey(),
+                            Map.Entry::getValue
                     ));
         } catch (Exception e) {
             log.warn("计算用户活动统计失败", e);
@@ -610,21 +657,14 @@ public class AuditQueryAppService {
     /**
      * 计算安全事件统计
      *
-     * <p>专门统计安全相关的事件，为安全监控提供数据支撑。</p>
+     * <p>专门统计安全相关的事件，为安全监控提供数据支撑。安全事件是特定的操作类型，
+     * 直接从操作类型统计中取数。</p>
      */
-    private Map<String, Long> calculateSecurityEvents(Long tenantId, TimeRange range) {
-        List<String> securityActions = getSecurityRelatedActions();
+    private Map<String, Long> calculateSecurityEvents(Map<String, Long> operationCounts) {
         Map<String, Long> securityCounts = new HashMap<>();
-
-        for (String action : securityActions) {
-            try {
-                // 这里应该有专门的安全事件统计方法，暂时使用模拟数据
-                securityCounts.put(action, 0L);
-            } catch (Exception e) {
-                log.warn("计算安全事件统计失败: action={}", action, e);
-            }
+        for (String action : getSecurityRelatedActions()) {
+            securityCounts.put(action, operationCounts.getOrDefault(action, 0L));
         }
-
         return securityCounts;
     }
 
@@ -667,15 +707,11 @@ public class AuditQueryAppService {
     }
 
     private PageResultDTO<AuditLogDTO> getCachedResult(String cacheKey) {
-        CacheEntry entry = (CacheEntry) queryCache.get(cacheKey);
-        if (entry != null && !entry.isExpired()) {
-            return entry.getData();
-        }
-        return null;
+        return queryCache.getIfPresent(cacheKey);
     }
 
     private void putCachedResult(String cacheKey, PageResultDTO<AuditLogDTO> result) {
-        queryCache.put(cacheKey, new CacheEntry(result));
+        queryCache.put(cacheKey, result);
     }
 
     private String generateActionDescription(SysAuditLog auditLog) {
@@ -746,9 +782,16 @@ public class AuditQueryAppService {
                 UUID.randomUUID().toString().substring(0, 8));
     }
 
-    private void generateReportAsync(String reportId, AuditQueryCommand.ReportExportCommand command) {
+    private void generateReportAsync(String reportId, AuditQueryCommand.ReportExportCommand command)
+            throws IOException {
         log.info("异步生成报告: reportId={}", reportId);
-        // 这里实现具体的报告生成逻辑
+        AuditExportFormat format = AuditExportFormat.fromName(command.format());
+        if (format == null) {
+            // PDF没有渲染器，导出为CSV明细
+            format = AuditExportFormat.CSV;
+        }
+        reportStore.exportLogs(reportId, format, command.tenantId(), null,
+                command.startTime(), command.endTime(), null);
     }
 
     private void recordPerformanceMetric(String operation, long startTime) {
@@ -757,25 +800,6 @@ public class AuditQueryAppService {
         operationTotalTime.merge(operation, duration, Long::sum);
     }
 
-    /**
-     * 缓存条目类
-     */
-    private static class CacheEntry {
-        @Getter
-        private final PageResultDTO<AuditLogDTO> data;
-        private final long timestamp;
-
-        public CacheEntry(PageResultDTO<AuditLogDTO> data) {
-            this.data = data;
-            this.timestamp = System.currentTimeMillis();
-        }
-
-        public boolean isExpired() {
-            return System.currentTimeMillis() - timestamp > CACHE_TTL_MINUTES * 60 * 1000;
-        }
-
-    }
-
     /**
      * 时间范围类
      */
@@ -5,6 +5,8 @@ import com.cloud.baseai.application.audit.dto.AuditLogDTO;
 import com.cloud.baseai.application.audit.dto.AuditReportResult;
 import com.cloud.baseai.application.audit.dto.AuditStatisticsDTO;
 import com.cloud.baseai.domain.audit.repository.SysAuditLogRepository;
+import com.cloud.baseai.infrastructure.audit.AuditReportStore;
+import com.cloud.baseai.infrastructure.audit.export.AuditExportFormat;
 import com.cloud.baseai.infrastructure.exception.AuditException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
@@ -13,6 +15,8 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
@@ -52,6 +56,7 @@ public class AuditReportAppService {
     private final SysAuditLogRepository auditLogRepository;
     private final AuditQueryAppService auditQueryService;
     private final ObjectMapper objectMapper;
+    private final AuditReportStore reportStore;
 
     /**
      * 构造函数 - 初始化报告生成器
@@ -61,10 +66,12 @@ public class AuditReportAppService {
      */
     public AuditReportAppService(SysAuditLogRepository auditLogRepository,
                                  AuditQueryAppService auditQueryService,
-                                 ObjectMapper objectMapper) {
+                                 ObjectMapper objectMapper,
+                                 AuditReportStore reportStore) {
         this.auditLogRepository = auditLogRepository;
         this.auditQueryService = auditQueryService;
         this.objectMapper = objectMapper;
+        this.reportStore = reportStore;
 
         // 注册不同类型的报告生成器
         initializeReportGenerators();
@@ -114,7 +121,7 @@ public class AuditReportAppService {
                 ReportContent content = generator.generateReport(reportData, command);
 
                 // 第五步：格式化并保存报告
-                String downloadUrl = saveReportContent(reportId, content, command.format());
+                String downloadUrl = saveReportContent(reportId, content, command);
 
                 long duration = System.currentTimeMillis() - startTime;
                 log.info("审计报告生成完成: reportId={}, 耗时={}ms, size={}bytes",
@@ -310,31 +317,17 @@ public class AuditReportAppService {
 
     /**
      * 收集报告数据
+     *
+     * <p>只收集在数据库中聚合好的统计信息，明细记录在保存报告时逐行流式写出，
+     * 不在内存中加载整个时间范围的日志。</p>
      */
     private ReportData collectReportData(AuditQueryCommand.ReportExportCommand command) {
         try {
-            // 基础查询参数
-            AuditQueryCommand queryCommand = new AuditQueryCommand(
-                    null, // userId - 查询所有用户
-                    command.tenantId(),
-                    command.startTime(),
-                    command.endTime(),
-                    null, // actions - 查询所有操作
-                    0, // page
-                    Integer.MAX_VALUE, // size - 获取所有数据
-                    "createdAt",
-                    "desc"
-            );
-
-            // 收集审计日志
-            var auditLogs = auditQueryService.queryAuditLogs(queryCommand);
-
             // 收集统计信息
             var statistics = auditQueryService.getAuditStatistics(
                     command.tenantId(), "CUSTOM", "FULL_ANALYSIS");
 
             return new ReportData(
-                    auditLogs.content(),
                     statistics,
                     command.startTime(),
                     command.endTime(),
@@ -348,20 +341,27 @@ public class AuditReportAppService {
 
     /**
      * 保存报告内容
+     *
+     * <p>CSV、EXCEL、JSONL格式把时间范围内的明细逐行流式写入报告文件；
+     * 其他格式（PDF）目前没有渲染器，保存生成器输出的文本内容。</p>
      */
-    private String saveReportContent(String reportId, ReportContent content, String format) {
+    private String saveReportContent(String reportId, ReportContent content,
+                                     AuditQueryCommand.ReportExportCommand command) {
         try {
-            // 这里应该实现实际的文件保存逻辑
-            // 可以保存到本地文件系统、云存储或数据库
+            AuditExportFormat format = AuditExportFormat.fromName(command.format());
+            Path file = format != null
+                    ? reportStore.exportLogs(reportId, format, command.tenantId(), null,
+                    command.startTime(), command.endTime(), null)
+                    : reportStore.saveText(reportId, "txt", content.content());
 
-            String fileName = String.format("%s.%s", reportId, format.toLowerCase());
             String downloadUrl = String.format("/api/v1/audit/reports/%s/download", reportId);
 
-            log.debug("报告内容已保存: fileName={}, size={}bytes", fileName, content.getSize());
+            log.debug("报告内容已保存: file={}, size={}bytes", file, Files.size(file));
 
             return downloadUrl;
 
         } catch (Exception e) {
+            log.error("保存报告内容失败: reportId={}", reportId, e);
             throw AuditException.saveReportFailed(reportId);
         }
     }
@@ -480,7 +480,7 @@ public class AuditReportAppService {
     }
 
     // 数据类定义
-    record ReportData(List<AuditLogDTO> auditLogs, AuditStatisticsDTO statistics,
+    record ReportData(AuditStatisticsDTO statistics,
                       OffsetDateTime startTime, OffsetDateTime endTime, Map<String, Object> filters) {
     }
 
@@ -0,0 +1,45 @@
+package com.cloud.baseai.application.chat.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 流式对话事件
+ *
+ * <p>事件名与SSE的event字段对应：start、step、chunk、complete、error。</p>
+ *
+ * @param event 事件名
+ * @param data  事件数据
+ */
+public record ChatStreamEvent(
+        String event,
+        Object data
+) {
+    public static ChatStreamEvent start() {
+        return new ChatStreamEvent("start", Map.of("status", "processing"));
+    }
+
+    public static ChatStreamEvent step(String step) {
+        return new ChatStreamEvent("step", Map.of("step", step, "status", "processing"));
+    }
+
+    public static ChatStreamEvent chunk(String content) {
+        return new ChatStreamEvent("chunk", Map.of("content", content));
+    }
+
+    public static ChatStreamEvent complete(ChatMessageDTO assistantMessage, List<ChatCitationDTO> citations,
+                                           List<Map<String, Object>> toolCalls,
+                                           UsageStatisticsDTO.UsageDetail usage) {
+        return new ChatStreamEvent("complete", Map.of(
+                "content", assistantMessage.content(),
+                "message", assistantMessage,
+                "citations", citations,
+                "toolCalls", toolCalls,
+                "usage", usage
+        ));
+    }
+
+    public static ChatStreamEvent error(String message) {
+        return new ChatStreamEvent("error", Map.of("error", message != null ? message : "流式处理失败"));
+    }
+}
@@ -28,16 +28,27 @@ import com.cloud.baseai.infrastructure.exception.BusinessException;
 import com.cloud.baseai.infrastructure.exception.ChatException;
 import com.cloud.baseai.infrastructure.exception.ErrorCode;
 import com.cloud.baseai.infrastructure.external.llm.factory.ChatModelFactory;
+import com.cloud.baseai.infrastructure.ratelimit.RateLimitQuota;
+import com.cloud.baseai.infrastructure.ratelimit.RateLimitService;
+import com.cloud.baseai.infrastructure.utils.KbUtils;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
-
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.*;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 /**
@@ -92,6 +103,9 @@ public class ChatApplicationService {
     @Autowired(required = false)
     private MetricsService metricsService;
 
+    @Autowired(required = false)
+    private RateLimitService rateLimitService;
+
     public ChatApplicationService(
             ChatThreadRepository threadRepo,
             ChatMessageRepository messageRepo,
@@ -412,28 +426,67 @@ public class ChatApplicationService {
     }
 
     /**
-     * 流式发送消息（异步执行流式处理）
+     * 流式发送消息
+     *
+     * <p>返回的事件序列由模型的流式响应直接驱动：查询线程、保存用户消息、知识检索等阻塞步骤在弹性线程池中执行，
+     * 生成阶段不占用线程。下游的消费速度通过请求量传递到模型调用，客户端断开时取消订阅并中断模型请求。</p>
+     *
+     * <p>生成结束时保存助手消息、引用关系和使用统计；中途被取消时保存已生成的部分内容。</p>
      *
-     * <p>流式处理提供了更流畅的用户体验。我们将生成过程分解为多个步骤，
-     * 实时向用户推送进度和部分结果。</p>
+     * <p>整个响应受最长时间限制，两个事件之间另有空闲超时；阻塞步骤在弹性线程池中沿用订阅线程的安全上下文。</p>
      */
-    @Async("chatAsyncExecutor")
-    public void sendMessageStream(Long threadId, SendMessageCommand cmd, SseEmitter emitter) {
-        log.info("开始流式消息处理: threadId={}", threadId);
-
-        try {
-            processMessageStream(threadId, cmd, emitter);
-        } catch (Exception e) {
-            log.error("流式消息处理失败: threadId={}", threadId, e);
-            try {
-                emitter.send(SseEmitter.event()
-                        .name("error")
-                        .data(Map.of("error", e.getMessage())));
-                emitter.completeWithError(e);
-            } catch (Exception sendError) {
-                log.error("发送错误事件失败", sendError);
-            }
-        }
+    public Flux<ChatStreamEvent> streamMessage(Long threadId, SendMessageCommand cmd) {
+        return Flux.defer(() -> {
+            StreamState state = new StreamState(cmd, SecurityContextHolder.getContext());
+            ChatProperties.StreamProperties streamProps = chatProps.getStream();
+            // 到达最长时间时先取消上游（中断模型请求），再以超时错误结束
+            Mono<Long> deadline = Mono.delay(Duration.ofSeconds(streamProps.getTimeoutSeconds()))
+                    .doOnNext(tick -> state.deadlineExceeded = true);
+            log.info("开始流式消息处理: threadId={}", threadId);
+
+            return Flux.concat(
+                            Flux.just(ChatStreamEvent.start()),
+                            blocking(state, () -> beginStream(state, threadId)),
+                            Flux.just(ChatStreamEvent.step("knowledge_retrieval")),
+                            blocking(state, () -> {
+                                if (cmd.enableKnowledgeRetrieval()) {
+                                    state.retrieval = performKnowledgeRetrieval(state.thread, cmd.content());
+                                }
+                            }),
+                            Flux.just(ChatStreamEvent.step("tool_calling")),
+                            blocking(state, () -> {
+                                if (cmd.enableToolCalling()) {
+                                    state.toolCalls = performToolCalling(state.thread, cmd.content());
+                                }
+                            }),
+                            Flux.just(ChatStreamEvent.step("generating")),
+                            Flux.defer(() -> chatModelFactory.streamCompletion(buildStreamContext(
+                                            state.thread, cmd, state.retrieval.contents(), state.toolCalls)))
+                                    .limitRate(streamProps.getPrefetch())
+                                    .doOnNext(state.content::append)
+                                    .map(ChatStreamEvent::chunk),
+                            Mono.fromCallable(new DelegatingSecurityContextCallable<>(
+                                            () -> finishStream(state), state.securityContext))
+                                    .subscribeOn(Schedulers.boundedElastic())
+                                    .doOnSuccess(event -> recordMetrics("message.stream", state.startTime, true))
+                    )
+                    .timeout(Duration.ofSeconds(streamProps.getIdleTimeoutSeconds()))
+                    .takeUntilOther(deadline)
+                    .concatWith(Mono.defer(() -> state.deadlineExceeded
+                            ? Mono.error(new TimeoutException(
+                                    "流式响应超过最长时间 " + streamProps.getTimeoutSeconds() + " 秒"))
+                            : Mono.empty()))
+                    .doOnCancel(() -> {
+                        log.info("客户端取消流式响应: threadId={}, 已生成{}字符", threadId, state.content.length());
+                        savePartialStream(state);
+                    })
+                    .onErrorResume(e -> {
+                        log.error("流式消息处理失败: threadId={}", threadId, e);
+                        recordMetrics("message.stream", state.startTime, false);
+                        savePartialStream(state);
+                        return Flux.just(ChatStreamEvent.error(e.getMessage()));
+                    });
+        });
     }
 
     /**
@@ -728,84 +781,77 @@ public class ChatApplicationService {
     // =================== 私有辅助方法 ===================
 
     /**
-     * 流式处理消息的核心逻辑
+     * 流式处理的前置步骤：校验线程和内容、检查速率限制、保存用户消息
      */
-    private void processMessageStream(Long threadId, SendMessageCommand cmd, SseEmitter emitter) {
-        try {
-            // 发送开始事件
-            emitter.send(SseEmitter.event()
-                    .name("start")
-                    .data(Map.of("status", "processing")));
-
-            // 验证和预处理
-            ChatThread thread = threadRepo.findById(threadId)
-                    .orElseThrow(() -> ChatException.threadNotFound(String.valueOf(threadId)));
-
-            // 发送处理步骤事件
-            emitter.send(SseEmitter.event()
-                    .name("step")
-                    .data(Map.of("step", "knowledge_retrieval", "status", "processing")));
-
-            // 执行知识检索（如果需要）
-            List<ChatCitation> citations = new ArrayList<>();
-            if (cmd.enableKnowledgeRetrieval()) {
-                citations = performKnowledgeRetrieval(thread, cmd.content());
-            }
-
-            // 发送工具调用步骤
-            emitter.send(SseEmitter.event()
-                    .name("step")
-                    .data(Map.of("step", "tool_calling", "status", "processing")));
+    private void beginStream(StreamState state, Long threadId) {
+        state.thread = threadRepo.findById(threadId)
+                .orElseThrow(() -> ChatException.threadNotFound(String.valueOf(threadId)));
+        validateMessageContent(state.cmd.content());
+        checkRateLimit(state.thread.tenantId(), state.thread.userId());
+        saveUserMessage(state.thread, state.cmd);
+    }
 
-            // 执行工具调用（如果需要）
-            List<Map<String, Object>> toolCalls = new ArrayList<>();
-            if (cmd.enableToolCalling()) {
-                toolCalls = performToolCalling(thread, cmd.content());
-            }
+    /**
+     * 保存流式生成的结果，生成完成和取消都会调用，只生效一次
+     *
+     * @return 完成事件，已保存过或尚未开始生成时返回null
+     */
+    private ChatStreamEvent finishStream(StreamState state) {
+        if (state.thread == null || !state.finished.compareAndSet(false, true)) {
+            return null;
+        }
 
-            // 发送生成步骤
-            emitter.send(SseEmitter.event()
-                    .name("step")
-                    .data(Map.of("step", "generating", "status", "processing")));
-
-            // 流式生成回复
-            StringBuilder responseBuilder = new StringBuilder();
-            chatModelFactory.generateStreamResponse(
-                    buildStreamContext(thread, cmd, citations, toolCalls),
-                    chunk -> {
-                        try {
-                            responseBuilder.append(chunk);
-                            emitter.send(SseEmitter.event()
-                                    .name("chunk")
-                                    .data(Map.of("content", chunk)));
-                        } catch (Exception e) {
-                            log.error("发送流式数据失败", e);
-                        }
-                    }
-            );
+        ChatThread thread = state.thread;
+        String content = state.content.toString();
+        String prompt = state.cmd.content() + String.join("\n", state.retrieval.contents());
+        int tokenIn = KbUtils.estimateTokenCount(prompt, KbUtils.detectLanguage(prompt));
+        int tokenOut = KbUtils.estimateTokenCount(content, KbUtils.detectLanguage(content));
+        int latencyMs = (int) (System.currentTimeMillis() - state.startTime);
+
+        ChatMessage assistantMessage = ChatMessage.create(
+                thread.id(), MessageRole.ASSISTANT, content, null, thread.userId(), thread.userId()
+        ).updateUsage(tokenIn, tokenOut, latencyMs);
+        assistantMessage = messageRepo.save(assistantMessage);
+
+        List<ChatCitation> citations = new ArrayList<>(state.retrieval.citations().size());
+        for (ChatCitation citation : state.retrieval.citations()) {
+            citations.add(citationRepo.save(citation.setMessageId(assistantMessage.id())));
+        }
 
-            // 发送完成事件
-            emitter.send(SseEmitter.event()
-                    .name("complete")
-                    .data(Map.of(
-                            "content", responseBuilder.toString(),
-                            "citations", citations,
-                            "toolCalls", toolCalls
-                    )));
+        UsageStatisticsDTO.UsageDetail usage = new UsageStatisticsDTO.UsageDetail(
+                tokenIn, tokenOut, usageService.calculateCost(thread.defaultModel(), tokenIn, tokenOut));
+        saveUsageStatistics(thread, usage);
 
-            emitter.complete();
+        return ChatStreamEvent.complete(
+                toChatMessageDTO(assistantMessage),
+                citations.stream().map(this::toCitationDTO).collect(Collectors.toList()),
+                state.toolCalls,
+                usage
+        );
+    }
 
-        } catch (Exception e) {
-            log.error("流式处理失败", e);
+    /**
+     * 取消或出错时保存已生成的部分内容
+     */
+    private void savePartialStream(StreamState state) {
+        if (state.content.isEmpty()) {
+            return;
+        }
+        Schedulers.boundedElastic().schedule(new DelegatingSecurityContextRunnable(() -> {
             try {
-                emitter.send(SseEmitter.event()
-                        .name("error")
-                        .data(Map.of("error", e.getMessage())));
-                emitter.completeWithError(e);
-            } catch (Exception sendError) {
-                log.error("发送错误事件失败", sendError);
+                finishStream(state);
+            } catch (Exception e) {
+                log.error("保存部分流式响应失败: threadId={}", state.thread.id(), e);
             }
-        }
+        }, state.securityContext));
+    }
+
+    /**
+     * 在弹性线程池中执行阻塞步骤，不产生事件
+     */
+    private static Mono<ChatStreamEvent> blocking(StreamState state, Runnable action) {
+        return Mono.<ChatStreamEvent>fromRunnable(new DelegatingSecurityContextRunnable(action, state.securityContext))
+                .subscribeOn(Schedulers.boundedElastic());
     }
 
     /**
@@ -825,9 +871,11 @@ public class ChatApplicationService {
      * 检查速率限制
      */
     private void checkRateLimit(Long tenantId, Long userId) {
-        // 实现速率限制检查逻辑
-        int recentMessages = messageRepo.countRecentMessages(userId, 60);
-        if (recentMessages >= limitProps.getGlobal().getRequestsPerHour()) {
+        // 按租户等级的每小时消息数限流，计数在Redis中，不再查询消息表
+        if (rateLimitService == null || !Boolean.TRUE.equals(limitProps.getEnabled())) {
+            return;
+        }
+        if (!rateLimitService.tryAcquire(RateLimitQuota.CHAT_MESSAGES, tenantId, "u:" + userId, 1)) {
             throw new ChatException(ErrorCode.BIZ_CHAT_032);
         }
     }
@@ -910,7 +958,9 @@ public class ChatApplicationService {
 
         // 知识检索
         if (strategy.useKnowledgeRetrieval) {
-            context.citations = performKnowledgeRetrieval(thread, userMessage.content());
+            KnowledgeRetrieval retrieval = performKnowledgeRetrieval(thread, userMessage.content());
+            context.citations = retrieval.citations();
+            context.knowledgeContents = retrieval.contents();
         }
 
         // 工具调用
@@ -928,8 +978,10 @@ public class ChatApplicationService {
 
     /**
      * 执行知识检索
+     *
+     * <p>向量搜索结果已携带知识块正文，直接作为知识上下文使用，不再逐个回查知识块。</p>
      */
-    private List<ChatCitation> performKnowledgeRetrieval(ChatThread thread, String content) {
+    private KnowledgeRetrieval performKnowledgeRetrieval(ChatThread thread, String content) {
         try {
             var searchCmd = new VectorSearchCommand(
                     thread.tenantId(),
@@ -942,18 +994,24 @@ public class ChatApplicationService {
 
             var searchResults = kbService.vectorSearch(searchCmd);
 
-            return searchResults.stream()
-                    .map(result -> ChatCitation.create(
-                            null, // messageId 稍后设置
-                            result.chunkId(),
-                            result.score(),
-                            kbProps.getEmbedding().getDefaultModel()
-                    ))
-                    .collect(Collectors.toList());
+            List<ChatCitation> citations = new ArrayList<>(searchResults.size());
+            List<String> contents = new ArrayList<>(searchResults.size());
+            for (var result : searchResults) {
+                citations.add(ChatCitation.create(
+                        null, // messageId 稍后设置
+                        result.chunkId(),
+                        result.score(),
+                        kbProps.getEmbedding().getDefaultModel()
+                ));
+                if (result.text() != null) {
+                    contents.add(result.text());
+                }
+            }
+            return new KnowledgeRetrieval(citations, contents);
 
         } catch (Exception e) {
             log.warn("知识检索失败: {}", e.getMessage());
-            return new ArrayList<>();
+            return KnowledgeRetrieval.empty();
         }
     }
 
@@ -1092,12 +1150,8 @@ public class ChatApplicationService {
                 .collect(Collectors.toList()));
 
         // 知识上下文
-        if (!context.citations.isEmpty()) {
-            List<String> knowledgeContext = context.citations.stream()
-                    .map(citation -> getChunkContent(citation.chunkId()))
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
-            llmContext.put("knowledgeContext", knowledgeContext);
+        if (!context.knowledgeContents.isEmpty()) {
+            llmContext.put("knowledgeContext", context.knowledgeContents);
         }
 
         // 工具调用结果
@@ -1117,7 +1171,7 @@ public class ChatApplicationService {
      * 构建流式上下文
      */
     private Map<String, Object> buildStreamContext(ChatThread thread, SendMessageCommand cmd,
-                                                   List<ChatCitation> citations,
+                                                   List<String> knowledgeContents,
                                                    List<Map<String, Object>> toolCalls) {
         Map<String, Object> context = new HashMap<>();
 
@@ -1129,12 +1183,8 @@ public class ChatApplicationService {
         context.put("currentMessage", cmd.content());
 
         // 添加知识上下文
-        if (!citations.isEmpty()) {
-            List<String> knowledgeContext = citations.stream()
-                    .map(citation -> getChunkContent(citation.chunkId()))
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
-            context.put("knowledgeContext", knowledgeContext);
+        if (!knowledgeContents.isEmpty()) {
+            context.put("knowledgeContext", knowledgeContents);
         }
 
         // 添加工具结果
@@ -1145,19 +1195,6 @@ public class ChatApplicationService {
         return context;
     }
 
-    /**
-     * 获取知识块内容
-     */
-    private String getChunkContent(Long chunkId) {
-        try {
-            var chunkDetail = kbService.getChunkDetail(chunkId);
-            return chunkDetail.text();
-        } catch (Exception e) {
-            log.warn("获取知识块内容失败: chunkId={}", chunkId);
-            return null;
-        }
-    }
-
     /**
      * 保存使用统计
      */
@@ -1282,8 +1319,38 @@ public class ChatApplicationService {
      */
     private static class ChatResponseContext {
         List<ChatCitation> citations = new ArrayList<>();
+        List<String> knowledgeContents = new ArrayList<>();
         List<Map<String, Object>> toolCalls = new ArrayList<>();
         Map<String, Object> flowResult = new HashMap<>();
         UsageStatisticsDTO.UsageDetail usage;
     }
+
+    /**
+     * 单次流式响应的状态
+     */
+    private static class StreamState {
+        final SendMessageCommand cmd;
+        final SecurityContext securityContext;
+        final long startTime = System.currentTimeMillis();
+        final StringBuffer content = new StringBuffer();
+        final AtomicBoolean finished = new AtomicBoolean();
+        volatile boolean deadlineExceeded;
+        volatile ChatThread thread;
+        volatile KnowledgeRetrieval retrieval = KnowledgeRetrieval.empty();
+        volatile List<Map<String, Object>> toolCalls = new ArrayList<>();
+
+        StreamState(SendMessageCommand cmd, SecurityContext securityContext) {
+            this.cmd = cmd;
+            this.securityContext = securityContext;
+        }
+    }
+
+    /**
+     * 知识检索结果：引用关系和对应的知识块正文
+     */
+    private record KnowledgeRetrieval(List<ChatCitation> citations, List<String> contents) {
+        static KnowledgeRetrieval empty() {
+            return new KnowledgeRetrieval(new ArrayList<>(), new ArrayList<>());
+        }
+    }
 }
\ No newline at end of file
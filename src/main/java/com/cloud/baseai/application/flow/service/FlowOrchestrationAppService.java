@@ -11,6 +11,7 @@ import com.cloud.baseai.domain.user.service.UserInfoService;
 import com.cloud.baseai.infrastructure.exception.BusinessException;
 import com.cloud.baseai.infrastructure.exception.ErrorCode;
 import com.cloud.baseai.infrastructure.exception.FlowOrchestrationException;
+import com.cloud.baseai.infrastructure.flow.service.FlowPlanCache;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,6 +58,7 @@ public class FlowOrchestrationAppService {
     // 领域服务
     private final FlowBuildService buildService;
     private final FlowExecutionService executionService;
+    private final FlowPlanCache planCache;
 
     // 可选服务
     @Autowired(required = false)
@@ -74,7 +76,8 @@ public class FlowOrchestrationAppService {
             FlowRunRepository runRepo,
             FlowRunLogRepository runLogRepo,
             FlowBuildService buildService,
-            FlowExecutionService executionService) {
+            FlowExecutionService executionService,
+            FlowPlanCache planCache) {
 
         this.projectRepo = projectRepo;
         this.definitionRepo = definitionRepo;
@@ -85,6 +88,7 @@ public class FlowOrchestrationAppService {
         this.runLogRepo = runLogRepo;
         this.buildService = buildService;
         this.executionService = executionService;
+        this.planCache = planCache;
     }
 
     // =================== 项目管理接口实现 ===================
@@ -397,6 +401,9 @@ public class FlowOrchestrationAppService {
             );
             snapshotRepo.save(snapshot);
 
+            // 重新发布后旧版本快照不再执行，释放其编译计划
+            planCache.invalidateDefinition(definition.id());
+
             recordMetrics("flow.publish", startTime, true);
             return toDefinitionDTO(definition);
 
@@ -16,6 +16,7 @@ import java.time.OffsetDateTime;
  * @param langCode      语言代码
  * @param parsingStatus 解析状态标签
  * @param chunkCount    知识块数量
+ * @param embeddedCount 已生成向量的知识块数量
  * @param createdBy     创建人ID
  * @param creatorName   创建人姓名（可选）
  * @param createdAt     创建时间
@@ -30,6 +31,7 @@ public record DocumentDTO(
         String langCode,
         String parsingStatus,
         Integer chunkCount,
+        Integer embeddedCount,
         Long createdBy,
         String creatorName,
         OffsetDateTime createdAt,
@@ -49,7 +51,7 @@ public record DocumentDTO(
                                     String parsingStatus, Integer chunkCount) {
         return new DocumentDTO(
                 id, title, sourceType, null, null, null, parsingStatus,
-                chunkCount, null, null, null, null
+                chunkCount, null, null, null, null, null
         );
     }
 
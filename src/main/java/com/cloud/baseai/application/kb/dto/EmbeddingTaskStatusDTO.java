@@ -0,0 +1,60 @@
+package com.cloud.baseai.application.kb.dto;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * <h2>向量生成任务进度</h2>
+ *
+ * <p>按 taskId 汇总同一批次下所有文档任务的进度。</p>
+ *
+ * @param taskId             任务批次ID
+ * @param status             整体状态：PENDING、RUNNING、COMPLETED、FAILED，部分文档失败时为PARTIAL_FAILED
+ * @param totalDocuments     文档总数
+ * @param completedDocuments 已完成的文档数
+ * @param failedDocuments    失败的文档数
+ * @param totalChunks        知识块总数
+ * @param processedChunks    已成功生成向量的知识块数
+ * @param failedChunks       生成失败的知识块数
+ * @param progress           0到1之间的整体进度
+ * @param documents          各文档任务的明细
+ */
+public record EmbeddingTaskStatusDTO(
+        String taskId,
+        String status,
+        int totalDocuments,
+        int completedDocuments,
+        int failedDocuments,
+        long totalChunks,
+        long processedChunks,
+        long failedChunks,
+        double progress,
+        List<DocumentJob> documents
+) {
+
+    /**
+     * 单个文档任务的进度
+     *
+     * @param documentId      文档ID
+     * @param status          任务状态
+     * @param totalChunks     知识块总数
+     * @param processedChunks 已成功处理数
+     * @param failedChunks    失败数
+     * @param attempts        已领取次数
+     * @param lastError       最近一次错误
+     * @param startedAt       开始时间
+     * @param finishedAt      结束时间
+     */
+    public record DocumentJob(
+            Long documentId,
+            String status,
+            int totalChunks,
+            int processedChunks,
+            int failedChunks,
+            int attempts,
+            String lastError,
+            OffsetDateTime startedAt,
+            OffsetDateTime finishedAt
+    ) {
+    }
+}
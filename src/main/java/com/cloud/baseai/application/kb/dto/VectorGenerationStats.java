@@ -7,13 +7,19 @@ import java.util.List;
  *
  * <p>详细记录了生成过程中的成功与失败情况。</p>
  *
- * @param successCount 成功生成向量的数量
- * @param failureCount 生成失败的数量
- * @param errors       详细的错误信息列表，每个错误包含具体失败的原因
+ * @param successCount   成功生成向量的数量
+ * @param failureCount   生成失败的数量
+ * @param errors         详细的错误信息列表，每个错误包含具体失败的原因
+ * @param failedChunkIds 失败或被取消、没有生成向量的知识块ID
  */
 public record VectorGenerationStats(
         int successCount,
         int failureCount,
-        List<String> errors
+        List<String> errors,
+        List<Long> failedChunkIds
 ) {
+
+    public VectorGenerationStats(int successCount, int failureCount, List<String> errors) {
+        this(successCount, failureCount, errors, List.of());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,298 @@
+package com.cloud.baseai.application.kb.service;
+
+import com.cloud.baseai.application.kb.dto.VectorGenerationStats;
+import com.cloud.baseai.domain.kb.model.Chunk;
+import com.cloud.baseai.domain.kb.model.Embedding;
+import com.cloud.baseai.domain.kb.repository.DocumentRepository;
+import com.cloud.baseai.domain.kb.repository.EmbeddingRepository;
+import com.cloud.baseai.infrastructure.config.properties.KnowledgeBaseProperties;
+import com.cloud.baseai.infrastructure.exception.BusinessException;
+import com.cloud.baseai.infrastructure.exception.ErrorCode;
+import com.cloud.baseai.infrastructure.external.llm.factory.EmbeddingModelFactory;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <h2>向量生成流水线</h2>
+ *
+ * <p>将文档的知识块按提供商允许的批量大小切分，并发调用嵌入模型，完成一批就落库一批。
+ * 相比逐个知识块串行调用，2000个知识块的文档只需要十几次请求。</p>
+ *
+ * <p><b>流水线特性：</b></p>
+ * <ul>
+ * <li><b>按提供商分批：</b>批量大小取自 provider-batch-sizes，未配置时使用 batch-size</li>
+ * <li><b>并发上限：</b>同一提供商在全局范围内最多 max-in-flight-batches 个批次同时请求，多个文档共享该额度</li>
+ * <li><b>批次重试：</b>失败的批次按指数退避重试；重试耗尽时取消其余批次，不再继续消耗提供商调用</li>
+ * <li><b>流式落库：</b>完成的批次立即通过 {@link EmbeddingRepository#saveAll} 保存并按已有向量刷新文档进度</li>
+ * </ul>
+ *
+ * <p>模型调用在流水线自有的虚拟线程上执行，落库始终在调用线程上完成，
+ * 因此调用方的事务边界保持不变；调用线程即使来自知识库线程池，也不会因等待同一线程池中的批次而饿死。</p>
+ */
+@Component
+public class EmbeddingIngestionPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingIngestionPipeline.class);
+
+    private final EmbeddingModelFactory embeddingFactory;
+    private final EmbeddingRepository embeddingRepo;
+    private final DocumentRepository documentRepo;
+    private final KnowledgeBaseProperties.EmbeddingProperties props;
+
+    private final ExecutorService providerCallExecutor;
+    private final ConcurrentMap<String, Semaphore> providerPermits = new ConcurrentHashMap<>();
+
+    public EmbeddingIngestionPipeline(EmbeddingModelFactory embeddingFactory,
+                                      EmbeddingRepository embeddingRepo,
+                                      DocumentRepository documentRepo,
+                                      KnowledgeBaseProperties kbProps) {
+        this(embeddingFactory, embeddingRepo, documentRepo, kbProps, Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    EmbeddingIngestionPipeline(EmbeddingModelFactory embeddingFactory,
+                               EmbeddingRepository embeddingRepo,
+                               DocumentRepository documentRepo,
+                               KnowledgeBaseProperties kbProps,
+                               ExecutorService providerCallExecutor) {
+        this.embeddingFactory = embeddingFactory;
+        this.embeddingRepo = embeddingRepo;
+        this.documentRepo = documentRepo;
+        this.props = kbProps.getEmbedding();
+        this.providerCallExecutor = providerCallExecutor;
+    }
+
+    /**
+     * 为一组知识块生成并保存向量
+     *
+     * @param documentId 所属文档ID，用于记录进度，可以为null
+     * @param chunks     已持久化的知识块
+     * @param modelCode  嵌入模型代码
+     * @param userId     操作人ID
+     * @return 生成统计
+     */
+    public VectorGenerationStats run(Long documentId, List<Chunk> chunks, String modelCode, Long userId) {
+        if (chunks == null || chunks.isEmpty()) {
+            return new VectorGenerationStats(0, 0, List.of());
+        }
+
+        long startTime = System.currentTimeMillis();
+        String provider = embeddingFactory.resolveProvider(modelCode);
+        int batchSize = props.getProviderBatchSizes().getOrDefault(provider, props.getBatchSize());
+        Semaphore permits = providerPermits.computeIfAbsent(provider,
+                p -> new Semaphore(props.getMaxInFlightBatches()));
+
+        List<List<Chunk>> batches = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i += batchSize) {
+            batches.add(chunks.subList(i, Math.min(i + batchSize, chunks.size())));
+        }
+
+        BlockingQueue<Future<BatchResult>> completed = new LinkedBlockingQueue<>();
+        Map<Future<BatchResult>, Integer> outstanding = new HashMap<>();
+        List<Long> failedChunkIds = new ArrayList<>();
+        int nextBatch = 0;
+        int inFlight = 0;
+        int successCount = 0;
+        int failureCount = 0;
+        List<String> errors = new ArrayList<>();
+
+        try {
+            while (nextBatch < batches.size() || inFlight > 0) {
+                // 尽量填满并发窗口；窗口为空时阻塞等待额度，避免空转
+                while (nextBatch < batches.size()) {
+                    if (inFlight == 0) {
+                        permits.acquire();
+                    } else if (!permits.tryAcquire()) {
+                        break;
+                    }
+                    int batchNo = nextBatch++;
+                    List<Chunk> batch = batches.get(batchNo);
+                    Future<BatchResult> future = submitBatch(permits, completed,
+                            () -> embedWithRetry(batchNo, batch, modelCode, userId));
+                    outstanding.put(future, batchNo);
+                    inFlight++;
+                }
+
+                Future<BatchResult> done = completed.take();
+                outstanding.remove(done);
+                BatchResult result = done.get();
+                inFlight--;
+
+                if (result.embeddings() != null) {
+                    successCount += save(documentId, modelCode, result.embeddings());
+                    continue;
+                }
+
+                // 重试耗尽说明提供商或模型持续不可用，取消其余批次，已经完成的批次照常保存
+                failureCount += result.size();
+                addChunkIds(failedChunkIds, batches.get(result.batchNo()));
+                errors.add("批次 " + (result.batchNo() + 1) + " 失败: " + result.error());
+                int skipped = 0;
+                for (Map.Entry<Future<BatchResult>, Integer> entry : outstanding.entrySet()) {
+                    Future<BatchResult> other = entry.getKey();
+                    List<Chunk> otherBatch = batches.get(entry.getValue());
+                    if (other.cancel(true)) {
+                        skipped += otherBatch.size();
+                        addChunkIds(failedChunkIds, otherBatch);
+                        continue;
+                    }
+                    BatchResult finished = other.get();
+                    if (finished.embeddings() != null) {
+                        successCount += save(documentId, modelCode, finished.embeddings());
+                    } else {
+                        skipped += finished.size();
+                        addChunkIds(failedChunkIds, otherBatch);
+                    }
+                }
+                outstanding.clear();
+                for (int i = nextBatch; i < batches.size(); i++) {
+                    skipped += batches.get(i).size();
+                    addChunkIds(failedChunkIds, batches.get(i));
+                }
+                if (skipped > 0) {
+                    failureCount += skipped;
+                    errors.add("已取消其余 " + skipped + " 个知识块的向量生成");
+                }
+                break;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw BusinessException.builder(ErrorCode.BIZ_KB_035)
+                    .cause(e)
+                    .context("documentId", documentId)
+                    .build();
+        } catch (ExecutionException e) {
+            // embedWithRetry 自身捕获了调用异常，这里只会是意料之外的错误
+            throw BusinessException.builder(ErrorCode.BIZ_KB_033)
+                    .cause(e.getCause())
+                    .context("documentId", documentId)
+                    .build();
+        } finally {
+            // 异常退出时不再为已提交的批次付费
+            outstanding.keySet().forEach(future -> future.cancel(true));
+        }
+
+        log.info("向量生成完成: documentId={}, model={}, provider={}, 批次={}, 成功={}, 失败={}, 耗时{}ms",
+                documentId, modelCode, provider, batches.size(), successCount, failureCount,
+                System.currentTimeMillis() - startTime);
+        return new VectorGenerationStats(successCount, failureCount, errors, failedChunkIds);
+    }
+
+    private static void addChunkIds(List<Long> ids, List<Chunk> batch) {
+        batch.forEach(chunk -> ids.add(chunk.id()));
+    }
+
+    private int save(Long documentId, String modelCode, List<Embedding> embeddings) {
+        embeddingRepo.saveAll(embeddings);
+        if (documentId != null) {
+            documentRepo.refreshEmbeddedCount(documentId, modelCode);
+        }
+        return embeddings.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        providerCallExecutor.shutdownNow();
+    }
+
+    /**
+     * 提供商当前剩余的并发批次额度
+     */
+    int availablePermits(String provider) {
+        Semaphore permits = providerPermits.get(provider);
+        return permits != null ? permits.availablePermits() : props.getMaxInFlightBatches();
+    }
+
+    /**
+     * 提交一个已占用提供商额度的批次，完成或取消后放入完成队列
+     *
+     * <p>额度随批次一起归还：已开始的批次在线程结束时归还，开始前被取消或提交被拒绝的批次
+     * 不会再执行，由取消回调或提交方归还，否则这份额度会永久丢失，之后同一提供商的入库都会阻塞。</p>
+     */
+    private Future<BatchResult> submitBatch(Semaphore permits, BlockingQueue<Future<BatchResult>> completed,
+                                            Callable<BatchResult> body) {
+        AtomicBoolean settled = new AtomicBoolean();
+        FutureTask<BatchResult> task = new FutureTask<>(() -> {
+            if (!settled.compareAndSet(false, true)) {
+                return null;
+            }
+            try {
+                return body.call();
+            } finally {
+                permits.release();
+            }
+        }) {
+            @Override
+            protected void done() {
+                if (isCancelled() && settled.compareAndSet(false, true)) {
+                    permits.release();
+                }
+                completed.add(this);
+            }
+        };
+        try {
+            providerCallExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            if (settled.compareAndSet(false, true)) {
+                permits.release();
+            }
+            throw e;
+        }
+        return task;
+    }
+
+    private BatchResult embedWithRetry(int batchNo, List<Chunk> batch, String modelCode, Long userId)
+            throws InterruptedException {
+        List<String> texts = batch.stream().map(Chunk::text).toList();
+        int maxAttempts = Math.max(1, props.getMaxAttempts());
+        Exception lastError = null;
+
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                List<float[]> vectors = embeddingFactory.generateEmbeddings(texts, modelCode);
+                if (vectors.size() != batch.size()) {
+                    throw new IllegalStateException(String.format("返回向量数量不匹配，期望%d，实际%d",
+                            batch.size(), vectors.size()));
+                }
+
+                List<Embedding> embeddings = new ArrayList<>(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    Chunk chunk = batch.get(i);
+                    embeddings.add(Embedding.create(chunk.id(), modelCode, chunk.vectorVersion(), vectors.get(i), userId));
+                }
+                return new BatchResult(batchNo, batch.size(), embeddings, null);
+
+            } catch (Exception e) {
+                // 批次被取消时直接结束，不再重试
+                if (e instanceof InterruptedException || Thread.currentThread().isInterrupted()) {
+                    throw e instanceof InterruptedException ie ? ie : new InterruptedException();
+                }
+                lastError = e;
+                if (attempt < maxAttempts) {
+                    long backoff = props.getRetryBackoffMillis() << (attempt - 1);
+                    long jitter = ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+                    log.warn("向量生成批次失败，{}ms后重试({}/{}): batch={}, error={}",
+                            backoff + jitter, attempt, maxAttempts, batchNo + 1, e.getMessage());
+                    Thread.sleep(backoff + jitter);
+                }
+            }
+        }
+
+        log.error("向量生成批次最终失败: batch={}, size={}", batchNo + 1, batch.size(), lastError);
+        return new BatchResult(batchNo, batch.size(), null, lastError.getMessage());
+    }
+
+    /**
+     * 单个批次的处理结果，embeddings为null表示失败
+     */
+    private record BatchResult(int batchNo, int size, List<Embedding> embeddings, String error) {
+    }
+}
@@ -0,0 +1,259 @@
+package com.cloud.baseai.application.kb.service;
+
+import com.cloud.baseai.application.kb.dto.VectorGenerationStats;
+import com.cloud.baseai.domain.kb.model.Chunk;
+import com.cloud.baseai.domain.kb.model.EmbeddingJob;
+import com.cloud.baseai.domain.kb.repository.ChunkRepository;
+import com.cloud.baseai.domain.kb.repository.EmbeddingJobRepository;
+import com.cloud.baseai.infrastructure.config.properties.KnowledgeBaseProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <h2>向量生成任务消费者</h2>
+ *
+ * <p>定时从 kb_embedding_jobs 领取任务，在专用的有界线程池中执行，线程池已满时任务立即退回队列。每个任务按知识块ID分页读取，
+ * 一页交给 {@link EmbeddingIngestionPipeline} 生成向量后推进检查点。执行中的任务由独立的定时心跳续约，
+ * 单页处理时间超过租约时长也不会被其他节点接管；续约失败的任务在当前页结束后停止。</p>
+ *
+ * <p><b>恢复语义：</b>节点崩溃时，正在处理的那一页没有推进检查点，租约过期后由其他节点从检查点重新处理该页。
+ * 向量按知识块和模型覆盖写入，文档进度按已有向量重新计算，重复处理同一页不会产生重复数据或重复计数，
+ * 已推进检查点的页不会再次调用模型。节点正常停止时任务退回队列，不消耗尝试次数。</p>
+ *
+ * <p>一页中有知识块生成失败（包括因此被取消的批次）时，检查点只推进到第一个失败的知识块之前，
+ * 任务按指数退避退回队列，下次尝试从失败处继续，直到达到最大尝试次数后标记失败。
+ * 检查点之后还有没生成向量的知识块时，任务不会被标记完成。</p>
+ *
+ * <p>每个模型的处理速率受 model-chunks-per-second 限制，用于避免批量任务耗尽提供商配额。</p>
+ */
+@Component
+public class EmbeddingJobWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingJobWorker.class);
+
+    private final EmbeddingJobRepository jobRepo;
+    private final ChunkRepository chunkRepo;
+    private final EmbeddingIngestionPipeline embeddingPipeline;
+    private final KnowledgeBaseProperties.EmbeddingJobProperties props;
+    private final AsyncTaskExecutor executor;
+    private final ModelThroughputLimiter throughputLimiter;
+
+    private final String workerId;
+    private final AtomicInteger activeJobs = new AtomicInteger();
+
+    /**
+     * 本节点持有租约的任务，value为false表示续约失败、租约已被接管
+     */
+    private final ConcurrentMap<Long, Boolean> leases = new ConcurrentHashMap<>();
+    private final Counter processedCounter;
+    private final Counter failedCounter;
+    private volatile boolean stopping;
+
+    public EmbeddingJobWorker(EmbeddingJobRepository jobRepo,
+                              ChunkRepository chunkRepo,
+                              EmbeddingIngestionPipeline embeddingPipeline,
+                              KnowledgeBaseProperties kbProps,
+                              @Qualifier("embeddingJobExecutor") AsyncTaskExecutor executor,
+                              MeterRegistry meterRegistry) {
+        this.jobRepo = jobRepo;
+        this.chunkRepo = chunkRepo;
+        this.embeddingPipeline = embeddingPipeline;
+        this.props = kbProps.getEmbeddingJob();
+        this.executor = executor;
+        this.throughputLimiter = new ModelThroughputLimiter(model ->
+                props.getModelChunksPerSecond().getOrDefault(model, props.getDefaultChunksPerSecond()));
+        this.workerId = resolveHostName() + ":" + UUID.randomUUID().toString().substring(0, 8);
+
+        Gauge.builder("kb.embedding.jobs.active", activeJobs, AtomicInteger::get)
+                .description("本节点正在执行的向量生成任务数")
+                .register(meterRegistry);
+        this.processedCounter = Counter.builder("kb.embedding.jobs.chunks")
+                .tag("result", "success")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("kb.embedding.jobs.chunks")
+                .tag("result", "failure")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 按空闲槽位领取任务
+     */
+    @Scheduled(fixedDelayString = "${baseai.knowledge-base.embedding-job.poll-interval-ms:2000}")
+    public void poll() {
+        if (!props.getEnabled() || stopping) {
+            return;
+        }
+        int freeSlots = props.getWorkerConcurrency() - activeJobs.get();
+        if (freeSlots <= 0) {
+            return;
+        }
+
+        List<EmbeddingJob> jobs;
+        try {
+            jobs = jobRepo.claim(workerId, freeSlots, props.getLeaseSeconds(), props.getMaxAttempts());
+        } catch (Exception e) {
+            log.warn("领取向量生成任务失败: {}", e.getMessage());
+            return;
+        }
+
+        for (EmbeddingJob job : jobs) {
+            activeJobs.incrementAndGet();
+            try {
+                executor.execute(() -> {
+                    try {
+                        execute(job);
+                    } finally {
+                        activeJobs.decrementAndGet();
+                    }
+                });
+            } catch (RuntimeException e) {
+                activeJobs.decrementAndGet();
+                jobRepo.release(job.id(), workerId, "任务提交失败: " + e.getMessage(), props.getMaxAttempts(), 0);
+            }
+        }
+    }
+
+    /**
+     * 为执行中的任务续约
+     */
+    @Scheduled(fixedDelayString = "${baseai.knowledge-base.embedding-job.lease-renew-interval-ms:30000}")
+    public void renewLeases() {
+        leases.forEach((jobId, held) -> {
+            if (!held) {
+                return;
+            }
+            try {
+                if (!jobRepo.renew(jobId, workerId, props.getLeaseSeconds())) {
+                    leases.replace(jobId, true, false);
+                    log.warn("向量生成任务续约失败，租约已被接管: jobId={}", jobId);
+                }
+            } catch (Exception e) {
+                // 暂时失败时保留租约，下次心跳再试
+                log.warn("向量生成任务续约异常: jobId={}, error={}", jobId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 从检查点开始逐页处理一个任务
+     */
+    void execute(EmbeddingJob job) {
+        log.info("开始执行向量生成任务: jobId={}, documentId={}, checkpoint={}, attempt={}",
+                job.id(), job.documentId(), job.lastChunkId(), job.attempts());
+
+        long checkpoint = job.lastChunkId();
+        leases.put(job.id(), true);
+        try {
+            while (!stopping) {
+                if (!leases.getOrDefault(job.id(), false)) {
+                    log.warn("向量生成任务租约已被接管，停止处理: jobId={}", job.id());
+                    return;
+                }
+                List<Chunk> page = chunkRepo.findByDocumentIdAfter(job.documentId(), checkpoint, props.getPageSize());
+                if (page.isEmpty()) {
+                    jobRepo.complete(job.id(), workerId);
+                    log.info("向量生成任务完成: jobId={}, documentId={}", job.id(), job.documentId());
+                    return;
+                }
+
+                throughputLimiter.acquire(job.modelCode(), page.size());
+                VectorGenerationStats stats = embeddingPipeline.run(
+                        job.documentId(), page, job.modelCode(), job.createdBy());
+                processedCounter.increment(stats.successCount());
+                failedCounter.increment(stats.failureCount());
+
+                if (stats.failureCount() > 0) {
+                    retryFromFirstFailure(job, page, checkpoint, stats);
+                    return;
+                }
+
+                checkpoint = page.getLast().id();
+                if (!jobRepo.checkpoint(job.id(), workerId, checkpoint,
+                        stats.successCount(), stats.failureCount(), props.getLeaseSeconds())) {
+                    log.warn("向量生成任务租约已被接管，停止处理: jobId={}", job.id());
+                    return;
+                }
+            }
+            jobRepo.requeue(job.id(), workerId, "节点停止");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            jobRepo.requeue(job.id(), workerId, "任务被中断");
+        } catch (Exception e) {
+            log.error("向量生成任务失败: jobId={}, documentId={}", job.id(), job.documentId(), e);
+            jobRepo.release(job.id(), workerId, e.getMessage(), props.getMaxAttempts(), backoffSeconds(job));
+        } finally {
+            leases.remove(job.id());
+        }
+    }
+
+    /**
+     * 检查点推进到第一个失败的知识块之前，任务按退避时间退回队列
+     *
+     * <p>失败处之后已成功的知识块在下次尝试中会被重新处理，向量按知识块和模型覆盖写入，不会重复。</p>
+     */
+    private void retryFromFirstFailure(EmbeddingJob job, List<Chunk> page, long checkpoint,
+                                       VectorGenerationStats stats) {
+        long firstFailed = stats.failedChunkIds().stream()
+                .mapToLong(Long::longValue)
+                .min()
+                .orElse(page.getFirst().id());
+        long resumeAfter = checkpoint;
+        int processed = 0;
+        for (Chunk chunk : page) {
+            if (chunk.id() >= firstFailed) {
+                break;
+            }
+            resumeAfter = chunk.id();
+            processed++;
+        }
+
+        if (!jobRepo.checkpoint(job.id(), workerId, resumeAfter,
+                processed, stats.failureCount(), props.getLeaseSeconds())) {
+            log.warn("向量生成任务租约已被接管，停止处理: jobId={}", job.id());
+            return;
+        }
+        String error = stats.failureCount() + " 个知识块生成失败"
+                + (stats.errors().isEmpty() ? "" : ": " + String.join("; ", stats.errors()));
+        int backoff = backoffSeconds(job);
+        log.warn("向量生成任务部分失败，{}秒后从检查点重试: jobId={}, checkpoint={}, attempt={}, error={}",
+                backoff, job.id(), resumeAfter, job.attempts(), error);
+        jobRepo.release(job.id(), workerId, error, props.getMaxAttempts(), backoff);
+    }
+
+    /**
+     * 第n次尝试失败后的退避时间：retry-backoff-seconds * 2^(n-1)，不超过上限
+     */
+    private int backoffSeconds(EmbeddingJob job) {
+        int doublings = Math.min(Math.max(job.attempts() - 1, 0), 20);
+        long backoff = (long) props.getRetryBackoffSeconds() << doublings;
+        return (int) Math.min(backoff, props.getMaxRetryBackoffSeconds());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopping = true;
+    }
+
+    private static String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+}
@@ -15,6 +15,8 @@ import com.cloud.baseai.infrastructure.exception.BusinessException;
 import com.cloud.baseai.infrastructure.exception.ErrorCode;
 import com.cloud.baseai.infrastructure.exception.KnowledgeBaseException;
 import com.cloud.baseai.infrastructure.external.llm.factory.EmbeddingModelFactory;
+import com.cloud.baseai.infrastructure.ratelimit.RateLimitQuota;
+import com.cloud.baseai.infrastructure.ratelimit.RateLimited;
 import com.cloud.baseai.infrastructure.utils.KbUtils;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
@@ -53,6 +55,7 @@ public class KnowledgeBaseAppService {
     private final EmbeddingRepository embeddingRepo;
     private final TagRepository tagRepo;
     private final ChunkTagRepository chunkTagRepo;
+    private final EmbeddingJobRepository embeddingJobRepo;
 
     // 领域服务
     private final DocumentProcessingService docService;
@@ -60,6 +63,7 @@ public class KnowledgeBaseAppService {
 
     // 外部服务
     private final EmbeddingModelFactory embeddingFactory;
+    private final EmbeddingIngestionPipeline embeddingPipeline;
 
     // 配置
     private final KnowledgeBaseProperties kbProps;
@@ -81,9 +85,11 @@ public class KnowledgeBaseAppService {
             EmbeddingRepository embeddingRepo,
             TagRepository tagRepo,
             ChunkTagRepository chunkTagRepo,
+            EmbeddingJobRepository embeddingJobRepo,
             DocumentProcessingService docService,
             VectorSearchService vectorService,
             EmbeddingModelFactory embeddingFactory,
+            EmbeddingIngestionPipeline embeddingPipeline,
             KnowledgeBaseProperties kbProps,
             AsyncTaskExecutor knowledgeBaseAsyncExecutor) {
 
@@ -92,9 +98,11 @@ public class KnowledgeBaseAppService {
         this.embeddingRepo = embeddingRepo;
         this.tagRepo = tagRepo;
         this.chunkTagRepo = chunkTagRepo;
+        this.embeddingJobRepo = embeddingJobRepo;
         this.docService = docService;
         this.vectorService = vectorService;
         this.embeddingFactory = embeddingFactory;
+        this.embeddingPipeline = embeddingPipeline;
         this.kbProps = kbProps;
         this.knowledgeBaseAsyncExecutor = knowledgeBaseAsyncExecutor;
     }
@@ -105,6 +113,7 @@ public class KnowledgeBaseAppService {
      * 上传并处理文档
      */
     @Transactional
+    @RateLimited(quota = RateLimitQuota.DOCUMENT_UPLOADS, tenant = "#cmd.tenantId()", user = "#cmd.operatorId()")
     public DocumentDTO uploadDocument(UploadDocumentCommand cmd) {
         long startTime = System.currentTimeMillis();
         log.info("开始上传文档: title={}, size={} bytes", cmd.title(), cmd.content().length());
@@ -161,10 +170,10 @@ public class KnowledgeBaseAppService {
 
             boolean useAsyncVector = shouldUseAsyncVectorGeneration(chunks.size(), cleanedContent.length());
             if (useAsyncVector) {
-                scheduleAsyncVectorGeneration(document.id(), chunks, cmd.operatorId());
-                log.info("已安排异步向量生成: documentId={}", document.id());
+                enqueueEmbeddingJob(document.id(), chunks.size(), cmd.operatorId());
+                log.info("已加入向量生成队列: documentId={}", document.id());
             } else {
-                generateEmbeddingsSync(chunks, kbProps.getEmbedding().getDefaultModel(), cmd.operatorId());
+                embeddingPipeline.run(document.id(), chunks, kbProps.getEmbedding().getDefaultModel(), cmd.operatorId());
                 log.info("同步向量生成完成: documentId={}", document.id());
             }
 
@@ -700,9 +709,10 @@ public class KnowledgeBaseAppService {
                     .map(chunk -> chunk.incrementVectorVersion(cmd.operatorId()))
                     .collect(Collectors.toList());
             chunks = chunkRepo.saveAll(chunks);
+            documentRepo.resetEmbeddedCount(document.id());
 
-            VectorGenerationStats stats = generateEmbeddingsWithRetry(
-                    chunks, cmd.modelCode(), cmd.operatorId()
+            VectorGenerationStats stats = embeddingPipeline.run(
+                    document.id(), chunks, cmd.modelCode(), cmd.operatorId()
             );
 
             recordMetrics("vector.regeneration", startTime, stats.successCount() > 0);
@@ -727,33 +737,32 @@ public class KnowledgeBaseAppService {
 
     /**
      * 批量向量生成
+     *
+     * <p>每个文档一个持久化任务，共享同一个 taskId，由 {@link EmbeddingJobWorker} 异步执行，
+     * 进度通过 {@link #getEmbeddingTaskStatus(String)} 查询。节点重启后任务从检查点继续。</p>
      */
+    @Transactional
     public BatchVectorGenerationResult batchGenerateEmbeddings(BatchVectorGenerationCommand cmd) {
         log.info("批量向量生成: 文档数量={}, model={}", cmd.documentIds().size(), cmd.modelCode());
 
         try {
             String taskId = UUID.randomUUID().toString();
 
-            // 异步执行批量向量生成
-            CompletableFuture.runAsync(() -> {
-                try {
-                    for (Long documentId : cmd.documentIds()) {
-                        GenerateEmbeddingsCommand genCmd = new GenerateEmbeddingsCommand(
-                                documentId, cmd.modelCode(), cmd.operatorId()
-                        );
-                        regenerateEmbeddings(genCmd);
-                    }
-                    log.info("批量向量生成完成: taskId={}", taskId);
-                } catch (Exception e) {
-                    log.error("批量向量生成失败: taskId={}", taskId, e);
-                }
-            }, knowledgeBaseAsyncExecutor);
+            List<Document> documents = documentRepo.findByIds(cmd.documentIds());
+            List<EmbeddingJob> jobs = new ArrayList<>(documents.size());
+            for (Document document : documents) {
+                documentRepo.resetEmbeddedCount(document.id());
+                jobs.add(EmbeddingJob.create(taskId, document.id(), cmd.modelCode(),
+                        (int) chunkRepo.countByDocumentId(document.id()), cmd.operatorId()));
+            }
+            embeddingJobRepo.saveAll(jobs);
 
+            log.info("批量向量生成已入队: taskId={}, 任务数={}", taskId, jobs.size());
             return new BatchVectorGenerationResult(
                     taskId,
-                    cmd.documentIds().size(),
-                    "STARTED",
-                    "批量向量生成已启动"
+                    jobs.size(),
+                    "QUEUED",
+                    "批量向量生成已加入队列"
             );
 
         } catch (Exception e) {
@@ -765,6 +774,52 @@ public class KnowledgeBaseAppService {
         }
     }
 
+    /**
+     * 查询向量生成任务进度
+     */
+    public EmbeddingTaskStatusDTO getEmbeddingTaskStatus(String taskId) {
+        List<EmbeddingJob> jobs = embeddingJobRepo.findByTaskId(taskId);
+        if (jobs.isEmpty()) {
+            throw new KnowledgeBaseException(ErrorCode.BIZ_KB_036);
+        }
+
+        int completed = 0;
+        int failed = 0;
+        int running = 0;
+        long totalChunks = 0;
+        long processedChunks = 0;
+        long failedChunks = 0;
+        List<EmbeddingTaskStatusDTO.DocumentJob> details = new ArrayList<>(jobs.size());
+        for (EmbeddingJob job : jobs) {
+            switch (job.status()) {
+                case COMPLETED -> completed++;
+                case FAILED -> failed++;
+                case RUNNING -> running++;
+                default -> {
+                }
+            }
+            totalChunks += job.totalChunks();
+            processedChunks += job.processedChunks();
+            failedChunks += job.failedChunks();
+            details.add(new EmbeddingTaskStatusDTO.DocumentJob(
+                    job.documentId(), job.status().name(), job.totalChunks(), job.processedChunks(),
+                    job.failedChunks(), job.attempts(), job.lastError(), job.startedAt(), job.finishedAt()));
+        }
+
+        String status;
+        if (completed + failed == jobs.size()) {
+            status = failed == 0 ? "COMPLETED" : (completed == 0 ? "FAILED" : "PARTIAL_FAILED");
+        } else if (running > 0 || completed + failed > 0) {
+            status = "RUNNING";
+        } else {
+            status = "PENDING";
+        }
+        double progress = jobs.stream().mapToDouble(EmbeddingJob::progress).average().orElse(0.0);
+
+        return new EmbeddingTaskStatusDTO(taskId, status, jobs.size(), completed, failed,
+                totalChunks, processedChunks, failedChunks, progress, details);
+    }
+
     // =================== 统计和监控实现 ===================
 
     /**
@@ -893,6 +948,8 @@ public class KnowledgeBaseAppService {
      * 批量文档上传
      */
     @Transactional
+    @RateLimited(quota = RateLimitQuota.DOCUMENT_UPLOADS, tenant = "#cmd.tenantId()", user = "#cmd.operatorId()",
+            permits = "#cmd.documents().size()")
     public BatchUploadResult batchUploadDocuments(BatchUploadDocumentsCommand cmd) {
         long startTime = System.currentTimeMillis();
         log.info("开始批量上传文档: 数量={}, 批次名称={}", cmd.documents().size(), cmd.batchName());
@@ -993,67 +1050,13 @@ public class KnowledgeBaseAppService {
         return chunkCount > 50 || contentLength > 50000;
     }
 
-    private void scheduleAsyncVectorGeneration(Long documentId, List<Chunk> chunks, Long userId) {
-        CompletableFuture.runAsync(() -> {
-            try {
-                generateEmbeddingsSync(chunks, kbProps.getEmbedding().getDefaultModel(), userId);
-                log.info("异步向量生成完成: documentId={}", documentId);
-            } catch (Exception e) {
-                log.error("异步向量生成失败: documentId={}", documentId, e);
-            }
-        }, knowledgeBaseAsyncExecutor);
-    }
-
-    private void generateEmbeddingsSync(List<Chunk> chunks, String modelCode, Long userId) {
-        List<Embedding> embeddings = new ArrayList<>();
-
-        for (Chunk chunk : chunks) {
-            try {
-                float[] vector = embeddingFactory.generateEmbedding(chunk.text(), modelCode);
-                embeddings.add(Embedding.create(
-                        chunk.id(),
-                        modelCode,
-                        chunk.vectorVersion(),
-                        vector,
-                        userId
-                ));
-            } catch (Exception e) {
-                log.error("生成Embedding失败: chunkId={}", chunk.id(), e);
-            }
-        }
-
-        if (!embeddings.isEmpty()) {
-            embeddingRepo.saveAll(embeddings);
-            log.info("批量生成向量完成: 数量={}", embeddings.size());
-        }
-    }
-
-    private VectorGenerationStats generateEmbeddingsWithRetry(List<Chunk> chunks, String modelCode, Long userId) {
-        int successCount = 0;
-        int failureCount = 0;
-        List<String> errors = new ArrayList<>();
-        int batchSize = kbProps.getEmbedding().getBatchSize();
-
-        for (int i = 0; i < chunks.size(); i += batchSize) {
-            int end = Math.min(i + batchSize, chunks.size());
-            List<Chunk> batch = chunks.subList(i, end);
-
-            for (int retry = 0; retry < 3; retry++) {
-                try {
-                    generateEmbeddingsSync(batch, modelCode, userId);
-                    successCount += batch.size();
-                    break;
-                } catch (Exception e) {
-                    if (retry == 2) {
-                        failureCount += batch.size();
-                        errors.add("批次 " + (i / batchSize + 1) + " 失败: " + e.getMessage());
-                    }
-                    log.warn("向量生成重试 {}: batch={}", retry + 1, i / batchSize + 1, e);
-                }
-            }
-        }
-
-        return new VectorGenerationStats(successCount, failureCount, errors);
+    /**
+     * 在当前事务中为文档写入一个向量生成任务，事务提交后即可被工作节点领取
+     */
+    private void enqueueEmbeddingJob(Long documentId, int chunkCount, Long userId) {
+        EmbeddingJob job = EmbeddingJob.create(UUID.randomUUID().toString(), documentId,
+                kbProps.getEmbedding().getDefaultModel(), chunkCount, userId);
+        embeddingJobRepo.saveAll(List.of(job));
     }
 
     private String optimizeSearchQuery(String query) {
@@ -1264,6 +1267,7 @@ public class KnowledgeBaseAppService {
                 document.langCode(),
                 document.parsingStatus().getLabel(),
                 document.chunkCount(),
+                document.embeddedCount(),
                 document.createdBy(),
                 creatorName,
                 document.createdAt(),
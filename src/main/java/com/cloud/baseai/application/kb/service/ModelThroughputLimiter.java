@@ -0,0 +1,69 @@
+package com.cloud.baseai.application.kb.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * <h2>模型吞吐限制器</h2>
+ *
+ * <p>按模型维护令牌桶，令牌单位为知识块。一次请求的知识块数可以大于桶容量，
+ * 此时透支额度并等待补足，保证长期速率不超过配置值。限制只作用于本节点。</p>
+ */
+class ModelThroughputLimiter {
+
+    private final ToIntFunction<String> rateResolver;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * @param rateResolver 根据模型代码返回每秒知识块上限，小于等于0表示不限制
+     */
+    ModelThroughputLimiter(ToIntFunction<String> rateResolver) {
+        this.rateResolver = rateResolver;
+    }
+
+    /**
+     * 获取指定数量的令牌，额度不足时阻塞
+     *
+     * @param modelCode 模型代码
+     * @param chunks    本次要处理的知识块数
+     * @throws InterruptedException 等待期间线程被中断
+     */
+    void acquire(String modelCode, int chunks) throws InterruptedException {
+        int rate = rateResolver.applyAsInt(modelCode);
+        if (rate <= 0 || chunks <= 0) {
+            return;
+        }
+        long waitNanos = buckets.computeIfAbsent(modelCode, m -> new Bucket(rate)).reserve(chunks);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private static final class Bucket {
+
+        private final double tokensPerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefill;
+
+        Bucket(int perSecond) {
+            this.tokensPerNano = perSecond / 1_000_000_000.0;
+            this.capacity = perSecond;
+            this.tokens = perSecond;
+            this.lastRefill = System.nanoTime();
+        }
+
+        /**
+         * 预留令牌并返回需要等待的时间，余额可以为负，后来者排在透支之后
+         */
+        synchronized long reserve(int permits) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+            tokens -= permits;
+            return tokens >= 0 ? 0 : (long) (-tokens / tokensPerNano);
+        }
+    }
+}
@@ -17,6 +17,7 @@ import com.cloud.baseai.infrastructure.exception.BusinessException;
 import com.cloud.baseai.infrastructure.exception.ErrorCode;
 import com.cloud.baseai.infrastructure.exception.McpToolException;
 import com.cloud.baseai.infrastructure.persistence.mcp.entity.enums.ToolCallStatus;
+import com.cloud.baseai.infrastructure.ratelimit.ToolQuotaLedger;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,6 +47,7 @@ public class McpApplicationService {
     private final ToolAuthRepository toolAuthRepo;
     private final ToolCallLogRepository toolCallLogRepo;
     private final ToolExecutionService toolExecutionService;
+    private final ToolQuotaLedger quotaLedger;
 
     // MCP工具管理专用异步执行器
     private final AsyncTaskExecutor mcpToolAsyncExecutor;
@@ -54,11 +56,13 @@ public class McpApplicationService {
                                  ToolAuthRepository toolAuthRepo,
                                  ToolCallLogRepository toolCallLogRepo,
                                  ToolExecutionService toolExecutionService,
+                                 ToolQuotaLedger quotaLedger,
                                  AsyncTaskExecutor mcpToolAsyncExecutor) {
         this.toolRepo = toolRepo;
         this.toolAuthRepo = toolAuthRepo;
         this.toolCallLogRepo = toolCallLogRepo;
         this.toolExecutionService = toolExecutionService;
+        this.quotaLedger = quotaLedger;
         this.mcpToolAsyncExecutor = mcpToolAsyncExecutor;
     }
 
@@ -233,6 +237,8 @@ public class McpApplicationService {
             );
 
             auth = toolAuthRepo.save(auth);
+            // 丢弃同一授权以前留下的配额计数
+            quotaLedger.evict(tool.id(), cmd.tenantId());
             return toToolAuthDTO(auth, tool);
 
         } catch (Exception e) {
@@ -277,6 +283,7 @@ public class McpApplicationService {
                     .orElseThrow(() -> new McpToolException(ErrorCode.BIZ_AUTH_002));
 
             toolAuthRepo.delete(auth.toolId(), auth.tenantId());
+            quotaLedger.evict(auth.toolId(), auth.tenantId());
 
         } catch (Exception e) {
             if (e instanceof BusinessException) {
@@ -312,12 +319,13 @@ public class McpApplicationService {
                 throw new McpToolException(ErrorCode.BIZ_AUTH_004);
             }
 
-            // 检查配额
-            if (auth.quotaLimit() != null && auth.quotaUsed() >= auth.quotaLimit()) {
+            // 原子预留配额，配额用完时在写调用日志之前拒绝；调用失败时退还
+            ToolQuotaLedger.Reservation reservation = quotaLedger.reserve(auth);
+            if (!reservation.granted()) {
                 throw McpToolException.quotaExceeded(
                         String.valueOf(cmd.tenantId()),
-                        auth.quotaUsed(),
-                        auth.quotaLimit()
+                        reservation.used(),
+                        auth.quotaLimit() != null ? auth.quotaLimit() : 0
                 );
             }
 
@@ -330,7 +338,12 @@ public class McpApplicationService {
                     null, // flowRunId
                     cmd.params()
             );
-            callLog = toolCallLogRepo.save(callLog);
+            try {
+                callLog = toolCallLogRepo.save(callLog);
+            } catch (RuntimeException e) {
+                quotaLedger.refund(auth);
+                throw e;
+            }
 
             // 执行工具
             if (cmd.asyncMode()) {
@@ -523,10 +536,6 @@ public class McpApplicationService {
             Map<String, Object> result = toolExecutionService.execute(
                     tool, auth, cmd.params(), cmd.timeoutSeconds());
 
-            // 更新配额使用
-            auth = auth.incrementQuotaUsed();
-            toolAuthRepo.save(auth);
-
             // 更新调用日志
             long duration = System.currentTimeMillis() - startTime;
             updateCallLogStatus(callLog.id(), ToolCallStatus.SUCCESS, result, null);
@@ -541,6 +550,7 @@ public class McpApplicationService {
 
         } catch (Exception e) {
             log.error("工具执行失败: toolCode={}", tool.code(), e);
+            quotaLedger.refund(auth);
             long duration = System.currentTimeMillis() - startTime;
             updateCallLogStatus(callLog.id(), ToolCallStatus.FAILED, null, e.getMessage());
 
@@ -12,6 +12,8 @@ import com.cloud.baseai.infrastructure.exception.ErrorCode;
 import com.cloud.baseai.infrastructure.exception.UserException;
 import com.cloud.baseai.infrastructure.external.email.EmailService;
 import com.cloud.baseai.infrastructure.external.sms.SmsService;
+import com.cloud.baseai.infrastructure.security.jwt.JwtTokenService;
+import com.cloud.baseai.infrastructure.security.service.CustomUserDetailsService;
 import com.cloud.baseai.infrastructure.utils.UserUtils;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
@@ -56,6 +58,8 @@ public class UserAppService {
 
     // 基础设施服务
     private final PasswordEncoder passwordEncoder;
+    private final JwtTokenService jwtTokenService;
+    private final CustomUserDetailsService userDetailsService;
 
     // 可选的外部服务
     @Autowired(required = false)
@@ -82,6 +86,8 @@ public class UserAppService {
             UserRoleRepository userRoleRepo,
             UserDomainService userDomainService,
             PasswordEncoder passwordEncoder,
+            JwtTokenService jwtTokenService,
+            CustomUserDetailsService userDetailsService,
             AsyncTaskExecutor userManagementAsyncExecutor) {
 
         this.userRepo = userRepo;
@@ -91,6 +97,8 @@ public class UserAppService {
         this.userRoleRepo = userRoleRepo;
         this.userDomainService = userDomainService;
         this.passwordEncoder = passwordEncoder;
+        this.jwtTokenService = jwtTokenService;
+        this.userDetailsService = userDetailsService;
         this.userManagementAsyncExecutor = userManagementAsyncExecutor;
     }
 
@@ -768,6 +776,9 @@ public class UserAppService {
             User user = userRepo.findById(userId).orElse(null);
             String username = user != null ? user.username() : "未知用户";
 
+            // 令牌中的租户列表已过期，需要重新登录
+            notifyUserPermissionsChanged(userId);
+
             // 记录审计日志
             recordAuditLog("MEMBER_REMOVED", tenantId, "移除成员：" + username);
 
@@ -1161,11 +1172,13 @@ public class UserAppService {
     /**
      * 通知认证系统用户权限已变更
      *
-     * <p>当用户的角色或权限发生变化时，需要通知认证系统刷新相关信息。</p>
+     * <p>当用户的角色或权限发生变化时，需要通知认证系统刷新相关信息。
+     * 令牌中携带角色和租户信息，变更前签发的令牌全部撤销。</p>
      */
     private void notifyUserPermissionsChanged(Long userId) {
         try {
             log.debug("通知认证系统用户权限已变更: userId={}", userId);
+            invalidateAllUserTokens(userId);
 
             // 如果集成了缓存系统，可以清理用户权限缓存
             if (authAppService != null) {
@@ -1183,12 +1196,13 @@ public class UserAppService {
     /**
      * 撤销用户的所有登录令牌
      *
-     * <p>在安全敏感操作（如密码修改）后，撤销用户的所有登录令牌。</p>
+     * <p>在安全敏感操作（如密码修改、角色变更、移出租户）后，撤销用户的所有登录令牌，
+     * 并清除用户详情缓存，让新的密码、角色和状态立即生效。</p>
      */
     private void invalidateAllUserTokens(Long userId) {
         try {
-            // 如果集成了JWT服务，可以直接调用
-            // jwtTokenService.revokeAllUserTokens(userId);
+            jwtTokenService.revokeAllUserTokens(userId);
+            userDetailsService.refreshUserCache(userId);
 
             log.debug("撤销用户所有登录令牌: userId={}", userId);
 
@@ -0,0 +1,82 @@
+package com.cloud.baseai.domain.audit.repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * <h2>审计统计汇总仓储接口</h2>
+ *
+ * <p>汇总表按租户、统计维度和时间桶保存审计日志条数，时间桶按UTC对齐。
+ * 分钟桶从原始日志聚合，小时桶从分钟桶聚合，天桶从小时桶聚合。
+ * 聚合按桶整体重算并覆盖，重复执行结果不变。</p>
+ */
+public interface AuditRollupRepository {
+
+    /**
+     * 时间桶粒度
+     */
+    enum Granularity {
+        MINUTE, HOUR, DAY
+    }
+
+    /**
+     * 统计维度，ACTION按操作类型计数，USER按用户ID计数
+     */
+    enum Dimension {
+        ACTION, USER
+    }
+
+    /**
+     * 同一粒度下连续的一段时间桶，左闭右开
+     */
+    record BucketRange(Granularity granularity, OffsetDateTime start, OffsetDateTime end) {
+    }
+
+    /**
+     * 已汇总到的时间点，即最新分钟桶的结束时间
+     */
+    Optional<OffsetDateTime> findCompactedUntil();
+
+    /**
+     * 最早一条审计日志的时间
+     */
+    Optional<OffsetDateTime> findEarliestLogTime();
+
+    /**
+     * 从原始日志重算[from, to)内的分钟桶，from和to须按分钟对齐
+     */
+    void rollupMinutes(OffsetDateTime from, OffsetDateTime to);
+
+    /**
+     * 从分钟桶重算[from, to)涉及的小时桶，from须按小时对齐
+     */
+    void rollupHours(OffsetDateTime from, OffsetDateTime to);
+
+    /**
+     * 从小时桶重算[from, to)涉及的天桶，from须按天对齐
+     */
+    void rollupDays(OffsetDateTime from, OffsetDateTime to);
+
+    /**
+     * 汇总指定时间桶内各维度值的计数
+     *
+     * @param tenantId 租户ID，为null时统计所有租户
+     */
+    Map<String, Long> sumRollups(Long tenantId, Dimension dimension, List<BucketRange> ranges);
+
+    /**
+     * 直接从原始日志统计[from, to)内各维度值的计数，用于尚未汇总的时间段
+     *
+     * @param tenantId 租户ID，为null时统计所有租户
+     */
+    Map<String, Long> countRaw(Long tenantId, Dimension dimension, OffsetDateTime from, OffsetDateTime to);
+
+    /**
+     * 删除指定粒度下早于指定时间的时间桶
+     *
+     * @return 删除的行数
+     */
+    int purgeBuckets(Granularity granularity, OffsetDateTime before);
+}
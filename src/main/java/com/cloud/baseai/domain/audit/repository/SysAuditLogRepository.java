@@ -7,6 +7,7 @@ import org.springframework.data.domain.Pageable;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * <h2>系统审计日志仓储接口</h2>
@@ -23,6 +24,13 @@ public interface SysAuditLogRepository {
      */
     List<SysAuditLog> saveAll(List<SysAuditLog> logs);
 
+    /**
+     * 批量写入审计日志，不返回生成的ID
+     *
+     * <p>供高吞吐入库管道使用，数据访问异常原样抛出，由调用方区分可重试的故障和坏数据。</p>
+     */
+    void insertBatch(List<SysAuditLog> logs);
+
     /**
      * 根据日志ID查找日志
      */
@@ -63,6 +71,22 @@ public interface SysAuditLogRepository {
      */
     List<Object[]> countByUserAndTimeRange(OffsetDateTime startTime, OffsetDateTime endTime);
 
+    /**
+     * 按用户和操作类型统计
+     */
+    List<Object[]> countUserActionsByAction(Long userId, OffsetDateTime startTime, OffsetDateTime endTime);
+
+    /**
+     * 按时间顺序逐条遍历符合条件的审计日志
+     *
+     * <p>逐页读取并立即交给消费者，内存占用与总行数无关，供导出和报告生成使用。
+     * 条件为null表示不限制。</p>
+     *
+     * @return 遍历的记录数
+     */
+    long streamAuditLogs(Long tenantId, Long userId, OffsetDateTime startTime, OffsetDateTime endTime,
+                         List<String> actions, Consumer<SysAuditLog> consumer);
+
     /**
      * 删除指定时间之前的审计日志（数据清理）
      */
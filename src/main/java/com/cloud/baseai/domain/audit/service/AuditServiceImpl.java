@@ -3,6 +3,7 @@ package com.cloud.baseai.domain.audit.service;
 import com.cloud.baseai.application.audit.dto.*;
 import com.cloud.baseai.domain.audit.model.SysAuditLog;
 import com.cloud.baseai.domain.audit.repository.SysAuditLogRepository;
+import com.cloud.baseai.infrastructure.audit.AuditIngestionPipeline;
 import com.cloud.baseai.infrastructure.config.properties.AuditProperties;
 import com.cloud.baseai.infrastructure.exception.AuditException;
 import com.cloud.baseai.infrastructure.exception.BusinessException;
@@ -43,7 +44,7 @@ import java.util.stream.Collectors;
  *
  * <p><b>架构特点：</b></p>
  * <ul>
- * <li><b>异步处理：</b>使用队列和批处理机制，确保审计记录不影响主业务性能</li>
+ * <li><b>异步处理：</b>审计记录先写入预写日志，再由入库管道批量写库，确保审计记录不影响主业务性能</li>
  * <li><b>智能分析：</b>提供统计分析、异常检测等智能功能</li>
  * <li><b>多存储支持：</b>支持关系数据库、Elasticsearch等多种存储方案</li>
  * <li><b>安全增强：</b>支持数据完整性验证、访问控制等安全特性</li>
@@ -73,7 +74,7 @@ public class AuditServiceImpl implements AuditService {
 
     // 异步处理组件
     private final ExecutorService auditExecutor;
-    private final BlockingQueue<AuditEvent> auditQueue;
+    private final AuditIngestionPipeline ingestionPipeline;
     private final ScheduledExecutorService scheduledExecutor;
 
     // 配置参数
@@ -106,7 +107,7 @@ public class AuditServiceImpl implements AuditService {
      * <p>在构造函数中，我们建立了一个完整的异步处理体系。这就像建设一个
      * 现代化的工厂生产线，每个环节都经过精心设计，确保高效、可靠的运行。</p>
      */
-    public AuditServiceImpl(SysAuditLogRepository auditLogRepository, ElasticsearchOperations elasticsearchOps, ObjectMapper objectMapper, AuditProperties auditProperties) {
+    public AuditServiceImpl(SysAuditLogRepository auditLogRepository, ElasticsearchOperations elasticsearchOps, ObjectMapper objectMapper, AuditProperties auditProperties, AuditIngestionPipeline ingestionPipeline) {
 
         Assert.notNull(auditLogRepository, "审计日志仓储不能为null");
         Assert.notNull(objectMapper, "JSON映射器不能为null");
@@ -115,6 +116,7 @@ public class AuditServiceImpl implements AuditService {
         this.objectMapper = objectMapper;
         this.elasticsearchOps = elasticsearchOps;
         this.auditProperties = auditProperties;
+        this.ingestionPipeline = ingestionPipeline;
 
         // 创建专门的审计处理线程池
         this.auditExecutor = Executors.newFixedThreadPool(
@@ -128,9 +130,6 @@ public class AuditServiceImpl implements AuditService {
                 }
         );
 
-        // 创建高容量的审计事件队列
-        this.auditQueue = new LinkedBlockingQueue<>(50000);
-
         // 创建定时调度器
         this.scheduledExecutor = Executors.newScheduledThreadPool(3, r -> {
             Thread thread = new Thread(r, "audit-scheduler-" + System.currentTimeMillis());
@@ -489,9 +488,9 @@ public class AuditServiceImpl implements AuditService {
                 }
             }
 
-            // 批量保存成功的日志
+            // 批量写入成功转换的日志，不需要回填ID
             if (!successfulLogs.isEmpty()) {
-                auditLogRepository.saveAll(successfulLogs);
+                auditLogRepository.insertBatch(successfulLogs);
             }
 
             int successCount = successfulLogs.size();
@@ -811,9 +810,6 @@ public class AuditServiceImpl implements AuditService {
      * 初始化后台服务
      */
     private void initializeBackgroundServices() {
-        // 启动批处理器
-        startBatchProcessor();
-
         // 启动维护任务
         startMaintenanceTasks();
 
@@ -823,26 +819,11 @@ public class AuditServiceImpl implements AuditService {
         }
     }
 
-    /**
-     * 启动批处理器
-     */
-    private void startBatchProcessor() {
-        scheduledExecutor.scheduleWithFixedDelay(() -> {
-            try {
-                processBatchFromQueue();
-            } catch (Exception e) {
-                log.error("批处理器执行失败", e);
-            }
-        }, 1000, 1000, TimeUnit.MILLISECONDS);
-    }
-
     /**
      * 启动维护任务
      */
     private void startMaintenanceTasks() {
-        // 每天执行一次数据清理
-        scheduledExecutor.scheduleWithFixedDelay(this::performDataCleanup,
-                1, 24, TimeUnit.HOURS);
+        // 过期数据按分区清理，见AuditPartitionManager
 
         // 每小时执行一次性能统计重置
         scheduledExecutor.scheduleWithFixedDelay(this::resetPerformanceCounters,
@@ -859,45 +840,14 @@ public class AuditServiceImpl implements AuditService {
     }
 
     /**
-     * 从队列处理批量事件
-     */
-    private void processBatchFromQueue() {
-        List<AuditEvent> batch = new ArrayList<>();
-
-        // 收集一批事件
-        long deadline = System.currentTimeMillis() + batchTimeoutMs;
-        while (batch.size() < batchSize && System.currentTimeMillis() < deadline) {
-            try {
-                AuditEvent event = auditQueue.poll(100, TimeUnit.MILLISECONDS);
-                if (event != null) {
-                    batch.add(event);
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
-            }
-        }
-
-        // 处理这一批事件
-        if (!batch.isEmpty()) {
-            try {
-                recordBatchEvents(batch);
-            } catch (Exception e) {
-                log.error("批量处理审计事件失败", e);
-            }
-        }
-    }
-
-    /**
-     * 提交审计事件到队列
+     * 提交审计事件到入库管道
+     *
+     * <p>管道已满时直接向调用方抛出BIZ_AUDIT_046，不在调用方线程同步写库，
+     * 否则数据库变慢时所有业务线程都会被拖进同步写入。</p>
      */
     private void submitAuditEvent(AuditEvent event) throws AuditException {
         if (asyncEnabled) {
-            boolean offered = auditQueue.offer(event);
-            if (!offered) {
-                log.warn("审计队列已满，降级为同步处理");
-                processEventSynchronously(event);
-            }
+            ingestionPipeline.submit(convertAuditEventToLog(event));
         } else {
             processEventSynchronously(event);
         }
@@ -1083,7 +1033,11 @@ public class AuditServiceImpl implements AuditService {
     }
 
     private List<SysAuditLog> processBatchEventsByType(String eventType, List<AuditEvent> events) {
-        return new ArrayList<>();
+        List<SysAuditLog> logs = new ArrayList<>(events.size());
+        for (AuditEvent event : events) {
+            logs.add(convertAuditEventToLog(event));
+        }
+        return logs;
     }
 
     private AuditEvent convertToAuditEvent(SysAuditLog log) {
@@ -1125,9 +1079,6 @@ public class AuditServiceImpl implements AuditService {
         return new IntegrityCheckResult(true, 100, 0, new ArrayList<>(), OffsetDateTime.now());
     }
 
-    private void performDataCleanup() {
-    }
-
     private SysAuditLog convertAuditEventToLog(AuditEvent event) {
         return SysAuditLog.create(1L, event.userId(), event.action(), event.targetType(),
                 event.targetId(), serializeToJson(event.metadata()));
@@ -390,7 +390,8 @@ public record FlowSnapshot(
                 name,
                 configJson,
                 retryPolicyJson,
-                new HashMap<>() // 执行上下文在运行时填充
+                new HashMap<>(), // 执行上下文在运行时填充
+                null
         );
     }
 
@@ -11,5 +11,10 @@ public interface FlowRunLogRepository {
 
     FlowRunLog save(FlowRunLog log);
 
+    /**
+     * 批量插入运行日志，不返回生成的主键
+     */
+    void insertBatch(List<FlowRunLog> logs);
+
     List<FlowRunLog> findByRunId(Long runId);
 }
\ No newline at end of file
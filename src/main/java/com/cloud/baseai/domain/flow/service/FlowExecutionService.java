@@ -1,26 +1,32 @@
 package com.cloud.baseai.domain.flow.service;
 
-import com.cloud.baseai.domain.flow.model.FlowRunLog;
 import com.cloud.baseai.domain.flow.model.FlowSnapshot;
-import com.cloud.baseai.domain.flow.repository.FlowRunLogRepository;
 import com.cloud.baseai.domain.flow.repository.FlowRunRepository;
 import com.cloud.baseai.domain.flow.repository.FlowSnapshotRepository;
+import com.cloud.baseai.infrastructure.config.properties.FlowProperties;
 import com.cloud.baseai.infrastructure.exception.ErrorCode;
 import com.cloud.baseai.infrastructure.exception.FlowOrchestrationException;
 import com.cloud.baseai.infrastructure.flow.executor.NodeExecutor;
+import com.cloud.baseai.infrastructure.flow.model.CompiledFlowPlan;
 import com.cloud.baseai.infrastructure.flow.model.FlowExecutionContext;
 import com.cloud.baseai.infrastructure.flow.model.NodeExecutionInfo;
+import com.cloud.baseai.infrastructure.flow.service.FlowPlanCache;
+import com.cloud.baseai.infrastructure.flow.service.FlowRunLogWriter;
 import com.cloud.baseai.infrastructure.flow.service.NodeExecutorManager;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.time.Duration;
+import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <h2>流程执行领域服务</h2>
@@ -34,8 +40,17 @@ import java.util.concurrent.*;
  * 等待 -> 运行 -> 成功/失败。这种模型让流程的执行过程变得可预测和可控制。</p>
  *
  * <p><b>并发处理：</b></p>
- * <p>对于可以并行执行的节点，执行引擎会自动识别并创建并发执行计划，
- * 最大化利用系统资源，提升整体执行效率。</p>
+ * <p>节点按依赖关系图调度：上游全部结束的节点立即派发，互不依赖的分支并行执行，
+ * 单次运行的耗时收敛到关键路径。每次运行的并发节点数受配置上限约束。</p>
+ *
+ * <p><b>运行时：</b></p>
+ * <p>默认每次运行及其节点各使用一个虚拟线程，慢速的HTTP/LLM节点阻塞时不占用平台线程。
+ * 同时执行的运行数和排队数都有上限，超出时直接拒绝。节点重试由定时器按退避时间重新派发，
+ * 等待期间不占用任何执行线程。</p>
+ *
+ * <p><b>执行计划：</b></p>
+ * <p>快照在首次执行时编译为{@link CompiledFlowPlan}并按快照ID缓存，之后的运行直接复用，
+ * 调度、依赖检查和输入组装都基于整型编号的邻接数组，不再解析JSON。</p>
  */
 @Service
 public class FlowExecutionService {
@@ -46,29 +61,76 @@ public class FlowExecutionService {
     private final NodeExecutorManager executorManager;
     private final FlowSnapshotRepository snapshotRepo;
     private final FlowRunRepository runRepo;
-    private final FlowRunLogRepository runLogRepo;
+    private final FlowRunLogWriter runLogWriter;
+    private final FlowProperties flowProperties;
+    private final FlowPlanCache planCache;
     private final ExecutorService executorService;
+    private final ScheduledExecutorService retryTimer;
     private final Map<Long, Future<?>> runningTasks;
 
+    /**
+     * 运行准入许可，数量为同时执行的最大运行数
+     */
+    private final Semaphore runPermits;
+
+    /**
+     * 正在排队等待许可的运行数
+     */
+    private final AtomicInteger queuedRuns = new AtomicInteger();
+
+    /**
+     * 每次运行上下文的峰值内存估算
+     */
+    private final DistributionSummary peakMemory;
+
     public FlowExecutionService(ObjectMapper objectMapper,
                                 NodeExecutorManager executorManager,
                                 FlowSnapshotRepository snapshotRepo,
                                 FlowRunRepository runRepo,
-                                FlowRunLogRepository runLogRepo) {
+                                FlowRunLogWriter runLogWriter,
+                                FlowProperties flowProperties,
+                                FlowPlanCache planCache,
+                                MeterRegistry meterRegistry) {
         this.objectMapper = objectMapper;
         this.executorManager = executorManager;
         this.snapshotRepo = snapshotRepo;
         this.runRepo = runRepo;
-        this.runLogRepo = runLogRepo;
-        this.executorService = Executors.newCachedThreadPool(r -> {
-            Thread thread = new Thread(r, "flow-executor");
+        this.runLogWriter = runLogWriter;
+        this.flowProperties = flowProperties;
+        this.planCache = planCache;
+        this.executorService = createExecutorService(flowProperties.getExecution().getThreadMode());
+        this.retryTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "flow-retry-timer");
             thread.setDaemon(true);
             return thread;
         });
         this.runningTasks = new ConcurrentHashMap<>();
 
-        log.info("流程执行服务初始化完成: 支持的节点类型={}",
-                executorManager.getSupportedNodeTypes());
+        int maxConcurrentRuns = Math.max(1, flowProperties.getExecution().getMaxConcurrentRuns());
+        this.runPermits = new Semaphore(maxConcurrentRuns, true);
+        Gauge.builder("flow.runs.active", runPermits, permits -> maxConcurrentRuns - permits.availablePermits())
+                .description("正在执行的流程运行数")
+                .register(meterRegistry);
+        Gauge.builder("flow.runs.queued", queuedRuns, AtomicInteger::get)
+                .description("排队等待执行的流程运行数")
+                .register(meterRegistry);
+        this.peakMemory = DistributionSummary.builder("flow.run.peak_memory")
+                .description("流程运行上下文的峰值内存估算")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        log.info("流程执行服务初始化完成: 支持的节点类型={}, 线程模式={}, 最大并发运行数={}",
+                executorManager.getSupportedNodeTypes(), flowProperties.getExecution().getThreadMode(),
+                maxConcurrentRuns);
+    }
+
+    /**
+     * 关闭执行线程和重试定时器
+     */
+    @PreDestroy
+    public void shutdown() {
+        retryTimer.shutdownNow();
+        executorService.shutdownNow();
     }
 
     /**
@@ -85,6 +147,15 @@ public class FlowExecutionService {
                                           Map<String, Object> inputData, Integer timeoutMinutes) {
         log.info("根据快照ID执行流程: runId={}, snapshotId={}", runId, snapshotId);
 
+        // 已编译过的快照直接执行，不再访问仓储；快照删除时计划随之失效
+        Optional<CompiledFlowPlan> cached = planCache.getIfPresent(snapshotId);
+        if (cached.isPresent()) {
+            if (!cached.get().snapshot().isAvailable()) {
+                throw new FlowOrchestrationException(ErrorCode.BIZ_FLOW_066, snapshotId);
+            }
+            return executePlan(runId, cached.get(), inputData, timeoutMinutes);
+        }
+
         // 加载快照
         FlowSnapshot snapshot = snapshotRepo.findById(snapshotId)
                 .orElseThrow(() -> new FlowOrchestrationException(ErrorCode.BIZ_FLOW_058, snapshotId));
@@ -100,31 +171,69 @@ public class FlowExecutionService {
      * 执行流程
      *
      * <p>这是整个执行引擎的入口方法。它接收流程快照和输入数据，
-     * 创建执行上下文，按照预定的执行计划逐步执行每个节点。</p>
+     * 创建执行上下文，按照依赖关系调度执行各个节点。</p>
+     *
+     * <p>执行前先获取运行许可：许可用尽时排队等待，排队数超过上限或等待超时则拒绝。</p>
      *
      * @param runId          运行实例ID
      * @param snapshot       流程快照
      * @param inputData      输入数据
      * @param timeoutMinutes 超时时间（分钟）
      * @return 执行结果JSON
+     * @throws FlowOrchestrationException 当执行繁忙被拒绝或执行失败时抛出
      */
     public String executeFlow(Long runId, FlowSnapshot snapshot,
                               Map<String, Object> inputData, Integer timeoutMinutes) {
+        CompiledFlowPlan plan;
+        try {
+            plan = planCache.get(snapshot);
+        } catch (Exception e) {
+            log.error("流程计划编译失败: runId={}, snapshotId={}", runId, snapshot.id(), e);
+            throw new FlowOrchestrationException(ErrorCode.BIZ_FLOW_069, e);
+        }
+
+        return executePlan(runId, plan, inputData, timeoutMinutes);
+    }
+
+    /**
+     * 获取运行许可后执行编译好的计划
+     *
+     * <p>许可由调用线程、运行线程和节点线程共同持有，全部结束后才归还。超时或取消后仍在运行的
+     * 节点线程继续占用许可，避免并发运行数超过上限。</p>
+     */
+    private String executePlan(Long runId, CompiledFlowPlan plan,
+                               Map<String, Object> inputData, Integer timeoutMinutes) {
         log.info("执行流程: runId={}, snapshotId={}, timeout={}分钟",
-                runId, snapshot.id(), timeoutMinutes);
+                runId, plan.snapshot().id(), timeoutMinutes);
 
+        acquireRunPermit(runId);
+        RunPermit permit = new RunPermit(runPermits);
+        try {
+            return executeAdmittedFlow(runId, plan, inputData, timeoutMinutes, permit);
+        } finally {
+            permit.release();
+        }
+    }
+
+    /**
+     * 执行已获得许可的流程
+     */
+    private String executeAdmittedFlow(Long runId, CompiledFlowPlan plan,
+                                       Map<String, Object> inputData, Integer timeoutMinutes,
+                                       RunPermit permit) {
         long startTime = System.currentTimeMillis();
 
         try {
             // 创建执行上下文
-            FlowExecutionContext context = createExecutionContext(runId, snapshot, inputData);
+            FlowExecutionContext context = createExecutionContext(runId, plan, inputData);
 
             // 提交执行任务
-            Future<String> future = executorService.submit(() -> executeFlowInternal(context));
+            Future<String> future = submitHolding(permit, () -> executeFlowInternal(context, permit));
             runningTasks.put(runId, future);
 
             // 等待执行完成或超时
-            int effectiveTimeout = timeoutMinutes != null ? timeoutMinutes : 30;
+            int effectiveTimeout = timeoutMinutes != null
+                    ? timeoutMinutes : flowProperties.getExecution().getDefaultTimeoutMinutes();
             String result = future.get(effectiveTimeout, TimeUnit.MINUTES);
 
             runningTasks.remove(runId);
@@ -143,6 +252,13 @@ public class FlowExecutionService {
             log.error("流程执行失败: runId={}", runId, e);
             runningTasks.remove(runId);
             throw new FlowOrchestrationException(ErrorCode.BIZ_FLOW_005, e);
+
+        } finally {
+            // 运行结束时等待本次运行的日志落库，使结果返回后日志即可查询
+            long flushTimeoutMs = flowProperties.getRunLog().getCompletionFlushTimeoutMs();
+            if (flushTimeoutMs > 0 && !runLogWriter.flush(runId, Duration.ofMillis(flushTimeoutMs))) {
+                log.warn("等待流程运行日志写入超时: runId={}, backlog={}", runId, runLogWriter.backlog());
+            }
         }
     }
 
@@ -174,7 +290,7 @@ public class FlowExecutionService {
             return !executorService.isShutdown() &&
                     !executorManager.getSupportedNodeTypes().isEmpty() &&
                     runRepo != null &&
-                    runLogRepo != null;
+                    runLogWriter != null;
         } catch (Exception e) {
             log.error("流程执行服务健康检查失败", e);
             return false;
@@ -202,36 +318,72 @@ public class FlowExecutionService {
 
     // =================== 私有执行方法 ===================
 
+    /**
+     * 创建执行线程
+     */
+    private static ExecutorService createExecutorService(String threadMode) {
+        if ("platform".equalsIgnoreCase(threadMode)) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "flow-executor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("flow-executor-", 0).factory());
+    }
+
+    /**
+     * 获取运行许可
+     *
+     * <p>有空闲许可时立即返回；否则进入排队，排队数已达上限或等待超时时拒绝执行。</p>
+     */
+    private void acquireRunPermit(Long runId) {
+        if (runPermits.tryAcquire()) {
+            return;
+        }
+
+        FlowProperties.ExecutionProperties execution = flowProperties.getExecution();
+        if (queuedRuns.incrementAndGet() > execution.getMaxQueuedRuns()) {
+            queuedRuns.decrementAndGet();
+            log.warn("流程执行排队已满，拒绝运行: runId={}, maxQueuedRuns={}", runId, execution.getMaxQueuedRuns());
+            throw new FlowOrchestrationException(ErrorCode.BIZ_FLOW_077);
+        }
+
+        try {
+            if (!runPermits.tryAcquire(execution.getAdmissionTimeoutSeconds(), TimeUnit.SECONDS)) {
+                log.warn("流程排队等待超时，拒绝运行: runId={}, timeout={}s",
+                        runId, execution.getAdmissionTimeoutSeconds());
+                throw new FlowOrchestrationException(ErrorCode.BIZ_FLOW_077);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FlowOrchestrationException(ErrorCode.BIZ_FLOW_067, e);
+        } finally {
+            queuedRuns.decrementAndGet();
+        }
+    }
+
     /**
      * 内部执行流程核心逻辑
      *
      * <p>这是流程执行的核心方法，负责：</p>
      * <ul>
      * <li>初始化执行状态和日志记录</li>
-     * <li>按照执行计划顺序执行节点</li>
+     * <li>按照依赖关系并行调度节点</li>
      * <li>处理节点间的数据传递和依赖关系</li>
      * <li>捕获和处理执行过程中的异常</li>
      * <li>构建最终的执行结果</li>
      * </ul>
      */
-    private String executeFlowInternal(FlowExecutionContext context) {
+    private String executeFlowInternal(FlowExecutionContext context, RunPermit permit) {
         log.debug("开始内部执行流程: runId={}", context.getRunId());
 
         try {
             // 初始化执行状态
             initializeExecution(context);
 
-            // 从快照获取执行计划 - 注意这里的简化
-            List<String> executionPlan = context.getSnapshot().getExecutionPlan();
-
-            // 按执行计划逐步执行节点
-            for (String nodeKey : executionPlan) {
-                if (Thread.currentThread().isInterrupted()) {
-                    throw new InterruptedException(ErrorCode.BIZ_FLOW_067.getDefaultMessage());
-                }
-
-                executeNode(context, nodeKey);
-            }
+            // 按依赖关系调度执行节点
+            scheduleNodes(context, permit);
 
             // 构建最终结果
             Map<String, Object> result = buildExecutionResult(context);
@@ -244,26 +396,179 @@ public class FlowExecutionService {
         } catch (Exception e) {
             log.error("流程内部执行失败: runId={}", context.getRunId(), e);
             return buildErrorResult(context, e);
+
+        } finally {
+            peakMemory.record(context.getPeakMemoryUsage());
         }
     }
 
+    /**
+     * 按依赖关系图调度节点
+     *
+     * <p>记录每个节点尚未结束的上游数量，上游全部结束（成功或跳过）的节点进入就绪队列，
+     * 在并发上限内立即派发。只有一个就绪节点且没有在途节点时直接在当前线程执行，
+     * 线性流程不产生额外的线程切换。节点需要重试时交给定时器在退避时间后重新放入就绪队列。
+     * 任一节点最终失败或运行被中断时，取消其余在途节点和待重试节点并结束调度。</p>
+     *
+     * <p>同时记录每个节点尚未结束的下游数量，下游全部结束后释放该节点的结果，
+     * 只有终端节点的结果保留到运行结束。</p>
+     *
+     * <p>调度状态只由当前线程读写，节点线程和定时器通过事件队列回报结果。</p>
+     */
+    private void scheduleNodes(FlowExecutionContext context, RunPermit permit) throws InterruptedException {
+        CompiledFlowPlan plan = context.getPlan();
+        int[] pendingUpstreams = new int[plan.size()];
+        int[] pendingDownstreams = new int[plan.size()];
+        boolean releaseConsumed = Boolean.TRUE.equals(flowProperties.getStreaming().getReleaseConsumedResults());
+        Deque<Integer> ready = new ArrayDeque<>();
+        for (int node = 0; node < plan.size(); node++) {
+            pendingUpstreams[node] = plan.upstreams(node).length;
+            pendingDownstreams[node] = plan.downstreams(node).length;
+            if (pendingUpstreams[node] == 0) {
+                ready.add(node);
+            }
+        }
+
+        int maxParallelNodes = Math.max(1, flowProperties.getExecution().getMaxParallelNodes());
+        BlockingQueue<NodeEvent> events = new LinkedBlockingQueue<>();
+        Map<Integer, Future<?>> inFlight = new HashMap<>();
+        Map<Integer, ScheduledFuture<?>> retrying = new HashMap<>();
+
+        try {
+            while (!ready.isEmpty() || !inFlight.isEmpty() || !retrying.isEmpty()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException(ErrorCode.BIZ_FLOW_067.getDefaultMessage());
+                }
+
+                NodeEvent event;
+                if (inFlight.isEmpty() && retrying.isEmpty() && ready.size() == 1) {
+                    event = runNodeAttempt(context, ready.poll());
+                } else {
+                    while (!ready.isEmpty() && inFlight.size() < maxParallelNodes) {
+                        int node = ready.poll();
+                        inFlight.put(node, submitHolding(permit,
+                                () -> events.add(runNodeAttempt(context, node))));
+                    }
+                    event = events.take();
+                    inFlight.remove(event.node());
+                }
+
+                int node = event.node();
+                switch (event.type()) {
+                    case FINISHED -> {
+                        for (int downstream : plan.downstreams(node)) {
+                            if (--pendingUpstreams[downstream] == 0) {
+                                ready.add(downstream);
+                            }
+                        }
+                        for (int upstream : plan.upstreams(node)) {
+                            if (--pendingDownstreams[upstream] == 0 && releaseConsumed) {
+                                context.releaseNodeResult(plan.nodeKey(upstream));
+                            }
+                        }
+                    }
+                    case RETRY -> retrying.put(node, retryTimer.schedule(
+                            () -> events.add(NodeEvent.retryDue(node)),
+                            event.retryDelay().toMillis(), TimeUnit.MILLISECONDS));
+                    case RETRY_DUE -> {
+                        retrying.remove(node);
+                        ready.addFirst(node);
+                    }
+                    case FAILED -> throw event.error();
+                }
+            }
+        } finally {
+            if (!inFlight.isEmpty() || !retrying.isEmpty()) {
+                log.debug("取消在途节点: runId={}, running={}, retrying={}",
+                        context.getRunId(), inFlight.size(), retrying.size());
+                inFlight.values().forEach(future -> future.cancel(true));
+                retrying.values().forEach(future -> future.cancel(false));
+            }
+        }
+    }
+
+    /**
+     * 执行一次节点并转换为调度事件
+     *
+     * <p>任何异常和错误都转换为失败事件，调度线程不会因节点线程异常退出而一直等待事件。</p>
+     */
+    private NodeEvent runNodeAttempt(FlowExecutionContext context, int node) {
+        try {
+            Duration retryDelay = executeNode(context, node);
+            return retryDelay == null ? NodeEvent.finished(node) : NodeEvent.retry(node, retryDelay);
+        } catch (RuntimeException e) {
+            return NodeEvent.failed(node, e);
+        } catch (Throwable e) {
+            log.error("节点执行出现错误: runId={}, nodeKey={}", context.getRunId(), context.getPlan().nodeKey(node), e);
+            return NodeEvent.failed(node,
+                    new FlowOrchestrationException(ErrorCode.BIZ_FLOW_040, context.getPlan().nodeKey(node), e));
+        }
+    }
+
+    /**
+     * 提交持有运行许可的任务，任务执行结束或在开始前被取消时归还
+     */
+    private <T> Future<T> submitHolding(RunPermit permit, Callable<T> body) {
+        permit.retain();
+        AtomicBoolean settled = new AtomicBoolean();
+        FutureTask<T> task = new FutureTask<>(() -> {
+            if (!settled.compareAndSet(false, true)) {
+                return null;
+            }
+            try {
+                return body.call();
+            } finally {
+                permit.release();
+            }
+        }) {
+            @Override
+            protected void done() {
+                // 已开始的任务在线程真正结束时归还，这里只处理开始前被取消的任务
+                if (isCancelled() && settled.compareAndSet(false, true)) {
+                    permit.release();
+                }
+            }
+        };
+        try {
+            executorService.execute(task);
+        } catch (RejectedExecutionException e) {
+            if (settled.compareAndSet(false, true)) {
+                permit.release();
+            }
+            throw e;
+        }
+        return task;
+    }
+
     /**
      * 执行单个节点
+     *
+     * @return 节点失败且需要重试时返回重试前的等待时间，否则返回null
+     * @throws FlowOrchestrationException 当节点失败且不再重试时抛出
      */
-    private void executeNode(FlowExecutionContext context, String nodeKey) {
+    private Duration executeNode(FlowExecutionContext context, int node) {
+        CompiledFlowPlan plan = context.getPlan();
+        String nodeKey = plan.nodeKey(node);
         log.debug("执行节点: runId={}, nodeKey={}", context.getRunId(), nodeKey);
 
+        // 同一运行中的其他节点失败后，尚未开始的节点不再执行
+        if (Thread.currentThread().isInterrupted()) {
+            throw new FlowOrchestrationException(ErrorCode.BIZ_FLOW_067);
+        }
+
         try {
+
             // 获取节点信息
-            NodeExecutionInfo nodeInfo = context.getSnapshot().getNode(nodeKey);
+            NodeExecutionInfo nodeInfo = plan.node(node);
             if (nodeInfo == null) {
                 throw new FlowOrchestrationException(ErrorCode.BIZ_FLOW_034, nodeKey);
             }
 
             // 检查依赖是否满足
-            if (!areDependenciesSatisfied(context, nodeKey)) {
+            if (!areDependenciesSatisfied(context, node)) {
                 log.debug("节点依赖未满足，跳过执行: nodeKey={}", nodeKey);
-                return;
+                context.setNodeStatus(nodeKey, FlowExecutionContext.NodeExecutionStatus.SKIPPED);
+                return null;
             }
 
             // 获取节点执行器
@@ -278,9 +583,10 @@ public class FlowExecutionService {
             }
 
             // 准备输入数据
-            Map<String, Object> nodeInput = prepareNodeInput(context, nodeKey);
+            Map<String, Object> nodeInput = prepareNodeInput(context, node);
 
             // 记录执行开始
+            context.setNodeStatus(nodeKey, FlowExecutionContext.NodeExecutionStatus.RUNNING);
             logNodeExecution(context.getRunId(), nodeKey, "START", nodeInput, null);
 
             // 执行节点
@@ -308,13 +614,15 @@ public class FlowExecutionService {
             );
             logNodeExecution(context.getRunId(), nodeKey, "ERROR", null, errorInfo);
 
-            // 检查是否有重试策略
-            if (shouldRetry(context, nodeKey, e)) {
-                retryNodeExecution(context, nodeKey);
-            } else {
-                throw new FlowOrchestrationException(ErrorCode.BIZ_FLOW_040, nodeKey, e);
+            // 检查是否有重试策略，运行已被取消时不再重试
+            if (!Thread.currentThread().isInterrupted() && shouldRetry(context, node)) {
+                return nextRetryDelay(context, nodeKey);
             }
+            context.setNodeStatus(nodeKey, FlowExecutionContext.NodeExecutionStatus.FAILED);
+            throw new FlowOrchestrationException(ErrorCode.BIZ_FLOW_040, nodeKey, e);
         }
+
+        return null;
     }
 
     /**
@@ -323,17 +631,15 @@ public class FlowExecutionService {
      * <p>在执行节点之前，需要确保所有依赖的节点都已经成功执行。
      * 这是保证数据流正确性的关键检查。</p>
      */
-    private boolean areDependenciesSatisfied(FlowExecutionContext context, String nodeKey) {
-        Map<String, List<String>> dependencyGraph = context.getSnapshot().getDependencyGraph();
-        List<String> dependencies = dependencyGraph.get(nodeKey);
-
-        if (dependencies == null || dependencies.isEmpty()) {
-            return true; // 没有依赖，可以执行
+    private boolean areDependenciesSatisfied(FlowExecutionContext context, int node) {
+        CompiledFlowPlan plan = context.getPlan();
+        if (plan.hasMissingUpstream(node)) {
+            return false; // 依赖了执行计划之外的节点，永远无法满足
         }
 
         // 检查所有依赖节点是否都已执行成功
-        for (String dependency : dependencies) {
-            if (!context.isNodeExecuted(dependency)) {
+        for (int upstream : plan.upstreams(node)) {
+            if (!context.isNodeExecuted(plan.nodeKey(upstream))) {
                 return false;
             }
         }
@@ -344,21 +650,19 @@ public class FlowExecutionService {
     /**
      * 准备节点输入数据
      */
-    private Map<String, Object> prepareNodeInput(FlowExecutionContext context, String nodeKey) {
+    private Map<String, Object> prepareNodeInput(FlowExecutionContext context, int node) {
+        CompiledFlowPlan plan = context.getPlan();
+        String nodeKey = plan.nodeKey(node);
 
         // 添加初始输入数据
         Map<String, Object> input = new HashMap<>(context.getInitialInput());
 
         // 添加依赖节点的输出
-        Map<String, List<String>> dependencyGraph = context.getSnapshot().getDependencyGraph();
-        List<String> dependencies = dependencyGraph.get(nodeKey);
-
-        if (dependencies != null) {
-            for (String dependency : dependencies) {
-                Map<String, Object> dependencyOutput = context.getNodeResult(dependency);
-                if (dependencyOutput != null) {
-                    input.put(dependency + "_output", dependencyOutput);
-                }
+        for (int upstream : plan.upstreams(node)) {
+            String dependency = plan.nodeKey(upstream);
+            Map<String, Object> dependencyOutput = context.getNodeResult(dependency);
+            if (dependencyOutput != null) {
+                input.put(dependency + "_output", dependencyOutput);
             }
         }
 
@@ -377,28 +681,13 @@ public class FlowExecutionService {
      * 记录节点执行日志
      *
      * <p>详细记录每个节点的执行状态、输入输出数据，
-     * 为后续的调试、审计和性能分析提供重要信息。</p>
+     * 为后续的调试、审计和性能分析提供重要信息。
+     * 日志交给{@link FlowRunLogWriter}异步批量写入，不阻塞节点执行。</p>
      */
     private void logNodeExecution(Long runId, String nodeKey, String status,
                                   Map<String, Object> input, Map<String, Object> output) {
         try {
-            Map<String, Object> logData = new HashMap<>();
-            logData.put("status", status);
-            logData.put("timestamp", System.currentTimeMillis());
-
-            if (input != null) {
-                logData.put("input", input);
-            }
-
-            if (output != null) {
-                logData.put("output", output);
-            }
-
-            String ioJson = objectMapper.writeValueAsString(logData);
-
-            FlowRunLog runLog = FlowRunLog.create(runId, nodeKey, ioJson, null);
-            runLogRepo.save(runLog);
-
+            runLogWriter.append(runId, nodeKey, status, input, output);
         } catch (Exception e) {
             log.error("记录节点执行日志失败: runId={}, nodeKey={}", runId, nodeKey, e);
         }
@@ -409,51 +698,23 @@ public class FlowExecutionService {
      *
      * <p>基于节点的重试策略配置，决定是否对失败的节点进行重试。</p>
      */
-    private boolean shouldRetry(FlowExecutionContext context, String nodeKey, Exception e) {
-        NodeExecutionInfo nodeInfo = context.getSnapshot().getNode(nodeKey);
-        if (nodeInfo.retryPolicyJson() == null) {
-            return false;
-        }
-
-        try {
-            Map<String, Object> retryPolicy = objectMapper.readValue(
-                    nodeInfo.retryPolicyJson(), new TypeReference<Map<String, Object>>() {
-                    });
-
-            Integer maxRetries = (Integer) retryPolicy.get("maxRetries");
-            if (maxRetries == null || maxRetries <= 0) {
-                return false;
-            }
-
-            int currentRetries = context.getRetryCount(nodeKey);
-            return currentRetries < maxRetries;
-
-        } catch (Exception ex) {
-            log.warn("解析重试策略失败: nodeKey={}", nodeKey, ex);
-            return false;
-        }
+    private boolean shouldRetry(FlowExecutionContext context, int node) {
+        CompiledFlowPlan plan = context.getPlan();
+        int maxRetries = plan.maxRetries(node);
+        return maxRetries > 0 && context.getRetryCount(plan.nodeKey(node)) < maxRetries;
     }
 
     /**
-     * 重试节点执行
+     * 计算下一次重试的等待时间
      *
-     * <p>实现节点重试逻辑，包括递增延迟和重试计数管理。</p>
+     * <p>增加重试计数并按重试次数线性递增退避时间，实际等待由调度器的定时器完成。</p>
      */
-    private void retryNodeExecution(FlowExecutionContext context, String nodeKey) {
+    private Duration nextRetryDelay(FlowExecutionContext context, String nodeKey) {
         int currentRetries = context.incrementRetryCount(nodeKey);
+        Duration delay = Duration.ofMillis(flowProperties.getExecution().getRetryBackoffMs() * currentRetries);
 
-        log.info("重试节点执行: nodeKey={}, retryCount={}", nodeKey, currentRetries);
-
-        // 等待一段时间后重试
-        try {
-            Thread.sleep(1000L * (currentRetries)); // 递增延迟
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new FlowOrchestrationException(ErrorCode.SYS_TASK_008, e);
-        }
-
-        // 递归调用执行
-        executeNode(context, nodeKey);
+        log.info("节点将重试: nodeKey={}, retryCount={}, delay={}ms", nodeKey, currentRetries, delay.toMillis());
+        return delay;
     }
 
     // =================== 辅助方法 ===================
@@ -488,18 +749,18 @@ public class FlowExecutionService {
     /**
      * 创建执行上下文
      */
-    private FlowExecutionContext createExecutionContext(Long runId, FlowSnapshot snapshot,
+    private FlowExecutionContext createExecutionContext(Long runId, CompiledFlowPlan plan,
                                                         Map<String, Object> inputData) {
         FlowExecutionContext context = new FlowExecutionContext(
                 runId,
-                snapshot.id(),
+                plan.snapshot().id(),
                 null, // userId - 从上下文获取或参数传入
                 null, // tenantId - 从上下文获取或参数传入
                 inputData
         );
 
-        // 设置快照引用 - 这是关键的改进
-        context.setSnapshot(snapshot);
+        // 设置编译后的执行计划，快照引用随之设置
+        context.setPlan(plan);
 
         return context;
     }
@@ -529,6 +790,7 @@ public class FlowExecutionService {
         result.put("runId", context.getRunId());
         result.put("snapshotId", context.getSnapshot().id());
         result.put("nodeResults", context.getAllNodeResults());
+        result.put("releasedNodes", context.getReleasedNodes());
         result.put("executionMetrics", context.getExecutionMetrics());
         result.put("summary", context.generateSummary());
         result.put("finishedAt", System.currentTimeMillis());
@@ -567,4 +829,78 @@ public class FlowExecutionService {
             return "{\"status\":\"ERROR\",\"error\":\"结果序列化失败\"}";
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 一次运行持有的执行许可
+     *
+     * <p>按持有者计数，最后一个持有者释放时归还信号量。</p>
+     */
+    private static final class RunPermit {
+
+        private final Semaphore permits;
+        private final AtomicInteger holders = new AtomicInteger(1);
+
+        RunPermit(Semaphore permits) {
+            this.permits = permits;
+        }
+
+        void retain() {
+            holders.incrementAndGet();
+        }
+
+        void release() {
+            if (holders.decrementAndGet() == 0) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * 节点调度事件
+     *
+     * @param type       事件类型
+     * @param node       节点在执行计划中的编号
+     * @param retryDelay 重试前的等待时间，仅RETRY事件有值
+     * @param error      失败原因，仅FAILED事件有值
+     */
+    private record NodeEvent(NodeEventType type, int node, Duration retryDelay, RuntimeException error) {
+
+        static NodeEvent finished(int node) {
+            return new NodeEvent(NodeEventType.FINISHED, node, null, null);
+        }
+
+        static NodeEvent retry(int node, Duration retryDelay) {
+            return new NodeEvent(NodeEventType.RETRY, node, retryDelay, null);
+        }
+
+        static NodeEvent retryDue(int node) {
+            return new NodeEvent(NodeEventType.RETRY_DUE, node, null, null);
+        }
+
+        static NodeEvent failed(int node, RuntimeException error) {
+            return new NodeEvent(NodeEventType.FAILED, node, null, error);
+        }
+    }
+
+    /**
+     * 节点调度事件类型
+     */
+    private enum NodeEventType {
+        /**
+         * 节点执行成功或被跳过
+         */
+        FINISHED,
+        /**
+         * 节点失败，需要在退避后重试
+         */
+        RETRY,
+        /**
+         * 退避时间已到，节点可以重新派发
+         */
+        RETRY_DUE,
+        /**
+         * 节点最终失败
+         */
+        FAILED
+    }
+}
@@ -25,6 +25,7 @@ import java.time.OffsetDateTime;
  * @param langCode      文档主要语言代码（zh-CN、en等）
  * @param parsingStatus 解析状态枚举
  * @param chunkCount    成功解析的知识块数量
+ * @param embeddedCount 已生成向量的知识块数量，用于展示向量生成进度
  * @param sha256        内容SHA256哈希，用于去重
  * @param createdBy     文档创建人用户ID
  * @param updatedBy     最近修改人用户ID
@@ -42,6 +43,7 @@ public record Document(
         String langCode,
         ParsingStatus parsingStatus,
         Integer chunkCount,
+        Integer embeddedCount,
         String sha256,
         Long createdBy,
         Long updatedBy,
@@ -71,7 +73,7 @@ public record Document(
         OffsetDateTime now = OffsetDateTime.now();
         return new Document(
                 null, tenantId, title, sourceType, sourceUri, mimeType, langCode,
-                ParsingStatus.PENDING, 0, sha256, createdBy, null, now, now, null
+                ParsingStatus.PENDING, 0, 0, sha256, createdBy, null, now, now, null
         );
     }
 
@@ -94,7 +96,7 @@ public record Document(
 
         return new Document(
                 this.id, this.tenantId, this.title, this.sourceType, this.sourceUri,
-                this.mimeType, this.langCode, newStatus, chunkCount, this.sha256,
+                this.mimeType, this.langCode, newStatus, chunkCount, this.embeddedCount, this.sha256,
                 this.createdBy, this.updatedBy, this.createdAt, OffsetDateTime.now(), this.deletedAt
         );
     }
@@ -112,7 +114,7 @@ public record Document(
     public Document updateInfo(String newTitle, String newLangCode, Long updatedBy) {
         return new Document(
                 this.id, this.tenantId, newTitle, this.sourceType, this.sourceUri,
-                this.mimeType, newLangCode, this.parsingStatus, this.chunkCount, this.sha256,
+                this.mimeType, newLangCode, this.parsingStatus, this.chunkCount, this.embeddedCount, this.sha256,
                 this.createdBy, updatedBy, this.createdAt, OffsetDateTime.now(), this.deletedAt
         );
     }
@@ -126,7 +128,7 @@ public record Document(
     public Document markAsDeleted(Long deletedBy) {
         return new Document(
                 this.id, this.tenantId, this.title, this.sourceType, this.sourceUri,
-                this.mimeType, this.langCode, this.parsingStatus, this.chunkCount, this.sha256,
+                this.mimeType, this.langCode, this.parsingStatus, this.chunkCount, this.embeddedCount, this.sha256,
                 this.createdBy, deletedBy, this.createdAt, OffsetDateTime.now(), OffsetDateTime.now()
         );
     }
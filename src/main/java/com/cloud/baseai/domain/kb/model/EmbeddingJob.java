@@ -0,0 +1,93 @@
+package com.cloud.baseai.domain.kb.model;
+
+import java.time.OffsetDateTime;
+
+/**
+ * <h2>向量生成任务实体</h2>
+ *
+ * <p>持久化的向量生成任务，每个任务对应一个文档。工作节点按知识块ID顺序处理，
+ * 每处理完一页就推进检查点（lastChunkId），节点崩溃后其他节点从检查点继续，
+ * 已完成的知识块不会重复调用模型。</p>
+ *
+ * <p><b>业务规则：</b></p>
+ * <ul>
+ * <li>同一次批量请求的任务共享 taskId，用于整体进度查询</li>
+ * <li>任务通过租约（lockedBy + lockedUntil）独占执行，租约过期后可被接管</li>
+ * <li>尝试次数超过上限的任务标记为失败，不再领取</li>
+ * </ul>
+ *
+ * @param id              任务ID
+ * @param taskId          任务批次ID
+ * @param documentId      文档ID
+ * @param modelCode       嵌入模型代码
+ * @param status          任务状态
+ * @param totalChunks     知识块总数
+ * @param processedChunks 已成功处理的知识块数
+ * @param failedChunks    失败的知识块数
+ * @param lastChunkId     检查点：已处理到的最大知识块ID
+ * @param attempts        已被领取的次数
+ * @param lockedBy        持有租约的工作节点
+ * @param lockedUntil     租约到期时间
+ * @param lastError       最近一次错误信息
+ * @param createdBy       创建人ID
+ * @param createdAt       创建时间
+ * @param updatedAt       更新时间
+ * @param startedAt       首次开始执行时间
+ * @param finishedAt      结束时间
+ */
+public record EmbeddingJob(
+        Long id,
+        String taskId,
+        Long documentId,
+        String modelCode,
+        EmbeddingJobStatus status,
+        Integer totalChunks,
+        Integer processedChunks,
+        Integer failedChunks,
+        Long lastChunkId,
+        Integer attempts,
+        String lockedBy,
+        OffsetDateTime lockedUntil,
+        String lastError,
+        Long createdBy,
+        OffsetDateTime createdAt,
+        OffsetDateTime updatedAt,
+        OffsetDateTime startedAt,
+        OffsetDateTime finishedAt
+) {
+
+    /**
+     * 创建待处理任务的工厂方法
+     *
+     * @param taskId      任务批次ID
+     * @param documentId  文档ID
+     * @param modelCode   模型代码
+     * @param totalChunks 知识块总数
+     * @param createdBy   创建人ID
+     * @return 新任务实例
+     */
+    public static EmbeddingJob create(String taskId, Long documentId, String modelCode,
+                                      int totalChunks, Long createdBy) {
+        OffsetDateTime now = OffsetDateTime.now();
+        return new EmbeddingJob(
+                null, taskId, documentId, modelCode, EmbeddingJobStatus.PENDING,
+                totalChunks, 0, 0, 0L, 0, null, null, null,
+                createdBy, now, now, null, null
+        );
+    }
+
+    /**
+     * 计算任务进度
+     *
+     * @return 0到1之间的进度值
+     */
+    public double progress() {
+        if (status == EmbeddingJobStatus.COMPLETED) {
+            return 1.0;
+        }
+        if (totalChunks == null || totalChunks == 0) {
+            return 0.0;
+        }
+        return Math.min(1.0, (double) (processedChunks + failedChunks) / totalChunks);
+    }
+}
@@ -0,0 +1,63 @@
+package com.cloud.baseai.domain.kb.model;
+
+import lombok.Getter;
+
+/**
+ * <h2>向量生成任务状态枚举</h2>
+ *
+ * <p>任务状态机：PENDING → RUNNING → COMPLETED / FAILED。
+ * 执行节点崩溃时任务停留在RUNNING，租约过期后会被重新领取。</p>
+ */
+@Getter
+public enum EmbeddingJobStatus {
+    /**
+     * 待处理 - 已入队，等待工作节点领取
+     */
+    PENDING(0, "待处理"),
+
+    /**
+     * 执行中 - 已被工作节点领取并持有租约
+     */
+    RUNNING(1, "执行中"),
+
+    /**
+     * 已完成 - 所有知识块都已处理（个别知识块可能失败，见失败计数）
+     */
+    COMPLETED(2, "已完成"),
+
+    /**
+     * 失败 - 超过最大尝试次数仍未完成
+     */
+    FAILED(3, "失败");
+
+    private final int code;
+    private final String label;
+
+    EmbeddingJobStatus(int code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+
+    /**
+     * 根据代码获取状态枚举
+     *
+     * @param code 状态代码
+     * @return 对应的状态枚举
+     * @throws IllegalArgumentException 如果代码无效
+     */
+    public static EmbeddingJobStatus fromCode(int code) {
+        for (EmbeddingJobStatus status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("未知的向量任务状态代码: " + code);
+    }
+
+    /**
+     * 判断是否为终止状态
+     */
+    public boolean isTerminal() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
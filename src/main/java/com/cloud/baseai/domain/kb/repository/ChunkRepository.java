@@ -65,6 +65,18 @@ public interface ChunkRepository {
      */
     List<Chunk> findByDocumentId(Long documentId, int page, int size);
 
+    /**
+     * 按ID顺序读取文档下的知识块（键集分页）
+     *
+     * <p>用于向量生成任务从检查点继续处理，翻页代价与偏移量无关。</p>
+     *
+     * @param documentId   文档ID
+     * @param afterChunkId 只返回ID大于该值的知识块
+     * @param limit        最多返回数量
+     * @return 知识块列表，按ID升序排序
+     */
+    List<Chunk> findByDocumentIdAfter(Long documentId, Long afterChunkId, int limit);
+
     /**
      * 查询指定文档的知识块数量
      *
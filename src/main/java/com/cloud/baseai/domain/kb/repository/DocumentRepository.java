@@ -119,4 +119,21 @@ public interface DocumentRepository {
      * @return true如果删除成功
      */
     boolean softDelete(Long id, Long deletedBy);
+
+    /**
+     * 按已保存的向量重新计算向量生成进度
+     *
+     * <p>进度取自当前向量版本已有向量的知识块数，同一批次重复处理不会重复计数。</p>
+     *
+     * @param documentId 文档ID
+     * @param modelCode  嵌入模型代码
+     */
+    void refreshEmbeddedCount(Long documentId, String modelCode);
+
+    /**
+     * 重置向量生成进度
+     *
+     * @param documentId 文档ID
+     */
+    void resetEmbeddedCount(Long documentId);
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.cloud.baseai.domain.kb.repository;
+
+import com.cloud.baseai.domain.kb.model.EmbeddingJob;
+
+import java.util.List;
+
+/**
+ * <h2>向量生成任务仓储接口</h2>
+ *
+ * <p>任务表同时充当持久化队列：入队即插入，工作节点通过租约领取，
+ * 执行过程中推进检查点并续约。</p>
+ */
+public interface EmbeddingJobRepository {
+
+    /**
+     * 批量入队
+     *
+     * @param jobs 待处理任务
+     * @return 保存后的任务
+     */
+    List<EmbeddingJob> saveAll(List<EmbeddingJob> jobs);
+
+    /**
+     * 领取可执行的任务
+     *
+     * <p>可执行指待处理，或执行中但租约已过期（原节点崩溃）。多个节点并发领取时互不阻塞，
+     * 每个任务只会被一个节点领到。</p>
+     *
+     * @param workerId     工作节点标识
+     * @param limit        最多领取数量
+     * @param leaseSeconds 租约时长（秒）
+     * @param maxAttempts  最大尝试次数，超过的任务不再领取
+     * @return 领取到的任务
+     */
+    List<EmbeddingJob> claim(String workerId, int limit, int leaseSeconds, int maxAttempts);
+
+    /**
+     * 推进检查点并续约
+     *
+     * @param jobId           任务ID
+     * @param workerId        工作节点标识
+     * @param lastChunkId     已处理到的最大知识块ID
+     * @param processedDelta  本次新增成功数
+     * @param failedDelta     本次新增失败数
+     * @param leaseSeconds    续约时长（秒）
+     * @return false表示租约已被其他节点接管，当前节点应停止处理
+     */
+    boolean checkpoint(Long jobId, String workerId, long lastChunkId,
+                       int processedDelta, int failedDelta, int leaseSeconds);
+
+    /**
+     * 续约，由执行节点定期调用，与检查点推进无关
+     *
+     * @param jobId        任务ID
+     * @param workerId     工作节点标识
+     * @param leaseSeconds 续约时长（秒）
+     * @return false表示租约已被其他节点接管
+     */
+    boolean renew(Long jobId, String workerId, int leaseSeconds);
+
+    /**
+     * 标记任务完成，只应在检查点之后已没有知识块时调用
+     *
+     * @param jobId    任务ID
+     * @param workerId 工作节点标识
+     */
+    void complete(Long jobId, String workerId);
+
+    /**
+     * 释放任务：尝试次数未达上限时退回待处理，否则标记失败
+     *
+     * @param jobId          任务ID
+     * @param workerId       工作节点标识
+     * @param error          错误信息
+     * @param maxAttempts    最大尝试次数
+     * @param backoffSeconds 退回后等待多久才能再次被领取（秒），0表示立即可领取
+     */
+    void release(Long jobId, String workerId, String error, int maxAttempts, int backoffSeconds);
+
+    /**
+     * 退回任务且不消耗尝试次数，用于节点正常停止
+     *
+     * @param jobId    任务ID
+     * @param workerId 工作节点标识
+     * @param reason   退回原因
+     */
+    void requeue(Long jobId, String workerId, String reason);
+
+    /**
+     * 查询同一批次的所有任务
+     *
+     * @param taskId 任务批次ID
+     * @return 任务列表
+     */
+    List<EmbeddingJob> findByTaskId(String taskId);
+}
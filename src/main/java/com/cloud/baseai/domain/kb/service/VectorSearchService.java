@@ -1,9 +1,15 @@
 package com.cloud.baseai.domain.kb.service;
 
+import com.cloud.baseai.domain.kb.model.Chunk;
+import com.cloud.baseai.domain.kb.repository.ChunkRepository;
 import com.cloud.baseai.domain.kb.repository.EmbeddingRepository;
 import com.cloud.baseai.domain.kb.repository.EmbeddingRepository.EmbeddingSearchResult;
+import com.cloud.baseai.infrastructure.constants.KbConstants;
 import com.cloud.baseai.infrastructure.exception.BusinessException;
 import com.cloud.baseai.infrastructure.exception.ErrorCode;
+import com.cloud.baseai.infrastructure.search.Bm25KeywordIndex;
+import com.cloud.baseai.infrastructure.search.Bm25KeywordIndex.KeywordSearchResult;
+import com.cloud.baseai.infrastructure.search.VectorIndexManager;
 import com.cloud.baseai.infrastructure.utils.KbUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,6 +45,9 @@ public class VectorSearchService {
     private static final Logger log = LoggerFactory.getLogger(VectorSearchService.class);
 
     private final EmbeddingRepository embeddingRepo;
+    private final VectorIndexManager vectorIndexManager;
+    private final Bm25KeywordIndex keywordIndex;
+    private final ChunkRepository chunkRepo;
 
     // 默认配置参数 - 这些值基于实践经验优化
     private static final float DEFAULT_SIMILARITY_THRESHOLD = 0.7f;  // 默认相似度阈值
@@ -47,8 +56,12 @@ public class VectorSearchService {
     private static final float MEDIUM_CONFIDENCE_THRESHOLD = 0.8f;   // 中等置信度阈值
     private static final float LOW_CONFIDENCE_THRESHOLD = 0.7f;      // 低置信度阈值
 
-    public VectorSearchService(EmbeddingRepository embeddingRepo) {
+    public VectorSearchService(EmbeddingRepository embeddingRepo, VectorIndexManager vectorIndexManager,
+                               Bm25KeywordIndex keywordIndex, ChunkRepository chunkRepo) {
         this.embeddingRepo = embeddingRepo;
+        this.vectorIndexManager = vectorIndexManager;
+        this.keywordIndex = keywordIndex;
+        this.chunkRepo = chunkRepo;
     }
 
     /**
@@ -150,7 +163,7 @@ public class VectorSearchService {
             List<SearchResult> vectorResults = search(
                     queryVector, modelCode, tenantId, topK * 2, DEFAULT_SIMILARITY_THRESHOLD);
 
-            List<SearchResult> keywordResults = simulateKeywordSearch(keywords, tenantId, topK * 2);
+            List<SearchResult> keywordResults = keywordSearch(keywords, tenantId, topK * 2);
 
             // 使用智能融合算法合并结果
             List<SearchResult> mergedResults = intelligentResultFusion(
@@ -281,13 +294,16 @@ public class VectorSearchService {
 
     /**
      * 执行向量数据库查询
+     *
+     * <p>优先使用进程内HNSW索引，索引未就绪时回退到pgvector查询。</p>
      */
     private List<EmbeddingSearchResult> executeVectorDatabaseQuery(float[] queryVector,
                                                                    String modelCode,
                                                                    Long tenantId,
                                                                    int limit) {
 
-        return embeddingRepo.searchSimilar(queryVector, modelCode, tenantId, limit);
+        return vectorIndexManager.search(queryVector, modelCode, tenantId, limit,
+                () -> embeddingRepo.searchSimilar(queryVector, modelCode, tenantId, limit));
     }
 
     /**
@@ -497,11 +513,51 @@ public class VectorSearchService {
     // =================== 辅助方法 ===================
 
     /**
-     * 模拟关键词搜索（简化实现）
+     * BM25关键词搜索，租户没有倒排索引时回退到模糊匹配
      */
-    private List<SearchResult> simulateKeywordSearch(List<String> keywords, Long tenantId, int limit) {
-        // 实际实现中，这里应该调用真正的关键词搜索服务
-        return new ArrayList<>();
+    private List<SearchResult> keywordSearch(List<String> keywords, Long tenantId, int limit) {
+        if (keywords == null || keywords.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (!keywordIndex.hasIndex(tenantId)) {
+            return fuzzyKeywordSearch(keywords, tenantId, limit);
+        }
+
+        List<KeywordSearchResult> results = keywordIndex.search(tenantId, String.join(" ", keywords), limit);
+        if (results.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // BM25分数没有上界，按本次结果的最高分归一化到[0,1]后才能与余弦相似度加权融合
+        float maxScore = results.getFirst().score();
+        float avgScore = (float) results.stream().mapToDouble(r -> r.score() / maxScore).average().orElse(0.0);
+
+        return results.stream()
+                .map(result -> {
+                    float normalized = maxScore > 0 ? result.score() / maxScore : 0f;
+                    return new SearchResult(result.chunkId(), normalized,
+                            calculateDetailedConfidence(normalized, 1.0f, avgScore));
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 逐个关键词做模糊匹配，结果没有相关性排序，统一按中等置信度参与融合
+     */
+    private List<SearchResult> fuzzyKeywordSearch(List<String> keywords, Long tenantId, int limit) {
+        Set<Long> chunkIds = new LinkedHashSet<>();
+        for (String keyword : new LinkedHashSet<>(keywords)) {
+            if (keyword == null || keyword.isBlank() || chunkIds.size() >= limit) {
+                continue;
+            }
+            chunkRepo.searchByText(tenantId, keyword.trim(), limit).stream()
+                    .map(Chunk::id)
+                    .forEach(chunkIds::add);
+        }
+        return chunkIds.stream()
+                .limit(limit)
+                .map(chunkId -> new SearchResult(chunkId, 0.8f, KbConstants.ConfidenceLevels.MEDIUM))
+                .collect(Collectors.toList());
     }
 
     /**
@@ -52,4 +52,21 @@ public interface ToolAuthRepository {
      * 批量删除租户的所有授权
      */
     void deleteByTenantId(Long tenantId);
+
+    /**
+     * 原子增加配额使用量，超出配额限制时不更新
+     *
+     * @return 是否增加成功
+     */
+    boolean tryIncrementQuotaUsed(Long toolId, Long tenantId, int amount);
+
+    /**
+     * 原子减少配额使用量，不会减到0以下
+     */
+    void decrementQuotaUsed(Long toolId, Long tenantId, int amount);
+
+    /**
+     * 直接写入配额使用量，用于把配额账本的计数回写数据库
+     */
+    void updateQuotaUsed(Long toolId, Long tenantId, int quotaUsed);
 }
\ No newline at end of file
@@ -2,32 +2,34 @@ package com.cloud.baseai.domain.mcp.service;
 
 import com.cloud.baseai.domain.mcp.model.Tool;
 import com.cloud.baseai.domain.mcp.model.ToolAuth;
+import com.cloud.baseai.infrastructure.external.http.ToolHttpClient;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * <h2>HTTP工具执行服务实现</h2>
+ *
+ * <p>通过{@link ToolHttpClient}调用工具端点，调用方传入的超时时间作为本次调用的截止时间。</p>
  */
 @Service
 public class HttpToolExecutionService implements ToolExecutionService {
 
     private static final Logger log = LoggerFactory.getLogger(HttpToolExecutionService.class);
 
-    private final RestTemplate restTemplate;
+    private final ToolHttpClient toolHttpClient;
     private final ObjectMapper objectMapper;
 
-    public HttpToolExecutionService(RestTemplate restTemplate, ObjectMapper objectMapper) {
-        this.restTemplate = restTemplate;
+    public HttpToolExecutionService(ToolHttpClient toolHttpClient, ObjectMapper objectMapper) {
+        this.toolHttpClient = toolHttpClient;
         this.objectMapper = objectMapper;
     }
 
@@ -47,12 +49,9 @@ public class HttpToolExecutionService implements ToolExecutionService {
                 addAuthHeader(headers, tool.authType(), auth.apiKey());
             }
 
-            // 构建请求体
-            HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(params, headers);
-
             // 发送请求
-            ResponseEntity<Map> response = restTemplate.postForEntity(
-                    tool.endpoint(), requestEntity, Map.class);
+            ResponseEntity<Map> response = toolHttpClient.exchange(
+                    HttpMethod.POST, tool.endpoint(), headers, params, Map.class, timeoutSeconds);
 
             // 处理响应
             Map<String, Object> result = new HashMap<>();
@@ -78,7 +77,7 @@ public class HttpToolExecutionService implements ToolExecutionService {
     @Override
     public boolean isHealthy() {
         try {
-            return restTemplate != null && objectMapper != null;
+            return toolHttpClient != null && objectMapper != null;
         } catch (Exception e) {
             log.error("HTTP工具执行服务健康检查失败", e);
             return false;
@@ -0,0 +1,399 @@
+package com.cloud.baseai.infrastructure.audit;
+
+import com.cloud.baseai.domain.audit.model.SysAuditLog;
+import com.cloud.baseai.domain.audit.repository.SysAuditLogRepository;
+import com.cloud.baseai.infrastructure.config.properties.AuditProperties;
+import com.cloud.baseai.infrastructure.exception.AuditException;
+import com.cloud.baseai.infrastructure.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <h2>审计日志入库管道</h2>
+ *
+ * <p>调用方线程只做编码、追加预写日志和入队，由单个后台线程攒批后通过COPY批量写入数据库，
+ * 批量写入成功后推进预写日志的检查点。</p>
+ *
+ * <p><b>持久性：</b></p>
+ * <p>记录在{@link #submit(SysAuditLog)}返回前已经写入预写日志，进程重启后从检查点回放，
+ * 数据库暂时不可用时后台线程按退避时间重试同一批，不会丢弃记录。入库语义是至少一次，
+ * 崩溃发生在入库成功与推进检查点之间时，最后一批会重复写入。</p>
+ *
+ * <p><b>背压：</b></p>
+ * <p>管道中未入库的记录数有上限，达到上限时调用方最多等待{@code offerTimeoutMs}，
+ * 仍无空位则抛出{@link ErrorCode#BIZ_AUDIT_046}，不会退化为在调用方线程同步写库。</p>
+ *
+ * <p>预写日志目录不可用或被关闭时退化为纯内存管道，背压和批量写入不变，但重启会丢失积压的记录。</p>
+ */
+@Component
+public class AuditIngestionPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditIngestionPipeline.class);
+
+    private final SysAuditLogRepository auditLogRepository;
+    private final AuditProperties.IngestionProperties properties;
+    private final AuditWriteAheadLog wal;
+    private final Semaphore capacity;
+    private final int capacityLimit;
+    private final BlockingQueue<Pending> pending = new LinkedBlockingQueue<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ScheduledExecutorService syncTimer;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private final Counter writtenCounter;
+    private final Counter rejectedCounter;
+    private final Counter failedCounter;
+    private final Counter retriedCounter;
+
+    public AuditIngestionPipeline(SysAuditLogRepository auditLogRepository,
+                                  AuditProperties auditProperties,
+                                  MeterRegistry meterRegistry) {
+        this.auditLogRepository = auditLogRepository;
+        this.properties = auditProperties.getIngestion();
+        this.capacityLimit = Math.max(1, properties.getCapacity());
+        this.capacity = new Semaphore(capacityLimit);
+        this.wal = openWriteAheadLog();
+
+        Gauge.builder("audit.ingest.backlog", this, AuditIngestionPipeline::backlog)
+                .description("已接收但尚未入库的审计日志数")
+                .register(meterRegistry);
+        this.writtenCounter = meterRegistry.counter("audit.ingest.written");
+        this.rejectedCounter = meterRegistry.counter("audit.ingest.rejected");
+        this.failedCounter = meterRegistry.counter("audit.ingest.failed");
+        this.retriedCounter = meterRegistry.counter("audit.ingest.retried");
+
+        if (wal != null) {
+            long interval = Math.max(1L, properties.getFsyncIntervalMs());
+            this.syncTimer = Executors.newSingleThreadScheduledExecutor(runnable -> Thread.ofPlatform()
+                    .name("audit-wal-sync")
+                    .daemon(true)
+                    .unstarted(runnable));
+            syncTimer.scheduleWithFixedDelay(this::syncQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.syncTimer = null;
+        }
+
+        this.writerThread = Thread.ofPlatform()
+                .name("audit-ingest-writer")
+                .daemon(true)
+                .start(this::writeLoop);
+    }
+
+    /**
+     * 提交一条审计日志
+     *
+     * <p>返回时记录已写入预写日志，入库由后台线程完成。</p>
+     *
+     * @param auditLog 审计日志
+     * @throws AuditException 管道已满且等待超时（BIZ_AUDIT_046），或写预写日志失败（BIZ_AUDIT_045）
+     */
+    public void submit(SysAuditLog auditLog) {
+        byte[] payload = wal != null ? AuditLogCodec.encode(auditLog) : null;
+        if (!running || !acquire()) {
+            rejectedCounter.increment();
+            throw AuditException.technicalError(ErrorCode.BIZ_AUDIT_046, null);
+        }
+
+        appendLock.lock();
+        try {
+            AuditWriteAheadLog.Position position = wal != null ? wal.append(payload) : null;
+            pending.add(new Pending(auditLog, position));
+        } catch (IOException e) {
+            capacity.release();
+            throw AuditException.technicalError(ErrorCode.BIZ_AUDIT_045, e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * 已接收但尚未入库的记录数
+     */
+    public int backlog() {
+        return capacityLimit - capacity.availablePermits();
+    }
+
+    /**
+     * 是否由预写日志保护
+     */
+    public boolean isDurable() {
+        return wal != null;
+    }
+
+    /**
+     * 停止管道
+     *
+     * <p>在等待时间内写完积压的记录；数据库仍不可用时剩余记录留在预写日志中，下次启动时回放。</p>
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            writerThread.join(Math.max(1000L, properties.getFlushIntervalMs() * 10));
+            if (writerThread.isAlive()) {
+                writerThread.interrupt();
+                writerThread.join(1000L);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (syncTimer != null) {
+            syncTimer.shutdownNow();
+        }
+        if (wal != null) {
+            appendLock.lock();
+            try {
+                wal.close();
+            } catch (IOException e) {
+                log.warn("关闭审计预写日志失败", e);
+            } finally {
+                appendLock.unlock();
+            }
+        }
+
+        int remaining = backlog();
+        if (remaining > 0) {
+            if (wal != null) {
+                log.info("审计入库管道停止，{}条记录留在预写日志中等待下次启动回放", remaining);
+            } else {
+                log.warn("审计入库管道停止时仍有未入库的记录且未启用预写日志: count={}", remaining);
+            }
+        }
+    }
+
+    // =================== 私有方法 ===================
+
+    private AuditWriteAheadLog openWriteAheadLog() {
+        if (!Boolean.TRUE.equals(properties.getWalEnabled())) {
+            log.warn("审计预写日志已关闭，重启时未入库的审计记录会丢失");
+            return null;
+        }
+        try {
+            return new AuditWriteAheadLog(Path.of(properties.getWalDir()), properties.getSegmentBytes());
+        } catch (IOException | RuntimeException e) {
+            log.warn("打开审计预写日志失败，退化为内存管道: dir={}", properties.getWalDir(), e);
+            return null;
+        }
+    }
+
+    private boolean acquire() {
+        try {
+            return capacity.tryAcquire(Math.max(0L, properties.getOfferTimeoutMs()), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            wal.sync();
+        } catch (IOException e) {
+            log.warn("审计预写日志刷盘失败: {}", e.getMessage());
+        }
+    }
+
+    private void writeLoop() {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        long flushIntervalMs = Math.max(1L, properties.getFlushIntervalMs());
+
+        try {
+            if (wal != null && !replayWithRetry(batchSize)) {
+                return;
+            }
+
+            // 批次在写入成功前一直保留，意外异常后退避重试同一批，写入线程不会退出
+            List<Pending> batch = new ArrayList<>(batchSize);
+            while (running || !pending.isEmpty() || !batch.isEmpty()) {
+                try {
+                    if (batch.isEmpty()) {
+                        Pending first = pending.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                        if (first == null) {
+                            continue;
+                        }
+                        batch.add(first);
+                        pending.drainTo(batch, batchSize - 1);
+                    }
+                    boolean written = write(batch.stream().map(Pending::log).toList());
+                    if (!written) {
+                        return;
+                    }
+                    commit(batch.getLast().position());
+                    capacity.release(batch.size());
+                    batch.clear();
+                } catch (InterruptedException | VirtualMachineError e) {
+                    throw e;
+                } catch (Throwable e) {
+                    if (!backOff("审计入库线程异常", batch.size(), e)) {
+                        return;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 回放预写日志，意外异常时退避后从检查点重新回放
+     *
+     * @return 全部回放完成时返回true，管道停止时返回false
+     */
+    private boolean replayWithRetry(int batchSize) throws InterruptedException {
+        while (true) {
+            try {
+                return replay(batchSize);
+            } catch (InterruptedException | VirtualMachineError e) {
+                throw e;
+            } catch (Throwable e) {
+                if (!backOff("审计预写日志回放异常", 0, e)) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * 记录意外异常并等待退避时间
+     *
+     * @return 管道已停止时返回false，未入库的记录留在预写日志中
+     */
+    private boolean backOff(String reason, int count, Throwable e) throws InterruptedException {
+        if (!running) {
+            log.error("{}，管道已停止: count={}", reason, count, e);
+            return false;
+        }
+        retriedCounter.increment();
+        log.error("{}，{}ms后重试: count={}", reason, properties.getRetryBackoffMs(), count, e);
+        Thread.sleep(Math.max(1L, properties.getRetryBackoffMs()));
+        return true;
+    }
+
+    /**
+     * 回放上次运行遗留在预写日志中的记录
+     *
+     * @return 全部回放完成时返回true
+     */
+    private boolean replay(int batchSize) throws Exception {
+        List<SysAuditLog> logs = new ArrayList<>(batchSize);
+        AuditWriteAheadLog.Position[] last = new AuditWriteAheadLog.Position[1];
+        int[] replayed = new int[1];
+        try {
+            wal.replay((payload, position) -> {
+                logs.add(AuditLogCodec.decode(payload));
+                last[0] = position;
+                if (logs.size() >= batchSize) {
+                    flushReplayed(logs, last[0]);
+                    replayed[0] += batchSize;
+                }
+            });
+            replayed[0] += logs.size();
+            flushReplayed(logs, last[0]);
+        } catch (ReplayStoppedException e) {
+            return false;
+        }
+        if (replayed[0] > 0) {
+            log.info("审计预写日志回放完成: count={}", replayed[0]);
+        }
+        return true;
+    }
+
+    private void flushReplayed(List<SysAuditLog> logs, AuditWriteAheadLog.Position position) throws Exception {
+        if (logs.isEmpty()) {
+            return;
+        }
+        if (!write(List.copyOf(logs))) {
+            throw new ReplayStoppedException();
+        }
+        commit(position);
+        logs.clear();
+    }
+
+    /**
+     * 写入一批记录
+     *
+     * <p>连接类故障按退避时间重试同一批；其他数据访问异常改为逐条写入，定位并跳过无法入库的记录。</p>
+     *
+     * @return 管道停止时数据库仍不可用则返回false，记录留在预写日志中
+     */
+    private boolean write(List<SysAuditLog> logs) throws InterruptedException {
+        int next = 0;
+        boolean isolating = false;
+        while (next < logs.size()) {
+            List<SysAuditLog> slice = isolating ? logs.subList(next, next + 1) : logs.subList(next, logs.size());
+            try {
+                auditLogRepository.insertBatch(slice);
+                writtenCounter.increment(slice.size());
+                next += slice.size();
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    if (!running) {
+                        return false;
+                    }
+                    retriedCounter.increment();
+                    log.warn("审计日志入库失败，{}ms后重试: count={}, reason={}",
+                            properties.getRetryBackoffMs(), slice.size(), e.getMessage());
+                    Thread.sleep(Math.max(1L, properties.getRetryBackoffMs()));
+                } else if (!isolating) {
+                    isolating = true;
+                    log.warn("审计日志批量入库失败，改为逐条写入: count={}, reason={}", slice.size(), e.getMessage());
+                } else {
+                    failedCounter.increment();
+                    SysAuditLog rejected = slice.getFirst();
+                    log.error("审计日志无法入库，已跳过: action={}, userId={}",
+                            rejected.action(), rejected.userId(), e);
+                    next++;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isTransient(Throwable e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException;
+    }
+
+    private void commit(AuditWriteAheadLog.Position position) {
+        if (wal == null || position == null) {
+            return;
+        }
+        try {
+            wal.commit(position);
+        } catch (IOException e) {
+            // 检查点滞后只会导致重启时重复写入
+            log.warn("推进审计预写日志检查点失败: {}", e.getMessage());
+        }
+    }
+
+    private record Pending(SysAuditLog log, AuditWriteAheadLog.Position position) {
+    }
+
+    /**
+     * 回放期间管道停止
+     */
+    private static final class ReplayStoppedException extends Exception {
+        ReplayStoppedException() {
+            super(null, null, false, false);
+        }
+    }
+}
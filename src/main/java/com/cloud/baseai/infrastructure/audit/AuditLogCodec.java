@@ -0,0 +1,96 @@
+package com.cloud.baseai.infrastructure.audit;
+
+import com.cloud.baseai.domain.audit.model.SysAuditLog;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * <h2>审计日志二进制编码</h2>
+ *
+ * <p>预写日志中的记录格式。按字段顺序写出，可空字段前置一个存在标记，
+ * 字符串以长度前缀的UTF-8字节写出，不受{@link DataOutput#writeUTF}的64KB限制。</p>
+ */
+final class AuditLogCodec {
+
+    private AuditLogCodec() {
+    }
+
+    static byte[] encode(SysAuditLog log) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeLong(out, log.tenantId());
+            writeLong(out, log.userId());
+            writeString(out, log.action());
+            writeString(out, log.targetType());
+            writeLong(out, log.targetId());
+            writeString(out, log.ipAddress());
+            writeString(out, log.userAgent());
+            writeString(out, log.detail());
+            writeString(out, log.resultStatus());
+            writeString(out, log.logLevel());
+
+            OffsetDateTime createdAt = log.createdAt() != null ? log.createdAt() : OffsetDateTime.now();
+            Instant instant = createdAt.toInstant();
+            out.writeLong(instant.getEpochSecond());
+            out.writeInt(instant.getNano());
+            out.writeInt(createdAt.getOffset().getTotalSeconds());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static SysAuditLog decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        Long tenantId = readLong(in);
+        Long userId = readLong(in);
+        String action = readString(in);
+        String targetType = readString(in);
+        Long targetId = readLong(in);
+        String ipAddress = readString(in);
+        String userAgent = readString(in);
+        String detail = readString(in);
+        String resultStatus = readString(in);
+        String logLevel = readString(in);
+        Instant instant = Instant.ofEpochSecond(in.readLong(), in.readInt());
+        OffsetDateTime createdAt = OffsetDateTime.ofInstant(instant, ZoneOffset.ofTotalSeconds(in.readInt()));
+
+        return new SysAuditLog(null, tenantId, userId, action, targetType, targetId, ipAddress, userAgent,
+                detail, resultStatus, logLevel, createdAt);
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,162 @@
+package com.cloud.baseai.infrastructure.audit;
+
+import com.cloud.baseai.domain.audit.repository.SysAuditLogRepository;
+import com.cloud.baseai.infrastructure.config.properties.AuditProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * <h2>审计日志分区维护</h2>
+ *
+ * <p>审计表按{@code created_at}每月一个分区（UTC对齐），分区名为{@code sys_audit_logs_pYYYYMM}。
+ * 启动时和每天定时执行一次：提前创建当月及之后{@code premake-months}个月的分区，
+ * 并把整段落在保留期之外的分区删除或分离。删除分区只是删除一个文件，
+ * 不会像按行删除那样产生死元组，也不需要之后的长时间VACUUM。</p>
+ *
+ * <p>保留期取默认保留天数和各级别保留天数中的最大值，保证任何级别的日志都不会早于其策略被删除。
+ * 审计表还是普通表时（未迁移的旧库），退回按行删除过期日志。</p>
+ */
+@Component
+public class AuditPartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditPartitionManager.class);
+
+    static final String TABLE = "sys_audit_logs";
+    static final String PARTITION_PREFIX = TABLE + "_p";
+    static final String DEFAULT_PARTITION = TABLE + "_default";
+
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SysAuditLogRepository auditLogRepository;
+    private final AuditProperties auditProperties;
+
+    public AuditPartitionManager(JdbcTemplate jdbcTemplate, SysAuditLogRepository auditLogRepository,
+                                 AuditProperties auditProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditLogRepository = auditLogRepository;
+        this.auditProperties = auditProperties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        maintain();
+    }
+
+    /**
+     * 执行一轮分区维护
+     */
+    @Scheduled(cron = "${baseai.audit.partition.maintenance-cron:0 15 2 * * *}")
+    public void maintain() {
+        if (!Boolean.TRUE.equals(auditProperties.getPartition().getEnabled())) {
+            return;
+        }
+        try {
+            maintain(OffsetDateTime.now(ZoneOffset.UTC));
+        } catch (Exception e) {
+            log.warn("审计日志分区维护失败，下一轮重试", e);
+        }
+    }
+
+    /**
+     * 以指定时间为当前时间执行一轮分区维护
+     */
+    synchronized void maintain(OffsetDateTime now) {
+        OffsetDateTime cutoff = now.minusDays(retentionDays());
+        if (!isPartitioned()) {
+            log.warn("审计表不是分区表，按行删除过期日志: cutoff={}", cutoff);
+            auditLogRepository.deleteOldAuditLogs(cutoff);
+            return;
+        }
+
+        YearMonth current = YearMonth.from(now.withOffsetSameInstant(ZoneOffset.UTC));
+        for (int i = 0; i <= auditProperties.getPartition().getPremakeMonths(); i++) {
+            createPartition(current.plusMonths(i));
+        }
+
+        boolean detach = "DETACH".equalsIgnoreCase(auditProperties.getPartition().getRetentionAction());
+        for (String partition : listPartitions()) {
+            Optional<YearMonth> month = parseMonth(partition);
+            if (month.isPresent() && !monthStart(month.get().plusMonths(1)).isAfter(cutoff)) {
+                jdbcTemplate.execute(detach
+                        ? "ALTER TABLE " + TABLE + " DETACH PARTITION " + partition
+                        : "DROP TABLE IF EXISTS " + partition);
+                log.info("已{}过期审计日志分区: partition={}, cutoff={}", detach ? "分离" : "删除", partition, cutoff);
+            }
+        }
+
+        // 兜底分区正常为空，只有分区缺失期间写入的记录会落在这里
+        int purged = jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE created_at < ?", cutoff);
+        if (purged > 0) {
+            log.info("已删除兜底分区中的过期审计日志: count={}", purged);
+        }
+    }
+
+    // =================== 私有方法 ===================
+
+    private boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass(?))",
+                Boolean.class, TABLE));
+    }
+
+    private List<String> listPartitions() {
+        List<String> partitions = jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = to_regclass(?)
+                """, String.class, TABLE);
+        return partitions != null ? partitions : Collections.emptyList();
+    }
+
+    private void createPartition(YearMonth month) {
+        String partition = PARTITION_PREFIX + month.format(SUFFIX_FORMAT);
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF " + TABLE
+                    + " FOR VALUES FROM ('" + monthStart(month) + "') TO ('" + monthStart(month.plusMonths(1)) + "')");
+        } catch (DataAccessException e) {
+            // 兜底分区里已有该月的记录时无法直接建分区，需要先把这些记录迁出
+            log.warn("创建审计日志分区失败: partition={}", partition, e);
+        }
+    }
+
+    private int retentionDays() {
+        AuditProperties.RetentionProperties retention = auditProperties.getRetention();
+        int days = retention.getDefaultDays();
+        if (retention.getByLevel() != null) {
+            for (Integer levelDays : retention.getByLevel().values()) {
+                days = Math.max(days, levelDays);
+            }
+        }
+        return days;
+    }
+
+    private static Optional<YearMonth> parseMonth(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), SUFFIX_FORMAT));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static OffsetDateTime monthStart(YearMonth month) {
+        return month.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+    }
+}
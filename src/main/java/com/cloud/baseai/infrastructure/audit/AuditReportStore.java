@@ -0,0 +1,162 @@
+package com.cloud.baseai.infrastructure.audit;
+
+import com.cloud.baseai.domain.audit.repository.SysAuditLogRepository;
+import com.cloud.baseai.infrastructure.audit.export.AuditExportFormat;
+import com.cloud.baseai.infrastructure.audit.export.AuditExportWriter;
+import com.cloud.baseai.infrastructure.config.properties.AuditProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * <h2>审计报告文件存储</h2>
+ *
+ * <p>报告文件保存在{@code baseai.audit.reporting.output-location}目录下，文件名为报告ID加格式扩展名。
+ * 先写入临时文件，完成后原子改名，下载方不会读到写了一半的报告。</p>
+ *
+ * <p>逐行导出直接从仓储流式读取并写入文件或输出流，堆内存占用与行数无关。</p>
+ */
+@Component
+public class AuditReportStore {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditReportStore.class);
+
+    private static final Pattern REPORT_ID = Pattern.compile("[A-Za-z0-9_-]{1,128}");
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    private final SysAuditLogRepository auditLogRepository;
+    private final AuditProperties.ReportingProperties properties;
+    private final Path directory;
+
+    public AuditReportStore(SysAuditLogRepository auditLogRepository, AuditProperties auditProperties) {
+        this.auditLogRepository = auditLogRepository;
+        this.properties = auditProperties.getReporting();
+        this.directory = Path.of(properties.getOutputLocation());
+    }
+
+    /**
+     * 将符合条件的审计日志逐行导出到报告文件
+     *
+     * @return 报告文件路径
+     */
+    public Path exportLogs(String reportId, AuditExportFormat format, Long tenantId, Long userId,
+                           OffsetDateTime startTime, OffsetDateTime endTime, List<String> actions) throws IOException {
+        return writeAtomically(reportId, format.extension(), out ->
+                exportLogs(format, out, tenantId, userId, startTime, endTime, actions));
+    }
+
+    /**
+     * 将符合条件的审计日志逐行写入输出流，写完后关闭输出流
+     *
+     * @return 写出的行数
+     */
+    public long exportLogs(AuditExportFormat format, OutputStream out, Long tenantId, Long userId,
+                           OffsetDateTime startTime, OffsetDateTime endTime, List<String> actions) throws IOException {
+        try (AuditExportWriter writer = AuditExportWriter.open(format, out)) {
+            auditLogRepository.streamAuditLogs(tenantId, userId, startTime, endTime, actions, auditLog -> {
+                try {
+                    writer.write(auditLog);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return writer.rowCount();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 保存文本报告
+     *
+     * @return 报告文件路径
+     */
+    public Path saveText(String reportId, String extension, String content) throws IOException {
+        return writeAtomically(reportId, extension, out -> out.write(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 查找已生成的报告文件
+     */
+    public Optional<Path> find(String reportId) {
+        if (!REPORT_ID.matcher(reportId).matches() || !Files.isDirectory(directory)) {
+            return Optional.empty();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(reportId + ".") && !name.endsWith(PARTIAL_SUFFIX);
+            }).findFirst();
+        } catch (IOException e) {
+            log.warn("查找报告文件失败: reportId={}", reportId, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 删除超过保留天数的报告文件
+     *
+     * @return 删除的文件数
+     */
+    @Scheduled(cron = "0 30 3 * * *")
+    public int purgeExpired() {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        FileTime cutoff = FileTime.from(Instant.now().minus(Duration.ofDays(properties.getReportRetentionDays())));
+        int deleted = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                if (Files.isRegularFile(file) && Files.getLastModifiedTime(file).compareTo(cutoff) < 0) {
+                    Files.deleteIfExists(file);
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("清理过期报告文件失败: dir={}", directory, e);
+        }
+        if (deleted > 0) {
+            log.info("已清理过期报告文件: count={}", deleted);
+        }
+        return deleted;
+    }
+
+    // =================== 私有方法 ===================
+
+    private Path writeAtomically(String reportId, String extension, ContentWriter content) throws IOException {
+        if (!REPORT_ID.matcher(reportId).matches()) {
+            throw new IllegalArgumentException("非法的报告ID: " + reportId);
+        }
+        Files.createDirectories(directory);
+        Path target = directory.resolve(reportId + "." + extension);
+        Path partial = directory.resolve(target.getFileName() + PARTIAL_SUFFIX);
+        try {
+            try (OutputStream out = Files.newOutputStream(partial)) {
+                content.write(out);
+            }
+            return Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ContentWriter {
+        void write(OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,197 @@
+package com.cloud.baseai.infrastructure.audit;
+
+import com.cloud.baseai.domain.audit.repository.AuditRollupRepository;
+import com.cloud.baseai.domain.audit.repository.AuditRollupRepository.BucketRange;
+import com.cloud.baseai.domain.audit.repository.AuditRollupRepository.Dimension;
+import com.cloud.baseai.domain.audit.repository.AuditRollupRepository.Granularity;
+import com.cloud.baseai.infrastructure.config.properties.AuditProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <h2>审计统计汇总服务</h2>
+ *
+ * <p>后台任务定期把原始审计日志聚合到分钟桶，再逐级聚合到小时桶和天桶。
+ * 每次执行重算最近{@code recompute-minutes}分钟，迟到入库的记录（如预写日志重放）会被补进汇总；
+ * 汇总进度落后较多时每次最多推进{@code max-catch-up-hours}小时，逐步追平历史数据。</p>
+ *
+ * <p>统计查询把时间范围拆成尽量粗的整桶从汇总表读取，汇总进度之后的部分直接聚合原始日志后合并，
+ * 查询代价取决于时间范围跨越的桶数和最近一个汇总周期的日志量，与审计表总大小无关。
+ * 分钟桶过了保留期后，时间范围两端不足一小时的零头也直接聚合原始日志。</p>
+ */
+@Component
+public class AuditRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditRollupService.class);
+
+    private final AuditRollupRepository rollupRepository;
+    private final AuditProperties.RollupProperties properties;
+    private final Timer compactionTimer;
+
+    /**
+     * 已汇总到的时间点，null表示尚未从数据库读取
+     */
+    private volatile OffsetDateTime compactedUntil;
+
+    public AuditRollupService(AuditRollupRepository rollupRepository, AuditProperties auditProperties,
+                              MeterRegistry meterRegistry) {
+        this.rollupRepository = rollupRepository;
+        this.properties = auditProperties.getRollup();
+        this.compactionTimer = Timer.builder("audit.rollup.compaction")
+                .description("审计统计汇总任务耗时")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 按维度统计时间范围[start, end)内的日志条数
+     *
+     * @param tenantId 租户ID，为null时统计所有租户
+     * @return 维度取值到条数的映射，USER维度的取值为用户ID
+     */
+    public Map<String, Long> count(Long tenantId, Dimension dimension, OffsetDateTime start, OffsetDateTime end) {
+        OffsetDateTime watermark = Boolean.TRUE.equals(properties.getEnabled()) ? compactedUntil() : null;
+        if (watermark == null) {
+            return rollupRepository.countRaw(tenantId, dimension, start, end);
+        }
+
+        // 分钟桶只保留最近一段时间，更早的边界对齐到小时，零头直接聚合原始日志。
+        // 结束端的分钟桶从所在整点开始读取，整点早于保留期时同样对齐到小时
+        OffsetDateTime minuteCutoff = OffsetDateTime.now(ZoneOffset.UTC).minusHours(properties.getMinuteRetentionHours());
+        OffsetDateTime rolledFrom = ceil(start, start.isBefore(minuteCutoff) ? ChronoUnit.HOURS : ChronoUnit.MINUTES);
+        OffsetDateTime rolledTo = min(floor(end, floor(end, ChronoUnit.HOURS).isBefore(minuteCutoff)
+                ? ChronoUnit.HOURS : ChronoUnit.MINUTES), watermark);
+        if (!rolledFrom.isBefore(rolledTo)) {
+            return rollupRepository.countRaw(tenantId, dimension, start, end);
+        }
+
+        Map<String, Long> counts = rollupRepository.sumRollups(tenantId, dimension, plan(rolledFrom, rolledTo));
+        if (start.isBefore(rolledFrom)) {
+            rollupRepository.countRaw(tenantId, dimension, start, rolledFrom)
+                    .forEach((key, value) -> counts.merge(key, value, Long::sum));
+        }
+        if (rolledTo.isBefore(end)) {
+            rollupRepository.countRaw(tenantId, dimension, rolledTo, end)
+                    .forEach((key, value) -> counts.merge(key, value, Long::sum));
+        }
+        return counts;
+    }
+
+    /**
+     * 执行一轮汇总
+     */
+    @Scheduled(fixedDelayString = "${baseai.audit.rollup.compact-interval-ms:60000}",
+            initialDelayString = "${baseai.audit.rollup.compact-interval-ms:60000}")
+    public void compact() {
+        if (!Boolean.TRUE.equals(properties.getEnabled())) {
+            return;
+        }
+        try {
+            compactionTimer.record(() -> compact(OffsetDateTime.now(ZoneOffset.UTC)));
+        } catch (Exception e) {
+            log.warn("审计统计汇总失败，下一轮重试", e);
+        }
+    }
+
+    /**
+     * 以指定时间为当前时间执行一轮汇总
+     */
+    synchronized void compact(OffsetDateTime now) {
+        OffsetDateTime ceiling = floor(now.minusSeconds(properties.getLagSeconds()), ChronoUnit.MINUTES);
+        OffsetDateTime mark = compactedUntil();
+        if (mark == null) {
+            mark = rollupRepository.findEarliestLogTime()
+                    .map(time -> floor(time, ChronoUnit.MINUTES))
+                    .orElse(ceiling);
+        }
+
+        OffsetDateTime from = min(mark, ceiling.minusMinutes(properties.getRecomputeMinutes()));
+        OffsetDateTime to = min(ceiling, from.plusHours(properties.getMaxCatchUpHours()));
+        if (!from.isBefore(to)) {
+            return;
+        }
+
+        rollupRepository.rollupMinutes(from, to);
+        rollupRepository.rollupHours(floor(from, ChronoUnit.HOURS), to);
+        rollupRepository.rollupDays(floor(from, ChronoUnit.DAYS), to);
+        if (to.isAfter(mark)) {
+            compactedUntil = to;
+        }
+
+        // 下一轮重算小时桶时要用到所在小时的全部分钟桶，这部分不能清理
+        OffsetDateTime nextHour = floor(to.minusMinutes(properties.getRecomputeMinutes()), ChronoUnit.HOURS);
+        int purged = rollupRepository.purgeBuckets(Granularity.MINUTE,
+                min(now.minusHours(properties.getMinuteRetentionHours()), nextHour));
+        log.debug("审计统计汇总完成: from={}, to={}, 清理分钟桶={}", from, to, purged);
+    }
+
+    /**
+     * 把按分钟对齐的时间范围[from, to)拆成分钟、小时、天三级的连续整桶，中间部分使用最粗的粒度
+     */
+    static List<BucketRange> plan(OffsetDateTime from, OffsetDateTime to) {
+        List<BucketRange> ranges = new ArrayList<>();
+        if (!from.isBefore(to)) {
+            return ranges;
+        }
+        OffsetDateTime fromHour = ceil(from, ChronoUnit.HOURS);
+        OffsetDateTime toHour = floor(to, ChronoUnit.HOURS);
+        if (!fromHour.isBefore(toHour)) {
+            ranges.add(new BucketRange(Granularity.MINUTE, from, to));
+            return ranges;
+        }
+
+        addRange(ranges, Granularity.MINUTE, from, fromHour);
+        OffsetDateTime fromDay = ceil(fromHour, ChronoUnit.DAYS);
+        OffsetDateTime toDay = floor(toHour, ChronoUnit.DAYS);
+        if (fromDay.isBefore(toDay)) {
+            addRange(ranges, Granularity.HOUR, fromHour, fromDay);
+            addRange(ranges, Granularity.DAY, fromDay, toDay);
+            addRange(ranges, Granularity.HOUR, toDay, toHour);
+        } else {
+            addRange(ranges, Granularity.HOUR, fromHour, toHour);
+        }
+        addRange(ranges, Granularity.MINUTE, toHour, to);
+        return ranges;
+    }
+
+    // =================== 私有方法 ===================
+
+    private OffsetDateTime compactedUntil() {
+        if (compactedUntil == null) {
+            compactedUntil = rollupRepository.findCompactedUntil()
+                    .map(time -> time.withOffsetSameInstant(ZoneOffset.UTC))
+                    .orElse(null);
+        }
+        return compactedUntil;
+    }
+
+    private static void addRange(List<BucketRange> ranges, Granularity granularity,
+                                 OffsetDateTime start, OffsetDateTime end) {
+        if (start.isBefore(end)) {
+            ranges.add(new BucketRange(granularity, start, end));
+        }
+    }
+
+    private static OffsetDateTime floor(OffsetDateTime time, ChronoUnit unit) {
+        return time.withOffsetSameInstant(ZoneOffset.UTC).truncatedTo(unit);
+    }
+
+    private static OffsetDateTime ceil(OffsetDateTime time, ChronoUnit unit) {
+        OffsetDateTime floor = floor(time, unit);
+        return floor.isEqual(time) ? floor : floor.plus(1, unit);
+    }
+
+    private static OffsetDateTime min(OffsetDateTime a, OffsetDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
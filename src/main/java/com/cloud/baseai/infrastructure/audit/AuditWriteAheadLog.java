@@ -0,0 +1,255 @@
+package com.cloud.baseai.infrastructure.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * <h2>审计预写日志</h2>
+ *
+ * <p>只追加的分段文件。每条记录写成{@code [长度][CRC32][内容]}，段文件达到上限后滚动到新段。
+ * 已写入数据库的位置记录在检查点文件中，检查点之前的整段文件随即删除。</p>
+ *
+ * <p><b>持久性：</b>记录写入后即进入操作系统页缓存，进程崩溃不会丢失；
+ * 断电保护取决于{@link #sync()}的调用频率。检查点在批量入库成功后推进，
+ * 重启时从检查点回放，因此入库语义是至少一次。</p>
+ *
+ * <p>末尾不完整或校验失败的记录视为崩溃时的残缺写入，回放到此为止。</p>
+ */
+final class AuditWriteAheadLog implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditWriteAheadLog.class);
+
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int HEADER_BYTES = 8;
+    private static final int CHECKPOINT_BYTES = 20;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * 日志中的位置，指向某条记录之后
+     */
+    record Position(long segment, long offset) {
+    }
+
+    /**
+     * 回放时逐条接收记录
+     */
+    @FunctionalInterface
+    interface RecordConsumer {
+        void accept(byte[] payload, Position position) throws Exception;
+    }
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final NavigableSet<Long> segments = new ConcurrentSkipListSet<>();
+    private final List<Long> recoveredSegments;
+    private final FileChannel checkpointChannel;
+
+    /**
+     * 追加和滚动由调用方串行化，刷盘线程不持锁读取，因此需要volatile
+     */
+    private volatile FileChannel active;
+    private long activeSegment = -1;
+    private long activeOffset;
+
+    AuditWriteAheadLog(Path directory, long segmentBytes) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = Math.max(1024, segmentBytes);
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> segments.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()))));
+        }
+        this.recoveredSegments = List.copyOf(segments);
+        this.checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * 回放检查点之后的记录
+     *
+     * <p>只回放打开时已经存在的段。新记录总是写入新的段，因此回放可以与追加并发进行。</p>
+     */
+    void replay(RecordConsumer consumer) throws Exception {
+        Position checkpoint = readCheckpoint();
+        for (long segment : recoveredSegments) {
+            if (checkpoint != null && segment < checkpoint.segment()) {
+                continue;
+            }
+            long start = checkpoint != null && segment == checkpoint.segment() ? checkpoint.offset() : 0L;
+            replaySegment(segment, start, consumer);
+        }
+    }
+
+    /**
+     * 追加一条记录，调用方负责串行化
+     *
+     * @return 该记录之后的位置，入库成功后用于推进检查点
+     */
+    Position append(byte[] payload) throws IOException {
+        if (payload.length > MAX_RECORD_BYTES) {
+            throw new IOException("审计记录过大: " + payload.length);
+        }
+        int frameBytes = HEADER_BYTES + payload.length;
+        if (active == null || (activeOffset > 0 && activeOffset + frameBytes > segmentBytes)) {
+            roll();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer frame = ByteBuffer.allocate(frameBytes);
+        frame.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        while (frame.hasRemaining()) {
+            active.write(frame);
+        }
+        activeOffset += frameBytes;
+        return new Position(activeSegment, activeOffset);
+    }
+
+    /**
+     * 将当前段刷到磁盘，可以与追加并发调用
+     */
+    void sync() throws IOException {
+        FileChannel channel = active;
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            // 段在刷盘期间滚动，滚动时已经刷过盘
+        }
+    }
+
+    /**
+     * 推进检查点并删除已完全入库的段
+     */
+    void commit(Position position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(CHECKPOINT_BYTES);
+        buffer.putLong(position.segment()).putLong(position.offset()).putInt(checksum(position)).flip();
+        while (buffer.hasRemaining()) {
+            checkpointChannel.write(buffer, buffer.position());
+        }
+
+        for (Long segment : segments.headSet(position.segment(), false)) {
+            Files.deleteIfExists(segmentPath(segment));
+            segments.remove(segment);
+        }
+    }
+
+    /**
+     * 当前保留的段数
+     */
+    int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (active != null) {
+                active.force(false);
+                active.close();
+            }
+        } finally {
+            checkpointChannel.close();
+        }
+    }
+
+    // =================== 私有方法 ===================
+
+    private void roll() throws IOException {
+        if (active != null) {
+            active.force(false);
+            active.close();
+        }
+        long next = segments.isEmpty() ? 0L : segments.last() + 1;
+        active = FileChannel.open(segmentPath(next), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        activeSegment = next;
+        activeOffset = 0L;
+        segments.add(next);
+    }
+
+    private void replaySegment(long segment, long start, RecordConsumer consumer) throws Exception {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+            channel.position(start);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+            long offset = start;
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                byte[] payload;
+                try {
+                    payload = readFrame(in, length);
+                } catch (IOException e) {
+                    log.warn("审计预写日志段末尾残缺，停止回放该段: segment={}, offset={}, reason={}",
+                            segment, offset, e.getMessage());
+                    return;
+                }
+                offset += HEADER_BYTES + length;
+                consumer.accept(payload, new Position(segment, offset));
+            }
+        }
+    }
+
+    private byte[] readFrame(DataInputStream in, int length) throws IOException {
+        int expectedCrc = in.readInt();
+        if (length < 0 || length > MAX_RECORD_BYTES) {
+            throw new IOException("记录长度无效: " + length);
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("记录校验失败");
+        }
+        return payload;
+    }
+
+    private Position readCheckpoint() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(CHECKPOINT_BYTES);
+        while (buffer.hasRemaining() && checkpointChannel.read(buffer, buffer.position()) > 0) {
+            // 读满检查点
+        }
+        if (buffer.hasRemaining()) {
+            return null;
+        }
+        buffer.flip();
+        Position position = new Position(buffer.getLong(), buffer.getLong());
+        if (buffer.getInt() != checksum(position)) {
+            log.warn("审计预写日志检查点损坏，从最早的段开始回放");
+            return null;
+        }
+        return position;
+    }
+
+    private static int checksum(Position position) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(16).putLong(position.segment()).putLong(position.offset()).array());
+        return (int) crc.getValue();
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%020d%s", segment, SEGMENT_SUFFIX));
+    }
+}
@@ -0,0 +1,44 @@
+package com.cloud.baseai.infrastructure.audit.export;
+
+import java.util.Locale;
+
+/**
+ * <h2>审计日志导出格式</h2>
+ */
+public enum AuditExportFormat {
+
+    CSV("csv", "text/csv;charset=UTF-8"),
+    JSONL("jsonl", "application/x-ndjson"),
+    EXCEL("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    private final String extension;
+    private final String contentType;
+
+    AuditExportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    /**
+     * 按名称解析导出格式，不是逐行导出格式时返回null
+     */
+    public static AuditExportFormat fromName(String name) {
+        if (name == null) {
+            return null;
+        }
+        return switch (name.toUpperCase(Locale.ROOT)) {
+            case "CSV" -> CSV;
+            case "JSONL", "NDJSON" -> JSONL;
+            case "EXCEL", "XLSX" -> EXCEL;
+            default -> null;
+        };
+    }
+}
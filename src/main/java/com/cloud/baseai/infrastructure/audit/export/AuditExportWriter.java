@@ -0,0 +1,67 @@
+package com.cloud.baseai.infrastructure.audit.export;
+
+import com.cloud.baseai.domain.audit.model.SysAuditLog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * <h2>审计日志逐行导出写入器</h2>
+ *
+ * <p>每写入一行立即编码到输出流，不在内存中保留已写出的行，导出任意行数时堆内存占用不变。
+ * {@link #close()}写出格式要求的结尾并关闭输出流。</p>
+ */
+public abstract class AuditExportWriter implements Closeable {
+
+    static final List<String> HEADERS = List.of(
+            "id", "tenantId", "userId", "action", "targetType", "targetId",
+            "ipAddress", "userAgent", "resultStatus", "logLevel", "createdAt", "detail");
+
+    private long rowCount;
+
+    /**
+     * 打开指定格式的写入器
+     */
+    public static AuditExportWriter open(AuditExportFormat format, OutputStream out) throws IOException {
+        return switch (format) {
+            case CSV -> new CsvAuditExportWriter(out);
+            case JSONL -> new JsonLinesAuditExportWriter(out);
+            case EXCEL -> new XlsxAuditExportWriter(out);
+        };
+    }
+
+    /**
+     * 写入一条审计日志
+     */
+    public final void write(SysAuditLog auditLog) throws IOException {
+        writeRow(new Object[]{
+                auditLog.id(),
+                auditLog.tenantId(),
+                auditLog.userId(),
+                auditLog.action(),
+                auditLog.targetType(),
+                auditLog.targetId(),
+                auditLog.ipAddress(),
+                auditLog.userAgent(),
+                auditLog.resultStatus(),
+                auditLog.logLevel(),
+                auditLog.createdAt() != null ? auditLog.createdAt().toString() : null,
+                auditLog.detail()
+        });
+        rowCount++;
+    }
+
+    /**
+     * 已写入的行数，不含表头
+     */
+    public long rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 按{@link #HEADERS}的顺序写出一行，数值列为{@link Number}，其余为字符串或null
+     */
+    protected abstract void writeRow(Object[] values) throws IOException;
+}
@@ -0,0 +1,53 @@
+package com.cloud.baseai.infrastructure.audit.export;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <h2>CSV导出</h2>
+ *
+ * <p>RFC 4180格式，UTF-8编码并写出BOM，Excel直接打开时中文不会乱码。</p>
+ */
+final class CsvAuditExportWriter extends AuditExportWriter {
+
+    private final Writer writer;
+
+    CsvAuditExportWriter(OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        writer.write('\uFEFF');
+        writeRow(HEADERS.toArray());
+    }
+
+    @Override
+    protected void writeRow(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writeValue(values[i].toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void writeValue(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
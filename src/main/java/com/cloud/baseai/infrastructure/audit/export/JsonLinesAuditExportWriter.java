@@ -0,0 +1,48 @@
+package com.cloud.baseai.infrastructure.audit.export;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * <h2>JSON Lines导出</h2>
+ *
+ * <p>每行一个JSON对象，详情字段按原样以字符串写出。</p>
+ */
+final class JsonLinesAuditExportWriter extends AuditExportWriter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonGenerator generator;
+
+    JsonLinesAuditExportWriter(OutputStream out) throws IOException {
+        this.generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+        generator.setRootValueSeparator(null);
+    }
+
+    @Override
+    protected void writeRow(Object[] values) throws IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            if (value instanceof Long number) {
+                generator.writeNumberField(HEADERS.get(i), number);
+            } else {
+                generator.writeStringField(HEADERS.get(i), value.toString());
+            }
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,264 @@
+package com.cloud.baseai.infrastructure.cache.embedding;
+
+import com.cloud.baseai.infrastructure.config.properties.KnowledgeBaseProperties;
+import com.cloud.baseai.infrastructure.utils.KbUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>向量缓存</h2>
+ *
+ * <p>按{@code 模型:文本SHA-256}寻址的向量缓存，所有嵌入服务提供商和节点共享，
+ * 相同的文本块重新入库或在其他节点上向量化时不再调用提供商。</p>
+ *
+ * <p>向量按半精度（fp16）编码，每维2字节。本地一级缓存放在堆外的直接内存中，
+ * 按字节数限制容量；二级缓存是Redis中的二进制值，重启后仍然有效。
+ * 半精度的相对误差约为万分之五，对余弦相似度的影响可以忽略。</p>
+ *
+ * <p>命中情况记为{@code baseai.embedding.cache.requests}（按{@code result}标签区分本地命中、
+ * Redis命中和未命中），命中节省的token数和费用记为{@code baseai.embedding.cache.saved.tokens}
+ * 和{@code baseai.embedding.cache.saved.cost}。</p>
+ */
+@Component
+public class EmbeddingCache {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingCache.class);
+
+    private static final String KEY_PREFIX = "emb:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final KnowledgeBaseProperties.EmbeddingCacheProperties properties;
+    private final Cache<String, ByteBuffer> local;
+
+    private final Counter localHits;
+    private final Counter remoteHits;
+    private final Counter misses;
+    private final Counter savedTokens;
+    private final Counter savedCost;
+
+    public EmbeddingCache(StringRedisTemplate redisTemplate, KnowledgeBaseProperties kbProperties,
+                          MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.properties = kbProperties.getEmbeddingCache();
+        this.local = CacheBuilder.newBuilder()
+                .maximumWeight(properties.getLocalMaxBytes())
+                .weigher((String key, ByteBuffer value) -> value.capacity() + key.length())
+                .expireAfterWrite(properties.getLocalTtlSeconds(), TimeUnit.SECONDS)
+                .build();
+
+        this.localHits = requests(meterRegistry, "local_hit");
+        this.remoteHits = requests(meterRegistry, "remote_hit");
+        this.misses = requests(meterRegistry, "miss");
+        this.savedTokens = Counter.builder("baseai.embedding.cache.saved.tokens")
+                .description("缓存命中节省的嵌入token数")
+                .register(meterRegistry);
+        this.savedCost = Counter.builder("baseai.embedding.cache.saved.cost")
+                .description("缓存命中节省的嵌入费用")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 查询单个文本的向量
+     *
+     * @return 缓存的向量，未命中时返回null
+     */
+    public float[] get(String model, String text, double costPerToken) {
+        return getAll(model, List.of(text), costPerToken).get(0);
+    }
+
+    /**
+     * 批量查询向量，先查本地缓存，未命中的一次性从Redis读取
+     *
+     * @param model        模型
+     * @param texts        文本列表
+     * @param costPerToken 模型每token的费用，用于统计节省的费用
+     * @return 与文本一一对应的向量，未命中的位置为null
+     */
+    public List<float[]> getAll(String model, List<String> texts, double costPerToken) {
+        List<float[]> results = new ArrayList<>(Collections.nCopies(texts.size(), null));
+        if (!Boolean.TRUE.equals(properties.getEnabled())) {
+            return results;
+        }
+
+        List<Integer> missing = new ArrayList<>();
+        List<String> missingKeys = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String key = key(model, texts.get(i));
+            ByteBuffer cached = local.getIfPresent(key);
+            if (cached != null) {
+                results.set(i, decode(cached));
+                localHits.increment();
+                recordSaving(texts.get(i), costPerToken);
+            } else {
+                missing.add(i);
+                missingKeys.add(key);
+            }
+        }
+
+        if (!missing.isEmpty() && Boolean.TRUE.equals(properties.getRedisEnabled())) {
+            List<byte[]> values = readRemote(missingKeys);
+            for (int j = 0; j < missing.size(); j++) {
+                byte[] value = values != null ? values.get(j) : null;
+                if (value == null || value.length == 0) {
+                    continue;
+                }
+                ByteBuffer buffer = toDirect(value);
+                local.put(missingKeys.get(j), buffer);
+                int index = missing.get(j);
+                results.set(index, decode(buffer));
+                remoteHits.increment();
+                recordSaving(texts.get(index), costPerToken);
+            }
+        }
+
+        for (float[] result : results) {
+            if (result == null) {
+                misses.increment();
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 缓存单个文本的向量
+     */
+    public void put(String model, String text, float[] vector) {
+        putAll(model, List.of(text), List.of(vector));
+    }
+
+    /**
+     * 批量缓存向量，写入本地缓存并以流水线方式写入Redis
+     */
+    public void putAll(String model, List<String> texts, List<float[]> vectors) {
+        if (!Boolean.TRUE.equals(properties.getEnabled()) || texts.isEmpty()) {
+            return;
+        }
+
+        List<byte[]> keys = new ArrayList<>(texts.size());
+        List<byte[]> values = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            float[] vector = vectors.get(i);
+            if (vector == null) {
+                continue;
+            }
+            String key = key(model, texts.get(i));
+            byte[] encoded = encode(vector);
+            local.put(key, toDirect(encoded));
+            keys.add((KEY_PREFIX + key).getBytes(StandardCharsets.UTF_8));
+            values.add(encoded);
+        }
+
+        if (keys.isEmpty() || !Boolean.TRUE.equals(properties.getRedisEnabled())) {
+            return;
+        }
+        Expiration expiration = Expiration.from(properties.getRedisTtlDays(), TimeUnit.DAYS);
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int i = 0; i < keys.size(); i++) {
+                    connection.stringCommands().set(keys.get(i), values.get(i), expiration,
+                            RedisStringCommands.SetOption.upsert());
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("写入Redis向量缓存失败: model={}, count={}, error={}", model, keys.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 缓存统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        if (!Boolean.TRUE.equals(properties.getEnabled())) {
+            return Map.of("enabled", false);
+        }
+        double hits = localHits.count() + remoteHits.count();
+        double requests = hits + misses.count();
+        return Map.of(
+                "enabled", true,
+                "localSize", local.size(),
+                "localHitCount", (long) localHits.count(),
+                "remoteHitCount", (long) remoteHits.count(),
+                "missCount", (long) misses.count(),
+                "hitRate", requests > 0 ? hits / requests : 0.0,
+                "savedTokens", (long) savedTokens.count(),
+                "savedCost", savedCost.count()
+        );
+    }
+
+    // =================== 私有方法 ===================
+
+    private List<byte[]> readRemote(List<String> keys) {
+        byte[][] rawKeys = new byte[keys.size()][];
+        for (int i = 0; i < keys.size(); i++) {
+            rawKeys[i] = (KEY_PREFIX + keys.get(i)).getBytes(StandardCharsets.UTF_8);
+        }
+        try {
+            return redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                    connection.stringCommands().mGet(rawKeys));
+        } catch (Exception e) {
+            // Redis不可用时按未命中处理
+            log.warn("读取Redis向量缓存失败: count={}, error={}", keys.size(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void recordSaving(String text, double costPerToken) {
+        int tokens = KbUtils.estimateTokenCount(text, KbUtils.detectLanguage(text));
+        savedTokens.increment(tokens);
+        savedCost.increment(tokens * costPerToken);
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("baseai.embedding.cache.requests")
+                .description("向量缓存查询次数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static String key(String model, String text) {
+        return model + ":" + Hashing.sha256().hashString(text, StandardCharsets.UTF_8);
+    }
+
+    static byte[] encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (float value : vector) {
+            buffer.putShort(Float.floatToFloat16(value));
+        }
+        return buffer.array();
+    }
+
+    static float[] decode(ByteBuffer buffer) {
+        float[] vector = new float[buffer.capacity() / 2];
+        for (int i = 0; i < vector.length; i++) {
+            // 绝对位置读取不改变缓冲区状态，多线程共享同一个缓冲区是安全的
+            vector[i] = Float.float16ToFloat(buffer.getShort(i * 2));
+        }
+        return vector;
+    }
+
+    private static ByteBuffer toDirect(byte[] encoded) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(encoded.length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(encoded);
+        return buffer;
+    }
+}
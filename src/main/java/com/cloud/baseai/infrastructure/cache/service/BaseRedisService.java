@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /**
@@ -172,6 +173,16 @@ public interface BaseRedisService {
      */
     <T> long multiSet(Map<String, T> keyValueMap, Duration duration);
 
+    /**
+     * 在一个管道中批量执行命令，所有命令一次发送、一次读取回复
+     *
+     * <p>管道不是事务，命令之间可能穿插其他客户端的命令。</p>
+     *
+     * @param commands 向管道中添加命令
+     * @return 各命令的回复，顺序与添加顺序一致；执行失败时返回空列表
+     */
+    List<Object> executePipelined(Consumer<Pipeline> commands);
+
     /**
      * 批量获取值
      *
@@ -544,6 +555,36 @@ public interface BaseRedisService {
         void onMessage(String channel, Object message);
     }
 
+    /**
+     * 管道命令，键会自动加上配置的前缀，值的处理与单条命令相同
+     */
+    interface Pipeline {
+        /**
+         * 设置键值，duration为null时不设置过期时间
+         */
+        <T> void set(String key, T value, Duration duration);
+
+        /**
+         * 删除键
+         */
+        void delete(String key);
+
+        /**
+         * 设置过期时间
+         */
+        void expire(String key, Duration duration);
+
+        /**
+         * 设置Hash字段
+         */
+        <T> void hSet(String key, String field, T value);
+
+        /**
+         * 原子递增
+         */
+        void increment(String key, long delta);
+    }
+
     /**
      * 缓存加载器接口
      */
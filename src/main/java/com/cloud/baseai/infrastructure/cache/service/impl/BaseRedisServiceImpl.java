@@ -10,7 +10,11 @@ import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.util.StringUtils;
@@ -22,6 +26,7 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
@@ -41,6 +46,7 @@ import java.util.zip.GZIPOutputStream;
  * <li><b>性能监控：</b>集成Micrometer指标收集</li>
  * <li><b>分布式锁：</b>基于Lua脚本的原子性锁操作</li>
  * <li><b>类型安全：</b>泛型支持和JSON序列化</li>
+ * <li><b>批量操作：</b>批量写入按管道分批发送，按模式清理用SCAN游标分批UNLINK，不阻塞Redis</li>
  * </ul>
  */
 public class BaseRedisServiceImpl implements BaseRedisService {
@@ -318,18 +324,43 @@ public class BaseRedisServiceImpl implements BaseRedisService {
         }
 
         return executeWithTimer("multiSet", () -> {
+            int batchSize = Math.max(1, cacheProperties.getRedis().getPipelineBatchSize());
+            List<Map.Entry<String, T>> batch = new ArrayList<>(Math.min(batchSize, keyValueMap.size()));
+            long successCount = 0;
+            for (Map.Entry<String, T> entry : keyValueMap.entrySet()) {
+                // 非法条目在入管道前跳过，避免一个空键让整批写入都记为失败
+                if (!StringUtils.hasText(entry.getKey()) || entry.getValue() == null) {
+                    continue;
+                }
+                batch.add(entry);
+                if (batch.size() >= batchSize) {
+                    successCount += setBatch(batch, duration);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                successCount += setBatch(batch, duration);
+            }
+            log.debug("Redis批量SET - 成功数量: {}/{}", successCount, keyValueMap.size());
+            return successCount;
+        });
+    }
+
+    @Override
+    public List<Object> executePipelined(Consumer<Pipeline> commands) {
+        return executeWithTimer("pipeline", () -> {
             try {
-                long successCount = 0;
-                for (Map.Entry<String, T> entry : keyValueMap.entrySet()) {
-                    if (set(entry.getKey(), entry.getValue(), duration)) {
-                        successCount++;
+                return redisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public <K, V> Object execute(RedisOperations<K, V> operations) {
+                        commands.accept(new TemplatePipeline((RedisOperations<String, Object>) operations));
+                        return null;
                     }
-                }
-                log.debug("Redis批量SET - 成功数量: {}/{}", successCount, keyValueMap.size());
-                return successCount;
+                });
             } catch (Exception e) {
-                log.error("Redis批量SET操作失败 - error: {}", e.getMessage());
-                return 0L;
+                log.error("Redis管道执行失败 - error: {}", e.getMessage());
+                return Collections.emptyList();
             }
         });
     }
@@ -941,21 +972,28 @@ public class BaseRedisServiceImpl implements BaseRedisService {
     @Override
     public long clearCache(String pattern) {
         return executeWithTimer("clearCache", () -> {
-            try {
-                String finalPattern = buildKey(pattern);
-                Set<String> keys = redisTemplate.keys(finalPattern);
-
-                if (keys != null && !keys.isEmpty()) {
-                    Long result = redisTemplate.delete(keys);
-                    log.info("清理缓存完成 - pattern: {}, 清理数量: {}", finalPattern, result);
-                    return result != null ? result : 0L;
-                } else {
-                    log.debug("未找到匹配的缓存键 - pattern: {}", finalPattern);
-                    return 0L;
+            String finalPattern = buildKey(pattern);
+            int batchSize = Math.max(1, cacheProperties.getRedis().getScanBatchSize());
+            ScanOptions options = ScanOptions.scanOptions().match(finalPattern).count(batchSize).build();
+            long cleared = 0;
+            // SCAN每次只遍历一小段键空间，UNLINK在后台线程释放内存，清理大量键时不会长时间阻塞Redis
+            try (Cursor<String> cursor = redisTemplate.scan(options)) {
+                List<String> batch = new ArrayList<>(batchSize);
+                while (cursor.hasNext()) {
+                    batch.add(cursor.next());
+                    if (batch.size() >= batchSize) {
+                        cleared += unlink(batch);
+                        batch.clear();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    cleared += unlink(batch);
                 }
+                log.info("清理缓存完成 - pattern: {}, 清理数量: {}", finalPattern, cleared);
+                return cleared;
             } catch (Exception e) {
-                log.error("清理缓存失败 - pattern: {}, error: {}", pattern, e.getMessage());
-                return 0L;
+                log.error("清理缓存失败 - pattern: {}, 已清理数量: {}, error: {}", pattern, cleared, e.getMessage());
+                return cleared;
             }
         });
     }
@@ -1198,6 +1236,36 @@ public class BaseRedisServiceImpl implements BaseRedisService {
         }
     }
 
+    /**
+     * 在一个管道中写入一批键值
+     *
+     * @return 成功写入的数量，管道执行失败时为0
+     */
+    private <T> long setBatch(List<Map.Entry<String, T>> batch, Duration duration) {
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    TemplatePipeline pipeline = new TemplatePipeline((RedisOperations<String, Object>) operations);
+                    for (Map.Entry<String, T> entry : batch) {
+                        pipeline.set(entry.getKey(), entry.getValue(), duration);
+                    }
+                    return null;
+                }
+            });
+            return batch.size();
+        } catch (Exception e) {
+            log.error("Redis批量SET管道执行失败 - 数量: {}, error: {}", batch.size(), e.getMessage());
+            return 0L;
+        }
+    }
+
+    private long unlink(List<String> keys) {
+        Long result = redisTemplate.unlink(keys);
+        return result != null ? result : 0L;
+    }
+
     /**
      * 获取默认TTL
      */
@@ -1220,6 +1288,47 @@ public class BaseRedisServiceImpl implements BaseRedisService {
         }
     }
 
+    /**
+     * 基于管道会话的命令实现
+     */
+    private class TemplatePipeline implements Pipeline {
+
+        private final RedisOperations<String, Object> operations;
+
+        TemplatePipeline(RedisOperations<String, Object> operations) {
+            this.operations = operations;
+        }
+
+        @Override
+        public <T> void set(String key, T value, Duration duration) {
+            if (duration != null && !duration.isNegative()) {
+                operations.opsForValue().set(buildKey(key), processValue(value), duration);
+            } else {
+                operations.opsForValue().set(buildKey(key), processValue(value));
+            }
+        }
+
+        @Override
+        public void delete(String key) {
+            operations.delete(buildKey(key));
+        }
+
+        @Override
+        public void expire(String key, Duration duration) {
+            operations.expire(buildKey(key), duration);
+        }
+
+        @Override
+        public <T> void hSet(String key, String field, T value) {
+            operations.opsForHash().put(buildKey(key), field, processValue(value));
+        }
+
+        @Override
+        public void increment(String key, long delta) {
+            operations.opsForValue().increment(buildKey(key), delta);
+        }
+    }
+
     /**
      * 缓存统计实现
      */
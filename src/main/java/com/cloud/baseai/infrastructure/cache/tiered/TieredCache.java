@@ -0,0 +1,218 @@
+package com.cloud.baseai.infrastructure.cache.tiered;
+
+import com.google.common.cache.Cache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * <h2>两级缓存</h2>
+ *
+ * <p>一级是进程内的Guava缓存，按条目数和写入时间淘汰；二级是Redis，所有节点共享。
+ * 读取先查本地，未命中再查Redis并回填本地；写入和删除同时作用于两级，
+ * 再通过{@link TieredCacheManager}广播失效通知，让其他节点丢弃本地副本。</p>
+ *
+ * <p>Redis不可用或值无法反序列化时按未命中处理，调用方会重新加载，不会因缓存故障失败。
+ * 空值只在本地缓存，不写入Redis。
+ * 写入和删除先作用于Redis再作用于本地，避免本节点并发读取在两步之间把Redis里的旧值回填到本地。{@code localOnly}的缓存完全不访问Redis，
+ * 但仍然广播失效通知。</p>
+ */
+public class TieredCache extends AbstractValueAdaptingCache {
+
+    private static final Logger log = LoggerFactory.getLogger(TieredCache.class);
+
+    private final String name;
+    private final Cache<String, Object> localCache;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final String redisKeyPrefix;
+    private final Duration redisTtl;
+    private final boolean localOnly;
+    private final int scanBatchSize;
+    private final TieredCacheManager.InvalidationPublisher publisher;
+
+    private final Counter remoteHitCounter;
+    private final Counter remoteMissCounter;
+
+    TieredCache(String name,
+                Cache<String, Object> localCache,
+                RedisTemplate<String, Object> redisTemplate,
+                String redisKeyPrefix,
+                Duration redisTtl,
+                boolean localOnly,
+                int scanBatchSize,
+                TieredCacheManager.InvalidationPublisher publisher,
+                MeterRegistry meterRegistry) {
+        super(true);
+        this.name = name;
+        this.localCache = localCache;
+        this.redisTemplate = redisTemplate;
+        this.redisKeyPrefix = redisKeyPrefix;
+        this.redisTtl = redisTtl;
+        this.localOnly = localOnly;
+        this.scanBatchSize = scanBatchSize;
+        this.publisher = publisher;
+        this.remoteHitCounter = Counter.builder("baseai.cache.remote.hit")
+                .description("两级缓存Redis命中次数")
+                .tag("cache", name)
+                .register(meterRegistry);
+        this.remoteMissCounter = Counter.builder("baseai.cache.remote.miss")
+                .description("两级缓存Redis未命中次数")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return localCache;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String cacheKey = String.valueOf(key);
+        Object value = localCache.getIfPresent(cacheKey);
+        if (value != null || localOnly) {
+            return value;
+        }
+
+        value = getRemote(cacheKey);
+        if (value != null) {
+            localCache.put(cacheKey, value);
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String cacheKey = String.valueOf(key);
+        try {
+            // 同一节点上同一个键并发未命中时只加载一次
+            return (T) fromStoreValue(localCache.get(cacheKey, () -> {
+                Object remote = localOnly ? null : getRemote(cacheKey);
+                if (remote != null) {
+                    return remote;
+                }
+                Object loaded = valueLoader.call();
+                putRemote(cacheKey, loaded);
+                publisher.evict(name, cacheKey);
+                return toStoreValue(loaded);
+            }));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String cacheKey = String.valueOf(key);
+        putRemote(cacheKey, value);
+        localCache.put(cacheKey, toStoreValue(value));
+        publisher.evict(name, cacheKey);
+    }
+
+    @Override
+    public void evict(Object key) {
+        String cacheKey = String.valueOf(key);
+        if (!localOnly) {
+            try {
+                redisTemplate.unlink(redisKey(cacheKey));
+            } catch (Exception e) {
+                log.warn("删除Redis缓存失败: cache={}, key={}, error={}", name, cacheKey, e.getMessage());
+            }
+        }
+        localCache.invalidate(cacheKey);
+        publisher.evict(name, cacheKey);
+    }
+
+    @Override
+    public void clear() {
+        if (!localOnly) {
+            clearRemote();
+        }
+        localCache.invalidateAll();
+        publisher.clear(name);
+    }
+
+    /**
+     * 只丢弃本节点的本地副本，收到其他节点的失效通知时调用
+     */
+    void evictLocal(String key) {
+        localCache.invalidate(key);
+    }
+
+    /**
+     * 只清空本节点的本地缓存，收到其他节点的清空通知时调用
+     */
+    void clearLocal() {
+        localCache.invalidateAll();
+    }
+
+    // =================== 私有方法 ===================
+
+    private Object getRemote(String cacheKey) {
+        try {
+            Object value = redisTemplate.opsForValue().get(redisKey(cacheKey));
+            if (value != null) {
+                remoteHitCounter.increment();
+            } else {
+                remoteMissCounter.increment();
+            }
+            return value;
+        } catch (Exception e) {
+            remoteMissCounter.increment();
+            log.warn("读取Redis缓存失败，按未命中处理: cache={}, key={}, error={}", name, cacheKey, e.getMessage());
+            return null;
+        }
+    }
+
+    private void putRemote(String cacheKey, Object value) {
+        if (localOnly || value == null) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(redisKey(cacheKey), value, redisTtl);
+        } catch (Exception e) {
+            log.warn("写入Redis缓存失败，仅保留本地缓存: cache={}, key={}, error={}", name, cacheKey, e.getMessage());
+        }
+    }
+
+    private void clearRemote() {
+        ScanOptions options = ScanOptions.scanOptions().match(redisKeyPrefix + "*").count(scanBatchSize).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            List<String> batch = new ArrayList<>(scanBatchSize);
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= scanBatchSize) {
+                    redisTemplate.unlink(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                redisTemplate.unlink(batch);
+            }
+        } catch (Exception e) {
+            log.warn("清空Redis缓存失败: cache={}, error={}", name, e.getMessage());
+        }
+    }
+
+    private String redisKey(String cacheKey) {
+        return redisKeyPrefix + cacheKey;
+    }
+}
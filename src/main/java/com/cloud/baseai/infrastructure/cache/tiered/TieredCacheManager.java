@@ -0,0 +1,165 @@
+package com.cloud.baseai.infrastructure.cache.tiered;
+
+import com.cloud.baseai.infrastructure.config.properties.CacheProperties;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>两级缓存管理器</h2>
+ *
+ * <p>作为Spring的{@link CacheManager}，按名称懒创建{@link TieredCache}。
+ * 同时订阅失效通知频道：任一节点写入、删除或清空缓存后发布一条通知，
+ * 其他节点收到后只丢弃本地副本，下次读取时从Redis或数据源重新加载。</p>
+ *
+ * <p>通知格式为{@code 操作\n节点ID\n缓存名\n键}，节点忽略自己发出的通知。
+ * 订阅断开期间错过的通知不会补发，本地副本最多在{@code local-ttl-seconds}后过期。</p>
+ *
+ * <p>每个缓存的本地命中、未命中、淘汰和大小通过{@link GuavaCacheMetrics}注册到Micrometer
+ * （{@code cache.gets}、{@code cache.evictions}等，带{@code cache}标签），
+ * Redis层的命中和未命中记为{@code baseai.cache.remote.hit/miss}。</p>
+ */
+public class TieredCacheManager implements CacheManager, MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TieredCacheManager.class);
+
+    static final String OP_EVICT = "EVICT";
+    static final String OP_CLEAR = "CLEAR";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final CacheProperties cacheProperties;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final byte[] channel;
+    private final Counter invalidationCounter;
+
+    private final ConcurrentMap<String, TieredCache> caches = new ConcurrentHashMap<>();
+
+    public TieredCacheManager(RedisTemplate<String, Object> redisTemplate,
+                              CacheProperties cacheProperties,
+                              MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.cacheProperties = cacheProperties;
+        this.meterRegistry = meterRegistry;
+        this.channel = cacheProperties.getTiered().getInvalidationChannel().getBytes(StandardCharsets.UTF_8);
+        this.invalidationCounter = Counter.builder("baseai.cache.invalidation.received")
+                .description("收到的其他节点缓存失效通知数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public org.springframework.cache.Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    /**
+     * 处理其他节点发布的失效通知
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 4);
+        if (parts.length < 3 || nodeId.equals(parts[1])) {
+            return;
+        }
+
+        // 本节点还没用过的缓存没有本地副本，无需处理
+        TieredCache cache = caches.get(parts[2]);
+        if (cache == null) {
+            return;
+        }
+
+        invalidationCounter.increment();
+        if (OP_CLEAR.equals(parts[0])) {
+            cache.clearLocal();
+        } else if (OP_EVICT.equals(parts[0]) && parts.length == 4) {
+            cache.evictLocal(parts[3]);
+        }
+    }
+
+    /**
+     * 本节点ID
+     */
+    String getNodeId() {
+        return nodeId;
+    }
+
+    // =================== 私有方法 ===================
+
+    private TieredCache createCache(String name) {
+        CacheProperties.TieredProperties tiered = cacheProperties.getTiered();
+        CacheProperties.CacheSpec spec = tiered.getCaches().getOrDefault(name, new CacheProperties.CacheSpec());
+
+        long maxSize = Objects.requireNonNullElse(spec.getLocalMaxSize(), tiered.getLocalMaxSize());
+        int localTtl = Objects.requireNonNullElse(spec.getLocalTtlSeconds(), tiered.getLocalTtlSeconds());
+        Integer redisTtl = spec.getRedisTtlSeconds() != null ? spec.getRedisTtlSeconds() : tiered.getRedisTtlSeconds();
+        if (redisTtl == null) {
+            redisTtl = cacheProperties.getRedis().getDefaultTtlSeconds();
+        }
+
+        Cache<String, Object> localCache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(localTtl, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, localCache, name);
+
+        log.info("创建两级缓存: name={}, localMaxSize={}, localTtl={}s, redisTtl={}s, localOnly={}",
+                name, maxSize, localTtl, redisTtl, spec.getLocalOnly());
+
+        return new TieredCache(name, localCache, redisTemplate,
+                cacheProperties.getRedis().getKeyPrefix() + "cache:" + name + "::",
+                Duration.ofSeconds(redisTtl),
+                Boolean.TRUE.equals(spec.getLocalOnly()),
+                cacheProperties.getRedis().getScanBatchSize(),
+                new InvalidationPublisher(),
+                meterRegistry);
+    }
+
+    private void publish(String op, String cacheName, String key) {
+        byte[] body = String.join("\n", op, nodeId, cacheName, key).getBytes(StandardCharsets.UTF_8);
+        try {
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, body));
+        } catch (Exception e) {
+            // 通知发布失败时其他节点的本地副本最多在本地TTL后过期
+            log.warn("发布缓存失效通知失败: cache={}, op={}, error={}", cacheName, op, e.getMessage());
+        }
+    }
+
+    /**
+     * 失效通知发布器，由各个缓存在写入和删除后调用
+     */
+    class InvalidationPublisher {
+
+        void evict(String cacheName, String key) {
+            publish(OP_EVICT, cacheName, key);
+        }
+
+        void clear(String cacheName) {
+            publish(OP_CLEAR, cacheName, "");
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.cloud.baseai.infrastructure.config;
 
 import com.cloud.baseai.infrastructure.config.base.BaseAutoConfiguration;
 import com.cloud.baseai.infrastructure.config.properties.AsyncProperties;
+import com.cloud.baseai.infrastructure.config.properties.AuditProperties;
+import com.cloud.baseai.infrastructure.config.properties.KnowledgeBaseProperties;
 import jakarta.annotation.PreDestroy;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
@@ -440,6 +442,41 @@ public class AsyncAutoConfiguration extends BaseAutoConfiguration {
         return auditExecutor;
     }
 
+    /**
+     * <h3>创建审计日志导出专用的执行器</h3>
+     *
+     * <p>一次流式导出可能持续到{@code export-timeout-seconds}，不能占用共享的{@code taskExecutor}。
+     * 该执行器的线程数等于{@code max-concurrent-exports}，不设队列，
+     * 满载时使用中止策略，由调用方向客户端返回繁忙，而不是在请求线程中执行导出。</p>
+     *
+     * @param auditProperties 审计配置属性
+     * @return 配置好的审计导出执行器
+     */
+    @Bean(name = "auditExportExecutor")
+    public AsyncTaskExecutor auditExportExecutor(AuditProperties auditProperties) {
+        logBeanCreation("auditExportExecutor", "审计日志导出专用执行器");
+
+        int maxExports = Math.max(1, auditProperties.getReporting().getMaxConcurrentExports());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxExports);
+        executor.setMaxPoolSize(maxExports);
+        // 队列容量为0：没有空闲线程时立即拒绝
+        executor.setQueueCapacity(0);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setKeepAliveSeconds(asyncProps.getKeepAliveSeconds());
+        executor.setThreadNamePrefix("BaseAI-Audit-Export-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        // 关闭时不等待导出完成，客户端会在下一次写入失败时收到中断
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+
+        logInfo("审计导出执行器配置 - 最大并发导出: %d", maxExports);
+
+        AsyncTaskExecutor securityAwareExecutor = new DelegatingSecurityContextAsyncTaskExecutor(executor);
+        logBeanSuccess("auditExportExecutor");
+        return securityAwareExecutor;
+    }
+
     /**
      * <h3>创建流程编排专用的异步执行器</h3>
      *
@@ -849,6 +886,68 @@ public class AsyncAutoConfiguration extends BaseAutoConfiguration {
         return kbExecutor;
     }
 
+    /**
+     * <h3>创建向量生成任务专用的执行器</h3>
+     *
+     * <p>任务由定时轮询线程领取后提交到这里执行，一个任务会处理整篇文档。
+     * 不能使用调用者运行策略：线程池满时整篇文档会在调度线程上执行，阻塞续约心跳和其他定时任务。
+     * 线程数等于{@code worker-concurrency}，队列只容纳线程交接间隙的少量任务，
+     * 满载时使用中止策略，由轮询方把任务退回队列。</p>
+     *
+     * @param kbProperties 知识库配置属性
+     * @return 配置好的向量生成任务执行器
+     */
+    @Bean(name = "embeddingJobExecutor")
+    public AsyncTaskExecutor embeddingJobExecutor(KnowledgeBaseProperties kbProperties) {
+        logBeanCreation("embeddingJobExecutor", "向量生成任务专用执行器");
+
+        int concurrency = Math.max(1, kbProperties.getEmbeddingJob().getWorkerConcurrency());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(concurrency);
+        executor.setThreadNamePrefix("BaseAI-KB-EmbeddingJob-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        // 节点停止时任务在当前页结束后自行退回队列，这里只等待它们退出
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+
+        logInfo("向量生成任务执行器配置 - 线程数: %d, 队列容量: %d", concurrency, concurrency);
+        logBeanSuccess("embeddingJobExecutor");
+        return executor;
+    }
+
+    /**
+     * <h3>创建进程内向量索引的后台执行器</h3>
+     *
+     * <p>用于索引加载、定期重建和召回率抽样。这些任务都可以丢弃：
+     * 抽样只影响指标，加载被丢弃时查询继续走数据库，下次查询会重新安排。
+     * 线程池满时使用中止策略，由索引管理器吞掉拒绝，不能回退到调用线程，否则查询线程会同步加载整个索引。</p>
+     *
+     * @param kbProperties 知识库配置属性
+     * @return 配置好的向量索引执行器
+     */
+    @Bean(name = "vectorIndexExecutor")
+    public AsyncTaskExecutor vectorIndexExecutor(KnowledgeBaseProperties kbProperties) {
+        logBeanCreation("vectorIndexExecutor", "进程内向量索引后台执行器");
+
+        KnowledgeBaseProperties.MemoryIndexProperties indexProps = kbProperties.getSearch().getMemoryIndex();
+        int threads = Math.max(1, indexProps.getExecutorThreads());
+        int queueCapacity = Math.max(0, indexProps.getExecutorQueueCapacity());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("BaseAI-KB-VectorIndex-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+
+        logInfo("向量索引执行器配置 - 线程数: %d, 队列容量: %d", threads, queueCapacity);
+        logBeanSuccess("vectorIndexExecutor");
+        return executor;
+    }
+
     /**
      * <h2>知识库上下文复制任务执行器</h2>
      *
@@ -32,6 +32,8 @@ import java.util.Map;
         KnowledgeBaseProperties.class,
         ChatProperties.class,
         LlmProperties.class,
+        FlowProperties.class,
+        McpProperties.class,
         EmailProperties.class,
         SmsProperties.class,
         AuditProperties.class,
@@ -71,6 +73,8 @@ public class BaseAiPropertiesAutoConfiguration extends BaseAutoConfiguration {
             KnowledgeBaseProperties.class,
             ChatProperties.class,
             LlmProperties.class,
+            FlowProperties.class,
+            McpProperties.class,
             EmailProperties.class,
             SmsProperties.class,
             AuditProperties.class,
@@ -2,6 +2,7 @@ package com.cloud.baseai.infrastructure.config;
 
 import com.cloud.baseai.infrastructure.cache.service.BaseRedisService;
 import com.cloud.baseai.infrastructure.cache.service.impl.BaseRedisServiceImpl;
+import com.cloud.baseai.infrastructure.cache.tiered.TieredCacheManager;
 import com.cloud.baseai.infrastructure.config.base.BaseAutoConfiguration;
 import com.cloud.baseai.infrastructure.config.properties.CacheProperties;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
@@ -19,12 +20,15 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -44,9 +48,11 @@ import java.util.Map;
  * <li><b>字符串序列化：</b>键使用字符串序列化，确保键的可读性</li>
  * <li><b>类型安全：</b>配置了泛型类型，确保类型安全</li>
  * <li><b>兼容性：</b>支持多种Java对象类型的序列化</li>
+ * <li><b>两级缓存：</b>{@code @Cacheable}使用进程内 + Redis的两级缓存，跨节点通过发布订阅失效</li>
  * </ul>
  */
 @Configuration
+@EnableCaching
 @ConditionalOnClass(RedisConnectionFactory.class)
 public class RedisAutoConfiguration extends BaseAutoConfiguration {
 
@@ -148,6 +154,12 @@ public class RedisAutoConfiguration extends BaseAutoConfiguration {
         summary.put("最大缓存大小(MB)", app.getMaxCacheSizeMb());
         summary.put("缓存淘汰策略", app.getEvictionPolicy());
 
+        // 两级缓存配置摘要
+        CacheProperties.TieredProperties tiered = cacheProperties.getTiered();
+        summary.put("启用两级缓存", tiered.getEnabled());
+        summary.put("本地缓存最大条目数", tiered.getLocalMaxSize());
+        summary.put("本地缓存TTL(秒)", tiered.getLocalTtlSeconds());
+
         return summary;
     }
 
@@ -308,6 +320,38 @@ public class RedisAutoConfiguration extends BaseAutoConfiguration {
         return container;
     }
 
+    /**
+     * 创建两级缓存管理器
+     *
+     * <p>作为{@code @Cacheable}等注解使用的CacheManager，并在已有的消息监听器容器上
+     * 订阅缓存失效频道。使用不参与事务的{@code cacheRedisTemplate}，
+     * 避免在事务方法中读缓存时命令被排入MULTI而读不到值。</p>
+     *
+     * @param cacheRedisTemplate 缓存优化的RedisTemplate
+     * @param listenerContainer  Redis消息监听器容器
+     * @param meterRegistry      指标注册表
+     * @return 两级缓存管理器
+     */
+    @Bean
+    @ConditionalOnMissingBean(CacheManager.class)
+    @ConditionalOnProperty(prefix = "baseai.cache.tiered", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public TieredCacheManager cacheManager(
+            @Qualifier("cacheRedisTemplate") RedisTemplate<String, Object> cacheRedisTemplate,
+            RedisMessageListenerContainer listenerContainer,
+            MeterRegistry meterRegistry) {
+
+        logBeanCreation("cacheManager", "两级缓存管理器");
+
+        TieredCacheManager cacheManager = new TieredCacheManager(cacheRedisTemplate, cacheProperties, meterRegistry);
+        listenerContainer.addMessageListener(cacheManager,
+                new ChannelTopic(cacheProperties.getTiered().getInvalidationChannel()));
+
+        logInfo("两级缓存管理器配置完成 - 失效频道: %s", cacheProperties.getTiered().getInvalidationChannel());
+        logBeanSuccess("cacheManager");
+
+        return cacheManager;
+    }
+
     /**
      * 创建统一的Redis服务Bean
      *
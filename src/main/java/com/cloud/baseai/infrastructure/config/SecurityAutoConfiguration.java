@@ -2,10 +2,14 @@ package com.cloud.baseai.infrastructure.config;
 
 import com.cloud.baseai.infrastructure.config.base.BaseAutoConfiguration;
 import com.cloud.baseai.infrastructure.config.properties.SecurityProperties;
+import com.cloud.baseai.infrastructure.ratelimit.RateLimitFilter;
+import com.cloud.baseai.infrastructure.ratelimit.RateLimitService;
+import com.cloud.baseai.infrastructure.ratelimit.TenantTierResolver;
 import com.cloud.baseai.infrastructure.security.jwt.JwtAuthenticationEntryPoint;
 import com.cloud.baseai.infrastructure.security.jwt.JwtAuthenticationFilter;
 import com.cloud.baseai.infrastructure.security.permission.CustomPermissionEvaluator;
 import com.cloud.baseai.infrastructure.security.service.CustomUserDetailsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -70,17 +74,22 @@ public class SecurityAutoConfiguration extends BaseAutoConfiguration {
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final CustomPermissionEvaluator customPermissionEvaluator;
+    private final RateLimitFilter rateLimitFilter;
 
     public SecurityAutoConfiguration(SecurityProperties securityProps,
                                      CustomUserDetailsService userDetailsService,
                                      JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint,
                                      JwtAuthenticationFilter jwtAuthenticationFilter,
-                                     CustomPermissionEvaluator customPermissionEvaluator) {
+                                     CustomPermissionEvaluator customPermissionEvaluator,
+                                     RateLimitService rateLimitService,
+                                     TenantTierResolver tenantTierResolver,
+                                     ObjectMapper objectMapper) {
         this.securityProps = securityProps;
         this.userDetailsService = userDetailsService;
         this.jwtAuthenticationEntryPoint = jwtAuthenticationEntryPoint;
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
         this.customPermissionEvaluator = customPermissionEvaluator;
+        this.rateLimitFilter = new RateLimitFilter(rateLimitService, tenantTierResolver, objectMapper);
 
         // 统一初始化
         initializeConfiguration();
@@ -385,6 +394,9 @@ public class SecurityAutoConfiguration extends BaseAutoConfiguration {
                     // ========== 添加自定义过滤器（JWT） ==========
                     .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
 
+                    // ========== 速率限制（认证之后，按用户或IP限流） ==========
+                    .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class)
+
                     // ========== 安全头配置 ==========
                     .headers(this::configureSecurityHeaders)
 
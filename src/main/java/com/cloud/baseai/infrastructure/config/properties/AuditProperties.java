@@ -41,6 +41,21 @@ public class AuditProperties {
      */
     private ReportingProperties reporting = new ReportingProperties();
 
+    /**
+     * 入库管道配置
+     */
+    private IngestionProperties ingestion = new IngestionProperties();
+
+    /**
+     * 统计汇总配置
+     */
+    private RollupProperties rollup = new RollupProperties();
+
+    /**
+     * 分区维护配置
+     */
+    private PartitionProperties partition = new PartitionProperties();
+
     /**
      * 日志记录配置内部类
      */
@@ -260,5 +275,128 @@ public class AuditProperties {
          * 报告保留天数
          */
         private Integer reportRetentionDays = 365;
+
+        /**
+         * 流式导出审计日志的超时时间（秒），独立于全局异步请求超时
+         */
+        private Long exportTimeoutSeconds = 1800L;
+
+        /**
+         * 本节点同时进行的流式导出数上限，超出时直接拒绝，不排队
+         */
+        private Integer maxConcurrentExports = 2;
+    }
+
+    /**
+     * 入库管道配置内部类
+     */
+    @Data
+    public static class IngestionProperties {
+        /**
+         * 是否启用预写日志，关闭后管道只在内存中缓冲，进程崩溃会丢失未入库的记录
+         */
+        private Boolean walEnabled = true;
+
+        /**
+         * 预写日志目录
+         */
+        private String walDir = "./data/audit-wal";
+
+        /**
+         * 单个预写日志段的大小上限（字节）
+         */
+        private Long segmentBytes = 64L * 1024 * 1024;
+
+        /**
+         * 预写日志刷盘间隔（毫秒）
+         */
+        private Long fsyncIntervalMs = 100L;
+
+        /**
+         * 已写入预写日志、尚未入库的最大记录数，达到上限后提交方等待
+         */
+        private Integer capacity = 65536;
+
+        /**
+         * 提交方等待容量的最长时间（毫秒），超时后拒绝提交
+         */
+        private Long offerTimeoutMs = 200L;
+
+        /**
+         * 单次批量入库的最大记录数
+         */
+        private Integer batchSize = 2000;
+
+        /**
+         * 攒批的最长等待时间（毫秒）
+         */
+        private Long flushIntervalMs = 200L;
+
+        /**
+         * 数据库暂时不可用时的重试间隔（毫秒）
+         */
+        private Long retryBackoffMs = 1000L;
+    }
+
+    /**
+     * 统计汇总配置内部类
+     */
+    @Data
+    public static class RollupProperties {
+        /**
+         * 是否启用统计汇总，关闭后统计查询直接聚合原始日志
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 汇总任务执行间隔（毫秒）
+         */
+        private Long compactIntervalMs = 60_000L;
+
+        /**
+         * 汇总滞后时间（秒），只汇总早于当前时间减去该值的分钟桶，给仍在入库中的记录留出时间
+         */
+        private Integer lagSeconds = 30;
+
+        /**
+         * 每次汇总重算的最近时间窗口（分钟），窗口内迟到入库的记录会被补进汇总
+         */
+        private Integer recomputeMinutes = 60;
+
+        /**
+         * 追赶历史数据时单次汇总的最大时间跨度（小时）
+         */
+        private Integer maxCatchUpHours = 24;
+
+        /**
+         * 分钟桶保留时间（小时），更早的时间段由小时桶和天桶覆盖
+         */
+        private Integer minuteRetentionHours = 48;
+    }
+
+    /**
+     * 分区维护配置内部类
+     */
+    @Data
+    public static class PartitionProperties {
+        /**
+         * 是否维护审计日志月分区，审计表不是分区表时自动退回按行删除
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 提前创建的月分区数（不含当月）
+         */
+        private Integer premakeMonths = 3;
+
+        /**
+         * 超过保留期的分区处理方式：DROP直接删除，DETACH从审计表分离后保留为独立表，供归档后再手工删除
+         */
+        private String retentionAction = "DROP";
+
+        /**
+         * 分区维护任务的cron表达式
+         */
+        private String maintenanceCron = "0 15 2 * * *";
     }
-}
\ No newline at end of file
+}
@@ -3,6 +3,9 @@ package com.cloud.baseai.infrastructure.config.properties;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * <h2>缓存配置属性类</h2>
  *
@@ -23,6 +26,11 @@ public class CacheProperties {
      */
     private ApplicationProperties application = new ApplicationProperties();
 
+    /**
+     * 两级缓存（进程内 + Redis）配置
+     */
+    private TieredProperties tiered = new TieredProperties();
+
     /**
      * Redis缓存配置内部类
      */
@@ -57,6 +65,16 @@ public class CacheProperties {
          * 最大键名长度
          */
         private Integer maxKeyLength = 250;
+
+        /**
+         * 批量写入时单个管道的最大命令数
+         */
+        private Integer pipelineBatchSize = 1000;
+
+        /**
+         * 按模式清理缓存时每批SCAN和UNLINK的键数
+         */
+        private Integer scanBatchSize = 500;
     }
 
     /**
@@ -104,4 +122,66 @@ public class CacheProperties {
          */
         private String evictionPolicy = "LRU";
     }
-}
\ No newline at end of file
+
+    /**
+     * 两级缓存配置内部类
+     */
+    @Data
+    public static class TieredProperties {
+        /**
+         * 是否启用两级缓存作为Spring CacheManager
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 进程内缓存的最大条目数（每个缓存）
+         */
+        private Long localMaxSize = 10000L;
+
+        /**
+         * 进程内缓存写入后的过期时间（秒），也是错过失效通知时的最长不一致时间
+         */
+        private Integer localTtlSeconds = 60;
+
+        /**
+         * Redis缓存过期时间（秒），为空时使用redis.default-ttl-seconds
+         */
+        private Integer redisTtlSeconds;
+
+        /**
+         * 跨节点失效通知的发布订阅频道
+         */
+        private String invalidationChannel = "baseai:cache:invalidation";
+
+        /**
+         * 按缓存名覆盖的配置
+         */
+        private Map<String, CacheSpec> caches = new HashMap<>();
+    }
+
+    /**
+     * 单个缓存的覆盖配置，未设置的项使用两级缓存的默认值
+     */
+    @Data
+    public static class CacheSpec {
+        /**
+         * 进程内缓存的最大条目数
+         */
+        private Long localMaxSize;
+
+        /**
+         * 进程内缓存过期时间（秒）
+         */
+        private Integer localTtlSeconds;
+
+        /**
+         * Redis缓存过期时间（秒）
+         */
+        private Integer redisTtlSeconds;
+
+        /**
+         * 只使用进程内缓存，不写入Redis（值不便序列化或需要尽快失效时使用）
+         */
+        private Boolean localOnly = false;
+    }
+}
@@ -30,6 +30,11 @@ public class ChatProperties {
      */
     private AiFeaturesProperties aiFeatures = new AiFeaturesProperties();
 
+    /**
+     * 流式响应配置
+     */
+    private StreamProperties stream = new StreamProperties();
+
     /**
      * 消息配置内部类
      */
@@ -107,6 +112,27 @@ public class ChatProperties {
         private String citationFormat = "markdown";
     }
 
+    /**
+     * 流式响应配置内部类
+     */
+    @Data
+    public static class StreamProperties {
+        /**
+         * 单次流式响应的最长时间（秒），从开始到结束的总时长，超时后中断模型请求
+         */
+        private Integer timeoutSeconds = 300;
+
+        /**
+         * 相邻两个事件之间的最长间隔（秒），模型长时间没有输出时提前中断
+         */
+        private Integer idleTimeoutSeconds = 60;
+
+        /**
+         * 向模型请求的预取片段数，客户端消费慢时上游最多缓冲这么多片段
+         */
+        private Integer prefetch = 32;
+    }
+
     /**
      * AI功能配置内部类
      */
@@ -0,0 +1,188 @@
+package com.cloud.baseai.infrastructure.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * <h2>流程编排配置属性类</h2>
+ *
+ * <p>管理流程执行引擎的运行参数，包括运行线程模式、准入控制和节点调度的并发度等。</p>
+ */
+@Data
+@ConfigurationProperties(prefix = "baseai.flow")
+public class FlowProperties {
+
+    /**
+     * 流程执行配置
+     */
+    private ExecutionProperties execution = new ExecutionProperties();
+
+    /**
+     * 运行日志配置
+     */
+    private RunLogProperties runLog = new RunLogProperties();
+
+    /**
+     * 表达式引擎配置
+     */
+    private ExpressionProperties expression = new ExpressionProperties();
+
+    /**
+     * 流式数据节点配置
+     */
+    private StreamingProperties streaming = new StreamingProperties();
+
+    /**
+     * 流程执行配置内部类
+     */
+    @Data
+    public static class ExecutionProperties {
+        /**
+         * 单次运行中同时执行的最大节点数，依赖已满足的节点超出该数量时排队等待
+         */
+        private Integer maxParallelNodes = 4;
+
+        /**
+         * 未指定超时时间时的默认运行超时（分钟）
+         */
+        private Integer defaultTimeoutMinutes = 30;
+
+        /**
+         * 运行线程模式：virtual(每次运行一个虚拟线程)、platform(平台线程池)
+         */
+        private String threadMode = "virtual";
+
+        /**
+         * 同时执行的最大运行数
+         */
+        private Integer maxConcurrentRuns = 200;
+
+        /**
+         * 等待执行的最大运行数，超出后直接拒绝
+         */
+        private Integer maxQueuedRuns = 1000;
+
+        /**
+         * 排队等待执行的最长时间（秒），超时后拒绝
+         */
+        private Integer admissionTimeoutSeconds = 30;
+
+        /**
+         * 节点重试的基础退避时间（毫秒），第N次重试等待N倍该时间
+         */
+        private Long retryBackoffMs = 1000L;
+
+        /**
+         * 编译后执行计划的缓存容量（按快照计）
+         */
+        private Integer planCacheSize = 512;
+
+        /**
+         * 执行计划缓存的过期时间（分钟），兜底其他节点错过的失效通知
+         */
+        private Integer planCacheTtlMinutes = 30;
+
+        /**
+         * 执行计划失效通知的Redis频道
+         */
+        private String planInvalidationChannel = "baseai:flow:plan-invalidation";
+    }
+
+    /**
+     * 运行日志配置内部类
+     *
+     * <p>节点日志先写入有界缓冲区，由后台线程批量入库，不占用流程执行时间。</p>
+     */
+    @Data
+    public static class RunLogProperties {
+        /**
+         * 缓冲区容量，写满后丢弃最早的日志
+         */
+        private Integer bufferCapacity = 10000;
+
+        /**
+         * 缓冲区的最大字节数（按序列化后的日志估算），超出后丢弃最早的日志，0表示只按条数限制
+         */
+        private Long bufferMaxBytes = 32L * 1024 * 1024;
+
+        /**
+         * 单批写入的最大日志条数
+         */
+        private Integer batchSize = 200;
+
+        /**
+         * 未攒满一批时的最长等待时间（毫秒）
+         */
+        private Long flushIntervalMs = 500L;
+
+        /**
+         * 运行结束时等待该运行的日志落库的最长时间（毫秒），0表示不等待
+         */
+        private Long completionFlushTimeoutMs = 2000L;
+
+        /**
+         * 单条日志JSON的最大字符数，超出时截断输入输出
+         */
+        private Integer maxPayloadChars = 8192;
+
+        /**
+         * 节点START/SUCCESS日志的采样率（0-1），错误日志和流程开始日志始终记录
+         */
+        private Double sampleRate = 1.0;
+
+        /**
+         * 是否在节点输入日志中包含上游节点的完整输出，关闭时只记录上游节点标识
+         */
+        private Boolean includeUpstreamOutputs = false;
+    }
+
+    /**
+     * 表达式引擎配置内部类
+     */
+    @Data
+    public static class ExpressionProperties {
+        /**
+         * 编译后表达式的缓存容量
+         */
+        private Integer cacheSize = 1024;
+
+        /**
+         * 空闲脚本上下文的池容量
+         */
+        private Integer contextPoolSize = 16;
+
+        /**
+         * 条件、循环表达式单次求值会话的超时时间（毫秒）
+         */
+        private Long evaluationTimeoutMs = 5000L;
+
+        /**
+         * 过滤节点对整个列表求值的超时时间（毫秒）
+         */
+        private Long filterTimeoutMs = 60000L;
+    }
+
+    /**
+     * 流式数据节点配置内部类
+     */
+    @Data
+    public static class StreamingProperties {
+        /**
+         * 是否默认以流式模式执行分割、过滤、合并节点，节点配置中的streaming可单独开启
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 数据流每块的条数，即每个处理阶段同时缓冲的最大条数
+         */
+        private Integer chunkSize = 1000;
+
+        /**
+         * 节点结果被所有下游节点消费后是否从运行上下文中释放（终端节点的结果始终保留），
+         * 开启后运行结果和失败时的部分结果中不再包含中间节点的输出。
+         * 下游的惰性数据流仍引用上游结果，运行中还有数据流时释放的结果不会被回收，内存估算也不扣除。
+         * 需要在运行结果中查看中间节点输出（如调试流程）时可以关闭
+         */
+        private Boolean releaseConsumedResults = true;
+    }
+}
@@ -37,6 +37,16 @@ public class KnowledgeBaseProperties {
      */
     private SearchProperties search = new SearchProperties();
 
+    /**
+     * 向量生成任务队列配置
+     */
+    private EmbeddingJobProperties embeddingJob = new EmbeddingJobProperties();
+
+    /**
+     * 向量缓存配置
+     */
+    private EmbeddingCacheProperties embeddingCache = new EmbeddingCacheProperties();
+
     /**
      * 性能优化配置
      */
@@ -168,6 +178,26 @@ public class KnowledgeBaseProperties {
          */
         private Integer batchSize = 50;
 
+        /**
+         * 各提供商单次请求允许的最大文本数，未配置的提供商使用 batchSize
+         */
+        private Map<String, Integer> providerBatchSizes = Map.of("openai", 256, "qwen", 10);
+
+        /**
+         * 每个提供商同时进行中的批次数上限
+         */
+        private Integer maxInFlightBatches = 4;
+
+        /**
+         * 单个批次的最大尝试次数
+         */
+        private Integer maxAttempts = 3;
+
+        /**
+         * 首次重试前的等待时间（毫秒），之后按指数退避
+         */
+        private Long retryBackoffMillis = 500L;
+
         /**
          * API调用超时时间（秒）
          */
@@ -192,6 +222,98 @@ public class KnowledgeBaseProperties {
         );
     }
 
+    /**
+     * 向量缓存配置内部类
+     */
+    @Data
+    public static class EmbeddingCacheProperties {
+        /**
+         * 是否启用向量缓存
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 本地缓存占用的堆外内存上限（字节）
+         */
+        private Long localMaxBytes = 256L * 1024 * 1024;
+
+        /**
+         * 本地缓存的过期时间（秒）
+         */
+        private Integer localTtlSeconds = 3600;
+
+        /**
+         * 是否使用Redis共享缓存，关闭时只有本地缓存
+         */
+        private Boolean redisEnabled = true;
+
+        /**
+         * Redis中向量的过期时间（天）
+         */
+        private Integer redisTtlDays = 30;
+    }
+
+    /**
+     * 向量生成任务队列配置内部类
+     */
+    @Data
+    public static class EmbeddingJobProperties {
+        /**
+         * 是否在本节点运行任务消费者
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 本节点同时执行的任务数
+         */
+        private Integer workerConcurrency = 2;
+
+        /**
+         * 领取任务的轮询间隔（毫秒）
+         */
+        private Long pollIntervalMs = 2000L;
+
+        /**
+         * 租约时长（秒），超过该时间未推进检查点的任务可被其他节点接管
+         */
+        private Integer leaseSeconds = 120;
+
+        /**
+         * 执行中任务的续约间隔（毫秒），应明显小于租约时长，处理一页耗时超过租约时也不会被其他节点接管
+         */
+        private Long leaseRenewIntervalMs = 30000L;
+
+        /**
+         * 每次从检查点读取的知识块数量
+         */
+        private Integer pageSize = 200;
+
+        /**
+         * 单个任务的最大领取次数
+         */
+        private Integer maxAttempts = 5;
+
+        /**
+         * 任务失败后首次重试的退避时间（秒），之后每次翻倍
+         */
+        private Integer retryBackoffSeconds = 30;
+
+        /**
+         * 重试退避时间上限（秒）
+         */
+        private Integer maxRetryBackoffSeconds = 600;
+
+        /**
+         * 各模型每秒处理的知识块上限（本节点），未配置的模型使用 defaultChunksPerSecond
+         */
+        private Map<String, Integer> modelChunksPerSecond = Map.of();
+
+        /**
+         * 默认每秒处理的知识块上限，0表示不限制
+         */
+        private Integer defaultChunksPerSecond = 0;
+    }
+
     /**
      * 模型能力配置内部类
      */
@@ -255,6 +377,132 @@ public class KnowledgeBaseProperties {
          * 高亮显示配置
          */
         private HighlightProperties highlight = new HighlightProperties();
+
+        /**
+         * 进程内向量索引配置
+         */
+        private MemoryIndexProperties memoryIndex = new MemoryIndexProperties();
+
+        /**
+         * BM25关键词索引配置
+         */
+        private KeywordIndexProperties keywordIndex = new KeywordIndexProperties();
+    }
+
+    /**
+     * BM25关键词索引配置内部类
+     *
+     * <p>倒排表保存在 kb_chunk_terms / kb_term_stats / kb_text_stats 中，
+     * 随知识块的保存和删除增量维护。</p>
+     */
+    @Data
+    public static class KeywordIndexProperties {
+        /**
+         * 是否启用BM25关键词索引，关闭时文本搜索回退到ILIKE匹配
+         *
+         * <p>默认关闭：倒排表需要先按 basetable.sql 创建，已有数据需要通过
+         * {@code Bm25KeywordIndex#rebuildTenant} 补建后索引才完整。</p>
+         */
+        private Boolean enabled = false;
+
+        /**
+         * BM25词频饱和参数k1
+         */
+        private Double k1 = 1.2;
+
+        /**
+         * BM25长度归一化参数b
+         */
+        private Double b = 0.75;
+
+        /**
+         * 单次查询使用的最大词项数
+         */
+        private Integer maxQueryTerms = 32;
+
+        /**
+         * 文档频率超过该比例的词项在查询时忽略，避免扫描过长的倒排链
+         */
+        private Double maxDocFreqRatio = 0.5;
+
+        /**
+         * 重建索引时每批读取的知识块数量
+         */
+        private Integer rebuildBatchSize = 500;
+    }
+
+    /**
+     * 进程内向量索引配置内部类
+     *
+     * <p>为热点租户的小型知识库在内存中构建HNSW索引，作为pgvector查询的前置层。
+     * 索引冷启动或规模超限时回退到数据库查询。</p>
+     */
+    @Data
+    public static class MemoryIndexProperties {
+        /**
+         * 是否启用进程内向量索引
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 单个索引（租户+模型）允许的最大向量数，超过则始终走数据库
+         */
+        private Integer maxVectorsPerIndex = 50000;
+
+        /**
+         * 同时驻留的最大索引数量
+         */
+        private Integer maxIndexes = 64;
+
+        /**
+         * HNSW每个节点的邻居数（M）
+         */
+        private Integer m = 16;
+
+        /**
+         * 构建时的候选集大小（efConstruction）
+         */
+        private Integer efConstruction = 200;
+
+        /**
+         * 搜索时的候选集大小（efSearch）
+         */
+        private Integer efSearch = 100;
+
+        /**
+         * 索引全量刷新间隔（秒），用于同步文档软删除等未经仓储触发的变更
+         */
+        private Integer refreshIntervalSeconds = 600;
+
+        /**
+         * 索引空闲多久后释放（秒）
+         */
+        private Integer idleEvictSeconds = 1800;
+
+        /**
+         * 加载失败或没有向量时，距上次加载多久后再尝试（秒）
+         */
+        private Integer retryBackoffSeconds = 60;
+
+        /**
+         * 召回率抽样比例（0-1），抽中的查询会异步对比数据库结果
+         */
+        private Double recallSampleRate = 0.01;
+
+        /**
+         * 索引加载和召回率抽样的后台线程数
+         */
+        private Integer executorThreads = 2;
+
+        /**
+         * 后台任务队列容量，队列满时丢弃新任务
+         */
+        private Integer executorQueueCapacity = 16;
+
+        /**
+         * 向量删除和文档删除的跨节点失效通知频道
+         */
+        private String invalidationChannel = "baseai:kb:vector-index:invalidation";
     }
 
     /**
@@ -68,6 +68,11 @@ public class LlmProperties {
      */
     private FeaturesProperties features = new FeaturesProperties();
 
+    /**
+     * 流式请求对冲配置
+     */
+    private StreamHedgingProperties streamHedging = new StreamHedgingProperties();
+
     /**
      * OpenAI配置内部类
      */
@@ -273,4 +278,65 @@ public class LlmProperties {
          */
         private Integer responseCacheTtl = 3600;
     }
-}
\ No newline at end of file
+
+    /**
+     * 流式请求对冲配置内部类
+     *
+     * <p>首选提供商在对冲延迟内没有返回首个片段时，向下一个健康的提供商发出同样的请求，
+     * 以先返回首个片段者为准并取消其余请求。对冲延迟取该提供商近期首字延迟（TTFT）的分位数，
+     * 样本不足时使用初始延迟。</p>
+     */
+    @Data
+    public static class StreamHedgingProperties {
+        /**
+         * 是否启用对冲请求，关闭后仍保留首个片段前失败时的故障转移
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 单次流式请求最多尝试的提供商数（含首选），对冲与故障转移共用
+         */
+        private Integer maxAttempts = 2;
+
+        /**
+         * TTFT样本不足时使用的对冲延迟
+         */
+        private Duration initialDelay = Duration.ofSeconds(2);
+
+        /**
+         * 对冲延迟下限
+         */
+        private Duration minDelay = Duration.ofMillis(500);
+
+        /**
+         * 对冲延迟上限
+         */
+        private Duration maxDelay = Duration.ofSeconds(8);
+
+        /**
+         * 用作对冲延迟的TTFT分位数
+         */
+        private Double percentile = 0.95;
+
+        /**
+         * 计算分位数所需的最少样本数
+         */
+        private Integer minSamples = 20;
+
+        /**
+         * 每个提供商保留的最近TTFT样本数
+         */
+        private Integer windowSize = 200;
+
+        /**
+         * 首个片段前连续失败多少次后把提供商标记为不健康
+         */
+        private Integer unhealthyAfterFailures = 3;
+
+        /**
+         * 探测不健康提供商是否恢复的间隔（毫秒）。健康状态由实际流式请求的成败推断，
+         * 只有被标记为不健康的提供商才会发起会计费的健康检查
+         */
+        private Long healthCheckIntervalMs = 300000L;
+    }
+}
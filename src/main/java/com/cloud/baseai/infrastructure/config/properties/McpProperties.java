@@ -0,0 +1,101 @@
+package com.cloud.baseai.infrastructure.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * <h2>MCP工具配置属性类</h2>
+ *
+ * <p>管理MCP工具调用的运行参数，包括租户工具配额的计数方式和调用工具端点的HTTP客户端。</p>
+ */
+@Data
+@ConfigurationProperties(prefix = "baseai.mcp")
+public class McpProperties {
+
+    /**
+     * 工具配额配置
+     */
+    private QuotaProperties quota = new QuotaProperties();
+
+    /**
+     * 工具HTTP客户端配置，MCP的HTTP工具和流程的HTTP节点共用
+     */
+    private HttpClientProperties http = new HttpClientProperties();
+
+    /**
+     * 工具配额配置内部类
+     */
+    @Data
+    public static class QuotaProperties {
+        /**
+         * 是否在Redis中计数配额。关闭或Redis不可用时直接在数据库上原子扣减
+         */
+        private Boolean ledgerEnabled = true;
+
+        /**
+         * Redis计数回写数据库的间隔（毫秒）
+         */
+        private Long reconcileIntervalMs = 10000L;
+
+        /**
+         * Redis计数的过期时间（小时），每次扣减时刷新，过期后从数据库重新加载
+         */
+        private Integer counterTtlHours = 168;
+    }
+
+    /**
+     * 工具HTTP客户端配置内部类
+     */
+    @Data
+    public static class HttpClientProperties {
+        /**
+         * 建立连接的超时时间（毫秒）
+         */
+        private Integer connectTimeoutMs = 3000;
+
+        /**
+         * 每个目标主机的最大连接数
+         */
+        private Integer maxConnectionsPerHost = 50;
+
+        /**
+         * 连接池满时等待空闲连接的最长时间（毫秒）
+         */
+        private Long pendingAcquireTimeoutMs = 2000L;
+
+        /**
+         * 空闲连接的保留时间（秒）
+         */
+        private Integer maxIdleTimeSeconds = 30;
+
+        /**
+         * 调用方未指定超时时的单次调用超时（秒），包括连接、发送和读取完整响应
+         */
+        private Integer defaultTimeoutSeconds = 30;
+
+        /**
+         * 调用方可指定的最大超时（秒）
+         */
+        private Integer maxTimeoutSeconds = 300;
+
+        /**
+         * 响应体的最大字节数，超出时中止读取并视为调用失败
+         */
+        private Integer maxResponseBytes = 4 * 1024 * 1024;
+
+        /**
+         * 每个端点同时进行的最大调用数，超出时立即拒绝，慢端点不会占满其他工具的资源
+         */
+        private Integer bulkheadMaxConcurrent = 20;
+
+        /**
+         * 端点连续失败多少次后熔断
+         */
+        private Integer breakerFailureThreshold = 5;
+
+        /**
+         * 熔断持续时间（秒），之后放行一次试探调用，成功则恢复
+         */
+        private Integer breakerOpenSeconds = 30;
+    }
+}
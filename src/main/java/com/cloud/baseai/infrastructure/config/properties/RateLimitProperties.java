@@ -13,6 +13,32 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "baseai.rate-limit")
 public class RateLimitProperties {
 
+    /**
+     * 是否启用速率限制
+     */
+    private Boolean enabled = true;
+
+    /**
+     * 每次从Redis多预取的许可数上限，预取的许可在本地消耗，不再访问Redis。
+     * 实际预取数不超过最小限额的1%，限额很小时不预取
+     */
+    private Integer localPrefetch = 10;
+
+    /**
+     * 本地预取许可的有效期（毫秒），过期未用完的许可直接作废
+     */
+    private Long leaseMillis = 1000L;
+
+    /**
+     * Redis不可用时是否放行请求
+     */
+    private Boolean failOpen = true;
+
+    /**
+     * 租户等级的本地缓存时间（秒）
+     */
+    private Integer tierCacheSeconds = 300;
+
     /**
      * 全局API限制配置
      */
@@ -25,6 +51,9 @@ public class RateLimitProperties {
 
     /**
      * 全局限制配置内部类
+     *
+     * <p>按调用方（登录用户或匿名IP）计算：每分钟限制用令牌桶，每小时和每天限制用固定窗口计数，
+     * 并发限制在每个节点上单独计算。</p>
      */
     @Data
     public static class GlobalLimitProperties {
@@ -109,6 +109,60 @@ public class SecurityProperties {
          */
         @Min(value = 60, message = "令牌自动刷新阈值不能少于60秒")
         private Long autoRefreshThreshold = 1800L; // 30分钟
+
+        /**
+         * 已验签Claims缓存的最大条目数，按令牌哈希缓存到令牌过期
+         */
+        @Min(value = 0, message = "Claims缓存大小不能为负数")
+        private Long claimsCacheSize = 10000L;
+
+        /**
+         * 是否直接从令牌Claims构建用户主体，不再逐请求查询数据库。
+         * 开启后账户状态不再逐请求校验，角色、成员变更和密码修改会撤销用户令牌，
+         * 其他禁用或锁定账户的入口必须调用{@code JwtTokenService#revokeAllUserTokens}
+         */
+        private boolean principalFromClaims = false;
+
+        /**
+         * 本地撤销布隆过滤器配置
+         */
+        @Valid
+        @NotNull
+        private RevocationFilterProperties revocationFilter = new RevocationFilterProperties();
+    }
+
+    /**
+     * 本地撤销布隆过滤器配置内部类
+     */
+    @Data
+    public static class RevocationFilterProperties {
+        /**
+         * 是否启用。未启用或过滤器未就绪时每个请求都查询Redis黑名单
+         */
+        private boolean enabled = true;
+
+        /**
+         * 预期的撤销条目数（令牌和用户）
+         */
+        @Min(value = 1000, message = "预期撤销条目数不能少于1000")
+        private Integer expectedInsertions = 100000;
+
+        /**
+         * 误判率，误判的请求回退到Redis查询
+         */
+        private Double falsePositiveRate = 0.01;
+
+        /**
+         * 从Redis全量重建的间隔（毫秒），用于剔除已过期的撤销记录并兜底错过的通知
+         */
+        @Min(value = 5000, message = "重建间隔不能少于5秒")
+        private Long rebuildIntervalMs = 60000L;
+
+        /**
+         * 撤销通知的发布订阅频道
+         */
+        @NotBlank(message = "撤销通知频道不能为空")
+        private String channel = "baseai:jwt:revocation";
     }
 
     /**
@@ -56,6 +56,10 @@ public enum ErrorCode {
     SYS_RES_003("SYS_RES_003", "磁盘空间不足"),
     SYS_RES_004("SYS_RES_004", "线程池已满"),
 
+    // 速率限制错误 (RATE)
+    SYS_RATE_001("SYS_RATE_001", "请求过于频繁"),
+    SYS_RATE_002("SYS_RATE_002", "并发请求过多"),
+
     // 健康检查错误 (HEALTH)
     SYS_HEALTH_001("SYS_HEALTH_001", "系统健康检查失败"),
     SYS_HEALTH_002("SYS_HEALTH_002", "依赖服务健康检查失败"),
@@ -238,6 +242,7 @@ public enum ErrorCode {
     BIZ_KB_033("BIZ_KB_033", "文本向量生成失败"),
     BIZ_KB_034("BIZ_KB_034", "查询扩展搜索失败"),
     BIZ_KB_035("BIZ_KB_035", "向量生成被中断"),
+    BIZ_KB_036("BIZ_KB_036", "向量生成任务不存在"),
 
     // 流程编排错误 (FLOW)
     BIZ_FLOW_001("BIZ_FLOW_001", "流程不存在"),
@@ -327,6 +332,9 @@ public enum ErrorCode {
     BIZ_FLOW_074("BIZ_FLOW_074", "无效的连接: %s -> %s"),
     BIZ_FLOW_075("BIZ_FLOW_075", "存在不可达的节点"),
     BIZ_FLOW_076("BIZ_FLOW_076", "关键节点 %s 缺少必要配置"),
+    BIZ_FLOW_077("BIZ_FLOW_077", "流程执行繁忙，请稍后重试"),
+    BIZ_FLOW_078("BIZ_FLOW_078", "表达式执行超时（%sms）"),
+    BIZ_FLOW_079("BIZ_FLOW_079", "表达式编译失败: %s"),
 
     // MCP工具错误 (MCP)
     BIZ_MCP_001("BIZ_MCP_001", "工具不存在"),
@@ -422,6 +430,11 @@ public enum ErrorCode {
 
     BIZ_AUDIT_044("BIZ_AUDIT_044", "验证审计数据完整性失败"),
     BIZ_AUDIT_045("BIZ_AUDIT_045", "处理审计事件失败"),
+    BIZ_AUDIT_046("BIZ_AUDIT_046", "审计写入繁忙，请稍后重试"),
+    BIZ_AUDIT_047("BIZ_AUDIT_047", "流式读取审计日志失败"),
+    BIZ_AUDIT_048("BIZ_AUDIT_048", "报告不存在或已过期: %s"),
+    BIZ_AUDIT_049("BIZ_AUDIT_049", "审计统计汇总失败"),
+    BIZ_AUDIT_050("BIZ_AUDIT_050", "审计日志导出繁忙，同时进行的导出已达上限%s个，请稍后重试"),
 
     // =================== 外部集成错误 (EXT) ===================
 
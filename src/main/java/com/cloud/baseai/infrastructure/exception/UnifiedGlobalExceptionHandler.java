@@ -286,6 +286,10 @@ public class UnifiedGlobalExceptionHandler {
         String code = errorCode.getCode();
 
         // 根据错误代码前缀和具体错误类型判断
+        if (code.startsWith("SYS_RATE_")) {
+            return HttpStatus.TOO_MANY_REQUESTS;
+        }
+
         if (code.startsWith("SYS_AUTH_") || code.startsWith("BIZ_USER_006") || code.startsWith("BIZ_USER_007")) {
             return HttpStatus.UNAUTHORIZED;
         }
@@ -0,0 +1,99 @@
+package com.cloud.baseai.infrastructure.external.http;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <h2>端点熔断器和舱壁</h2>
+ *
+ * <p>每个工具端点一个实例。舱壁限制同时进行的调用数，满了立即拒绝；
+ * 连续失败达到阈值后熔断，熔断期间直接拒绝，到期后只放行一次试探调用，
+ * 试探成功则恢复，失败则重新熔断。</p>
+ */
+final class EndpointGuard {
+
+    /**
+     * 准入结果
+     */
+    enum Admission {
+        ALLOWED, TRIAL, BREAKER_OPEN, BULKHEAD_FULL;
+
+        boolean admitted() {
+            return this == ALLOWED || this == TRIAL;
+        }
+    }
+
+    private final Semaphore bulkhead;
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean trialInFlight = new AtomicBoolean();
+
+    /**
+     * 熔断到期时间，0表示未熔断
+     */
+    private volatile long openUntil;
+
+    EndpointGuard(int maxConcurrent, int failureThreshold, long openMillis) {
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * 尝试开始一次调用，准入成功后必须调用{@link #exit}
+     */
+    Admission tryEnter(long now) {
+        boolean trial = false;
+        if (openUntil != 0) {
+            if (now < openUntil || !trialInFlight.compareAndSet(false, true)) {
+                return Admission.BREAKER_OPEN;
+            }
+            trial = true;
+        }
+        if (!bulkhead.tryAcquire()) {
+            if (trial) {
+                trialInFlight.set(false);
+            }
+            return Admission.BULKHEAD_FULL;
+        }
+        return trial ? Admission.TRIAL : Admission.ALLOWED;
+    }
+
+    /**
+     * 结束一次调用并记录结果
+     */
+    void exit(Admission admission, boolean failed, long now) {
+        bulkhead.release();
+        if (failed) {
+            if (admission == Admission.TRIAL || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+                consecutiveFailures.set(0);
+                openUntil = now + openMillis;
+            }
+        } else {
+            consecutiveFailures.set(0);
+            if (admission == Admission.TRIAL) {
+                openUntil = 0;
+            }
+        }
+        if (admission == Admission.TRIAL) {
+            trialInFlight.set(false);
+        }
+    }
+
+    /**
+     * 结束一次调用但不记录结果，调用方取消时使用；试探调用被取消时熔断保持打开，下一次调用重新试探
+     */
+    void release(Admission admission) {
+        bulkhead.release();
+        if (admission == Admission.TRIAL) {
+            trialInFlight.set(false);
+        }
+    }
+
+    boolean isOpen() {
+        return openUntil != 0;
+    }
+}
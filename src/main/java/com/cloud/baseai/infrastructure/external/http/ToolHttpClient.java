@@ -0,0 +1,235 @@
+package com.cloud.baseai.infrastructure.external.http;
+
+import com.cloud.baseai.infrastructure.config.properties.McpProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.Exceptions;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <h2>工具调用HTTP客户端</h2>
+ *
+ * <p>MCP的HTTP工具和流程的HTTP节点共用的客户端，与LLM客户端的{@code RestTemplate}分开，
+ * 基于Reactor Netty非阻塞收发：</p>
+ * <ul>
+ * <li>连接池按目标主机分别计数，每个主机最多{@code max-connections-per-host}个连接</li>
+ * <li>每次调用有完整的截止时间（连接、发送和读取完整响应），到期后取消请求并释放连接</li>
+ * <li>响应体边读边由Jackson解析，超过{@code max-response-bytes}时中止</li>
+ * <li>每个端点（协议+主机+端口）一个舱壁和熔断器，慢端点或故障端点不会占满其他工具的连接和线程</li>
+ * </ul>
+ *
+ * <p>4xx响应和调用失败都以{@link ToolHttpException}抛出；只有超时、连接失败和5xx响应计入熔断。</p>
+ */
+@Component
+public class ToolHttpClient {
+
+    private static final Logger log = LoggerFactory.getLogger(ToolHttpClient.class);
+
+    private final McpProperties.HttpClientProperties properties;
+    private final ConnectionProvider connectionProvider;
+    private final WebClient webClient;
+    private final MeterRegistry meterRegistry;
+
+    private final Cache<String, EndpointGuard> guards = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .expireAfterAccess(30, TimeUnit.MINUTES)
+            .build();
+
+    public ToolHttpClient(McpProperties mcpProperties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = mcpProperties.getHttp();
+        this.meterRegistry = meterRegistry;
+
+        this.connectionProvider = ConnectionProvider.builder("baseai-tool-http")
+                .maxConnections(properties.getMaxConnectionsPerHost())
+                .pendingAcquireTimeout(Duration.ofMillis(properties.getPendingAcquireTimeoutMs()))
+                .maxIdleTime(Duration.ofSeconds(properties.getMaxIdleTimeSeconds()))
+                .evictInBackground(Duration.ofSeconds(properties.getMaxIdleTimeSeconds()))
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, properties.getConnectTimeoutMs());
+
+        Jackson2JsonDecoder decoder = new Jackson2JsonDecoder(objectMapper);
+        decoder.setMaxInMemorySize(properties.getMaxResponseBytes());
+        this.webClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().maxInMemorySize(properties.getMaxResponseBytes());
+                    codecs.defaultCodecs().jackson2JsonDecoder(decoder);
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                })
+                .build();
+    }
+
+    /**
+     * 发送请求并等待完整响应
+     *
+     * @param method         请求方法
+     * @param url            完整URL
+     * @param headers        请求头，可以为null
+     * @param body           请求体，为null时不发送请求体
+     * @param responseType   响应体类型
+     * @param timeoutSeconds 本次调用的截止时间（秒），为null时使用默认值，超过上限时取上限
+     * @return 响应
+     * @throws ToolHttpException 被舱壁或熔断拒绝、超时、连接失败或响应状态为4xx/5xx
+     */
+    public <T> ResponseEntity<T> exchange(HttpMethod method, String url, HttpHeaders headers, Object body,
+                                          Class<T> responseType, Integer timeoutSeconds) {
+        // 与原RestTemplate的默认处理一致：空格、中文等非法字符按URI组件编码
+        URI uri = UriComponentsBuilder.fromUriString(url).build().encode().toUri();
+        String endpoint = endpointOf(uri);
+        EndpointGuard guard = guardFor(endpoint);
+
+        long startTime = System.currentTimeMillis();
+        EndpointGuard.Admission admission = guard.tryEnter(startTime);
+        if (!admission.admitted()) {
+            record(admission == EndpointGuard.Admission.BREAKER_OPEN ? "breaker_open" : "bulkhead_full", 0);
+            throw new ToolHttpException(admission == EndpointGuard.Admission.BREAKER_OPEN
+                    ? "工具端点已熔断: " + endpoint
+                    : "工具端点并发调用已满: " + endpoint);
+        }
+
+        Duration timeout = Duration.ofSeconds(resolveTimeout(timeoutSeconds));
+        boolean failed = true;
+        boolean cancelled = false;
+        String outcome = "failure";
+        try {
+            WebClient.RequestBodySpec request = webClient.method(method)
+                    .uri(uri)
+                    .headers(h -> {
+                        if (headers != null) {
+                            h.addAll(headers);
+                        }
+                    });
+            WebClient.RequestHeadersSpec<?> spec = body != null ? request.bodyValue(body) : request;
+
+            ResponseEntity<T> response = spec.retrieve()
+                    .toEntity(responseType)
+                    .timeout(timeout)
+                    .block();
+
+            failed = false;
+            outcome = "success";
+            return response;
+
+        } catch (WebClientResponseException e) {
+            if (!e.getStatusCode().isError()) {
+                // 状态正常但响应体超过大小上限或无法解析
+                outcome = "invalid_response";
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                throw new ToolHttpException("工具响应无法读取: " + endpoint + ", " + cause.getMessage(), cause);
+            }
+            failed = e.getStatusCode().is5xxServerError();
+            outcome = failed ? "server_error" : "client_error";
+            throw new ToolHttpException("工具端点返回错误状态: " + e.getStatusCode().value() + " " + endpoint, e);
+        } catch (RuntimeException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof InterruptedException) {
+                // 调用方被取消（如流程运行被中止），不是端点的故障，不计入熔断
+                Thread.currentThread().interrupt();
+                cancelled = true;
+                outcome = "cancelled";
+                throw new ToolHttpException("工具调用被中断: " + endpoint, cause);
+            }
+            if (cause instanceof TimeoutException) {
+                outcome = "timeout";
+                throw new ToolHttpException("工具调用超时: " + endpoint + ", timeout=" + timeout.toSeconds() + "s", cause);
+            }
+            throw new ToolHttpException("工具调用失败: " + endpoint + ", " + cause.getMessage(), cause);
+        } finally {
+            long now = System.currentTimeMillis();
+            if (cancelled) {
+                guard.release(admission);
+            } else {
+                guard.exit(admission, failed, now);
+            }
+            record(outcome, now - startTime);
+            if (failed && !cancelled && guard.isOpen()) {
+                log.warn("工具端点熔断: endpoint={}, outcome={}", endpoint, outcome);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connectionProvider.dispose();
+    }
+
+    // =================== 私有方法 ===================
+
+    private int resolveTimeout(Integer timeoutSeconds) {
+        if (timeoutSeconds == null || timeoutSeconds <= 0) {
+            return properties.getDefaultTimeoutSeconds();
+        }
+        return Math.min(timeoutSeconds, properties.getMaxTimeoutSeconds());
+    }
+
+    private EndpointGuard guardFor(String endpoint) {
+        try {
+            return guards.get(endpoint, () -> new EndpointGuard(
+                    properties.getBulkheadMaxConcurrent(),
+                    properties.getBreakerFailureThreshold(),
+                    TimeUnit.SECONDS.toMillis(properties.getBreakerOpenSeconds())));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void record(String outcome, long durationMs) {
+        Timer.builder("baseai.tool.http.calls")
+                .description("工具HTTP调用耗时和结果")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(durationMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static String endpointOf(URI uri) {
+        if (uri.getScheme() == null || uri.getHost() == null) {
+            throw new IllegalArgumentException("无效的工具端点URL: " + uri);
+        }
+        int port = uri.getPort() != -1 ? uri.getPort() : ("https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80);
+        return uri.getScheme().toLowerCase() + "://" + uri.getHost().toLowerCase() + ":" + port;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        Throwable cause = Exceptions.unwrap(e);
+        return cause != null ? cause : e;
+    }
+
+    /**
+     * 工具HTTP调用失败
+     */
+    public static class ToolHttpException extends RuntimeException {
+
+        public ToolHttpException(String message) {
+            super(message);
+        }
+
+        public ToolHttpException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
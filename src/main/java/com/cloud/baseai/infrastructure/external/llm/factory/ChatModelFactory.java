@@ -7,6 +7,9 @@ import com.cloud.baseai.infrastructure.external.llm.model.ChatCompletionResult;
 import com.cloud.baseai.infrastructure.external.llm.model.ModelRecommendation;
 import com.cloud.baseai.infrastructure.external.llm.model.ServiceRegistrationResult;
 import com.cloud.baseai.infrastructure.external.llm.service.ChatCompletionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,12 +17,18 @@ import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationContext;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Consumer;
 
 /**
  * <h2>聊天模型工厂</h2>
@@ -39,6 +48,7 @@ import java.util.function.Consumer;
  * <li><b>服务管理：</b>注册和管理OpenAI、Claude、通义千问等多个LLM服务</li>
  * <li><b>智能路由：</b>根据模型类型自动选择最适合的服务提供商</li>
  * <li><b>故障转移：</b>当主要服务不可用时自动切换到备用服务</li>
+ * <li><b>对冲请求：</b>流式请求首字过慢时并发请求备用服务，先出首个片段者胜出</li>
  * <li><b>负载均衡：</b>支持轮询、随机、权重等多种负载均衡策略</li>
  * <li><b>统一接口：</b>对外提供统一的ChatCompletionService接口</li>
  * </ul>
@@ -50,6 +60,7 @@ public class ChatModelFactory implements ChatCompletionService {
 
     private final LlmProperties llmProperties;
     private final ApplicationContext applicationContext;
+    private final MeterRegistry meterRegistry;
 
     /**
      * 服务提供商映射 (provider -> service)
@@ -81,6 +92,22 @@ public class ChatModelFactory implements ChatCompletionService {
      */
     private final Random random = new Random();
 
+    /**
+     * 各提供商最近的首字延迟样本 (provider -> window)，用于计算自适应对冲延迟
+     */
+    private final Map<String, TtftWindow> ttftWindows = new ConcurrentHashMap<>();
+
+    /**
+     * 由实际流式请求推断的提供商健康状态 (provider -> healthy)，流式请求据此选择候选，
+     * 不在请求路径上调用会产生实际模型请求的健康检查；尚无记录的提供商视为健康
+     */
+    private final Map<String, Boolean> providerHealth = new ConcurrentHashMap<>();
+
+    /**
+     * 各提供商在首个片段前连续失败的次数 (provider -> failures)
+     */
+    private final Map<String, AtomicInteger> consecutiveFailures = new ConcurrentHashMap<>();
+
     /**
      * 可选依赖的服务（Spring会自动注入存在的Bean）
      */
@@ -97,9 +124,11 @@ public class ChatModelFactory implements ChatCompletionService {
     private ChatCompletionService qwenChatCompletionService;
 
     @Autowired
-    public ChatModelFactory(LlmProperties llmProperties, ApplicationContext applicationContext) {
+    public ChatModelFactory(LlmProperties llmProperties, ApplicationContext applicationContext,
+                            MeterRegistry meterRegistry) {
         this.llmProperties = llmProperties;
         this.applicationContext = applicationContext;
+        this.meterRegistry = meterRegistry;
     }
 
     /**
@@ -182,27 +211,28 @@ public class ChatModelFactory implements ChatCompletionService {
         }
     }
 
+    /**
+     * 流式生成，带对冲请求与首个片段前的故障转移
+     *
+     * <p>候选提供商按首选、其余健康提供商（对冲延迟由短到长）排列。每个候选在上一个候选
+     * 发出请求后等待对冲延迟仍未收到首个片段，或上一个候选在首个片段前失败时发出请求；
+     * 先返回首个片段的请求胜出，其余请求被取消。首个片段之后的失败直接向上传播，
+     * 不会切换提供商，以免输出重复内容。</p>
+     */
     @Override
-    public void generateStreamResponse(Map<String, Object> context, Consumer<String> onChunk) {
-        String model = (String) context.get("model");
-        String provider = determineProvider(model);
-
-        ChatCompletionService service = selectService(provider, context);
-
-        try {
-            log.debug("使用聊天服务生成流式响应: provider={}, model={}", provider, model);
-            service.generateStreamResponse(context, onChunk);
-
-        } catch (Exception e) {
-            log.warn("流式响应失败: provider={}, model={}, error={}", provider, model, e.getMessage());
-
-            if (llmProperties.getFailoverEnabled()) {
-                // 流式响应的故障转移比较复杂，这里记录错误并抛出异常
-                log.error("流式响应故障转移暂不支持，请使用非流式接口");
-                throw new ChatException(ErrorCode.EXT_LLM_003, e);
+    public Flux<String> streamCompletion(Map<String, Object> context) {
+        return Flux.defer(() -> {
+            String model = (String) context.get("model");
+            String primary = determineProvider(model);
+            List<String> candidates = selectStreamCandidates(primary);
+
+            log.debug("使用聊天服务生成流式响应: provider={}, model={}, candidates={}", primary, model, candidates);
+            if (candidates.size() == 1) {
+                String provider = candidates.getFirst();
+                return streamFromProvider(provider, contextForProvider(context, primary, provider), "primary");
             }
-            throw e;
-        }
+            return raceStreams(context, primary, candidates);
+        });
     }
 
     @Override
@@ -414,6 +444,7 @@ public class ChatModelFactory implements ChatCompletionService {
             serviceStats.put("supportedModels", service.getSupportedModels());
             serviceStats.put("enabled", isProviderEnabled(serviceName));
             serviceStats.put("weight", providerWeights.getOrDefault(serviceName, 0));
+            serviceStats.put("streamHedgeDelayMs", hedgeDelay(serviceName).toMillis());
 
             stats.put(serviceName, serviceStats);
         }
@@ -697,6 +728,224 @@ public class ChatModelFactory implements ChatCompletionService {
         }
     }
 
+    /**
+     * 选择流式请求的候选提供商
+     */
+    private List<String> selectStreamCandidates(String primary) {
+        ChatCompletionService primaryService = providerServices.get(primary);
+        if (primaryService == null) {
+            throw new ChatException(ErrorCode.EXT_LLM_007, primary);
+        }
+        if (!llmProperties.getFailoverEnabled()) {
+            if (!isCachedHealthy(primary)) {
+                throw new ChatException(ErrorCode.EXT_LLM_008, primary);
+            }
+            return List.of(primary);
+        }
+
+        List<String> candidates = new ArrayList<>();
+        if (isCachedHealthy(primary)) {
+            candidates.add(primary);
+        } else {
+            log.warn("聊天服务不健康，流式请求直接使用备用服务: provider={}", primary);
+        }
+        providerServices.keySet().stream()
+                .filter(provider -> !provider.equals(primary) && isCachedHealthy(provider))
+                .sorted(Comparator.comparing(this::hedgeDelay))
+                .forEach(candidates::add);
+
+        if (candidates.isEmpty()) {
+            throw new ChatException(ErrorCode.EXT_LLM_006);
+        }
+        int maxAttempts = Math.max(1, llmProperties.getStreamHedging().getMaxAttempts());
+        return candidates.size() > maxAttempts ? candidates.subList(0, maxAttempts) : candidates;
+    }
+
+    /**
+     * 定期探测不健康的提供商是否恢复
+     *
+     * <p>提供商的健康检查会发起实际的模型请求并计费。健康状态平时由流式请求的成败推断：
+     * 出首个片段即为健康，首个片段前连续失败达到阈值即为不健康。不健康的提供商不再接收流量，
+     * 只能靠这里按较长的间隔探测恢复；健康的提供商不探测。</p>
+     */
+    @Scheduled(fixedDelayString = "${baseai.llm.stream-hedging.health-check-interval-ms:300000}",
+            initialDelayString = "${baseai.llm.stream-hedging.health-check-interval-ms:300000}")
+    public void refreshProviderHealth() {
+        for (Map.Entry<String, ChatCompletionService> entry : providerServices.entrySet()) {
+            if (isCachedHealthy(entry.getKey())) {
+                continue;
+            }
+            try {
+                if (entry.getValue().isHealthy()) {
+                    markStreamSucceeded(entry.getKey());
+                }
+            } catch (Exception e) {
+                log.debug("提供商健康检查失败: provider={}, error={}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private boolean isCachedHealthy(String provider) {
+        return providerHealth.getOrDefault(provider, true);
+    }
+
+    /**
+     * 提供商产出首个片段：清零连续失败次数并标记为健康
+     */
+    private void markStreamSucceeded(String provider) {
+        AtomicInteger failures = consecutiveFailures.get(provider);
+        if (failures != null) {
+            failures.set(0);
+        }
+        updateHealth(provider, true);
+    }
+
+    /**
+     * 提供商在首个片段前失败：连续失败达到阈值后标记为不健康
+     */
+    private void markStreamFailed(String provider) {
+        int failures = consecutiveFailures.computeIfAbsent(provider, key -> new AtomicInteger())
+                .incrementAndGet();
+        if (failures >= Math.max(1, llmProperties.getStreamHedging().getUnhealthyAfterFailures())) {
+            updateHealth(provider, false);
+        }
+    }
+
+    private void updateHealth(String provider, boolean healthy) {
+        Boolean previous = providerHealth.put(provider, healthy);
+        if (previous == null ? !healthy : previous != healthy) {
+            log.info("提供商健康状态变化: provider={}, healthy={}", provider, healthy);
+        }
+    }
+
+    /**
+     * 在多个候选提供商之间竞速，返回最先产出首个片段的流
+     */
+    private Flux<String> raceStreams(Map<String, Object> context, String primary, List<String> candidates) {
+        int size = candidates.size();
+        List<Sinks.Empty<Void>> started = new ArrayList<>(size);
+        List<Sinks.Empty<Void>> failed = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            started.add(Sinks.empty());
+            failed.add(Sinks.empty());
+        }
+
+        List<Flux<String>> attempts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int index = i;
+            String provider = candidates.get(i);
+            Mono<String> launch = index == 0
+                    ? Mono.just("primary")
+                    : launchTrigger(candidates.get(index - 1), started.get(index - 1), failed.get(index - 1));
+
+            attempts.add(launch.flatMapMany(reason -> {
+                        started.get(index).tryEmitEmpty();
+                        if (index > 0) {
+                            log.info("流式请求{}: {} -> {}", "hedge".equals(reason) ? "对冲" : "故障转移",
+                                    candidates.get(index - 1), provider);
+                        }
+                        return streamFromProvider(provider, contextForProvider(context, primary, provider), reason);
+                    })
+                    .doOnError(e -> failed.get(index).tryEmitEmpty()));
+        }
+
+        return Flux.firstWithValue(attempts)
+                .onErrorMap(NoSuchElementException.class, e -> {
+                    Throwable[] causes = e.getSuppressed();
+                    return new ChatException(ErrorCode.EXT_LLM_010, causes.length > 0 ? causes[causes.length - 1] : e);
+                });
+    }
+
+    /**
+     * 后一个候选的发起条件：前一个候选发出请求后超过对冲延迟，或前一个候选在首个片段前失败
+     */
+    private Mono<String> launchTrigger(String previous, Sinks.Empty<Void> previousStarted,
+                                       Sinks.Empty<Void> previousFailed) {
+        Mono<String> onFailure = previousFailed.asMono().then(Mono.just("failover"));
+        if (!Boolean.TRUE.equals(llmProperties.getStreamHedging().getEnabled())) {
+            return onFailure;
+        }
+        Mono<String> onDeadline = previousStarted.asMono()
+                .then(Mono.defer(() -> Mono.delay(hedgeDelay(previous))))
+                .thenReturn("hedge");
+        return Mono.firstWithSignal(onDeadline, onFailure);
+    }
+
+    /**
+     * 调用单个提供商的流式接口，并记录首字延迟
+     */
+    private Flux<String> streamFromProvider(String provider, Map<String, Object> context, String reason) {
+        ChatCompletionService service = providerServices.get(provider);
+        return Flux.defer(() -> {
+            Counter.builder("llm.stream.attempts")
+                    .tag("provider", provider)
+                    .tag("reason", reason)
+                    .register(meterRegistry)
+                    .increment();
+
+            long startNanos = System.nanoTime();
+            AtomicBoolean firstChunk = new AtomicBoolean(true);
+            return service.streamCompletion(context)
+                    .doOnNext(chunk -> {
+                        if (firstChunk.compareAndSet(true, false)) {
+                            recordTtft(provider, System.nanoTime() - startNanos);
+                            markStreamSucceeded(provider);
+                        }
+                    })
+                    .doOnError(e -> {
+                        log.warn("流式响应失败: provider={}, model={}, error={}",
+                                provider, context.get("model"), e.getMessage());
+                        if (firstChunk.get()) {
+                            markStreamFailed(provider);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * 为备用提供商复制一份上下文，避免并发请求之间互相修改模型参数
+     */
+    private Map<String, Object> contextForProvider(Map<String, Object> context, String primary, String provider) {
+        if (provider.equals(primary)) {
+            return context;
+        }
+        Map<String, Object> copy = new HashMap<>(context);
+        adjustContextForProvider(copy, provider);
+        return copy;
+    }
+
+    /**
+     * 记录首字延迟
+     */
+    private void recordTtft(String provider, long nanos) {
+        Timer.builder("llm.stream.ttft")
+                .description("流式响应首个片段的延迟")
+                .tag("provider", provider)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+
+        int windowSize = llmProperties.getStreamHedging().getWindowSize();
+        ttftWindows.computeIfAbsent(provider, key -> new TtftWindow(windowSize))
+                .record(TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    /**
+     * 计算提供商的对冲延迟：近期TTFT的分位数，样本不足时取初始延迟，并限制在上下限之间
+     */
+    private Duration hedgeDelay(String provider) {
+        LlmProperties.StreamHedgingProperties hedging = llmProperties.getStreamHedging();
+        TtftWindow window = ttftWindows.get(provider);
+        Duration delay = window != null && window.size() >= hedging.getMinSamples()
+                ? Duration.ofMillis(window.percentile(hedging.getPercentile()))
+                : hedging.getInitialDelay();
+
+        if (delay.compareTo(hedging.getMinDelay()) < 0) {
+            return hedging.getMinDelay();
+        }
+        return delay.compareTo(hedging.getMaxDelay()) > 0 ? hedging.getMaxDelay() : delay;
+    }
+
     /**
      * 根据服务提供商调整上下文
      */
@@ -823,6 +1072,38 @@ public class ChatModelFactory implements ChatCompletionService {
         };
     }
 
+    // =================== 首字延迟统计 ===================
+
+    /**
+     * 固定容量的首字延迟样本环形缓冲区
+     */
+    private static class TtftWindow {
+        private final long[] samples;
+        private int next;
+        private int count;
+
+        TtftWindow(int capacity) {
+            this.samples = new long[Math.max(1, capacity)];
+        }
+
+        synchronized void record(long millis) {
+            samples[next] = millis;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        synchronized int size() {
+            return count;
+        }
+
+        synchronized long percentile(double percentile) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * count) - 1;
+            return sorted[Math.min(Math.max(index, 0), count - 1)];
+        }
+    }
+
     // =================== 负载均衡器实现 ===================
 
     /**
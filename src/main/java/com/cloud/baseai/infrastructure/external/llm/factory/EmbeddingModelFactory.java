@@ -263,6 +263,18 @@ public class EmbeddingModelFactory implements EmbeddingService {
         }
     }
 
+    /**
+     * 解析模型所属的提供商
+     *
+     * <p>供调用方按提供商维度做并发控制和批量大小选择。</p>
+     *
+     * @param modelCode 模型代码
+     * @return 提供商名称（如openai、qwen）
+     */
+    public String resolveProvider(String modelCode) {
+        return determineProvider(modelCode);
+    }
+
     @Override
     public List<String> getSupportedModels() {
         return new ArrayList<>(modelToProvider.keySet());
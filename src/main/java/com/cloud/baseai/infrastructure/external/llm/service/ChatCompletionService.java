@@ -2,6 +2,7 @@ package com.cloud.baseai.infrastructure.external.llm.service;
 
 import com.cloud.baseai.infrastructure.exception.ChatException;
 import com.cloud.baseai.infrastructure.external.llm.model.ChatCompletionResult;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 import java.util.Map;
@@ -45,14 +46,27 @@ public interface ChatCompletionService {
      * <p>流式生成是现代AI对话的标准模式。它不等待完整回复生成完成，
      * 而是实时返回生成的文本片段，让用户能够看到AI的"思考过程"。</p>
      *
-     * <p>这种方式特别适合长文本生成、代码编写、复杂问题分析等场景，
-     * 能够显著提升用户的交互体验和参与感。</p>
+     * <p>返回的 {@link Flux} 是冷序列：订阅时才发起请求，下游的请求量会传递到模型调用，
+     * 取消订阅会中断对模型的请求。整个过程不占用专门的线程。</p>
+     *
+     * @param context 对话上下文信息
+     * @return 生成的文本片段序列，出错时以 {@link ChatException} 结束
+     */
+    Flux<String> streamCompletion(Map<String, Object> context);
+
+    /**
+     * 流式生成聊天完成响应（回调方式）
+     *
+     * <p>阻塞调用线程直到流式生成结束，每个文本片段通过回调交给调用方。
+     * 适合非响应式的调用方，响应式场景请直接使用 {@link #streamCompletion(Map)}。</p>
      *
      * @param context 对话上下文信息
      * @param onChunk 处理每个文本片段的回调函数
      * @throws ChatException 当流式生成过程中发生错误时抛出
      */
-    void generateStreamResponse(Map<String, Object> context, Consumer<String> onChunk);
+    default void generateStreamResponse(Map<String, Object> context, Consumer<String> onChunk) {
+        streamCompletion(context).doOnNext(onChunk).blockLast();
+    }
 
     /**
      * 检查指定模型是否可用
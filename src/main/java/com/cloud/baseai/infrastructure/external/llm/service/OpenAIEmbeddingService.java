@@ -1,5 +1,6 @@
 package com.cloud.baseai.infrastructure.external.llm.service;
 
+import com.cloud.baseai.infrastructure.cache.embedding.EmbeddingCache;
 import com.cloud.baseai.infrastructure.config.properties.KnowledgeBaseProperties;
 import com.cloud.baseai.infrastructure.config.properties.LlmProperties;
 import com.cloud.baseai.infrastructure.exception.ChatException;
@@ -8,8 +9,6 @@ import com.cloud.baseai.infrastructure.external.llm.model.EmbeddingResult;
 import com.cloud.baseai.infrastructure.external.llm.model.ModelInfo;
 import com.cloud.baseai.infrastructure.external.llm.model.ModelStats;
 import com.cloud.baseai.infrastructure.utils.KbUtils;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.embedding.EmbeddingModel;
@@ -21,9 +20,6 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.stereotype.Service;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -66,9 +62,9 @@ public class OpenAIEmbeddingService implements EmbeddingService {
     private final EmbeddingModel embeddingModel;
 
     /**
-     * 向量缓存，基于文本内容哈希
+     * 向量缓存，按模型和文本内容寻址，所有提供商和节点共享
      */
-    private final Cache<String, float[]> vectorCache;
+    private final EmbeddingCache embeddingCache;
 
     /**
      * 模型性能统计
@@ -81,15 +77,17 @@ public class OpenAIEmbeddingService implements EmbeddingService {
      *
      * @param llmProperties  LLM配置属性
      * @param kbProperties   知识库配置属性
+     * @param embeddingCache 向量缓存
      * @param embeddingModel 嵌入模型
      */
     public OpenAIEmbeddingService(LlmProperties llmProperties,
                                   KnowledgeBaseProperties kbProperties,
+                                  EmbeddingCache embeddingCache,
                                   @Qualifier("openAiEmbeddingModel") EmbeddingModel embeddingModel) {
         this.llmProperties = llmProperties;
         this.kbProperties = kbProperties;
         this.embeddingModel = embeddingModel;
-        this.vectorCache = createVectorCache();
+        this.embeddingCache = embeddingCache;
 
         log.info("OpenAI嵌入服务初始化完成: baseUrl={}, 默认模型={}, 缓存启用={}",
                 llmProperties.getOpenai().getBaseUrl(),
@@ -108,8 +106,7 @@ public class OpenAIEmbeddingService implements EmbeddingService {
 
         // 尝试从缓存获取
         if (llmProperties.getFeatures().getEnableResponseCache()) {
-            String cacheKey = generateCacheKey(cleanedText, validatedModel);
-            float[] cached = vectorCache.getIfPresent(cacheKey);
+            float[] cached = embeddingCache.get(validatedModel, cleanedText, calculateCost(validatedModel, 1));
             if (cached != null) {
                 log.debug("向量缓存命中: model={}, textLength={}", validatedModel, cleanedText.length());
                 return cached;
@@ -134,8 +131,7 @@ public class OpenAIEmbeddingService implements EmbeddingService {
 
             // 缓存结果
             if (llmProperties.getFeatures().getEnableResponseCache()) {
-                String cacheKey = generateCacheKey(cleanedText, validatedModel);
-                vectorCache.put(cacheKey, embedding);
+                embeddingCache.put(validatedModel, cleanedText, embedding);
             }
 
             log.debug("向量生成完成: model={}, dimension={}, latency={}ms",
@@ -347,23 +343,6 @@ public class OpenAIEmbeddingService implements EmbeddingService {
 
     // =================== 私有方法 ===================
 
-    /**
-     * 创建向量缓存
-     */
-    private Cache<String, float[]> createVectorCache() {
-        if (!llmProperties.getFeatures().getEnableResponseCache()) {
-            return null;
-        }
-
-        int cacheTtl = llmProperties.getFeatures().getResponseCacheTtl();
-
-        return CacheBuilder.newBuilder()
-                .maximumSize(10000) // 最大缓存1万个向量
-                .expireAfterWrite(Duration.ofSeconds(cacheTtl))
-                .recordStats() // 启用统计信息
-                .build();
-    }
-
     /**
      * 获取并验证模型
      */
@@ -477,17 +456,17 @@ public class OpenAIEmbeddingService implements EmbeddingService {
 
         boolean cacheEnabled = llmProperties.getFeatures().getEnableResponseCache();
 
-        if (cacheEnabled && vectorCache != null) {
+        if (cacheEnabled) {
+            // 一次查询整批文本，本地未命中的合并为一次Redis读取
+            List<float[]> cachedVectors = embeddingCache.getAll(modelCode, texts, calculateCost(modelCode, 1));
             for (int i = 0; i < texts.size(); i++) {
-                String text = texts.get(i);
-                String cacheKey = generateCacheKey(text, modelCode);
-                float[] cached = vectorCache.getIfPresent(cacheKey);
+                float[] cached = cachedVectors.get(i);
 
                 if (cached != null) {
                     results.set(i, cached);
                 } else {
                     uncachedIndices.add(i);
-                    uncachedTexts.add(text);
+                    uncachedTexts.add(texts.get(i));
                 }
             }
 
@@ -511,11 +490,10 @@ public class OpenAIEmbeddingService implements EmbeddingService {
                     int originalIndex = uncachedIndices.get(i);
                     float[] embedding = batchResults.get(i);
                     results.set(originalIndex, embedding);
+                }
 
-                    if (cacheEnabled && vectorCache != null) {
-                        String cacheKey = generateCacheKey(uncachedTexts.get(i), modelCode);
-                        vectorCache.put(cacheKey, embedding);
-                    }
+                if (cacheEnabled) {
+                    embeddingCache.putAll(modelCode, uncachedTexts, batchResults);
                 }
 
                 // 更新统计信息
@@ -572,21 +550,6 @@ public class OpenAIEmbeddingService implements EmbeddingService {
         return allResults;
     }
 
-    /**
-     * 生成缓存键
-     */
-    private String generateCacheKey(String text, String modelCode) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            String combined = modelCode + ":" + text;
-            byte[] hash = digest.digest(combined.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(hash);
-        } catch (Exception e) {
-            // 如果哈希失败，使用简单的字符串组合
-            return modelCode + ":" + text.hashCode();
-        }
-    }
-
     /**
      * 计算费用
      */
@@ -665,19 +628,7 @@ public class OpenAIEmbeddingService implements EmbeddingService {
      * 获取缓存统计信息
      */
     public Map<String, Object> getCacheStatistics() {
-        if (vectorCache == null) {
-            return Map.of("enabled", false);
-        }
-
-        return Map.of(
-                "enabled", true,
-                "size", vectorCache.size(),
-                "hitRate", vectorCache.stats().hitRate(),
-                "missRate", vectorCache.stats().missRate(),
-                "requestCount", vectorCache.stats().requestCount(),
-                "hitCount", vectorCache.stats().hitCount(),
-                "missCount", vectorCache.stats().missCount()
-        );
+        return embeddingCache.getStatistics();
     }
 
     /**
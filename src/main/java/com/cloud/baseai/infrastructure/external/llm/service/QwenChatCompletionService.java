@@ -30,9 +30,7 @@ import reactor.core.publisher.Flux;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Consumer;
 
 /**
  * <h2>通义千问聊天完成服务</h2>
@@ -108,42 +106,24 @@ public class QwenChatCompletionService implements ChatCompletionService {
     }
 
     @Override
-    public void generateStreamResponse(Map<String, Object> context, Consumer<String> onChunk) {
-        try {
-            // 构建流式提示词
-            Prompt prompt = buildPrompt(context);
-
-            log.debug("开始通义千问流式生成: model={}", context.get("model"));
-
-            // 异步处理流式响应
-            CompletableFuture.runAsync(() -> {
-                try {
-                    Flux<ChatResponse> responseFlux = streamingChatModel.stream(prompt);
-
-                    responseFlux
-                            .mapNotNull(response -> response.getResult().getOutput().getText())
-                            .filter(content -> content != null && !content.isEmpty())
-                            .doOnNext(chunk -> {
-                                log.debug("接收到流式数据块: {}", chunk.substring(0, Math.min(50, chunk.length())));
-                                onChunk.accept(chunk);
-                            })
-                            .doOnError(error -> {
-                                log.error("流式响应处理错误", error);
-                                throw new ChatException(ErrorCode.EXT_QWEN_005, error);
-                            })
-                            .doOnComplete(() -> log.debug("流式响应完成"))
-                            .subscribe();
-
-                } catch (Exception e) {
-                    log.error("流式响应处理失败", e);
-                    throw new ChatException(ErrorCode.EXT_QWEN_006, e);
-                }
-            });
-
-        } catch (Exception e) {
-            log.error("通义千问流式生成异常", e);
-            throw new ChatException(ErrorCode.EXT_QWEN_007, e);
-        }
+    public Flux<String> streamCompletion(Map<String, Object> context) {
+        return Flux.defer(() -> {
+                    Prompt prompt;
+                    try {
+                        prompt = buildPrompt(context);
+                    } catch (Exception e) {
+                        return Flux.error(new ChatException(ErrorCode.EXT_QWEN_007, e));
+                    }
+                    log.debug("开始通义千问流式生成: model={}", context.get("model"));
+                    return streamingChatModel.stream(prompt);
+                })
+                .mapNotNull(response -> response.getResult() != null
+                        ? response.getResult().getOutput().getText() : null)
+                .filter(content -> !content.isEmpty())
+                .onErrorMap(error -> !(error instanceof ChatException),
+                        error -> new ChatException(ErrorCode.EXT_QWEN_005, error))
+                .doOnError(error -> log.error("通义千问流式响应处理错误: {}", error.getMessage()))
+                .doOnComplete(() -> log.debug("通义千问流式响应完成"));
     }
 
     @Override
@@ -2,6 +2,7 @@ package com.cloud.baseai.infrastructure.external.llm.service;
 
 import com.alibaba.cloud.ai.dashscope.embedding.DashScopeEmbeddingModel;
 import com.alibaba.cloud.ai.dashscope.embedding.DashScopeEmbeddingOptions;
+import com.cloud.baseai.infrastructure.cache.embedding.EmbeddingCache;
 import com.cloud.baseai.infrastructure.config.properties.KnowledgeBaseProperties;
 import com.cloud.baseai.infrastructure.config.properties.LlmProperties;
 import com.cloud.baseai.infrastructure.exception.ChatException;
@@ -10,8 +11,6 @@ import com.cloud.baseai.infrastructure.external.llm.model.EmbeddingResult;
 import com.cloud.baseai.infrastructure.external.llm.model.ModelInfo;
 import com.cloud.baseai.infrastructure.external.llm.model.ModelStats;
 import com.cloud.baseai.infrastructure.utils.KbUtils;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.embedding.EmbeddingModel;
@@ -21,9 +20,6 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.stereotype.Service;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -58,9 +54,9 @@ public class QwenEmbeddingService implements EmbeddingService {
     private final EmbeddingModel embeddingModel;
 
     /**
-     * 向量缓存，基于文本内容哈希
+     * 向量缓存，按模型和文本内容寻址，所有提供商和节点共享
      */
-    private final Cache<String, float[]> vectorCache;
+    private final EmbeddingCache embeddingCache;
 
     /**
      * 模型性能统计
@@ -72,15 +68,17 @@ public class QwenEmbeddingService implements EmbeddingService {
      *
      * @param llmProperties  LLM配置属性
      * @param kbProperties   知识库配置属性
+     * @param embeddingCache 向量缓存
      * @param embeddingModel DashScope嵌入模型
      */
     public QwenEmbeddingService(LlmProperties llmProperties,
                                 KnowledgeBaseProperties kbProperties,
+                                EmbeddingCache embeddingCache,
                                 @Qualifier("qwenEmbeddingModel") EmbeddingModel embeddingModel) {
         this.llmProperties = llmProperties;
         this.kbProperties = kbProperties;
         this.embeddingModel = embeddingModel;
-        this.vectorCache = createVectorCache();
+        this.embeddingCache = embeddingCache;
 
         log.info("通义千问嵌入服务初始化完成: baseUrl={}, 默认模型={}, 缓存启用={}",
                 llmProperties.getQwen().getBaseUrl(),
@@ -99,8 +97,7 @@ public class QwenEmbeddingService implements EmbeddingService {
 
         // 尝试从缓存获取
         if (llmProperties.getFeatures().getEnableResponseCache()) {
-            String cacheKey = generateCacheKey(cleanedText, validatedModel);
-            float[] cached = vectorCache.getIfPresent(cacheKey);
+            float[] cached = embeddingCache.get(validatedModel, cleanedText, calculateCost(validatedModel, 1));
             if (cached != null) {
                 log.debug("通义千问向量缓存命中: model={}, textLength={}", validatedModel, cleanedText.length());
                 return cached;
@@ -125,8 +122,7 @@ public class QwenEmbeddingService implements EmbeddingService {
 
             // 缓存结果
             if (llmProperties.getFeatures().getEnableResponseCache()) {
-                String cacheKey = generateCacheKey(cleanedText, validatedModel);
-                vectorCache.put(cacheKey, embedding);
+                embeddingCache.put(validatedModel, cleanedText, embedding);
             }
 
             log.debug("通义千问向量生成完成: model={}, dimension={}, latency={}ms",
@@ -338,23 +334,6 @@ public class QwenEmbeddingService implements EmbeddingService {
 
     // =================== 私有方法 ===================
 
-    /**
-     * 创建向量缓存
-     */
-    private Cache<String, float[]> createVectorCache() {
-        if (!llmProperties.getFeatures().getEnableResponseCache()) {
-            return null;
-        }
-
-        int cacheTtl = llmProperties.getFeatures().getResponseCacheTtl();
-
-        return CacheBuilder.newBuilder()
-                .maximumSize(10000) // 最大缓存1万个向量
-                .expireAfterWrite(Duration.ofSeconds(cacheTtl))
-                .recordStats() // 启用统计信息
-                .build();
-    }
-
     /**
      * 获取并验证模型
      */
@@ -491,17 +470,17 @@ public class QwenEmbeddingService implements EmbeddingService {
 
         boolean cacheEnabled = llmProperties.getFeatures().getEnableResponseCache();
 
-        if (cacheEnabled && vectorCache != null) {
+        if (cacheEnabled) {
+            // 一次查询整批文本，本地未命中的合并为一次Redis读取
+            List<float[]> cachedVectors = embeddingCache.getAll(modelCode, texts, calculateCost(modelCode, 1));
             for (int i = 0; i < texts.size(); i++) {
-                String text = texts.get(i);
-                String cacheKey = generateCacheKey(text, modelCode);
-                float[] cached = vectorCache.getIfPresent(cacheKey);
+                float[] cached = cachedVectors.get(i);
 
                 if (cached != null) {
                     results.set(i, cached);
                 } else {
                     uncachedIndices.add(i);
-                    uncachedTexts.add(text);
+                    uncachedTexts.add(texts.get(i));
                 }
             }
 
@@ -525,11 +504,10 @@ public class QwenEmbeddingService implements EmbeddingService {
                     int originalIndex = uncachedIndices.get(i);
                     float[] embedding = batchResults.get(i);
                     results.set(originalIndex, embedding);
+                }
 
-                    if (cacheEnabled && vectorCache != null) {
-                        String cacheKey = generateCacheKey(uncachedTexts.get(i), modelCode);
-                        vectorCache.put(cacheKey, embedding);
-                    }
+                if (cacheEnabled) {
+                    embeddingCache.putAll(modelCode, uncachedTexts, batchResults);
                 }
 
                 // 更新统计信息
@@ -586,21 +564,6 @@ public class QwenEmbeddingService implements EmbeddingService {
         return allResults;
     }
 
-    /**
-     * 生成缓存键
-     */
-    private String generateCacheKey(String text, String modelCode) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            String combined = "qwen:" + modelCode + ":" + text;
-            byte[] hash = digest.digest(combined.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(hash);
-        } catch (Exception e) {
-            // 如果哈希失败，使用简单的字符串组合
-            return "qwen:" + modelCode + ":" + text.hashCode();
-        }
-    }
-
     /**
      * 计算费用
      */
@@ -679,19 +642,7 @@ public class QwenEmbeddingService implements EmbeddingService {
      * 获取缓存统计信息
      */
     public Map<String, Object> getCacheStatistics() {
-        if (vectorCache == null) {
-            return Map.of("enabled", false);
-        }
-
-        return Map.of(
-                "enabled", true,
-                "size", vectorCache.size(),
-                "hitRate", vectorCache.stats().hitRate(),
-                "missRate", vectorCache.stats().missRate(),
-                "requestCount", vectorCache.stats().requestCount(),
-                "hitCount", vectorCache.stats().hitCount(),
-                "missCount", vectorCache.stats().missCount()
-        );
+        return embeddingCache.getStatistics();
     }
 
     /**
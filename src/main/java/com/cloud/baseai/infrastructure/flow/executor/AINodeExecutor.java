@@ -90,7 +90,7 @@ public class AINodeExecutor implements NodeExecutor {
     private Map<String, Object> executeLLMNode(NodeExecutionInfo nodeInfo, Map<String, Object> input,
                                                FlowExecutionContext context) {
         try {
-            Map<String, Object> config = parseConfig(nodeInfo.configJson());
+            Map<String, Object> config = parseConfig(nodeInfo);
             String model = (String) config.get("model");
             String promptTemplate = (String) config.get("prompt");
             Float temperature = ((Number) config.getOrDefault("temperature", 0.7)).floatValue();
@@ -144,7 +144,7 @@ public class AINodeExecutor implements NodeExecutor {
     private Map<String, Object> executeRetrieverNode(NodeExecutionInfo nodeInfo, Map<String, Object> input,
                                                      FlowExecutionContext context) {
         try {
-            Map<String, Object> config = parseConfig(nodeInfo.configJson());
+            Map<String, Object> config = parseConfig(nodeInfo);
             String query = (String) input.get("query");
             String modelCode = (String) config.getOrDefault("modelCode", "text-embedding-3-small");
             Integer topK = (Integer) config.getOrDefault("topK", 10);
@@ -192,7 +192,7 @@ public class AINodeExecutor implements NodeExecutor {
     private Map<String, Object> executeEmbedderNode(NodeExecutionInfo nodeInfo, Map<String, Object> input,
                                                     FlowExecutionContext context) {
         try {
-            Map<String, Object> config = parseConfig(nodeInfo.configJson());
+            Map<String, Object> config = parseConfig(nodeInfo);
             String text = (String) input.get("text");
             String modelCode = (String) config.getOrDefault("modelCode", "text-embedding-3-small");
 
@@ -228,7 +228,7 @@ public class AINodeExecutor implements NodeExecutor {
     private Map<String, Object> executeChatNode(NodeExecutionInfo nodeInfo, Map<String, Object> input,
                                                 FlowExecutionContext context) {
         try {
-            Map<String, Object> config = parseConfig(nodeInfo.configJson());
+            Map<String, Object> config = parseConfig(nodeInfo);
             String message = (String) input.get("message");
             @SuppressWarnings("unchecked")
             List<Map<String, String>> history = (List<Map<String, String>>) input.get("history");
@@ -281,7 +281,7 @@ public class AINodeExecutor implements NodeExecutor {
     private Map<String, Object> executeClassifierNode(NodeExecutionInfo nodeInfo, Map<String, Object> input,
                                                       FlowExecutionContext context) {
         try {
-            Map<String, Object> config = parseConfig(nodeInfo.configJson());
+            Map<String, Object> config = parseConfig(nodeInfo);
             String text = (String) input.get("text");
             @SuppressWarnings("unchecked")
             List<String> categories = (List<String>) config.get("categories");
@@ -356,6 +356,13 @@ public class AINodeExecutor implements NodeExecutor {
 
     // =================== 私有辅助方法 ===================
 
+    /**
+     * 获取节点配置，优先使用编译计划中预先解析的配置
+     */
+    private Map<String, Object> parseConfig(NodeExecutionInfo nodeInfo) {
+        return nodeInfo.config() != null ? nodeInfo.config() : parseConfig(nodeInfo.configJson());
+    }
+
     /**
      * 解析配置JSON
      */
@@ -66,7 +66,7 @@ public class BasicNodeExecutor implements NodeExecutor {
     private Map<String, Object> executeStartNode(NodeExecutionInfo nodeInfo, Map<String, Object> input,
                                                  FlowExecutionContext context) {
         try {
-            Map<String, Object> config = parseConfig(nodeInfo.configJson());
+            Map<String, Object> config = parseConfig(nodeInfo);
 
             Map<String, Object> output = new HashMap<>();
             output.put("_node_type", "START");
@@ -103,7 +103,7 @@ public class BasicNodeExecutor implements NodeExecutor {
     private Map<String, Object> executeEndNode(NodeExecutionInfo nodeInfo, Map<String, Object> input,
                                                FlowExecutionContext context) {
         try {
-            Map<String, Object> config = parseConfig(nodeInfo.configJson());
+            Map<String, Object> config = parseConfig(nodeInfo);
 
             Map<String, Object> output = new HashMap<>();
             output.put("_node_type", "END");
@@ -147,7 +147,7 @@ public class BasicNodeExecutor implements NodeExecutor {
     private Map<String, Object> executeInputNode(NodeExecutionInfo nodeInfo, Map<String, Object> input,
                                                  FlowExecutionContext context) {
         try {
-            Map<String, Object> config = parseConfig(nodeInfo.configJson());
+            Map<String, Object> config = parseConfig(nodeInfo);
             Map<String, Object> output = new HashMap<>();
 
             // 获取输入字段配置
@@ -193,7 +193,7 @@ public class BasicNodeExecutor implements NodeExecutor {
     private Map<String, Object> executeOutputNode(NodeExecutionInfo nodeInfo, Map<String, Object> input,
                                                   FlowExecutionContext context) {
         try {
-            Map<String, Object> config = parseConfig(nodeInfo.configJson());
+            Map<String, Object> config = parseConfig(nodeInfo);
             Map<String, Object> output = new HashMap<>();
 
             // 获取输出配置
@@ -232,6 +232,13 @@ public class BasicNodeExecutor implements NodeExecutor {
 
     // =================== 私有辅助方法 ===================
 
+    /**
+     * 获取节点配置，优先使用编译计划中预先解析的配置
+     */
+    private Map<String, Object> parseConfig(NodeExecutionInfo nodeInfo) {
+        return nodeInfo.config() != null ? nodeInfo.config() : parseConfig(nodeInfo.configJson());
+    }
+
     /**
      * 解析配置JSON
      */
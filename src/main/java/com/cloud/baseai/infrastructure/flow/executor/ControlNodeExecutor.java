@@ -1,6 +1,11 @@
 package com.cloud.baseai.infrastructure.flow.executor;
 
 import com.cloud.baseai.domain.flow.model.NodeTypes;
+import com.cloud.baseai.infrastructure.exception.FlowOrchestrationException;
+import com.cloud.baseai.infrastructure.flow.expression.CompiledExpression;
+import com.cloud.baseai.infrastructure.flow.expression.ExpressionBindings;
+import com.cloud.baseai.infrastructure.flow.expression.ExpressionEngine;
+import com.cloud.baseai.infrastructure.flow.expression.ExpressionSession;
 import com.cloud.baseai.infrastructure.flow.model.FlowExecutionContext;
 import com.cloud.baseai.infrastructure.flow.model.NodeExecutionInfo;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -9,8 +14,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,15 +39,14 @@ public class ControlNodeExecutor implements NodeExecutor {
     private static final Logger log = LoggerFactory.getLogger(ControlNodeExecutor.class);
 
     private final ObjectMapper objectMapper;
-    private final ScriptEngine scriptEngine;
+    private final ExpressionEngine expressionEngine;
 
-    public ControlNodeExecutor(ObjectMapper objectMapper) {
+    public ControlNodeExecutor(ObjectMapper objectMapper, ExpressionEngine expressionEngine) {
         this.objectMapper = objectMapper;
-        // 初始化JavaScript引擎用于条件表达式求值
-        ScriptEngineManager manager = new ScriptEngineManager();
-        this.scriptEngine = manager.getEngineByName("JavaScript");
+        // 条件表达式由共享的表达式引擎编译和求值
+        this.expressionEngine = expressionEngine;
 
-        if (scriptEngine == null) {
+        if (!expressionEngine.isAvailable()) {
             log.warn("JavaScript引擎不可用，条件表达式功能将受限");
         }
     }
@@ -77,7 +79,7 @@ public class ControlNodeExecutor implements NodeExecutor {
     private Map<String, Object> executeCondition(NodeExecutionInfo nodeInfo, Map<String, Object> input,
                                                  FlowExecutionContext context) {
         try {
-            Map<String, Object> config = parseConfig(nodeInfo.configJson());
+            Map<String, Object> config = parseConfig(nodeInfo);
             String expression = (String) config.get("expression");
 
             if (expression == null || expression.trim().isEmpty()) {
@@ -109,7 +111,7 @@ public class ControlNodeExecutor implements NodeExecutor {
     private Map<String, Object> executeLoop(NodeExecutionInfo nodeInfo, Map<String, Object> input,
                                             FlowExecutionContext context) {
         try {
-            Map<String, Object> config = parseConfig(nodeInfo.configJson());
+            Map<String, Object> config = parseConfig(nodeInfo);
             String loopType = (String) config.getOrDefault("loopType", "forEach");
 
             Map<String, Object> output = new HashMap<>(input);
@@ -138,7 +140,7 @@ public class ControlNodeExecutor implements NodeExecutor {
     private Map<String, Object> executeSwitch(NodeExecutionInfo nodeInfo, Map<String, Object> input,
                                               FlowExecutionContext context) {
         try {
-            Map<String, Object> config = parseConfig(nodeInfo.configJson());
+            Map<String, Object> config = parseConfig(nodeInfo);
             String switchKey = (String) config.get("switchOn");
 
             if (switchKey == null) {
@@ -185,7 +187,7 @@ public class ControlNodeExecutor implements NodeExecutor {
     private Map<String, Object> executeParallel(NodeExecutionInfo nodeInfo, Map<String, Object> input,
                                                 FlowExecutionContext context) {
         try {
-            Map<String, Object> config = parseConfig(nodeInfo.configJson());
+            Map<String, Object> config = parseConfig(nodeInfo);
 
             Map<String, Object> output = new HashMap<>(input);
             output.put("_parallel_execution", true);
@@ -207,8 +209,13 @@ public class ControlNodeExecutor implements NodeExecutor {
             Map<String, Object> config = parseConfig(configJson);
 
             // 根据不同的控制节点类型进行验证
-            if (config.containsKey("expression") && scriptEngine == null) {
-                log.warn("JavaScript引擎不可用，条件表达式可能无法正常工作");
+            if (config.containsKey("expression")) {
+                if (expressionEngine.isAvailable()) {
+                    // 提前编译，语法错误在保存配置时即可发现
+                    expressionEngine.compile(CompiledExpression.Kind.CONDITION, (String) config.get("expression"));
+                } else {
+                    log.warn("JavaScript引擎不可用，条件表达式可能无法正常工作");
+                }
             }
 
         } catch (Exception e) {
@@ -222,32 +229,36 @@ public class ControlNodeExecutor implements NodeExecutor {
      * 评估条件表达式
      */
     private boolean evaluateCondition(String expression, Map<String, Object> input, FlowExecutionContext context) {
-        if (scriptEngine == null) {
+        if (!expressionEngine.isAvailable()) {
             log.warn("JavaScript引擎不可用，条件表达式使用简化评估");
             return evaluateSimpleCondition(expression, input);
         }
 
         try {
-            // 将输入数据注入到脚本引擎
-            for (Map.Entry<String, Object> entry : input.entrySet()) {
-                scriptEngine.put(entry.getKey(), entry.getValue());
-            }
-
-            // 注入上下文变量
-            for (Map.Entry<String, Object> entry : context.getAllGlobalVariables().entrySet()) {
-                scriptEngine.put("ctx_" + entry.getKey(), entry.getValue());
+            CompiledExpression compiled = expressionEngine.compile(CompiledExpression.Kind.CONDITION, expression);
+            try (ExpressionSession session = expressionEngine.openSession()) {
+                return session.test(compiled, conditionBindings(input, context));
             }
 
-            // 执行表达式
-            Object result = scriptEngine.eval(expression);
-            return Boolean.TRUE.equals(result);
-
+        } catch (FlowOrchestrationException e) {
+            throw e;
         } catch (Exception e) {
             log.error("条件表达式执行失败: {}", expression, e);
             throw new RuntimeException("条件表达式执行失败: " + expression, e);
         }
     }
 
+    /**
+     * 构建条件表达式的绑定变量：输入字段直接可见，全局变量以ctx_为前缀
+     */
+    private ExpressionBindings conditionBindings(Map<String, Object> input, FlowExecutionContext context) {
+        Map<String, Object> variables = new HashMap<>(input);
+        for (Map.Entry<String, Object> entry : context.getAllGlobalVariables().entrySet()) {
+            variables.put("ctx_" + entry.getKey(), entry.getValue());
+        }
+        return ExpressionBindings.of(variables);
+    }
+
     /**
      * 简化的条件评估（当JavaScript引擎不可用时）
      */
@@ -352,6 +363,13 @@ public class ControlNodeExecutor implements NodeExecutor {
         output.put("_loop_count", results.size());
     }
 
+    /**
+     * 获取节点配置，优先使用编译计划中预先解析的配置
+     */
+    private Map<String, Object> parseConfig(NodeExecutionInfo nodeInfo) {
+        return nodeInfo.config() != null ? nodeInfo.config() : parseConfig(nodeInfo.configJson());
+    }
+
     /**
      * 解析配置JSON
      */
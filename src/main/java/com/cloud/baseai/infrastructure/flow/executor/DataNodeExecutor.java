@@ -1,6 +1,14 @@
 package com.cloud.baseai.infrastructure.flow.executor;
 
 import com.cloud.baseai.domain.flow.model.NodeTypes;
+import com.cloud.baseai.infrastructure.config.properties.FlowProperties;
+import com.cloud.baseai.infrastructure.exception.ErrorCode;
+import com.cloud.baseai.infrastructure.exception.FlowOrchestrationException;
+import com.cloud.baseai.infrastructure.flow.expression.CompiledExpression;
+import com.cloud.baseai.infrastructure.flow.expression.ExpressionBindings;
+import com.cloud.baseai.infrastructure.flow.expression.ExpressionEngine;
+import com.cloud.baseai.infrastructure.flow.expression.ExpressionSession;
+import com.cloud.baseai.infrastructure.flow.model.DataStream;
 import com.cloud.baseai.infrastructure.flow.model.FlowExecutionContext;
 import com.cloud.baseai.infrastructure.flow.model.NodeExecutionInfo;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -9,10 +17,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.util.*;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -35,6 +42,11 @@ import java.util.stream.Collectors;
  * <p><b>设计理念：</b></p>
  * <p>数据处理节点强调灵活性和可配置性。每种操作都支持丰富的配置选项，
  * 让用户能够根据具体业务需求定制数据处理逻辑，而不需要编写代码。</p>
+ *
+ * <p><b>流式模式：</b></p>
+ * <p>分割、过滤、合并节点在配置{@code "streaming": true}、全局开启流式模式或上游输出本身是
+ * {@link DataStream}时，输出惰性的分块数据流而不是完整列表。数据在下游遍历时才逐块计算，
+ * 过滤条件也在那时求值，因此流式节点的输出中没有依赖完整结果的统计字段。</p>
  */
 @Component
 public class DataNodeExecutor implements NodeExecutor {
@@ -42,22 +54,22 @@ public class DataNodeExecutor implements NodeExecutor {
     private static final Logger log = LoggerFactory.getLogger(DataNodeExecutor.class);
 
     private final ObjectMapper objectMapper;
-    private final ScriptEngine scriptEngine;
+    private final ExpressionEngine expressionEngine;
+    private final FlowProperties flowProperties;
 
     /**
      * 构造函数
      *
-     * <p>初始化数据处理执行器，包括JSON处理器和脚本引擎。
-     * 脚本引擎用于执行复杂的数据转换和条件表达式。</p>
+     * <p>初始化数据处理执行器，包括JSON处理器和表达式引擎。
+     * 表达式引擎用于执行复杂的数据转换和条件表达式。</p>
      */
-    public DataNodeExecutor(ObjectMapper objectMapper) {
+    public DataNodeExecutor(ObjectMapper objectMapper, ExpressionEngine expressionEngine,
+                            FlowProperties flowProperties) {
         this.objectMapper = objectMapper;
+        this.expressionEngine = expressionEngine;
+        this.flowProperties = flowProperties;
 
-        // 初始化JavaScript引擎用于表达式求值
-        ScriptEngineManager manager = new ScriptEngineManager();
-        this.scriptEngine = manager.getEngineByName("JavaScript");
-
-        if (scriptEngine == null) {
+        if (!expressionEngine.isAvailable()) {
             log.warn("JavaScript引擎不可用，某些高级功能将受限");
         }
     }
@@ -109,7 +121,7 @@ public class DataNodeExecutor implements NodeExecutor {
     private Map<String, Object> executeMapper(NodeExecutionInfo nodeInfo, Map<String, Object> input,
                                               FlowExecutionContext context) {
         try {
-            Map<String, Object> config = parseConfig(nodeInfo.configJson());
+            Map<String, Object> config = parseConfig(nodeInfo);
 
             if (!config.containsKey("mapping")) {
                 throw new IllegalArgumentException("映射节点需要配置mapping参数");
@@ -180,17 +192,14 @@ public class DataNodeExecutor implements NodeExecutor {
     private Map<String, Object> executeFilter(NodeExecutionInfo nodeInfo, Map<String, Object> input,
                                               FlowExecutionContext context) {
         try {
-            Map<String, Object> config = parseConfig(nodeInfo.configJson());
+            Map<String, Object> config = parseConfig(nodeInfo);
             String sourceKey = (String) config.getOrDefault("source", "items");
 
-            Object sourceData = input.get(sourceKey);
-            if (!(sourceData instanceof List)) {
+            Object sourceData = resolveSource(input, sourceKey);
+            if (!(sourceData instanceof List) && !(sourceData instanceof DataStream)) {
                 throw new IllegalArgumentException("过滤节点的数据源必须是数组: " + sourceKey);
             }
 
-            @SuppressWarnings("unchecked")
-            List<Object> items = (List<Object>) sourceData;
-
             @SuppressWarnings("unchecked")
             Map<String, Object> condition = (Map<String, Object>) config.get("condition");
 
@@ -198,13 +207,33 @@ public class DataNodeExecutor implements NodeExecutor {
                 throw new IllegalArgumentException("过滤节点需要配置condition参数");
             }
 
-            // 执行过滤
-            List<Object> filtered = items.stream()
-                    .filter(item -> evaluateFilterCondition(item, condition, context))
-                    .collect(Collectors.toList());
+            if (isStreaming(config, sourceData)) {
+                // 过滤在下游遍历时才执行，异常包装为本节点的执行失败，便于定位出错的节点
+                String nodeKey = nodeInfo.nodeKey();
+                DataStream filtered = DataStream.from(sourceData, chunkSize(config))
+                        .mapChunks(chunk -> {
+                            try {
+                                return filterItems(chunk, condition, context);
+                            } catch (RuntimeException e) {
+                                throw new FlowOrchestrationException(ErrorCode.BIZ_FLOW_040, nodeKey, e);
+                            }
+                        }, "filter(" + nodeKey + ")");
+
+                Map<String, Object> output = streamingOutput(input);
+                output.put(outputKey(sourceKey), filtered);
+                output.put("_streaming", true);
+                output.put("_timestamp", System.currentTimeMillis());
+
+                log.debug("数据过滤以流式模式执行: source={}", filtered.describe());
+                return output;
+            }
+
+            @SuppressWarnings("unchecked")
+            List<Object> items = (List<Object>) sourceData;
+            List<Object> filtered = filterItems(items, condition, context);
 
             Map<String, Object> output = new HashMap<>(input);
-            output.put(sourceKey, filtered);
+            output.put(outputKey(sourceKey), filtered);
             output.put("_original_count", items.size());
             output.put("_filtered_count", filtered.size());
             output.put("_filter_ratio", !items.isEmpty() ? (double) filtered.size() / items.size() : 0.0);
@@ -254,7 +283,7 @@ public class DataNodeExecutor implements NodeExecutor {
     private Map<String, Object> executeValidator(NodeExecutionInfo nodeInfo, Map<String, Object> input,
                                                  FlowExecutionContext context) {
         try {
-            Map<String, Object> config = parseConfig(nodeInfo.configJson());
+            Map<String, Object> config = parseConfig(nodeInfo);
 
             @SuppressWarnings("unchecked")
             List<Map<String, Object>> rules = (List<Map<String, Object>>) config.get("rules");
@@ -325,30 +354,37 @@ public class DataNodeExecutor implements NodeExecutor {
     private Map<String, Object> executeSplitter(NodeExecutionInfo nodeInfo, Map<String, Object> input,
                                                 FlowExecutionContext context) {
         try {
-            Map<String, Object> config = parseConfig(nodeInfo.configJson());
+            Map<String, Object> config = parseConfig(nodeInfo);
             String sourceKey = (String) config.getOrDefault("source", "text");
 
-            Object textObj = input.get(sourceKey);
+            Object textObj = resolveSource(input, sourceKey);
             if (textObj == null) {
                 throw new IllegalArgumentException("找不到要分割的文本字段: " + sourceKey);
             }
 
             String text = String.valueOf(textObj);
             String strategy = (String) config.getOrDefault("strategy", "delimiter");
+            if (!List.of("delimiter", "length", "sentences", "paragraphs").contains(strategy)) {
+                throw new IllegalArgumentException("不支持的分割策略: " + strategy);
+            }
 
-            List<String> chunks = switch (strategy) {
-                case "delimiter" -> splitByDelimiter(text, config);
-                case "length" -> splitByLength(text, config);
-                case "sentences" -> splitBySentences(text, config);
-                case "paragraphs" -> splitByParagraphs(text, config);
-                default -> throw new IllegalArgumentException("不支持的分割策略: " + strategy);
-            };
+            if (isStreaming(config, null)) {
+                DataStream chunks = DataStream.fromIterator(() -> splitText(text, strategy, config),
+                        chunkSize(config), "split(" + strategy + ", " + text.length() + " chars)");
+
+                Map<String, Object> output = streamingOutput(input);
+                output.put("chunks", chunks);
+                output.put("_original_length", text.length());
+                output.put("_strategy", strategy);
+                output.put("_streaming", true);
+                output.put("_timestamp", System.currentTimeMillis());
+
+                log.debug("文本分割以流式模式执行: 原始长度={}, 策略={}", text.length(), strategy);
+                return output;
+            }
 
-            // 过滤空白块
-            chunks = chunks.stream()
-                    .map(String::trim)
-                    .filter(chunk -> !chunk.isEmpty())
-                    .collect(Collectors.toList());
+            List<String> chunks = new ArrayList<>();
+            splitText(text, strategy, config).forEachRemaining(chunks::add);
 
             Map<String, Object> output = new HashMap<>(input);
             output.put("chunks", chunks);
@@ -386,6 +422,7 @@ public class DataNodeExecutor implements NodeExecutor {
      * <li>深度合并：递归合并嵌套结构</li>
      * <li>条件合并：根据条件选择性合并</li>
      * <li>冲突处理：处理字段名冲突的策略</li>
+     * <li>连接（strategy为concat）：将各数组或数据流依次连接到output字段，流式模式下惰性连接</li>
      * </ul>
      *
      * <p><b>配置示例：</b></p>
@@ -401,7 +438,7 @@ public class DataNodeExecutor implements NodeExecutor {
     private Map<String, Object> executeMerger(NodeExecutionInfo nodeInfo, Map<String, Object> input,
                                               FlowExecutionContext context) {
         try {
-            Map<String, Object> config = parseConfig(nodeInfo.configJson());
+            Map<String, Object> config = parseConfig(nodeInfo);
 
             @SuppressWarnings("unchecked")
             List<String> sources = (List<String>) config.get("sources");
@@ -413,8 +450,11 @@ public class DataNodeExecutor implements NodeExecutor {
             String strategy = (String) config.getOrDefault("strategy", "merge");
             String conflictResolution = (String) config.getOrDefault("conflictResolution", "prefer_last");
             boolean deepMerge = (Boolean) config.getOrDefault("deepMerge", false);
+            boolean streaming = isStreaming(config, null)
+                    || sources.stream().anyMatch(source -> resolveSource(input, source) instanceof DataStream);
 
-            Map<String, Object> output = performMerge(sources, input, strategy, conflictResolution, deepMerge);
+            Map<String, Object> output = performMerge(sources, input, strategy, conflictResolution, deepMerge,
+                    streaming ? chunkSize(config) : 0, (String) config.getOrDefault("output", "items"));
 
             // 添加合并统计信息
             output.put("_merged_sources", sources);
@@ -461,6 +501,13 @@ public class DataNodeExecutor implements NodeExecutor {
 
     // =================== 私有辅助方法 ===================
 
+    /**
+     * 获取节点配置，优先使用编译计划中预先解析的配置
+     */
+    private Map<String, Object> parseConfig(NodeExecutionInfo nodeInfo) {
+        return nodeInfo.config() != null ? nodeInfo.config() : parseConfig(nodeInfo.configJson());
+    }
+
     /**
      * 解析配置JSON
      */
@@ -598,6 +645,19 @@ public class DataNodeExecutor implements NodeExecutor {
         }
     }
 
+    /**
+     * 过滤一批数据，表达式条件在整批上共用一个编译结果和求值会话
+     */
+    private List<Object> filterItems(List<Object> items, Map<String, Object> condition,
+                                     FlowExecutionContext context) {
+        if ("expression".equals(condition.get("type")) && expressionEngine.isAvailable()) {
+            return filterByExpression(items, (String) condition.get("expression"), context);
+        }
+        return items.stream()
+                .filter(item -> evaluateFilterCondition(item, condition, context))
+                .collect(Collectors.toList());
+    }
+
     /**
      * 评估过滤条件
      */
@@ -646,29 +706,65 @@ public class DataNodeExecutor implements NodeExecutor {
      * 评估表达式条件
      */
     private boolean evaluateExpressionCondition(Object item, Map<String, Object> condition, FlowExecutionContext context) {
-        if (scriptEngine == null) {
+        if (!expressionEngine.isAvailable()) {
             log.warn("JavaScript引擎不可用，表达式条件默认通过");
             return true;
         }
 
-        try {
-            String expression = (String) condition.get("expression");
-            scriptEngine.put("item", item);
+        String expression = (String) condition.get("expression");
+        CompiledExpression compiled = expressionEngine.compile(CompiledExpression.Kind.CONDITION, expression);
+        try (ExpressionSession session = expressionEngine.openSession()) {
+            return testItem(session, compiled, contextBindings(context).with("item", item));
+        }
+    }
 
-            // 注入上下文变量
-            for (Map.Entry<String, Object> entry : context.getAllGlobalVariables().entrySet()) {
-                scriptEngine.put("ctx_" + entry.getKey(), entry.getValue());
+    /**
+     * 用表达式过滤整个列表
+     *
+     * <p>表达式只编译一次，上下文变量只绑定一次，逐条求值时仅叠加item；
+     * 整个列表共用一个会话，超时时间覆盖整批求值。</p>
+     */
+    private List<Object> filterByExpression(List<Object> items, String expression, FlowExecutionContext context) {
+        CompiledExpression compiled = expressionEngine.compile(CompiledExpression.Kind.CONDITION, expression);
+        ExpressionBindings shared = contextBindings(context);
+        Duration timeout = Duration.ofMillis(flowProperties.getExpression().getFilterTimeoutMs());
+
+        List<Object> filtered = new ArrayList<>();
+        try (ExpressionSession session = expressionEngine.openSession(timeout)) {
+            for (Object item : items) {
+                if (testItem(session, compiled, shared.with("item", item))) {
+                    filtered.add(item);
+                }
             }
+        }
+        return filtered;
+    }
 
-            Object result = scriptEngine.eval(expression);
-            return Boolean.TRUE.equals(result);
-
+    /**
+     * 对单个元素求值，脚本错误视为不匹配，超时继续向上抛出
+     */
+    private boolean testItem(ExpressionSession session, CompiledExpression compiled, ExpressionBindings bindings) {
+        try {
+            return session.test(compiled, bindings);
+        } catch (FlowOrchestrationException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("表达式条件评估失败: {}", condition.get("expression"), e);
+            log.error("表达式条件评估失败: {}", compiled.text(), e);
             return false;
         }
     }
 
+    /**
+     * 全局变量以ctx_为前缀绑定
+     */
+    private ExpressionBindings contextBindings(FlowExecutionContext context) {
+        Map<String, Object> variables = new HashMap<>();
+        for (Map.Entry<String, Object> entry : context.getAllGlobalVariables().entrySet()) {
+            variables.put("ctx_" + entry.getKey(), entry.getValue());
+        }
+        return ExpressionBindings.of(variables);
+    }
+
     /**
      * 评估范围条件
      */
@@ -867,112 +963,187 @@ public class DataNodeExecutor implements NodeExecutor {
                 new ValidationError(field, "值必须是以下之一: " + allowedValues);
     }
 
+    /**
+     * 按策略惰性分割文本，返回去除首尾空白后的非空分块
+     *
+     * <p>物化模式收集全部分块，流式模式在下游遍历时才逐块切分。</p>
+     */
+    private Iterator<String> splitText(String text, String strategy, Map<String, Object> config) {
+        Iterator<String> pieces = switch (strategy) {
+            case "delimiter" -> splitByDelimiter(text, config);
+            case "length" -> splitByLength(text, config);
+            case "sentences" -> splitBySentences(text, config);
+            case "paragraphs" -> splitByParagraphs(text, config);
+            default -> throw new IllegalArgumentException("不支持的分割策略: " + strategy);
+        };
+
+        // 过滤空白块
+        return asStream(pieces)
+                .map(String::trim)
+                .filter(chunk -> !chunk.isEmpty())
+                .iterator();
+    }
+
     /**
      * 按分隔符分割文本
      */
-    private List<String> splitByDelimiter(String text, Map<String, Object> config) {
+    private Iterator<String> splitByDelimiter(String text, Map<String, Object> config) {
         String delimiter = (String) config.getOrDefault("delimiter", "\n");
-        return Arrays.asList(text.split(Pattern.quote(delimiter)));
+        return Pattern.compile(Pattern.quote(delimiter)).splitAsStream(text).iterator();
     }
 
     /**
      * 按长度分割文本
      */
-    private List<String> splitByLength(String text, Map<String, Object> config) {
+    private Iterator<String> splitByLength(String text, Map<String, Object> config) {
         int maxLength = ((Number) config.getOrDefault("maxLength", 1000)).intValue();
         int overlap = ((Number) config.getOrDefault("overlap", 0)).intValue();
+        int step = Math.max(1, maxLength - overlap);
 
-        List<String> chunks = new ArrayList<>();
-        int step = maxLength - overlap;
-
-        for (int i = 0; i < text.length(); i += step) {
-            int end = Math.min(i + maxLength, text.length());
-            chunks.add(text.substring(i, end));
+        return new Iterator<>() {
+            private int offset;
+            private boolean done = text.isEmpty();
 
-            if (end >= text.length()) {
-                break;
+            @Override
+            public boolean hasNext() {
+                return !done;
             }
-        }
 
-        return chunks;
+            @Override
+            public String next() {
+                if (done) {
+                    throw new NoSuchElementException();
+                }
+                int end = Math.min(offset + maxLength, text.length());
+                String chunk = text.substring(offset, end);
+                offset += step;
+                done = end >= text.length() || offset >= text.length();
+                return chunk;
+            }
+        };
     }
 
     /**
      * 按句子分割文本
      */
-    private List<String> splitBySentences(String text, Map<String, Object> config) {
+    private Iterator<String> splitBySentences(String text, Map<String, Object> config) {
         int maxSentences = ((Number) config.getOrDefault("maxSentences", 5)).intValue();
 
         // 简单的句子分割（基于句号、问号、感叹号）
-        String[] sentences = text.split("[.!?]+");
-        List<String> chunks = new ArrayList<>();
-
-        StringBuilder chunk = new StringBuilder();
-        int sentenceCount = 0;
+        return groupPieces(Pattern.compile("[.!?]+").splitAsStream(text).iterator(), maxSentences, ". ");
+    }
 
-        for (String sentence : sentences) {
-            sentence = sentence.trim();
-            if (sentence.isEmpty()) continue;
+    /**
+     * 按段落分割文本
+     */
+    private Iterator<String> splitByParagraphs(String text, Map<String, Object> config) {
+        int maxParagraphs = ((Number) config.getOrDefault("maxParagraphs", 3)).intValue();
 
-            chunk.append(sentence).append(". ");
-            sentenceCount++;
+        return groupPieces(Pattern.compile("\n\n+").splitAsStream(text).iterator(), maxParagraphs, "\n\n");
+    }
 
-            if (sentenceCount >= maxSentences) {
-                chunks.add(chunk.toString().trim());
-                chunk = new StringBuilder();
-                sentenceCount = 0;
+    /**
+     * 每groupSize个非空片段拼成一个分块
+     */
+    private Iterator<String> groupPieces(Iterator<String> pieces, int groupSize, String separator) {
+        Iterator<String> nonEmpty = asStream(pieces)
+                .map(String::trim)
+                .filter(piece -> !piece.isEmpty())
+                .iterator();
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return nonEmpty.hasNext();
             }
-        }
 
-        if (!chunk.isEmpty()) {
-            chunks.add(chunk.toString().trim());
-        }
+            @Override
+            public String next() {
+                if (!nonEmpty.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                StringBuilder chunk = new StringBuilder();
+                int count = 0;
+                while (nonEmpty.hasNext() && count < Math.max(1, groupSize)) {
+                    chunk.append(nonEmpty.next()).append(separator);
+                    count++;
+                }
+                return chunk.toString().trim();
+            }
+        };
+    }
 
-        return chunks;
+    private static <T> java.util.stream.Stream<T> asStream(Iterator<T> iterator) {
+        return java.util.stream.StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
     }
 
     /**
-     * 按段落分割文本
+     * 节点是否以流式模式执行：节点配置、全局配置或上游已经是数据流
      */
-    private List<String> splitByParagraphs(String text, Map<String, Object> config) {
-        int maxParagraphs = ((Number) config.getOrDefault("maxParagraphs", 3)).intValue();
-
-        String[] paragraphs = text.split("\n\n+");
-        List<String> chunks = new ArrayList<>();
-
-        StringBuilder chunk = new StringBuilder();
-        int paragraphCount = 0;
+    private boolean isStreaming(Map<String, Object> config, Object sourceData) {
+        if (sourceData instanceof DataStream) {
+            return true;
+        }
+        Object streaming = config.get("streaming");
+        if (streaming != null) {
+            return Boolean.TRUE.equals(streaming);
+        }
+        return Boolean.TRUE.equals(flowProperties.getStreaming().getEnabled());
+    }
 
-        for (String paragraph : paragraphs) {
-            paragraph = paragraph.trim();
-            if (paragraph.isEmpty()) continue;
+    /**
+     * 读取数据源，输入中没有同名字段时按路径读取（例如split_output.chunks）
+     */
+    private Object resolveSource(Map<String, Object> input, String sourceKey) {
+        Object value = input.get(sourceKey);
+        return value != null || sourceKey == null || !sourceKey.contains(".")
+                ? value : getNestedValue(input, sourceKey);
+    }
 
-            chunk.append(paragraph).append("\n\n");
-            paragraphCount++;
+    /**
+     * 按路径读取的数据源以最后一段作为输出字段
+     */
+    private String outputKey(String sourceKey) {
+        return sourceKey.substring(sourceKey.lastIndexOf('.') + 1);
+    }
 
-            if (paragraphCount >= maxParagraphs) {
-                chunks.add(chunk.toString().trim());
-                chunk = new StringBuilder();
-                paragraphCount = 0;
+    /**
+     * 流式节点的输出不携带上游节点的完整输出，上游结果释放后不会因下游引用而继续驻留
+     */
+    private Map<String, Object> streamingOutput(Map<String, Object> input) {
+        Map<String, Object> output = new HashMap<>();
+        input.forEach((key, value) -> {
+            if (!key.endsWith("_output") && !"_context".equals(key)) {
+                output.put(key, value);
             }
-        }
-
-        if (!chunk.isEmpty()) {
-            chunks.add(chunk.toString().trim());
-        }
+        });
+        return output;
+    }
 
-        return chunks;
+    private int chunkSize(Map<String, Object> config) {
+        return config.get("chunkSize") instanceof Number number
+                ? number.intValue()
+                : flowProperties.getStreaming().getChunkSize();
     }
 
     /**
      * 执行数据合并
+     *
+     * @param chunkSize 流式模式下数据流的分块大小，物化模式为0
+     * @param outputKey concat策略的输出字段
      */
     private Map<String, Object> performMerge(List<String> sources, Map<String, Object> input,
-                                             String strategy, String conflictResolution, boolean deepMerge) {
+                                             String strategy, String conflictResolution, boolean deepMerge,
+                                             int chunkSize, String outputKey) {
         Map<String, Object> result = new HashMap<>();
+        // 深度合并时记录由本次合并新建的Map，只有这些Map可以原地修改
+        Set<Map<String, Object>> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Object> sequences = new ArrayList<>();
+        boolean concat = "concat".equals(strategy);
 
         for (String sourceKey : sources) {
-            Object sourceData = input.get(sourceKey);
+            Object sourceData = resolveSource(input, sourceKey);
             if (sourceData == null) continue;
 
             if (sourceData instanceof Map) {
@@ -980,23 +1151,47 @@ public class DataNodeExecutor implements NodeExecutor {
                 Map<String, Object> sourceMap = (Map<String, Object>) sourceData;
 
                 if (deepMerge) {
-                    result = deepMergeMap(result, sourceMap, conflictResolution);
+                    deepMergeInto(result, sourceMap, conflictResolution, owned);
                 } else {
-                    mergeMap(result, sourceMap, conflictResolution);
+                    mergeMap(result, sourceMap, conflictResolution, chunkSize);
                 }
+            } else if (concat && (sourceData instanceof List || sourceData instanceof DataStream)) {
+                sequences.add(sourceData);
             } else {
                 // 非Map类型，直接添加
                 result.put(sourceKey, sourceData);
             }
         }
 
+        if (concat) {
+            result.put(outputKey, concatSequences(sequences, chunkSize));
+        }
+
         return result;
     }
 
+    /**
+     * 连接多个数组或数据流，chunkSize大于0时返回惰性数据流
+     */
+    private Object concatSequences(List<Object> sequences, int chunkSize) {
+        if (chunkSize > 0 || sequences.stream().anyMatch(DataStream.class::isInstance)) {
+            int size = chunkSize > 0 ? chunkSize : flowProperties.getStreaming().getChunkSize();
+            return DataStream.concat(sequences.stream()
+                    .map(sequence -> DataStream.from(sequence, size))
+                    .toList(), size);
+        }
+        List<Object> merged = new ArrayList<>();
+        for (Object sequence : sequences) {
+            merged.addAll((List<?>) sequence);
+        }
+        return merged;
+    }
+
     /**
      * 合并Map
      */
-    private void mergeMap(Map<String, Object> target, Map<String, Object> source, String conflictResolution) {
+    private void mergeMap(Map<String, Object> target, Map<String, Object> source, String conflictResolution,
+                          int chunkSize) {
         for (Map.Entry<String, Object> entry : source.entrySet()) {
             String key = entry.getKey();
             Object value = entry.getValue();
@@ -1011,11 +1206,14 @@ public class DataNodeExecutor implements NodeExecutor {
                     case "prefer_last" -> target.put(key, value);
                     case "merge_arrays" -> {
                         Object existing = target.get(key);
-                        if (existing instanceof List && value instanceof List) {
+                        if (existing instanceof List && value instanceof List && chunkSize <= 0) {
                             @SuppressWarnings("unchecked")
                             List<Object> mergedList = new ArrayList<>((List<Object>) existing);
                             mergedList.addAll((List<Object>) value);
                             target.put(key, mergedList);
+                        } else if ((existing instanceof List || existing instanceof DataStream)
+                                && (value instanceof List || value instanceof DataStream)) {
+                            target.put(key, concatSequences(List.of(existing, value), chunkSize));
                         } else {
                             target.put(key, value);
                         }
@@ -1028,35 +1226,41 @@ public class DataNodeExecutor implements NodeExecutor {
 
     /**
      * 深度合并Map
+     *
+     * <p>直接在结果Map上合并。嵌套Map只有在首次需要修改时才复制一次，之后原地合并，
+     * 来源数据本身不会被修改。</p>
      */
     @SuppressWarnings("unchecked")
-    private Map<String, Object> deepMergeMap(Map<String, Object> target, Map<String, Object> source, String conflictResolution) {
-        Map<String, Object> result = new HashMap<>(target);
-
+    private void deepMergeInto(Map<String, Object> target, Map<String, Object> source, String conflictResolution,
+                               Set<Map<String, Object>> owned) {
         for (Map.Entry<String, Object> entry : source.entrySet()) {
             String key = entry.getKey();
             Object value = entry.getValue();
 
-            if (result.containsKey(key)) {
-                Object existing = result.get(key);
+            if (target.containsKey(key)) {
+                Object existing = target.get(key);
                 if (existing instanceof Map && value instanceof Map) {
                     // 递归合并嵌套Map
-                    result.put(key, deepMergeMap((Map<String, Object>) existing, (Map<String, Object>) value, conflictResolution));
+                    Map<String, Object> nested = (Map<String, Object>) existing;
+                    if (!owned.contains(nested)) {
+                        nested = new HashMap<>(nested);
+                        owned.add(nested);
+                        target.put(key, nested);
+                    }
+                    deepMergeInto(nested, (Map<String, Object>) value, conflictResolution, owned);
                 } else {
                     // 应用冲突解决策略
                     switch (conflictResolution) {
                         case "prefer_first" -> {
                         } // 保持原值
-                        case "prefer_last" -> result.put(key, value);
-                        default -> result.put(key, value);
+                        case "prefer_last" -> target.put(key, value);
+                        default -> target.put(key, value);
                     }
                 }
             } else {
-                result.put(key, value);
+                target.put(key, value);
             }
         }
-
-        return result;
     }
 
     /**
@@ -4,6 +4,11 @@ import com.cloud.baseai.application.mcp.command.ExecuteToolCommand;
 import com.cloud.baseai.application.mcp.dto.ToolExecutionResultDTO;
 import com.cloud.baseai.application.mcp.service.McpApplicationService;
 import com.cloud.baseai.domain.flow.model.NodeTypes;
+import com.cloud.baseai.infrastructure.external.http.ToolHttpClient;
+import com.cloud.baseai.infrastructure.flow.expression.CompiledExpression;
+import com.cloud.baseai.infrastructure.flow.expression.ExpressionBindings;
+import com.cloud.baseai.infrastructure.flow.expression.ExpressionEngine;
+import com.cloud.baseai.infrastructure.flow.expression.ExpressionSession;
 import com.cloud.baseai.infrastructure.flow.model.FlowExecutionContext;
 import com.cloud.baseai.infrastructure.flow.model.NodeExecutionInfo;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -13,11 +18,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -50,8 +52,8 @@ public class ToolNodeExecutor implements NodeExecutor {
     private static final Logger log = LoggerFactory.getLogger(ToolNodeExecutor.class);
 
     private final ObjectMapper objectMapper;
-    private final RestTemplate restTemplate;
-    private final ScriptEngine scriptEngine;
+    private final ToolHttpClient toolHttpClient;
+    private final ExpressionEngine expressionEngine;
 
     @Autowired(required = false)
     private McpApplicationService mcpService;
@@ -62,20 +64,19 @@ public class ToolNodeExecutor implements NodeExecutor {
      * <p>初始化工具节点执行器，配置HTTP客户端和脚本引擎。
      * 通过依赖注入获取MCP服务，支持可选依赖模式。</p>
      */
-    public ToolNodeExecutor(ObjectMapper objectMapper, RestTemplate restTemplate) {
+    public ToolNodeExecutor(ObjectMapper objectMapper, ToolHttpClient toolHttpClient,
+                            ExpressionEngine expressionEngine) {
         this.objectMapper = objectMapper;
-        this.restTemplate = restTemplate;
+        this.toolHttpClient = toolHttpClient;
+        // 脚本引擎（用于SCRIPT节点）
+        this.expressionEngine = expressionEngine;
 
-        // 初始化脚本引擎（用于SCRIPT节点）
-        ScriptEngineManager manager = new ScriptEngineManager();
-        this.scriptEngine = manager.getEngineByName("JavaScript");
-
-        if (scriptEngine == null) {
+        if (!expressionEngine.isAvailable()) {
             log.warn("JavaScript引擎不可用，脚本执行功能将被禁用");
         }
 
         log.info("工具节点执行器初始化完成: HTTP={}, Script={}, MCP={}",
-                restTemplate != null, scriptEngine != null, mcpService != null);
+                toolHttpClient != null, expressionEngine.isAvailable(), mcpService != null);
     }
 
     @Override
@@ -129,7 +130,7 @@ public class ToolNodeExecutor implements NodeExecutor {
     private Map<String, Object> executeMcpTool(NodeExecutionInfo nodeInfo, Map<String, Object> input,
                                                FlowExecutionContext context) {
         try {
-            Map<String, Object> config = parseConfig(nodeInfo.configJson());
+            Map<String, Object> config = parseConfig(nodeInfo);
             String toolCode = (String) config.get("toolCode");
 
             if (toolCode == null || toolCode.trim().isEmpty()) {
@@ -231,7 +232,7 @@ public class ToolNodeExecutor implements NodeExecutor {
     private Map<String, Object> executeHttpRequest(NodeExecutionInfo nodeInfo, Map<String, Object> input,
                                                    FlowExecutionContext context) {
         try {
-            Map<String, Object> config = parseConfig(nodeInfo.configJson());
+            Map<String, Object> config = parseConfig(nodeInfo);
             String url = (String) config.get("url");
             String method = (String) config.getOrDefault("method", "GET");
 
@@ -319,11 +320,11 @@ public class ToolNodeExecutor implements NodeExecutor {
     private Map<String, Object> executeScript(NodeExecutionInfo nodeInfo, Map<String, Object> input,
                                               FlowExecutionContext context) {
         try {
-            if (scriptEngine == null) {
+            if (!expressionEngine.isAvailable()) {
                 throw new RuntimeException("脚本引擎不可用，无法执行脚本节点");
             }
 
-            Map<String, Object> config = parseConfig(nodeInfo.configJson());
+            Map<String, Object> config = parseConfig(nodeInfo);
             String script = (String) config.get("script");
             String language = (String) config.getOrDefault("language", "javascript");
 
@@ -338,11 +339,11 @@ public class ToolNodeExecutor implements NodeExecutor {
             int timeout = ((Number) config.getOrDefault("timeout", 5)).intValue();
 
             // 准备脚本执行环境
-            prepareScriptEnvironment(input, context);
+            ExpressionBindings bindings = prepareScriptEnvironment(input, context);
 
             // 执行脚本（带超时控制）
             long startTime = System.currentTimeMillis();
-            Object scriptResult = executeScriptWithTimeout(script, timeout);
+            Object scriptResult = executeScriptWithTimeout(script, bindings, timeout);
             long duration = System.currentTimeMillis() - startTime;
 
             // 构建输出
@@ -392,6 +393,9 @@ public class ToolNodeExecutor implements NodeExecutor {
                 if (script == null || script.trim().isEmpty()) {
                     throw new IllegalArgumentException("脚本节点需要非空的脚本内容");
                 }
+                if (expressionEngine.isAvailable()) {
+                    expressionEngine.compile(CompiledExpression.Kind.SCRIPT, script);
+                }
             }
 
         } catch (Exception e) {
@@ -402,9 +406,9 @@ public class ToolNodeExecutor implements NodeExecutor {
     @Override
     public boolean isHealthy() {
         try {
-            boolean httpHealthy = restTemplate != null;
+            boolean httpHealthy = toolHttpClient != null;
             boolean mcpHealthy = mcpService == null || checkMcpHealth();
-            boolean scriptHealthy = scriptEngine != null;
+            boolean scriptHealthy = expressionEngine.isAvailable();
 
             return httpHealthy && mcpHealthy && scriptHealthy;
 
@@ -416,6 +420,13 @@ public class ToolNodeExecutor implements NodeExecutor {
 
     // =================== 私有辅助方法 ===================
 
+    /**
+     * 获取节点配置，优先使用编译计划中预先解析的配置
+     */
+    private Map<String, Object> parseConfig(NodeExecutionInfo nodeInfo) {
+        return nodeInfo.config() != null ? nodeInfo.config() : parseConfig(nodeInfo.configJson());
+    }
+
     /**
      * 解析配置JSON
      */
@@ -560,21 +571,25 @@ public class ToolNodeExecutor implements NodeExecutor {
 
     /**
      * 执行HTTP调用
+     *
+     * <p>节点配置的timeout是整个调用的截止时间，到期后请求被取消。</p>
      */
     private ResponseEntity<Object> executeHttpCall(String url, String method, HttpEntity<Object> requestEntity,
                                                    int timeoutSeconds) {
+        HttpMethod httpMethod;
         try {
             // 将字符串方法转换为 HttpMethod 枚举
-            HttpMethod httpMethod = HttpMethod.valueOf(method.toUpperCase());
-
-            // 将枚举实例传递给 exchange 方法
-            return restTemplate.exchange(url, httpMethod, requestEntity, Object.class);
-
+            httpMethod = HttpMethod.valueOf(method.toUpperCase());
         } catch (IllegalArgumentException e) {
             // 捕获无效的HTTP方法字符串 (例如 "GETS")
             log.error("不支持的HTTP方法: {}", method, e);
             throw new IllegalArgumentException("不支持的HTTP方法: " + method);
-        } catch (RestClientException e) {
+        }
+
+        try {
+            return toolHttpClient.exchange(httpMethod, url,
+                    requestEntity.getHeaders(), requestEntity.getBody(), Object.class, timeoutSeconds);
+        } catch (ToolHttpClient.ToolHttpException e) {
             log.error("HTTP请求执行失败: {} {}", method, url, e);
             throw new RuntimeException("HTTP请求执行失败: " + e.getMessage(), e);
         }
@@ -582,68 +597,31 @@ public class ToolNodeExecutor implements NodeExecutor {
 
     /**
      * 准备脚本执行环境
+     *
+     * <p>脚本可见input和context两个只读变量，常用工具函数utils由表达式引擎在每个上下文中预先定义。</p>
      */
-    private void prepareScriptEnvironment(Map<String, Object> input, FlowExecutionContext context) {
-        try {
-            // 注入输入数据
-            scriptEngine.put("input", input);
-
-            // 注入上下文信息
-            scriptEngine.put("context", Map.of(
-                    "runId", context.getRunId(),
-                    "globalVariables", context.getAllGlobalVariables()
-            ));
-
-            // 注入常用工具函数
-            scriptEngine.eval("""
-                    var utils = {
-                        log: function(message) {
-                            java.lang.System.out.println('[SCRIPT] ' + message);
-                        },
-                        isString: function(obj) {
-                            return typeof obj === 'string';
-                        },
-                        isNumber: function(obj) {
-                            return typeof obj === 'number';
-                        },
-                        isArray: function(obj) {
-                            return Array.isArray(obj);
-                        },
-                        isEmpty: function(obj) {
-                            return obj == null || obj === '' ||
-                                   (Array.isArray(obj) && obj.length === 0) ||
-                                   (typeof obj === 'object' && Object.keys(obj).length === 0);
-                        }
-                    };
-                    """);
-
-        } catch (Exception e) {
-            log.error("脚本环境准备失败", e);
-            throw new RuntimeException("脚本环境准备失败: " + e.getMessage(), e);
-        }
+    private ExpressionBindings prepareScriptEnvironment(Map<String, Object> input, FlowExecutionContext context) {
+        return ExpressionBindings.of(Map.of(
+                "input", input,
+                "context", Map.of(
+                        "runId", context.getRunId(),
+                        "globalVariables", context.getAllGlobalVariables()
+                )
+        ));
     }
 
     /**
      * 带超时控制的脚本执行
+     *
+     * <p>脚本编译结果按文本缓存；超时后脚本会被强制取消，而不是执行完再比较耗时。</p>
      */
-    private Object executeScriptWithTimeout(String script, int timeoutSeconds) {
-        try {
-            // 在生产环境中，这里应该使用更安全的沙箱执行方式
-            // 比如使用 CompletableFuture 和 timeout 控制
-
-            long startTime = System.currentTimeMillis();
-            Object result = scriptEngine.eval(script);
-            long duration = System.currentTimeMillis() - startTime;
-
-            if (duration > timeoutSeconds * 1000L) {
-                log.warn("脚本执行时间过长: {}ms", duration);
-            }
-
-            return result;
-
-        } catch (Exception e) {
+    private Object executeScriptWithTimeout(String script, ExpressionBindings bindings, int timeoutSeconds) {
+        CompiledExpression compiled = expressionEngine.compile(CompiledExpression.Kind.SCRIPT, script);
+        try (ExpressionSession session = expressionEngine.openSession(Duration.ofSeconds(timeoutSeconds))) {
+            return session.evaluate(compiled, bindings);
+        } catch (RuntimeException e) {
             log.error("脚本执行失败: {}", script, e);
-            throw new RuntimeException("脚本执行失败: " + e.getMessage(), e);
+            throw e;
         }
     }
 
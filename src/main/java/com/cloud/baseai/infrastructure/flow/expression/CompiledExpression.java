@@ -0,0 +1,88 @@
+package com.cloud.baseai.infrastructure.flow.expression;
+
+import org.graalvm.polyglot.Source;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <h2>编译后的表达式</h2>
+ *
+ * <p>由{@link ExpressionEngine#compile(Kind, String)}创建的不可变对象，可在线程间自由共享。
+ * 表达式文本被包装成一个严格模式的函数，绑定变量按名称作为函数参数传入，
+ * 对未声明变量的赋值会直接报错，不会泄漏成上下文的全局变量。</p>
+ *
+ * <p>同一表达式按绑定变量名集合各生成一个函数，解析结果由共享引擎缓存，
+ * 每个池化上下文只需实例化一次，之后每次求值都是一次函数调用。</p>
+ */
+public final class CompiledExpression {
+
+    /**
+     * 表达式类型
+     */
+    public enum Kind {
+        /**
+         * 单个表达式，返回其值，例如 {@code item.price > 100}
+         */
+        CONDITION {
+            @Override
+            String wrap(String text) {
+                String body = text.strip();
+                while (body.endsWith(";")) {
+                    body = body.substring(0, body.length() - 1).strip();
+                }
+                return "return (" + body + "\n);";
+            }
+        },
+
+        /**
+         * 脚本函数体，通过 {@code return} 返回结果
+         */
+        SCRIPT {
+            @Override
+            String wrap(String text) {
+                return text;
+            }
+        };
+
+        abstract String wrap(String text);
+    }
+
+    private final Kind kind;
+    private final String text;
+    private final ConcurrentMap<List<String>, Source> sources = new ConcurrentHashMap<>();
+
+    CompiledExpression(Kind kind, String text) {
+        this.kind = kind;
+        this.text = text;
+    }
+
+    public Kind kind() {
+        return kind;
+    }
+
+    /**
+     * 原始表达式文本
+     */
+    public String text() {
+        return text;
+    }
+
+    /**
+     * 以给定的绑定变量名为参数的函数源码
+     */
+    Source source(List<String> parameters) {
+        return sources.computeIfAbsent(parameters, names -> {
+            StringBuilder function = new StringBuilder("(function(__bindings");
+            for (String name : names) {
+                function.append(", ").append(name);
+            }
+            function.append(") {\n'use strict';\n").append(kind.wrap(text)).append("\n})");
+            return Source.newBuilder("js", function.toString(),
+                            kind.name().toLowerCase() + "-" + Integer.toHexString(text.hashCode()) + ".js")
+                    .cached(true)
+                    .buildLiteral();
+        });
+    }
+}
@@ -0,0 +1,127 @@
+package com.cloud.baseai.infrastructure.flow.expression;
+
+import org.graalvm.polyglot.Value;
+import org.graalvm.polyglot.proxy.ProxyObject;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * <h2>表达式绑定变量</h2>
+ *
+ * <p>表达式求值时可见的只读变量集合。绑定在创建时复制一份顶层变量，
+ * 表达式内对绑定或其中嵌套对象的任何写入都会失败，因此同一绑定可以在多个线程间共享。</p>
+ *
+ * <p>{@link #with(String, Object)}在现有绑定之上叠加一个变量而不复制父绑定，
+ * 适合逐条求值时只有{@code item}变化的场景。</p>
+ *
+ * <p>名称是合法标识符的变量作为表达式函数的参数传入，其余变量只能通过{@code __bindings}访问。</p>
+ */
+public final class ExpressionBindings implements ProxyObject {
+
+    private static final ExpressionBindings EMPTY = new ExpressionBindings(Map.of(), null);
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_$][A-Za-z0-9_$]*");
+
+    /**
+     * 严格模式下不能用作参数名的保留字
+     */
+    private static final Set<String> RESERVED = Set.of(
+            "__bindings", "arguments", "eval", "await", "break", "case", "catch", "class", "const", "continue",
+            "debugger", "default", "delete", "do", "else", "enum", "export", "extends", "false", "finally", "for",
+            "function", "if", "implements", "import", "in", "instanceof", "interface", "let", "new", "null",
+            "package", "private", "protected", "public", "return", "static", "super", "switch", "this", "throw",
+            "true", "try", "typeof", "var", "void", "while", "with", "yield");
+
+    private final Map<String, Object> values;
+    private final ExpressionBindings parent;
+    private List<String> parameterNames;
+
+    private ExpressionBindings(Map<String, Object> values, ExpressionBindings parent) {
+        this.values = values;
+        this.parent = parent;
+    }
+
+    /**
+     * 空绑定
+     */
+    public static ExpressionBindings empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 由变量表创建绑定
+     */
+    public static ExpressionBindings of(Map<String, ?> values) {
+        if (values == null || values.isEmpty()) {
+            return EMPTY;
+        }
+        return new ExpressionBindings(Collections.unmodifiableMap(new HashMap<>(values)), null);
+    }
+
+    /**
+     * 在当前绑定之上叠加一个变量，同名变量覆盖当前绑定中的值
+     */
+    public ExpressionBindings with(String name, Object value) {
+        return new ExpressionBindings(Collections.singletonMap(name, value), this);
+    }
+
+    /**
+     * 作为函数参数传入的变量名，按字典序排列
+     */
+    List<String> parameterNames() {
+        List<String> names = parameterNames;
+        if (names == null) {
+            Set<String> sorted = new TreeSet<>();
+            for (ExpressionBindings bindings = this; bindings != null; bindings = bindings.parent) {
+                for (String key : bindings.values.keySet()) {
+                    if (IDENTIFIER.matcher(key).matches() && !RESERVED.contains(key)) {
+                        sorted.add(key);
+                    }
+                }
+            }
+            names = List.copyOf(sorted);
+            parameterNames = names;
+        }
+        return names;
+    }
+
+    @Override
+    public Object getMember(String key) {
+        for (ExpressionBindings bindings = this; bindings != null; bindings = bindings.parent) {
+            if (bindings.values.containsKey(key)) {
+                return GuestValues.toGuest(bindings.values.get(key));
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Object getMemberKeys() {
+        Set<String> keys = new LinkedHashSet<>();
+        for (ExpressionBindings bindings = this; bindings != null; bindings = bindings.parent) {
+            keys.addAll(bindings.values.keySet());
+        }
+        return keys.toArray();
+    }
+
+    @Override
+    public boolean hasMember(String key) {
+        for (ExpressionBindings bindings = this; bindings != null; bindings = bindings.parent) {
+            if (bindings.values.containsKey(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void putMember(String key, Value value) {
+        throw new UnsupportedOperationException("表达式绑定变量是只读的: " + key);
+    }
+
+    @Override
+    public boolean removeMember(String key) {
+        throw new UnsupportedOperationException("表达式绑定变量是只读的: " + key);
+    }
+}
@@ -0,0 +1,312 @@
+package com.cloud.baseai.infrastructure.flow.expression;
+
+import com.cloud.baseai.infrastructure.config.properties.FlowProperties;
+import com.cloud.baseai.infrastructure.exception.ErrorCode;
+import com.cloud.baseai.infrastructure.exception.FlowOrchestrationException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import jakarta.annotation.PreDestroy;
+import org.graalvm.polyglot.*;
+import org.graalvm.polyglot.proxy.ProxyExecutable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * <h2>流程表达式引擎</h2>
+ *
+ * <p>为条件、循环、过滤和脚本节点提供JavaScript表达式求值，基于GraalJS多语言引擎：</p>
+ * <ul>
+ * <li><b>编译一次：</b>表达式按文本缓存为{@link CompiledExpression}，同一快照的所有运行共享，
+ * 解析结果由共享的{@link Engine}缓存，不会因为换了线程或上下文而重新解析</li>
+ * <li><b>并发安全：</b>脚本上下文不能被多个线程同时使用，这里用上下文池保证每个会话独占一个上下文，
+ * 变量通过只读的{@link ExpressionBindings}传入，不再向共享引擎写全局变量</li>
+ * <li><b>真实超时：</b>每个{@link ExpressionSession}都有截止时间，到期后由看门狗取消正在执行的脚本，
+ * 而不是执行完再比较耗时</li>
+ * </ul>
+ *
+ * <p>脚本上下文不允许访问Java类、文件和网络，{@code utils.log}通过应用日志输出。
+ * 上下文在池中跨运行、跨租户复用，因此创建后冻结全局对象及所有内置对象：表达式以严格模式执行，
+ * 无法新增或修改全局变量、覆盖{@code utils}或篡改内置原型，一次运行的状态不会被下一次运行看到。</p>
+ */
+@Component
+public class ExpressionEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpressionEngine.class);
+
+    private static final String LANGUAGE = "js";
+
+    private static final String UTILS_SOURCE = """
+            var utils = {
+                log: function(message) {
+                    __log(String(message));
+                },
+                isString: function(obj) {
+                    return typeof obj === 'string';
+                },
+                isNumber: function(obj) {
+                    return typeof obj === 'number';
+                },
+                isArray: function(obj) {
+                    return Array.isArray(obj);
+                },
+                isEmpty: function(obj) {
+                    return obj == null || obj === '' ||
+                           (Array.isArray(obj) && obj.length === 0) ||
+                           (typeof obj === 'object' && Object.keys(obj).length === 0);
+                }
+            };
+            """;
+
+    /**
+     * 冻结全局对象以及从它可达的所有对象和原型
+     */
+    private static final String FREEZE_GLOBALS_SOURCE = """
+            (function() {
+                'use strict';
+                var seen = new Set();
+                var freeze = function(value) {
+                    if (value === null || (typeof value !== 'object' && typeof value !== 'function') || seen.has(value)) {
+                        return;
+                    }
+                    seen.add(value);
+                    var keys;
+                    try {
+                        Object.freeze(value);
+                        keys = Reflect.ownKeys(value);
+                    } catch (e) {
+                        // 宿主对象（如__log）不支持冻结和反射，本身也不可写
+                        return;
+                    }
+                    keys.forEach(function(key) {
+                        var descriptor = Reflect.getOwnPropertyDescriptor(value, key);
+                        if (descriptor && 'value' in descriptor) {
+                            freeze(descriptor.value);
+                        }
+                    });
+                    freeze(Object.getPrototypeOf(value));
+                };
+                freeze(globalThis);
+            })();
+            """;
+
+    private final FlowProperties.ExpressionProperties properties;
+    private final Engine engine;
+    private final Cache<ExpressionKey, CompiledExpression> expressions;
+    private final BlockingQueue<PooledContext> idleContexts;
+    private final ScheduledExecutorService watchdog;
+
+    public ExpressionEngine(FlowProperties flowProperties) {
+        this.properties = flowProperties.getExpression();
+        this.engine = createEngine();
+        this.expressions = CacheBuilder.newBuilder()
+                .maximumSize(properties.getCacheSize())
+                .recordStats()
+                .build();
+        this.idleContexts = new ArrayBlockingQueue<>(Math.max(1, properties.getContextPoolSize()));
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "flow-expression-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 脚本引擎是否可用
+     */
+    public boolean isAvailable() {
+        return engine != null;
+    }
+
+    /**
+     * 编译表达式，相同文本只编译一次
+     *
+     * @param kind 表达式类型
+     * @param text 表达式文本
+     * @return 编译后的表达式
+     * @throws FlowOrchestrationException 引擎不可用或表达式存在语法错误时抛出
+     */
+    public CompiledExpression compile(CompiledExpression.Kind kind, String text) {
+        requireAvailable();
+        try {
+            return expressions.get(new ExpressionKey(kind, text), () -> doCompile(kind, text));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof FlowOrchestrationException flowException) {
+                throw flowException;
+            }
+            throw new FlowOrchestrationException(ErrorCode.BIZ_FLOW_079, e.getCause(), text);
+        }
+    }
+
+    /**
+     * 打开使用默认超时时间的求值会话
+     */
+    public ExpressionSession openSession() {
+        return openSession(Duration.ofMillis(properties.getEvaluationTimeoutMs()));
+    }
+
+    /**
+     * 打开求值会话
+     *
+     * @param timeout 会话内所有求值的总时长上限
+     */
+    public ExpressionSession openSession(Duration timeout) {
+        requireAvailable();
+        return new ExpressionSession(this, borrow(), Math.max(1L, timeout.toMillis()));
+    }
+
+    /**
+     * 已缓存的表达式数量
+     */
+    public long cachedExpressionCount() {
+        return expressions.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        PooledContext pooled;
+        while ((pooled = idleContexts.poll()) != null) {
+            pooled.close();
+        }
+        if (engine != null) {
+            engine.close();
+        }
+    }
+
+    // =================== 包内方法 ===================
+
+    ScheduledFuture<?> scheduleWatchdog(Runnable task, long timeoutMs) {
+        return watchdog.schedule(task, timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 归还上下文，已被取消的上下文直接关闭
+     */
+    void release(PooledContext pooled, boolean reusable) {
+        if (!reusable || !idleContexts.offer(pooled)) {
+            pooled.close();
+        }
+    }
+
+    // =================== 私有方法 ===================
+
+    private CompiledExpression doCompile(CompiledExpression.Kind kind, String text) {
+        if (text == null || text.isBlank()) {
+            throw new FlowOrchestrationException(ErrorCode.BIZ_FLOW_079, String.valueOf(text));
+        }
+
+        CompiledExpression expression = new CompiledExpression(kind, text);
+        PooledContext pooled = borrow();
+        try {
+            // 只解析不执行，语法错误（包括严格模式下的语法错误）在编译阶段暴露
+            pooled.context.parse(expression.source(List.of()));
+        } catch (PolyglotException e) {
+            throw new FlowOrchestrationException(ErrorCode.BIZ_FLOW_079, e, e.getMessage());
+        } finally {
+            release(pooled, true);
+        }
+
+        log.debug("表达式编译完成: kind={}, length={}", kind, text.length());
+        return expression;
+    }
+
+    private PooledContext borrow() {
+        PooledContext pooled = idleContexts.poll();
+        return pooled != null ? pooled : new PooledContext(createContext());
+    }
+
+    private Context createContext() {
+        Context context = Context.newBuilder(LANGUAGE)
+                .engine(engine)
+                .allowHostAccess(HostAccess.NONE)
+                .allowHostClassLookup(className -> false)
+                .build();
+        context.getBindings(LANGUAGE).putMember("__log",
+                (ProxyExecutable) arguments -> {
+                    log.info("[SCRIPT] {}", arguments.length > 0 ? arguments[0].asString() : "");
+                    return null;
+                });
+        context.eval(LANGUAGE, UTILS_SOURCE);
+        context.eval(LANGUAGE, FREEZE_GLOBALS_SOURCE);
+        return context;
+    }
+
+    private void requireAvailable() {
+        if (engine == null) {
+            throw new FlowOrchestrationException(ErrorCode.BIZ_FLOW_079, "JavaScript引擎不可用");
+        }
+    }
+
+    private static Engine createEngine() {
+        try {
+            return Engine.newBuilder(LANGUAGE)
+                    .option("engine.WarnInterpreterOnly", "false")
+                    .build();
+        } catch (Exception | LinkageError e) {
+            log.warn("JavaScript引擎不可用，表达式功能将受限: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private record ExpressionKey(CompiledExpression.Kind kind, String text) {
+    }
+
+    private record FunctionKey(CompiledExpression expression, List<String> parameters) {
+    }
+
+    /**
+     * 池化的脚本上下文
+     *
+     * <p>同时缓存表达式在该上下文中实例化出的函数（按表达式和绑定变量名区分），按最近使用淘汰。</p>
+     */
+    final class PooledContext {
+
+        private final Context context;
+        private final Map<FunctionKey, Value> functions;
+
+        private PooledContext(Context context) {
+            this.context = context;
+            int maxFunctions = Math.max(16, properties.getCacheSize());
+            this.functions = new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<FunctionKey, Value> eldest) {
+                    return size() > maxFunctions;
+                }
+            };
+        }
+
+        Value function(CompiledExpression expression, List<String> parameters) {
+            FunctionKey key = new FunctionKey(expression, parameters);
+            Value function = functions.get(key);
+            if (function == null) {
+                function = context.eval(expression.source(parameters));
+                functions.put(key, function);
+            }
+            return function;
+        }
+
+        void cancel() {
+            try {
+                context.close(true);
+            } catch (Exception e) {
+                log.debug("取消脚本执行时关闭上下文失败: {}", e.getMessage());
+            }
+        }
+
+        void close() {
+            try {
+                context.close();
+            } catch (Exception e) {
+                log.debug("关闭脚本上下文失败: {}", e.getMessage());
+            }
+        }
+    }
+}
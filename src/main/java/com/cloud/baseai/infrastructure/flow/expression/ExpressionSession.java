@@ -0,0 +1,80 @@
+package com.cloud.baseai.infrastructure.flow.expression;
+
+import com.cloud.baseai.infrastructure.exception.ErrorCode;
+import com.cloud.baseai.infrastructure.exception.FlowOrchestrationException;
+import org.graalvm.polyglot.PolyglotException;
+
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * <h2>表达式求值会话</h2>
+ *
+ * <p>会话独占一个池化的脚本上下文，并在打开时设定截止时间。会话内可以连续求值任意多次，
+ * 例如过滤节点对整个列表逐条求值；超过截止时间时看门狗会强制取消正在执行的脚本，
+ * 求值方法随即抛出超时异常，死循环脚本也无法继续占用线程。</p>
+ *
+ * <p>会话不是线程安全的，只能在打开它的线程中使用，用完必须关闭以归还上下文。</p>
+ */
+public final class ExpressionSession implements AutoCloseable {
+
+    private final ExpressionEngine engine;
+    private final ExpressionEngine.PooledContext pooled;
+    private final long timeoutMs;
+    private final ScheduledFuture<?> watchdog;
+    private volatile boolean timedOut;
+
+    ExpressionSession(ExpressionEngine engine, ExpressionEngine.PooledContext pooled, long timeoutMs) {
+        this.engine = engine;
+        this.pooled = pooled;
+        this.timeoutMs = timeoutMs;
+        this.watchdog = engine.scheduleWatchdog(this::cancel, timeoutMs);
+    }
+
+    /**
+     * 求值并返回转换后的Java对象
+     *
+     * @throws FlowOrchestrationException 超时时抛出
+     * @throws IllegalStateException      脚本执行出错时抛出
+     */
+    public Object evaluate(CompiledExpression expression, ExpressionBindings bindings) {
+        try {
+            List<String> names = bindings.parameterNames();
+            Object[] arguments = new Object[names.size() + 1];
+            arguments[0] = bindings;
+            for (int i = 0; i < names.size(); i++) {
+                arguments[i + 1] = bindings.getMember(names.get(i));
+            }
+            return GuestValues.toHost(pooled.function(expression, names).execute(arguments));
+        } catch (PolyglotException e) {
+            if (timedOut || e.isCancelled()) {
+                throw new FlowOrchestrationException(ErrorCode.BIZ_FLOW_078, timeoutMs);
+            }
+            throw new IllegalStateException("表达式执行失败: " + e.getMessage(), e);
+        } catch (IllegalStateException e) {
+            if (timedOut) {
+                throw new FlowOrchestrationException(ErrorCode.BIZ_FLOW_078, timeoutMs);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 求值条件表达式，只有结果为布尔值true时返回true
+     */
+    public boolean test(CompiledExpression expression, ExpressionBindings bindings) {
+        return Boolean.TRUE.equals(evaluate(expression, bindings));
+    }
+
+    @Override
+    public void close() {
+        // 看门狗已经触发（或正在触发）时上下文会被关闭，不能再放回池中
+        boolean finishedInTime = watchdog.cancel(false) && !timedOut;
+        engine.release(pooled, finishedInTime);
+    }
+
+    private void cancel() {
+        timedOut = true;
+        pooled.cancel();
+    }
+}
@@ -0,0 +1,174 @@
+package com.cloud.baseai.infrastructure.flow.expression;
+
+import org.graalvm.polyglot.Value;
+import org.graalvm.polyglot.proxy.ProxyArray;
+import org.graalvm.polyglot.proxy.ProxyObject;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * <h2>表达式值转换</h2>
+ *
+ * <p>Java对象传入脚本时包装为只读代理，脚本可以用{@code item.price}这样的属性语法访问Map；
+ * 脚本返回值在离开求值会话前深度复制为普通Java对象，避免结果引用已归还到池中的上下文。</p>
+ */
+final class GuestValues {
+
+    private GuestValues() {
+    }
+
+    /**
+     * Java值转换为脚本可见的值
+     */
+    static Object toGuest(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean
+                || value instanceof Character || value instanceof ProxyObject || value instanceof ProxyArray) {
+            return value;
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Double
+                || value instanceof Float || value instanceof Short || value instanceof Byte) {
+            return value;
+        }
+        if (value instanceof BigDecimal || value instanceof BigInteger) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof Map<?, ?> map) {
+            return new ReadOnlyMapProxy(map);
+        }
+        if (value instanceof List<?> list) {
+            return new ReadOnlyListProxy(list);
+        }
+        if (value instanceof Object[] array) {
+            return new ReadOnlyListProxy(Arrays.asList(array));
+        }
+        if (value instanceof Enum<?> enumValue) {
+            return enumValue.name();
+        }
+        return String.valueOf(value);
+    }
+
+    /**
+     * 脚本返回值转换为Java值
+     */
+    static Object toHost(Value value) {
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        if (value.isBoolean()) {
+            return value.asBoolean();
+        }
+        if (value.isString()) {
+            return value.asString();
+        }
+        if (value.isNumber()) {
+            if (value.fitsInInt()) {
+                return value.asInt();
+            }
+            if (value.fitsInLong()) {
+                return value.asLong();
+            }
+            return value.asDouble();
+        }
+        if (value.isProxyObject()) {
+            Object proxy = value.asProxyObject();
+            if (proxy instanceof ReadOnlyMapProxy mapProxy) {
+                return mapProxy.map;
+            }
+            if (proxy instanceof ReadOnlyListProxy listProxy) {
+                return listProxy.list;
+            }
+        }
+        if (value.hasArrayElements()) {
+            List<Object> list = new ArrayList<>((int) value.getArraySize());
+            for (long i = 0; i < value.getArraySize(); i++) {
+                list.add(toHost(value.getArrayElement(i)));
+            }
+            return list;
+        }
+        if (value.canExecute()) {
+            return null;
+        }
+        if (value.hasMembers() && !value.isHostObject()) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (String key : value.getMemberKeys()) {
+                Value member = value.getMember(key);
+                if (member != null && !member.canExecute()) {
+                    map.put(key, toHost(member));
+                }
+            }
+            return map;
+        }
+        return value.toString();
+    }
+
+    /**
+     * 只读Map代理
+     */
+    private static final class ReadOnlyMapProxy implements ProxyObject {
+
+        private final Map<?, ?> map;
+
+        private ReadOnlyMapProxy(Map<?, ?> map) {
+            this.map = map;
+        }
+
+        @Override
+        public Object getMember(String key) {
+            return toGuest(map.get(key));
+        }
+
+        @Override
+        public Object getMemberKeys() {
+            return map.keySet().stream().map(String::valueOf).toArray();
+        }
+
+        @Override
+        public boolean hasMember(String key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public void putMember(String key, Value value) {
+            throw new UnsupportedOperationException("表达式中的对象是只读的: " + key);
+        }
+
+        @Override
+        public boolean removeMember(String key) {
+            throw new UnsupportedOperationException("表达式中的对象是只读的: " + key);
+        }
+    }
+
+    /**
+     * 只读List代理
+     */
+    private static final class ReadOnlyListProxy implements ProxyArray {
+
+        private final List<?> list;
+
+        private ReadOnlyListProxy(List<?> list) {
+            this.list = list;
+        }
+
+        @Override
+        public Object get(long index) {
+            return toGuest(list.get((int) index));
+        }
+
+        @Override
+        public void set(long index, Value value) {
+            throw new UnsupportedOperationException("表达式中的数组是只读的");
+        }
+
+        @Override
+        public boolean remove(long index) {
+            throw new UnsupportedOperationException("表达式中的数组是只读的");
+        }
+
+        @Override
+        public long getSize() {
+            return list.size();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.cloud.baseai.infrastructure.flow.model;
+
+import com.cloud.baseai.domain.flow.model.FlowSnapshot;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * <h2>编译后的流程执行计划</h2>
+ *
+ * <p>由流程快照一次性编译而来的不可变执行结构，执行期间不再读取快照JSON。
+ * 节点按执行计划顺序编号，依赖关系以整型邻接数组表示，节点配置和重试策略预先解析。</p>
+ *
+ * <p>同一快照的计划在所有运行之间共享，因此其中的任何数据都不能在执行期间修改。</p>
+ */
+public final class CompiledFlowPlan {
+
+    private static final Logger log = LoggerFactory.getLogger(CompiledFlowPlan.class);
+
+    private static final int[] NO_NODES = new int[0];
+
+    private final FlowSnapshot snapshot;
+    private final String[] nodeKeys;
+    private final Map<String, Integer> indexes;
+    private final NodeExecutionInfo[] nodes;
+    private final int[] maxRetries;
+    private final int[][] upstreams;
+    private final int[][] downstreams;
+    private final boolean[] missingUpstream;
+
+    private CompiledFlowPlan(FlowSnapshot snapshot, String[] nodeKeys, Map<String, Integer> indexes,
+                             NodeExecutionInfo[] nodes, int[] maxRetries, int[][] upstreams,
+                             int[][] downstreams, boolean[] missingUpstream) {
+        this.snapshot = snapshot;
+        this.nodeKeys = nodeKeys;
+        this.indexes = indexes;
+        this.nodes = nodes;
+        this.maxRetries = maxRetries;
+        this.upstreams = upstreams;
+        this.downstreams = downstreams;
+        this.missingUpstream = missingUpstream;
+    }
+
+    /**
+     * 编译流程快照
+     *
+     * <p>执行计划中的节点依次编号为0..n-1。依赖中引用了计划之外节点的节点会被标记，
+     * 执行时直接跳过，与按计划顺序执行时的语义一致。</p>
+     *
+     * @param snapshot     流程快照
+     * @param objectMapper 用于解析节点配置和重试策略
+     * @return 编译后的执行计划
+     * @throws FlowSnapshot.FlowSnapshotParseException 当快照JSON无法解析时抛出
+     */
+    public static CompiledFlowPlan compile(FlowSnapshot snapshot, ObjectMapper objectMapper) {
+        List<String> executionPlan = snapshot.getExecutionPlan();
+        Map<String, List<String>> dependencyGraph = snapshot.getDependencyGraph();
+        Map<String, NodeExecutionInfo> snapshotNodes = snapshot.getNodes();
+
+        int size = executionPlan.size();
+        String[] nodeKeys = executionPlan.toArray(new String[0]);
+        Map<String, Integer> indexes = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            indexes.put(nodeKeys[i], i);
+        }
+
+        NodeExecutionInfo[] nodes = new NodeExecutionInfo[size];
+        int[] maxRetries = new int[size];
+        int[][] upstreams = new int[size][];
+        boolean[] missingUpstream = new boolean[size];
+        List<List<Integer>> downstreamLists = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            downstreamLists.add(new ArrayList<>());
+        }
+
+        for (int i = 0; i < size; i++) {
+            NodeExecutionInfo info = snapshotNodes.get(nodeKeys[i]);
+            if (info != null) {
+                nodes[i] = info.withConfig(parseConfig(info, objectMapper));
+                maxRetries[i] = parseMaxRetries(info, objectMapper);
+            }
+
+            List<String> dependencies = dependencyGraph.getOrDefault(nodeKeys[i], List.of());
+            List<Integer> planned = new ArrayList<>(dependencies.size());
+            for (String dependency : dependencies) {
+                Integer upstream = indexes.get(dependency);
+                if (upstream == null) {
+                    missingUpstream[i] = true;
+                } else {
+                    planned.add(upstream);
+                    downstreamLists.get(upstream).add(i);
+                }
+            }
+            upstreams[i] = toArray(planned);
+        }
+
+        int[][] downstreams = new int[size][];
+        for (int i = 0; i < size; i++) {
+            downstreams[i] = toArray(downstreamLists.get(i));
+        }
+
+        log.debug("流程计划编译完成: snapshotId={}, nodeCount={}", snapshot.id(), size);
+        return new CompiledFlowPlan(snapshot, nodeKeys, Map.copyOf(indexes), nodes, maxRetries,
+                upstreams, downstreams, missingUpstream);
+    }
+
+    /**
+     * 源快照
+     */
+    public FlowSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 节点数量
+     */
+    public int size() {
+        return nodeKeys.length;
+    }
+
+    /**
+     * 节点标识符
+     */
+    public String nodeKey(int index) {
+        return nodeKeys[index];
+    }
+
+    /**
+     * 节点编号，节点不在计划中时返回-1
+     */
+    public int indexOf(String nodeKey) {
+        Integer index = nodeKey != null ? indexes.get(nodeKey) : null;
+        return index != null ? index : -1;
+    }
+
+    /**
+     * 检查是否包含指定节点
+     */
+    public boolean containsNode(String nodeKey) {
+        return nodeKey != null && indexes.containsKey(nodeKey);
+    }
+
+    /**
+     * 节点执行信息（配置已预先解析），快照中缺少该节点时返回null
+     */
+    public NodeExecutionInfo node(int index) {
+        return nodes[index];
+    }
+
+    /**
+     * 节点的最大重试次数，未配置重试策略时为0
+     */
+    public int maxRetries(int index) {
+        return maxRetries[index];
+    }
+
+    /**
+     * 计划内的上游节点编号
+     */
+    public int[] upstreams(int index) {
+        return upstreams[index];
+    }
+
+    /**
+     * 计划内的下游节点编号
+     */
+    public int[] downstreams(int index) {
+        return downstreams[index];
+    }
+
+    /**
+     * 节点是否依赖了计划之外的节点
+     */
+    public boolean hasMissingUpstream(int index) {
+        return missingUpstream[index];
+    }
+
+    // =================== 私有方法 ===================
+
+    private static Map<String, Object> parseConfig(NodeExecutionInfo info, ObjectMapper objectMapper) {
+        if (!info.hasConfig()) {
+            return Map.of();
+        }
+        try {
+            Map<String, Object> config = objectMapper.readValue(info.configJson(),
+                    new TypeReference<Map<String, Object>>() {
+                    });
+            return Collections.unmodifiableMap(config);
+        } catch (Exception e) {
+            // 与执行器的解析行为保持一致：配置无效时交给执行器按原JSON处理
+            log.warn("节点配置预解析失败: nodeKey={}, error={}", info.nodeKey(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static int parseMaxRetries(NodeExecutionInfo info, ObjectMapper objectMapper) {
+        if (!info.hasRetryPolicy()) {
+            return 0;
+        }
+        try {
+            Map<String, Object> retryPolicy = objectMapper.readValue(info.retryPolicyJson(),
+                    new TypeReference<Map<String, Object>>() {
+                    });
+            return retryPolicy.get("maxRetries") instanceof Number number ? Math.max(0, number.intValue()) : 0;
+        } catch (Exception e) {
+            log.warn("解析重试策略失败: nodeKey={}", info.nodeKey(), e);
+            return 0;
+        }
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        if (values.isEmpty()) {
+            return NO_NODES;
+        }
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,202 @@
+package com.cloud.baseai.infrastructure.flow.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * <h2>分块数据流</h2>
+ *
+ * <p>数据节点在流式模式下交换的惰性数据序列。数据流只描述"如何产生数据"，
+ * 每次遍历时才从源头按块拉取，每个处理阶段同一时刻最多缓冲一块（{@link #chunkSize()}条）数据，
+ * 因此一个大文本切分后再过滤，整条链路上不会出现完整的中间列表。</p>
+ *
+ * <p>数据流可以重复遍历，每次遍历都会重新从源头计算。多个下游节点消费同一个数据流时，
+ * 用重复计算换取内存上限。序列化为JSON时逐条写出，同样不会先物化为列表。</p>
+ */
+@JsonSerialize(using = DataStream.Serializer.class)
+public final class DataStream implements Iterable<Object> {
+
+    private final Supplier<Iterator<List<Object>>> chunks;
+    private final int chunkSize;
+    private final String description;
+
+    private DataStream(Supplier<Iterator<List<Object>>> chunks, int chunkSize, String description) {
+        this.chunks = chunks;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.description = description;
+    }
+
+    /**
+     * 以分块视图包装已有列表，不复制数据
+     */
+    public static DataStream of(List<?> items, int chunkSize) {
+        int size = Math.max(1, chunkSize);
+        return new DataStream(() -> new Iterator<>() {
+            private int offset;
+
+            @Override
+            public boolean hasNext() {
+                return offset < items.size();
+            }
+
+            @Override
+            public List<Object> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int end = Math.min(offset + size, items.size());
+                List<Object> chunk = Collections.unmodifiableList(items.subList(offset, end));
+                offset = end;
+                return chunk;
+            }
+        }, size, "list(" + items.size() + ")");
+    }
+
+    /**
+     * 由惰性元素迭代器创建数据流，每次遍历都会调用一次supplier
+     */
+    public static DataStream fromIterator(Supplier<? extends Iterator<?>> items, int chunkSize, String description) {
+        int size = Math.max(1, chunkSize);
+        return new DataStream(() -> new ChunkingIterator(items.get(), size), size, description);
+    }
+
+    /**
+     * 将节点输入中的列表或数据流统一转换为数据流
+     *
+     * @throws IllegalArgumentException 当来源既不是列表也不是数据流时抛出
+     */
+    public static DataStream from(Object source, int chunkSize) {
+        if (source instanceof DataStream stream) {
+            return stream;
+        }
+        if (source instanceof List<?> list) {
+            return of(list, chunkSize);
+        }
+        throw new IllegalArgumentException("数据源必须是数组或数据流: "
+                + (source == null ? "null" : source.getClass().getSimpleName()));
+    }
+
+    /**
+     * 依次连接多个数据流
+     */
+    public static DataStream concat(List<DataStream> streams, int chunkSize) {
+        List<DataStream> parts = List.copyOf(streams);
+        StringJoiner description = new StringJoiner(", ", "concat(", ")");
+        parts.forEach(part -> description.add(part.description));
+        return new DataStream(() -> parts.stream()
+                .flatMap(part -> iteratorStream(part.chunkIterator()))
+                .iterator(), chunkSize, description.toString());
+    }
+
+    /**
+     * 逐块变换，返回新的惰性数据流
+     *
+     * @param chunkOperator 对一块数据的变换，返回的块可以比输入小（例如过滤）
+     * @param stage         阶段描述，用于日志和监控
+     */
+    public DataStream mapChunks(UnaryOperator<List<Object>> chunkOperator, String stage) {
+        return new DataStream(() -> iteratorStream(chunkIterator())
+                .map(chunkOperator)
+                .filter(chunk -> !chunk.isEmpty())
+                .iterator(), chunkSize, stage + "(" + description + ")");
+    }
+
+    /**
+     * 按块遍历
+     */
+    public Iterator<List<Object>> chunkIterator() {
+        return chunks.get();
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        return iteratorStream(chunkIterator()).flatMap(List::stream).iterator();
+    }
+
+    /**
+     * 物化为列表，只应在下游确实需要完整列表时调用
+     */
+    public List<Object> toList() {
+        List<Object> items = new ArrayList<>();
+        chunkIterator().forEachRemaining(items::addAll);
+        return items;
+    }
+
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * 数据流的来源和处理阶段描述
+     */
+    public String describe() {
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return "DataStream[" + description + ", chunkSize=" + chunkSize + "]";
+    }
+
+    private static <T> java.util.stream.Stream<T> iteratorStream(Iterator<T> iterator) {
+        return java.util.stream.StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+    }
+
+    /**
+     * 将元素迭代器按块分组
+     */
+    private static final class ChunkingIterator implements Iterator<List<Object>> {
+
+        private final Iterator<?> items;
+        private final int chunkSize;
+
+        private ChunkingIterator(Iterator<?> items, int chunkSize) {
+            this.items = items;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return items.hasNext();
+        }
+
+        @Override
+        public List<Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            List<Object> chunk = new ArrayList<>(chunkSize);
+            while (chunk.size() < chunkSize && items.hasNext()) {
+                chunk.add(items.next());
+            }
+            return chunk;
+        }
+    }
+
+    /**
+     * 逐条写出JSON数组
+     */
+    static final class Serializer extends JsonSerializer<DataStream> {
+
+        @Override
+        public void serialize(DataStream stream, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeStartArray();
+            Iterator<List<Object>> chunks = stream.chunkIterator();
+            while (chunks.hasNext()) {
+                for (Object item : chunks.next()) {
+                    provider.defaultSerializeValue(item, generator);
+                }
+            }
+            generator.writeEndArray();
+        }
+    }
+}
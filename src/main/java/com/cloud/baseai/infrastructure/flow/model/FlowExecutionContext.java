@@ -7,7 +7,9 @@ import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * <h2>增强的流程执行上下文</h2>
@@ -67,6 +69,32 @@ public class FlowExecutionContext {
      */
     private final Map<String, Map<String, Object>> nodeResults = new ConcurrentHashMap<>();
 
+    /**
+     * 已被所有下游消费并释放结果的节点
+     */
+    private final Set<String> releasedNodes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 节点结果的估算大小（字节）
+     */
+    private final Map<String, Long> resultSizes = new ConcurrentHashMap<>();
+
+    /**
+     * 当前保留的节点结果估算大小及其峰值（字节）
+     */
+    private final AtomicLong retainedResultBytes = new AtomicLong();
+    private final AtomicLong peakResultBytes = new AtomicLong();
+
+    /**
+     * 结果中含有惰性数据流的节点，数据流遍历时仍会读取上游节点的结果
+     */
+    private final Set<String> streamingNodes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 已释放但可能仍被数据流引用的结果估算大小（字节），继续计入保留大小
+     */
+    private long pinnedResultBytes;
+
     /**
      * 节点重试计数
      */
@@ -98,6 +126,11 @@ public class FlowExecutionContext {
      */
     private volatile FlowSnapshot snapshot;
 
+    /**
+     * 编译后的执行计划，与快照一一对应
+     */
+    private volatile CompiledFlowPlan plan;
+
     /**
      * 构造函数
      *
@@ -139,6 +172,41 @@ public class FlowExecutionContext {
                 snapshot.id(), snapshot.getNodeCount());
     }
 
+    /**
+     * 设置编译后的执行计划
+     *
+     * <p>同时设置计划对应的快照。计划已包含节点数量等信息，这里不会再解析快照JSON。</p>
+     *
+     * @param plan 执行计划
+     * @throws IllegalArgumentException 如果计划为null或快照不可用
+     */
+    public void setPlan(CompiledFlowPlan plan) {
+        if (plan == null) {
+            throw new IllegalArgumentException("执行计划不能为null");
+        }
+
+        if (!plan.snapshot().isAvailable()) {
+            throw new IllegalArgumentException("流程快照不可用: " + plan.snapshot().id());
+        }
+
+        this.snapshot = plan.snapshot();
+        this.plan = plan;
+        log.debug("设置执行计划: snapshotId={}, nodeCount={}", plan.snapshot().id(), plan.size());
+    }
+
+    /**
+     * 获取编译后的执行计划
+     *
+     * @return 执行计划
+     * @throws IllegalStateException 如果计划尚未设置
+     */
+    public CompiledFlowPlan getPlan() {
+        if (plan == null) {
+            throw new IllegalStateException("执行计划尚未设置");
+        }
+        return plan;
+    }
+
     /**
      * 获取流程快照
      *
@@ -170,6 +238,25 @@ public class FlowExecutionContext {
         return hasSnapshot() ? snapshot.getSummary() : null;
     }
 
+    /**
+     * 检查节点是否存在，优先使用执行计划，未设置快照时视为存在
+     */
+    private boolean containsNode(String nodeKey) {
+        CompiledFlowPlan currentPlan = plan;
+        if (currentPlan != null) {
+            return currentPlan.containsNode(nodeKey);
+        }
+        return !hasSnapshot() || snapshot.containsNode(nodeKey);
+    }
+
+    /**
+     * 获取节点总数，优先使用执行计划，避免重复解析快照
+     */
+    private int getTotalNodeCount() {
+        CompiledFlowPlan currentPlan = plan;
+        return currentPlan != null ? currentPlan.size() : snapshot.getNodeCount();
+    }
+
     // =================== 节点结果管理 ===================
 
     /**
@@ -188,13 +275,19 @@ public class FlowExecutionContext {
         }
 
         // 验证节点是否存在于快照中
-        if (hasSnapshot() && !snapshot.containsNode(nodeKey)) {
+        if (!containsNode(nodeKey)) {
             log.warn("尝试保存不存在节点的结果: nodeKey={}", nodeKey);
             // 这里选择警告而不是抛出异常，因为在某些测试场景下可能会出现这种情况
         }
 
         nodeResults.put(nodeKey, Map.copyOf(result));
         nodeStatus.put(nodeKey, NodeExecutionStatus.COMPLETED);
+        if (containsStream(result)) {
+            streamingNodes.add(nodeKey);
+        } else {
+            streamingNodes.remove(nodeKey);
+        }
+        trackResultSize(nodeKey, ResultSizeEstimator.estimate(result));
 
         log.debug("保存节点结果: nodeKey={}, 字段数={}", nodeKey, result.size());
     }
@@ -216,7 +309,45 @@ public class FlowExecutionContext {
      * @return 如果节点已执行则返回true
      */
     public boolean isNodeExecuted(String nodeKey) {
-        return nodeResults.containsKey(nodeKey);
+        return nodeResults.containsKey(nodeKey) || releasedNodes.contains(nodeKey);
+    }
+
+    /**
+     * 释放节点结果
+     *
+     * <p>节点的所有下游都执行完成后调用，结果不再被引用，可以被回收。
+     * 节点仍视为已执行，但{@link #getNodeResult(String)}不再返回其结果。</p>
+     *
+     * <p>下游输出的惰性数据流仍引用上游结果，上下文中还有数据流时，释放的结果实际不会被回收，
+     * 其大小继续计入内存估算，直到所有含数据流的结果也被释放。</p>
+     *
+     * @param nodeKey 节点标识符
+     * @return 结果存在并被释放时返回true
+     */
+    public synchronized boolean releaseNodeResult(String nodeKey) {
+        if (nodeKey == null || nodeResults.remove(nodeKey) == null) {
+            return false;
+        }
+        releasedNodes.add(nodeKey);
+        streamingNodes.remove(nodeKey);
+        Long size = resultSizes.remove(nodeKey);
+        long released = size != null ? size : 0L;
+        if (!streamingNodes.isEmpty()) {
+            pinnedResultBytes += released;
+            log.debug("释放节点结果，仍可能被数据流引用: nodeKey={}, 估算大小={}字节", nodeKey, size);
+            return true;
+        }
+        retainedResultBytes.addAndGet(-(released + pinnedResultBytes));
+        pinnedResultBytes = 0;
+        log.debug("释放节点结果: nodeKey={}, 估算大小={}字节", nodeKey, size);
+        return true;
+    }
+
+    /**
+     * 获取已释放结果的节点
+     */
+    public Set<String> getReleasedNodes() {
+        return Set.copyOf(releasedNodes);
     }
 
     /**
@@ -234,7 +365,7 @@ public class FlowExecutionContext {
      * @return 已执行的节点数量
      */
     public int getExecutedNodeCount() {
-        return nodeResults.size();
+        return nodeResults.size() + releasedNodes.size();
     }
 
     /**
@@ -247,7 +378,7 @@ public class FlowExecutionContext {
             return 0.0;
         }
 
-        int totalNodes = snapshot.getNodeCount();
+        int totalNodes = getTotalNodeCount();
         int executedNodes = getExecutedNodeCount();
 
         return totalNodes > 0 ? (double) executedNodes / totalNodes : 0.0;
@@ -466,7 +597,7 @@ public class FlowExecutionContext {
      */
     public ExecutionSummary generateSummary() {
         long totalTime = getTotalExecutionTime();
-        int totalNodes = hasSnapshot() ? snapshot.getNodeCount() : nodeStatus.size();
+        int totalNodes = hasSnapshot() ? getTotalNodeCount() : nodeStatus.size();
         int completedNodes = (int) getNodeCountByStatus(NodeExecutionStatus.COMPLETED);
         int failedNodes = (int) getNodeCountByStatus(NodeExecutionStatus.FAILED);
         int retryingNodes = (int) getNodeCountByStatus(NodeExecutionStatus.RETRYING);
@@ -482,7 +613,8 @@ public class FlowExecutionContext {
                 getTotalRetryCount(),
                 globalVariables.size(),
                 getExecutionProgress(),
-                getAverageNodeExecutionTime()
+                getAverageNodeExecutionTime(),
+                getPeakMemoryUsage()
         );
     }
 
@@ -520,6 +652,7 @@ public class FlowExecutionContext {
         }
 
         report.append("平均节点耗时: ").append(String.format("%.1f", execSummary.averageNodeExecutionTime())).append("ms\n");
+        report.append("峰值内存估算: ").append(execSummary.peakMemoryUsage()).append("字节\n");
 
         return report.toString();
     }
@@ -527,18 +660,53 @@ public class FlowExecutionContext {
     /**
      * 获取内存使用情况
      *
-     * @return 上下文对象占用的大概内存大小（字节）
+     * <p>节点结果按内容估算（数据流只计算自身，不遍历其内容），已释放的结果不再计入。</p>
+     *
+     * @return 上下文对象当前占用的大概内存大小（字节）
      */
     public long getMemoryUsage() {
-        // 简化的内存使用估算
+        return retainedResultBytes.get() + getBookkeepingSize();
+    }
+
+    /**
+     * 获取本次运行的峰值内存使用
+     *
+     * @return 运行期间上下文占用内存的估算峰值（字节）
+     */
+    public long getPeakMemoryUsage() {
+        return Math.max(peakResultBytes.get() + getBookkeepingSize(), getMemoryUsage());
+    }
+
+    private long getBookkeepingSize() {
         long size = 0;
-        size += nodeResults.size() * 100L; // 假设每个结果平均100字节
         size += executionMetrics.size() * 16L; // 每个指标16字节
         size += globalVariables.size() * 50L; // 每个变量平均50字节
         size += nodeStatus.size() * 32L; // 每个状态32字节
         return size;
     }
 
+    /**
+     * 记录结果大小并更新峰值，重试覆盖旧结果时只计入差值
+     */
+    private void trackResultSize(String nodeKey, long size) {
+        Long previous = resultSizes.put(nodeKey, size);
+        long retained = retainedResultBytes.addAndGet(size - (previous != null ? previous : 0L));
+        peakResultBytes.accumulateAndGet(retained, Math::max);
+    }
+
+    /**
+     * 结果中是否含有惰性数据流，只检查字段值及嵌套的Map，不遍历列表
+     */
+    private static boolean containsStream(Map<?, ?> result) {
+        for (Object value : result.values()) {
+            if (value instanceof DataStream
+                    || value instanceof Map<?, ?> nested && containsStream(nested)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     // =================== 内部类和枚举 ===================
 
     /**
@@ -585,7 +753,8 @@ public class FlowExecutionContext {
             int totalRetries,
             int globalVariableCount,
             double executionProgress,
-            double averageNodeExecutionTime
+            double averageNodeExecutionTime,
+            long peakMemoryUsage
     ) {
         /**
          * 计算成功率
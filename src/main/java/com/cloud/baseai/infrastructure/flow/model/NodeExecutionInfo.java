@@ -20,7 +20,8 @@ public record NodeExecutionInfo(
         String name,
         String configJson,
         String retryPolicyJson,
-        Map<String, Object> executionContext
+        Map<String, Object> executionContext,
+        Map<String, Object> config
 ) {
 
     /**
@@ -34,10 +35,21 @@ public record NodeExecutionInfo(
                 node.name(),
                 node.configJson(),
                 node.retryPolicyJson(),
-                Map.of() // 基础上下文，可以后续扩展
+                Map.of(), // 基础上下文，可以后续扩展
+                null
         );
     }
 
+    /**
+     * 附加预先解析的节点配置
+     *
+     * <p>执行器优先使用该配置，为null时再解析configJson。</p>
+     */
+    public NodeExecutionInfo withConfig(Map<String, Object> parsedConfig) {
+        return new NodeExecutionInfo(nodeId, nodeTypeCode, nodeKey, name, configJson,
+                retryPolicyJson, executionContext, parsedConfig);
+    }
+
     /**
      * 检查节点是否有有效配置
      */
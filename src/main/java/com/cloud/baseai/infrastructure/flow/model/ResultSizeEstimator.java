@@ -0,0 +1,69 @@
+package com.cloud.baseai.infrastructure.flow.model;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * <h2>节点结果大小估算</h2>
+ *
+ * <p>按对象头、引用和字符数粗略估算节点结果在堆上的占用，用于运行级的内存统计。
+ * 大集合只遍历前{@value #SAMPLE_SIZE}个元素再按比例外推，数据流只计算自身而不遍历其内容，
+ * 估算本身不会触发惰性计算。</p>
+ */
+final class ResultSizeEstimator {
+
+    private static final int SAMPLE_SIZE = 64;
+    private static final int MAX_DEPTH = 16;
+
+    private static final long OBJECT_HEADER = 16;
+    private static final long REFERENCE = 8;
+    private static final long MAP_ENTRY = 32;
+
+    private ResultSizeEstimator() {
+    }
+
+    /**
+     * 估算对象占用的字节数
+     */
+    static long estimate(Object value) {
+        return estimate(value, 0);
+    }
+
+    private static long estimate(Object value, int depth) {
+        if (value == null) {
+            return 0;
+        }
+        if (depth >= MAX_DEPTH) {
+            return OBJECT_HEADER;
+        }
+        return switch (value) {
+            case CharSequence text -> OBJECT_HEADER + 24 + text.length() * 2L;
+            case Number ignored -> OBJECT_HEADER + 8;
+            case Boolean ignored -> OBJECT_HEADER;
+            case DataStream ignored -> OBJECT_HEADER * 4;
+            case byte[] bytes -> OBJECT_HEADER + bytes.length;
+            case Map<?, ?> map -> OBJECT_HEADER * 3
+                    + sampled(map.entrySet(), entry -> MAP_ENTRY
+                    + estimate(entry.getKey(), depth + 1) + estimate(entry.getValue(), depth + 1));
+            case Collection<?> collection -> OBJECT_HEADER * 2
+                    + sampled(collection, item -> REFERENCE + estimate(item, depth + 1));
+            default -> OBJECT_HEADER * 2;
+        };
+    }
+
+    private static <T> long sampled(Collection<T> items, java.util.function.ToLongFunction<T> sizer) {
+        int size = items.size();
+        if (size == 0) {
+            return 0;
+        }
+        long total = 0;
+        int counted = 0;
+        Iterator<T> iterator = items.iterator();
+        while (iterator.hasNext() && counted < SAMPLE_SIZE) {
+            total += sizer.applyAsLong(iterator.next());
+            counted++;
+        }
+        return counted < size ? total * size / counted : total;
+    }
+}
@@ -0,0 +1,210 @@
+package com.cloud.baseai.infrastructure.flow.service;
+
+import com.cloud.baseai.domain.flow.model.FlowSnapshot;
+import com.cloud.baseai.infrastructure.config.properties.FlowProperties;
+import com.cloud.baseai.infrastructure.flow.model.CompiledFlowPlan;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>流程执行计划缓存</h2>
+ *
+ * <p>按快照ID缓存编译后的执行计划，进程内所有运行共享。快照内容不可变，
+ * 因此缓存条目只会因容量淘汰、过期、流程重新发布或快照删除而失效。同一快照并发首次执行时只编译一次。</p>
+ *
+ * <p>发布和删除引起的失效在事务提交后通过Redis发布订阅通知所有节点；通知丢失时，
+ * 其他节点的条目最迟在缓存过期后重新加载快照。</p>
+ */
+@Component
+public class FlowPlanCache implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(FlowPlanCache.class);
+
+    static final String OP_SNAPSHOT = "SNAPSHOT";
+    static final String OP_DEFINITION = "DEFINITION";
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Long, CompiledFlowPlan> plans;
+    private final StringRedisTemplate redisTemplate;
+    private final byte[] channel;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * 创建仅在本节点生效的计划缓存
+     */
+    public FlowPlanCache(ObjectMapper objectMapper, FlowProperties flowProperties) {
+        this(objectMapper, flowProperties, null, null);
+    }
+
+    @Autowired
+    public FlowPlanCache(ObjectMapper objectMapper, FlowProperties flowProperties,
+                         StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer) {
+        FlowProperties.ExecutionProperties execution = flowProperties.getExecution();
+        this.objectMapper = objectMapper;
+        this.plans = CacheBuilder.newBuilder()
+                .maximumSize(execution.getPlanCacheSize())
+                .expireAfterWrite(execution.getPlanCacheTtlMinutes(), TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+        this.redisTemplate = redisTemplate;
+        this.channel = execution.getPlanInvalidationChannel().getBytes(StandardCharsets.UTF_8);
+        if (listenerContainer != null) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(execution.getPlanInvalidationChannel()));
+        }
+    }
+
+    /**
+     * 获取快照的执行计划，不存在时编译并缓存
+     *
+     * <p>没有ID的临时快照每次都会重新编译，不进入缓存。</p>
+     *
+     * @param snapshot 流程快照
+     * @return 编译后的执行计划
+     */
+    public CompiledFlowPlan get(FlowSnapshot snapshot) {
+        if (snapshot.id() == null) {
+            return CompiledFlowPlan.compile(snapshot, objectMapper);
+        }
+
+        try {
+            return plans.get(snapshot.id(), () -> CompiledFlowPlan.compile(snapshot, objectMapper));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new FlowSnapshot.FlowSnapshotParseException("流程计划编译失败", e.getCause());
+        }
+    }
+
+    /**
+     * 获取已缓存的执行计划
+     *
+     * @param snapshotId 快照ID
+     * @return 已缓存的执行计划，未缓存时为空
+     */
+    public Optional<CompiledFlowPlan> getIfPresent(Long snapshotId) {
+        return snapshotId != null ? Optional.ofNullable(plans.getIfPresent(snapshotId)) : Optional.empty();
+    }
+
+    /**
+     * 使指定快照的执行计划失效，并通知其他节点
+     *
+     * <p>在快照删除时调用。处于事务中时，提交后再次失效并发出通知，
+     * 避免其他节点在提交前重新加载到尚未删除的快照。</p>
+     */
+    public void invalidate(Long snapshotId) {
+        invalidate(List.of(snapshotId));
+    }
+
+    /**
+     * 使多个快照的执行计划失效，并通知其他节点
+     */
+    public void invalidate(Collection<Long> snapshotIds) {
+        if (snapshotIds.isEmpty()) {
+            return;
+        }
+        plans.invalidateAll(snapshotIds);
+        afterCommit(() -> {
+            plans.invalidateAll(snapshotIds);
+            for (Long snapshotId : snapshotIds) {
+                publish(OP_SNAPSHOT, snapshotId);
+            }
+        });
+    }
+
+    /**
+     * 使流程定义下所有快照的执行计划失效，并通知其他节点
+     *
+     * <p>在流程发布新快照时调用，旧版本的计划不会再被执行。</p>
+     */
+    public void invalidateDefinition(Long definitionId) {
+        removeDefinition(definitionId);
+        afterCommit(() -> {
+            removeDefinition(definitionId);
+            publish(OP_DEFINITION, definitionId);
+        });
+    }
+
+    /**
+     * 处理其他节点发布的失效通知
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 3);
+        if (parts.length < 3 || nodeId.equals(parts[1])) {
+            return;
+        }
+        try {
+            Long id = Long.valueOf(parts[2]);
+            if (OP_SNAPSHOT.equals(parts[0])) {
+                plans.invalidate(id);
+            } else if (OP_DEFINITION.equals(parts[0])) {
+                removeDefinition(id);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("忽略无效的流程计划失效通知: {}", parts[2]);
+        }
+    }
+
+    /**
+     * 缓存的计划数量
+     */
+    public long size() {
+        return plans.size();
+    }
+
+    // =================== 私有方法 ===================
+
+    private void removeDefinition(Long definitionId) {
+        plans.asMap().values().removeIf(plan -> definitionId.equals(plan.snapshot().definitionId()));
+        log.debug("流程计划缓存已失效: definitionId={}", definitionId);
+    }
+
+    private void publish(String op, Long id) {
+        if (redisTemplate == null) {
+            return;
+        }
+        byte[] body = String.join("\n", op, nodeId, String.valueOf(id)).getBytes(StandardCharsets.UTF_8);
+        try {
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, body));
+        } catch (Exception e) {
+            // 其他节点的计划最迟在缓存过期后重新加载
+            log.warn("发布流程计划失效通知失败: op={}, id={}, error={}", op, id, e.getMessage());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,507 @@
+package com.cloud.baseai.infrastructure.flow.service;
+
+import com.cloud.baseai.domain.flow.model.FlowRunLog;
+import com.cloud.baseai.domain.flow.repository.FlowRunLogRepository;
+import com.cloud.baseai.infrastructure.config.properties.FlowProperties;
+import com.cloud.baseai.infrastructure.flow.model.DataStream;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <h2>流程运行日志异步写入器</h2>
+ *
+ * <p>节点日志在入队时序列化为JSON并截断，进入有界缓冲区后由单个后台线程攒批，
+ * 通过批量JDBC写入，流程执行线程不等待数据库往返，缓冲区也不持有节点的完整输入输出。</p>
+ *
+ * <p><b>容量与取舍：</b></p>
+ * <p>缓冲区按条数和字节数双重限制，任一超限时丢弃最早的日志以保证内存有界；节点START/SUCCESS日志
+ * 可按比例采样，错误日志始终保留；单条日志超过长度上限时截断输入输出；默认不记录上游节点的完整输出，
+ * 避免链式流程中日志体积逐级累积。流式节点输出的{@link DataStream}只记录其描述，
+ * 写日志不会触发数据流的计算。</p>
+ *
+ * <p><b>运行结束时的刷新：</b></p>
+ * <p>按运行记录尚未写入的日志数，{@link #flush(Long, Duration)}只等待该运行的日志写入或被丢弃，
+ * 并唤醒后台线程立即写出当前批次，这样运行结束时该运行的日志已经可查询。</p>
+ */
+@Component
+public class FlowRunLogWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(FlowRunLogWriter.class);
+
+    private static final String UPSTREAM_OUTPUT_SUFFIX = "_output";
+
+    /**
+     * 每条日志除JSON字符串外的固定内存开销估算
+     */
+    private static final long ENTRY_OVERHEAD_BYTES = 160;
+
+    private final FlowRunLogRepository runLogRepo;
+    private final ObjectMapper objectMapper;
+    private final FlowProperties.RunLogProperties properties;
+    private final BlockingQueue<Entry> buffer;
+    private final AtomicLong bufferedBytes = new AtomicLong();
+    private final ConcurrentMap<Long, RunBacklog> runBacklogs = new ConcurrentHashMap<>();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private final Counter writtenCounter;
+    private final Counter droppedCounter;
+    private final Counter sampledOutCounter;
+    private final Counter failedCounter;
+
+    public FlowRunLogWriter(FlowRunLogRepository runLogRepo,
+                            ObjectMapper objectMapper,
+                            FlowProperties flowProperties,
+                            MeterRegistry meterRegistry) {
+        this.runLogRepo = runLogRepo;
+        this.objectMapper = objectMapper.copy().addMixIn(DataStream.class, DataStreamSummary.class);
+        this.properties = flowProperties.getRunLog();
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, properties.getBufferCapacity()));
+
+        Gauge.builder("flow.run_logs.backlog", buffer, Collection::size)
+                .description("等待写入的流程运行日志数")
+                .register(meterRegistry);
+        Gauge.builder("flow.run_logs.backlog_bytes", bufferedBytes, AtomicLong::get)
+                .description("等待写入的流程运行日志估算字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.writtenCounter = meterRegistry.counter("flow.run_logs.written");
+        this.droppedCounter = meterRegistry.counter("flow.run_logs.dropped");
+        this.sampledOutCounter = meterRegistry.counter("flow.run_logs.sampled_out");
+        this.failedCounter = meterRegistry.counter("flow.run_logs.failed");
+
+        this.writerThread = Thread.ofPlatform()
+                .name("flow-run-log-writer")
+                .daemon(true)
+                .start(this::writeLoop);
+    }
+
+    /**
+     * 追加一条节点日志
+     *
+     * <p>在调用线程完成采样判断、剪裁输入、序列化和截断，入库在后台线程完成。</p>
+     *
+     * @param runId   运行ID
+     * @param nodeKey 节点标识符
+     * @param status  日志状态（START、SUCCESS、ERROR、INFO）
+     * @param input   节点输入，可为null
+     * @param output  节点输出，可为null
+     */
+    public void append(Long runId, String nodeKey, String status,
+                       Map<String, Object> input, Map<String, Object> output) {
+        if (isSampledOut(status)) {
+            sampledOutCounter.increment();
+            return;
+        }
+
+        LogEntry entry = toEntry(runId, nodeKey, status, System.currentTimeMillis(), pruneInput(input), output);
+        if (entry != null) {
+            enqueue(entry);
+        }
+    }
+
+    /**
+     * 等待指定运行此前追加的日志全部写入
+     *
+     * @param runId   运行ID
+     * @param timeout 最长等待时间
+     * @return 在超时前完成时返回true
+     */
+    public boolean flush(Long runId, Duration timeout) {
+        RunBacklog backlog = runId != null ? runBacklogs.get(runId) : null;
+        if (backlog == null) {
+            return true;
+        }
+        // 唤醒写入线程，不必等到攒满一批
+        buffer.offer(Wakeup.INSTANCE);
+        try {
+            return backlog.await(timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 当前积压的日志条数
+     */
+    public int backlog() {
+        return buffer.size();
+    }
+
+    /**
+     * 停止写入器，写完缓冲区中剩余的日志
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            writerThread.join(Math.max(1000L, properties.getFlushIntervalMs() * 4));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!buffer.isEmpty()) {
+            log.warn("流程运行日志写入器停止时仍有未写入的日志: count={}", buffer.size());
+        }
+    }
+
+    // =================== 私有方法 ===================
+
+    /**
+     * 入队，缓冲区条数或字节数超限时丢弃最早的条目
+     */
+    private void enqueue(LogEntry entry) {
+        if (entry.runId() != null) {
+            runBacklogs.compute(entry.runId(), (runId, backlog) -> {
+                RunBacklog current = backlog != null ? backlog : new RunBacklog();
+                current.add();
+                return current;
+            });
+        }
+        bufferedBytes.addAndGet(entry.bytes());
+        while (!buffer.offer(entry)) {
+            evictOldest();
+        }
+        long maxBytes = properties.getBufferMaxBytes();
+        while (maxBytes > 0 && bufferedBytes.get() > maxBytes && evictOldest()) {
+            // 继续丢弃直到字节数回到上限以内
+        }
+    }
+
+    private boolean evictOldest() {
+        Entry evicted = buffer.poll();
+        if (evicted == null) {
+            return false;
+        }
+        if (evicted instanceof LogEntry entry) {
+            bufferedBytes.addAndGet(-entry.bytes());
+            droppedCounter.increment();
+            settled(entry);
+        }
+        return true;
+    }
+
+    /**
+     * 条目已写入、写入失败或被丢弃，不再计入所属运行的积压
+     */
+    private void settled(LogEntry entry) {
+        if (entry.runId() != null) {
+            runBacklogs.computeIfPresent(entry.runId(), (runId, backlog) -> backlog.release() ? null : backlog);
+        }
+    }
+
+    private boolean isSampledOut(String status) {
+        double sampleRate = properties.getSampleRate();
+        if (sampleRate >= 1.0 || !("START".equals(status) || "SUCCESS".equals(status))) {
+            return false;
+        }
+        return ThreadLocalRandom.current().nextDouble() >= sampleRate;
+    }
+
+    /**
+     * 去掉输入中上游节点的完整输出，只保留上游节点标识
+     */
+    private Map<String, Object> pruneInput(Map<String, Object> input) {
+        if (input == null) {
+            return null;
+        }
+        if (Boolean.TRUE.equals(properties.getIncludeUpstreamOutputs())) {
+            return new LinkedHashMap<>(input);
+        }
+
+        Map<String, Object> pruned = new LinkedHashMap<>();
+        List<String> upstreams = new ArrayList<>();
+        input.forEach((key, value) -> {
+            if (key.endsWith(UPSTREAM_OUTPUT_SUFFIX)) {
+                upstreams.add(key.substring(0, key.length() - UPSTREAM_OUTPUT_SUFFIX.length()));
+            } else {
+                pruned.put(key, value);
+            }
+        });
+        if (!upstreams.isEmpty()) {
+            pruned.put("_upstreams", upstreams);
+        }
+        return pruned;
+    }
+
+    private void writeLoop() {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        long flushIntervalMs = Math.max(1L, properties.getFlushIntervalMs());
+        List<Entry> batch = new ArrayList<>(batchSize);
+
+        while (running || !buffer.isEmpty()) {
+            try {
+                Entry first = buffer.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(batch, batchSize, flushIntervalMs);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("流程运行日志写入线程异常", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 在等待时间内攒满一批，遇到唤醒标记立即结束
+     */
+    private void fillBatch(List<Entry> batch, int batchSize, long flushIntervalMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (batch.size() < batchSize && !(batch.getLast() instanceof Wakeup)) {
+            buffer.drainTo(batch, batchSize - batch.size());
+            if (batch.size() >= batchSize || batch.stream().anyMatch(Wakeup.class::isInstance)) {
+                return;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !running) {
+                return;
+            }
+            Entry next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void writeBatch(List<Entry> batch) {
+        List<LogEntry> entries = new ArrayList<>(batch.size());
+        List<FlowRunLog> logs = new ArrayList<>(batch.size());
+        for (Entry entry : batch) {
+            if (entry instanceof LogEntry logEntry) {
+                bufferedBytes.addAndGet(-logEntry.bytes());
+                entries.add(logEntry);
+                logs.add(logEntry.runLog());
+            }
+        }
+        try {
+            insert(logs);
+        } finally {
+            entries.forEach(this::settled);
+        }
+    }
+
+    private void insert(List<FlowRunLog> logs) {
+        if (logs.isEmpty()) {
+            return;
+        }
+        try {
+            runLogRepo.insertBatch(logs);
+            writtenCounter.increment(logs.size());
+        } catch (Exception e) {
+            failedCounter.increment(logs.size());
+            log.error("批量写入流程运行日志失败: count={}", logs.size(), e);
+        }
+    }
+
+    /**
+     * 序列化并截断日志，缓冲区中只保留写库所需的JSON
+     *
+     * <p>输入和输出各自最多序列化 {@code maxPayloadChars / 2} 个字符，写满即停止，
+     * 超长的部分只保留前缀并标记截断，不会先把完整内容序列化出来再截断。</p>
+     */
+    private LogEntry toEntry(Long runId, String nodeKey, String status, long timestamp,
+                             Map<String, Object> input, Map<String, Object> output) {
+        try {
+            int maxChars = properties.getMaxPayloadChars();
+            int fieldLimit = maxChars > 0 ? Math.max(1, maxChars / 2) : Integer.MAX_VALUE;
+
+            StringWriter json = new StringWriter();
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(json)) {
+                generator.writeStartObject();
+                generator.writeStringField("status", status);
+                generator.writeNumberField("timestamp", timestamp);
+                if (input != null) {
+                    writeLimited(generator, "input", input, fieldLimit);
+                }
+                if (output != null) {
+                    writeLimited(generator, "output", output, fieldLimit);
+                }
+                generator.writeEndObject();
+            }
+            String ioJson = json.toString();
+
+            FlowRunLog runLog = new FlowRunLog(null, runId, nodeKey, ioJson, null,
+                    OffsetDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneOffset.UTC), null);
+            return new LogEntry(runId, runLog, ENTRY_OVERHEAD_BYTES + 2L * (ioJson.length() + nodeKey.length()));
+        } catch (Exception e) {
+            failedCounter.increment();
+            log.error("序列化流程运行日志失败: runId={}, nodeKey={}", runId, nodeKey, e);
+            return null;
+        }
+    }
+
+    /**
+     * 以限定长度序列化一个字段，超出时写入截断标记和已序列化的前缀
+     */
+    private void writeLimited(JsonGenerator generator, String field, Map<String, Object> value, int maxChars)
+            throws IOException {
+        LimitedWriter limited = new LimitedWriter(maxChars);
+        try {
+            objectMapper.writeValue(limited, value);
+        } catch (IOException e) {
+            if (!limited.truncated) {
+                throw e;
+            }
+        }
+
+        generator.writeFieldName(field);
+        if (!limited.truncated) {
+            generator.writeRawValue(limited.toString());
+            return;
+        }
+        generator.writeStartObject();
+        generator.writeBooleanField("truncated", true);
+        generator.writeNumberField("limitChars", maxChars);
+        generator.writeStringField("preview", limited.toString());
+        generator.writeEndObject();
+    }
+
+    /**
+     * 写满上限后中止序列化的Writer
+     *
+     * <p>Jackson按内部缓冲块写出，超过上限时抛出异常终止序列化，已写入的内容截到上限作为预览。</p>
+     */
+    private static final class LimitedWriter extends Writer {
+
+        private final StringBuilder buffer = new StringBuilder();
+        private final int maxChars;
+        private boolean truncated;
+
+        LimitedWriter(int maxChars) {
+            this.maxChars = maxChars;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            int remaining = maxChars - buffer.length();
+            if (length > remaining) {
+                buffer.append(chars, offset, Math.max(remaining, 0));
+                truncated = true;
+                throw new IOException("日志内容超过" + maxChars + "个字符");
+            }
+            buffer.append(chars, offset, length);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return buffer.toString();
+        }
+    }
+
+    /**
+     * 日志中的数据流只写出描述
+     */
+    @JsonSerialize(using = DataStreamSummarySerializer.class)
+    private abstract static class DataStreamSummary {
+    }
+
+    static final class DataStreamSummarySerializer extends JsonSerializer<DataStream> {
+
+        @Override
+        public void serialize(DataStream stream, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("stream", stream.describe());
+            generator.writeNumberField("chunkSize", stream.chunkSize());
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * 缓冲区条目
+     */
+    private sealed interface Entry permits LogEntry, Wakeup {
+    }
+
+    /**
+     * 已序列化的日志
+     *
+     * @param bytes 估算的内存占用
+     */
+    private record LogEntry(Long runId, FlowRunLog runLog, long bytes) implements Entry {
+    }
+
+    /**
+     * 唤醒写入线程立即写出当前批次
+     */
+    private enum Wakeup implements Entry {
+        INSTANCE
+    }
+
+    /**
+     * 单个运行尚未写入的日志数
+     */
+    private static final class RunBacklog {
+
+        private int pending;
+
+        synchronized void add() {
+            pending++;
+        }
+
+        /**
+         * @return 全部写入后返回true
+         */
+        synchronized boolean release() {
+            if (--pending <= 0) {
+                notifyAll();
+                return true;
+            }
+            return false;
+        }
+
+        synchronized boolean await(Duration timeout) throws InterruptedException {
+            long deadline = System.nanoTime() + timeout.toNanos();
+            while (pending > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            return true;
+        }
+    }
+}
@@ -35,7 +35,7 @@ public class ChatPerformanceService {
      * <p>对于相同或相似的问题，缓存AI的回答可以显著提升响应速度。
      * 这个方法实现了基于内容哈希的智能缓存机制。</p>
      */
-    @Cacheable(value = "chatResponses", key = "#contentHash")
+    @Cacheable(value = "chatResponses", key = "#contentHash", unless = "#result == null")
     public String getCachedResponse(String contentHash) {
         CacheEntry entry = responseCache.get(contentHash);
         if (entry != null && !entry.isExpired()) {
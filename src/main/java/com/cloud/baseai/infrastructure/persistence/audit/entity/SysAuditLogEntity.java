@@ -93,7 +93,7 @@ public class SysAuditLogEntity {
      * 创建时间
      */
     @CreationTimestamp
-    @Column(name = "created_at", updatable = false)
+    @Column(name = "created_at", nullable = false, updatable = false)
     private OffsetDateTime createdAt;
 
     /**
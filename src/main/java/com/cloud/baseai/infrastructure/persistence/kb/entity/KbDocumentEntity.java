@@ -60,6 +60,13 @@ public class KbDocumentEntity {
     @Column(name = "chunk_count")
     private Integer chunkCount;
 
+    /**
+     * 向量生成进度，只通过 {@code refreshEmbeddedCount} 等原子更新语句维护，
+     * 避免并发批次的实体保存互相覆盖
+     */
+    @Column(name = "embedded_count", insertable = false, updatable = false, columnDefinition = "int default 0")
+    private Integer embeddedCount;
+
     @Column(name = "sha256", length = 64, unique = true)
     private String sha256;
 
@@ -122,6 +129,7 @@ public class KbDocumentEntity {
                 this.langCode,
                 this.parsingStatus,
                 this.chunkCount,
+                this.embeddedCount,
                 this.sha256,
                 this.createdBy,
                 this.updatedBy,
@@ -1,11 +1,12 @@
 package com.cloud.baseai.infrastructure.persistence.kb.entity;
 
 import com.cloud.baseai.domain.kb.model.Embedding;
-import com.cloud.baseai.infrastructure.persistence.kb.mapper.VectorType;
+import com.cloud.baseai.infrastructure.persistence.kb.mapper.PgVectorUserType;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Type;
 
 import java.time.OffsetDateTime;
 import java.util.Objects;
@@ -14,7 +15,7 @@ import java.util.Objects;
  * <h2>向量嵌入JPA实体</h2>
  *
  * <p>对应数据库表 kb_embeddings 的JPA映射。
- * 使用自定义的VectorType来支持PostgreSQL的vector类型。</p>
+ * 使用自定义的PgVectorUserType以二进制格式读写PostgreSQL的vector类型。</p>
  */
 @Setter
 @Getter
@@ -36,7 +37,7 @@ public class KbEmbeddingEntity {
     private Integer vectorVersion;
 
     @Column(name = "embedding", nullable = false, columnDefinition = "vector(1536)")
-    @Convert(converter = VectorType.class)
+    @Type(PgVectorUserType.class)
     private float[] embedding;
 
     @Column(name = "created_by", nullable = false)
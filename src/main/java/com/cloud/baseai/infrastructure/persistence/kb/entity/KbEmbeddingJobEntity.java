@@ -0,0 +1,156 @@
+package com.cloud.baseai.infrastructure.persistence.kb.entity;
+
+import com.cloud.baseai.domain.kb.model.EmbeddingJob;
+import com.cloud.baseai.domain.kb.model.EmbeddingJobStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.OffsetDateTime;
+import java.util.Objects;
+
+/**
+ * <h2>向量生成任务JPA实体</h2>
+ *
+ * <p>对应数据库表 kb_embedding_jobs 的JPA映射。
+ * 领取、检查点、完成等状态变更通过带租约条件的原生更新语句完成，实体只用于入队和查询。</p>
+ */
+@Setter
+@Getter
+@Entity
+@Table(name = "kb_embedding_jobs")
+public class KbEmbeddingJobEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "task_id", nullable = false, length = 64)
+    private String taskId;
+
+    @Column(name = "document_id", nullable = false)
+    private Long documentId;
+
+    @Column(name = "model_code", nullable = false, length = 32)
+    private String modelCode;
+
+    @Column(name = "status", nullable = false, columnDefinition = "smallint")
+    @Enumerated(EnumType.ORDINAL)
+    private EmbeddingJobStatus status;
+
+    @Column(name = "total_chunks", nullable = false)
+    private Integer totalChunks;
+
+    @Column(name = "processed_chunks", nullable = false)
+    private Integer processedChunks;
+
+    @Column(name = "failed_chunks", nullable = false)
+    private Integer failedChunks;
+
+    @Column(name = "last_chunk_id", nullable = false)
+    private Long lastChunkId;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "locked_by", length = 128)
+    private String lockedBy;
+
+    @Column(name = "locked_until")
+    private OffsetDateTime lockedUntil;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_by", nullable = false)
+    private Long createdBy;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private OffsetDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+
+    @Column(name = "started_at")
+    private OffsetDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private OffsetDateTime finishedAt;
+
+    protected KbEmbeddingJobEntity() {
+    }
+
+    /**
+     * 转换为领域对象
+     *
+     * @return 对应的领域模型对象
+     */
+    public EmbeddingJob toDomain() {
+        return new EmbeddingJob(
+                this.id,
+                this.taskId,
+                this.documentId,
+                this.modelCode,
+                this.status,
+                this.totalChunks,
+                this.processedChunks,
+                this.failedChunks,
+                this.lastChunkId,
+                this.attempts,
+                this.lockedBy,
+                this.lockedUntil,
+                this.lastError,
+                this.createdBy,
+                this.createdAt,
+                this.updatedAt,
+                this.startedAt,
+                this.finishedAt
+        );
+    }
+
+    /**
+     * 从领域对象创建JPA实体
+     *
+     * @param domain 领域模型对象
+     * @return JPA实体对象
+     */
+    public static KbEmbeddingJobEntity fromDomain(EmbeddingJob domain) {
+        KbEmbeddingJobEntity entity = new KbEmbeddingJobEntity();
+        entity.id = domain.id();
+        entity.taskId = domain.taskId();
+        entity.documentId = domain.documentId();
+        entity.modelCode = domain.modelCode();
+        entity.status = domain.status();
+        entity.totalChunks = domain.totalChunks();
+        entity.processedChunks = domain.processedChunks();
+        entity.failedChunks = domain.failedChunks();
+        entity.lastChunkId = domain.lastChunkId();
+        entity.attempts = domain.attempts();
+        entity.lockedBy = domain.lockedBy();
+        entity.lockedUntil = domain.lockedUntil();
+        entity.lastError = domain.lastError();
+        entity.createdBy = domain.createdBy();
+        entity.createdAt = domain.createdAt();
+        entity.updatedAt = domain.updatedAt();
+        entity.startedAt = domain.startedAt();
+        entity.finishedAt = domain.finishedAt();
+        return entity;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        KbEmbeddingJobEntity that = (KbEmbeddingJobEntity) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
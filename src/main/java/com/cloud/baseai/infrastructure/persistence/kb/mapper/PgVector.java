@@ -0,0 +1,229 @@
+package com.cloud.baseai.infrastructure.persistence.kb.mapper;
+
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.Oid;
+import org.postgresql.core.QueryExecutor;
+import org.postgresql.util.PGBinaryObject;
+import org.postgresql.util.PGobject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * <h2>pgvector二进制传输对象</h2>
+ *
+ * <p>将Java的float[]直接以pgvector的二进制收发格式（vector_send/vector_recv）绑定到JDBC参数，
+ * 避免把1536维向量格式化成约20KB的文本再由PostgreSQL重新解析。</p>
+ *
+ * <p><b>二进制格式：</b></p>
+ * <ul>
+ * <li>int16：向量维度</li>
+ * <li>int16：保留字段，固定为0</li>
+ * <li>float4 × 维度：网络字节序（大端）的分量值</li>
+ * </ul>
+ *
+ * <p>驱动只会对登记过二进制发送的OID走二进制通道，因此绑定前需要通过
+ * {@link #enableBinaryTransfer(Connection)} 在当前连接上登记 vector 类型；
+ * 如果数据库未安装pgvector扩展或连接不是PostgreSQL连接，则自动退回文本格式。</p>
+ */
+public class PgVector extends PGobject implements PGBinaryObject {
+
+    private static final Logger log = LoggerFactory.getLogger(PgVector.class);
+
+    /**
+     * pgvector扩展注册的类型名称
+     */
+    public static final String TYPE_NAME = "vector";
+
+    private static final int HEADER_BYTES = 4;
+
+    private float[] vector;
+
+    public PgVector() {
+        this.type = TYPE_NAME;
+    }
+
+    public PgVector(float[] vector) {
+        this();
+        this.vector = vector;
+    }
+
+    /**
+     * 以二进制格式绑定向量参数
+     *
+     * @param ps     预编译语句
+     * @param index  参数位置（从1开始）
+     * @param vector 向量数据
+     * @throws SQLException 绑定失败时抛出
+     */
+    public static void bind(PreparedStatement ps, int index, float[] vector) throws SQLException {
+        if (vector == null) {
+            ps.setNull(index, java.sql.Types.OTHER);
+            return;
+        }
+        enableBinaryTransfer(ps.getConnection());
+        ps.setObject(index, new PgVector(vector));
+    }
+
+    /**
+     * 在连接上登记vector类型的二进制收发
+     *
+     * <p>OID查询由驱动的TypeInfoCache缓存，登记集合是幂等的，重复调用只是一次哈希查找。</p>
+     *
+     * @param connection JDBC连接（可以是连接池代理）
+     * @return true如果已启用二进制传输
+     */
+    public static boolean enableBinaryTransfer(Connection connection) {
+        try {
+            if (connection == null || !connection.isWrapperFor(BaseConnection.class)) {
+                return false;
+            }
+            BaseConnection pgConnection = connection.unwrap(BaseConnection.class);
+            int oid = pgConnection.getTypeInfo().getPGType(TYPE_NAME);
+            if (oid == Oid.UNSPECIFIED) {
+                return false;
+            }
+
+            QueryExecutor executor = pgConnection.getQueryExecutor();
+            if (!executor.useBinaryForSend(oid)) {
+                pgConnection.addDataType(TYPE_NAME, PgVector.class);
+                executor.addBinarySendOid(oid);
+                executor.addBinaryReceiveOid(oid);
+            }
+            return true;
+        } catch (SQLException e) {
+            log.warn("启用pgvector二进制传输失败，退回文本格式: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 从JDBC读取的对象中提取向量
+     *
+     * <p>已登记的连接返回PgVector实例；未登记时驱动返回文本格式的PGobject。</p>
+     *
+     * @param value ResultSet.getObject 的返回值
+     * @return 向量数组，输入为null时返回null
+     */
+    public static float[] toFloatArray(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof PgVector pgVector) {
+            return pgVector.toArray();
+        }
+        if (value instanceof PGobject pgObject) {
+            return parseText(pgObject.getValue());
+        }
+        return parseText(value.toString());
+    }
+
+    /**
+     * 解析pgvector文本格式，例如: '[0.1,0.2,0.3]'
+     */
+    static float[] parseText(String text) {
+        if (text == null) {
+            return null;
+        }
+        String trimmed = text.trim();
+        if (trimmed.length() < 2 || trimmed.charAt(0) != '[' || trimmed.charAt(trimmed.length() - 1) != ']') {
+            throw new IllegalArgumentException("无效的向量格式，期望格式: [1.0,2.0,3.0]");
+        }
+        String body = trimmed.substring(1, trimmed.length() - 1);
+        if (body.isBlank()) {
+            return new float[0];
+        }
+
+        String[] parts = body.split(",");
+        float[] result = new float[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Float.parseFloat(parts[i].trim());
+        }
+        return result;
+    }
+
+    /**
+     * 格式化为pgvector文本格式
+     */
+    static String formatText(float[] vector) {
+        StringBuilder sb = new StringBuilder(vector.length * 12 + 2).append('[');
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(vector[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    public float[] toArray() {
+        return vector;
+    }
+
+    // =================== PGobject 文本通道 ===================
+
+    @Override
+    public void setValue(String value) throws SQLException {
+        this.vector = parseText(value);
+    }
+
+    @Override
+    public String getValue() {
+        return vector == null ? null : formatText(vector);
+    }
+
+    @Override
+    public boolean isNull() {
+        return vector == null;
+    }
+
+    // =================== PGBinaryObject 二进制通道 ===================
+
+    @Override
+    public void setByteValue(byte[] value, int offset) {
+        ByteBuffer buffer = ByteBuffer.wrap(value, offset, value.length - offset);
+        int dimension = buffer.getShort() & 0xFFFF;
+        buffer.getShort();
+
+        float[] result = new float[dimension];
+        buffer.asFloatBuffer().get(result);
+        this.vector = result;
+    }
+
+    @Override
+    public int lengthInBytes() {
+        return vector == null ? 0 : HEADER_BYTES + vector.length * Float.BYTES;
+    }
+
+    @Override
+    public void toBytes(byte[] bytes, int offset) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, lengthInBytes());
+        buffer.putShort((short) vector.length);
+        buffer.putShort((short) 0);
+        buffer.asFloatBuffer().put(vector);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PgVector that)) return false;
+        return Arrays.equals(vector, that.vector);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(vector);
+    }
+
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        PgVector copy = (PgVector) super.clone();
+        copy.vector = vector == null ? null : vector.clone();
+        return copy;
+    }
+}
@@ -0,0 +1,75 @@
+package com.cloud.baseai.infrastructure.persistence.kb.mapper;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.usertype.UserType;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+/**
+ * <h2>pgvector的Hibernate用户类型</h2>
+ *
+ * <p>替代基于字符串的 {@link VectorType} 转换器，使实体的 save/saveAll
+ * 通过 {@link PgVector} 以二进制格式写入vector列，读取时同时兼容二进制和文本两种返回格式。</p>
+ *
+ * <p><b>使用方式：</b></p>
+ * <p>在JPA实体类的float[]字段上使用 @Type(PgVectorUserType.class) 注解。</p>
+ */
+public class PgVectorUserType implements UserType<float[]> {
+
+    @Override
+    public int getSqlType() {
+        return Types.OTHER;
+    }
+
+    @Override
+    public Class<float[]> returnedClass() {
+        return float[].class;
+    }
+
+    @Override
+    public boolean equals(float[] x, float[] y) {
+        return Arrays.equals(x, y);
+    }
+
+    @Override
+    public int hashCode(float[] x) {
+        return Arrays.hashCode(x);
+    }
+
+    @Override
+    public float[] nullSafeGet(ResultSet rs, int position, SharedSessionContractImplementor session,
+                               Object owner) throws SQLException {
+        return PgVector.toFloatArray(rs.getObject(position));
+    }
+
+    @Override
+    public void nullSafeSet(PreparedStatement st, float[] value, int index,
+                            SharedSessionContractImplementor session) throws SQLException {
+        PgVector.bind(st, index, value);
+    }
+
+    @Override
+    public float[] deepCopy(float[] value) {
+        return value == null ? null : value.clone();
+    }
+
+    @Override
+    public boolean isMutable() {
+        return true;
+    }
+
+    @Override
+    public Serializable disassemble(float[] value) {
+        return deepCopy(value);
+    }
+
+    @Override
+    public float[] assemble(Serializable cached, Object owner) {
+        return deepCopy((float[]) cached);
+    }
+}
@@ -0,0 +1,64 @@
+package com.cloud.baseai.infrastructure.ratelimit;
+
+import com.cloud.baseai.infrastructure.exception.ErrorCode;
+import com.cloud.baseai.infrastructure.exception.SystemException;
+import com.cloud.baseai.infrastructure.utils.SecurityUtils;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <h2>{@link RateLimited}切面</h2>
+ *
+ * <p>表达式解析结果按字符串缓存，每次调用只做求值。</p>
+ */
+@Aspect
+@Component
+public class RateLimitAspect {
+
+    private final RateLimitService rateLimitService;
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+
+    public RateLimitAspect(RateLimitService rateLimitService) {
+        this.rateLimitService = rateLimitService;
+    }
+
+    @Before("@annotation(rateLimited)")
+    public void checkRateLimit(JoinPoint joinPoint, RateLimited rateLimited) {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        EvaluationContext context = new MethodBasedEvaluationContext(
+                joinPoint.getTarget(), signature.getMethod(), joinPoint.getArgs(), parameterNameDiscoverer);
+
+        Long tenantId = evaluate(rateLimited.tenant(), context, Long.class);
+        Long userId = StringUtils.hasText(rateLimited.user())
+                ? evaluate(rateLimited.user(), context, Long.class)
+                : SecurityUtils.getCurrentUserId().orElse(null);
+        Integer permits = evaluate(rateLimited.permits(), context, Integer.class);
+
+        String subject = userId != null ? "u:" + userId : "t:" + tenantId;
+        if (!rateLimitService.tryAcquire(rateLimited.quota(), tenantId, subject, permits != null ? permits : 1)) {
+            throw new SystemException(ErrorCode.SYS_RATE_001);
+        }
+    }
+
+    private <T> T evaluate(String expression, EvaluationContext context, Class<T> type) {
+        if (!StringUtils.hasText(expression)) {
+            return null;
+        }
+        return expressions.computeIfAbsent(expression, parser::parseExpression).getValue(context, type);
+    }
+}
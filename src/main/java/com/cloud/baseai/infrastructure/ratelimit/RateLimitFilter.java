@@ -0,0 +1,95 @@
+package com.cloud.baseai.infrastructure.ratelimit;
+
+import com.cloud.baseai.infrastructure.exception.ApiResult;
+import com.cloud.baseai.infrastructure.exception.ErrorCode;
+import com.cloud.baseai.infrastructure.i18n.MessageManager;
+import com.cloud.baseai.infrastructure.security.UserPrincipal;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * <h2>API请求速率限制过滤器</h2>
+ *
+ * <p>放在JWT认证过滤器之后：已登录用户按用户ID和所属租户中最高的等级限流，
+ * 匿名请求按客户端IP限流。每个请求先占用一个并发许可，再扣减API请求配额，
+ * 两者通常都在本地完成。超出限制时直接返回429，不进入后续过滤器。</p>
+ *
+ * <p>不注册为Spring组件，避免被Spring Boot重复注册成Servlet过滤器，
+ * 由{@code SecurityAutoConfiguration}加入安全过滤器链。</p>
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final RateLimitService rateLimitService;
+    private final TenantTierResolver tierResolver;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(RateLimitService rateLimitService, TenantTierResolver tierResolver,
+                           ObjectMapper objectMapper) {
+        this.rateLimitService = rateLimitService;
+        this.tierResolver = tierResolver;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return HttpMethod.OPTIONS.matches(request.getMethod())
+                || request.getRequestURI().startsWith("/actuator/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String subject;
+        RateLimitTier tier = null;
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            subject = "u:" + principal.getId();
+            tier = tierResolver.resolveHighest(principal.getTenantIds());
+        } else {
+            subject = "ip:" + request.getRemoteAddr();
+        }
+
+        RateLimitService.Permit permit = rateLimitService.tryEnter(subject);
+        if (permit == null) {
+            reject(response, ErrorCode.SYS_RATE_002);
+            return;
+        }
+        try {
+            if (!rateLimitService.tryAcquire(RateLimitQuota.API_REQUESTS, tier, subject, 1)) {
+                reject(response, ErrorCode.SYS_RATE_001);
+                return;
+            }
+            filterChain.doFilter(request, response);
+        } finally {
+            permit.close();
+        }
+    }
+
+    private void reject(HttpServletResponse response, ErrorCode errorCode) throws IOException {
+        String message;
+        try {
+            message = MessageManager.getMessage(errorCode);
+        } catch (Exception e) {
+            message = errorCode.getDefaultMessage();
+        }
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write(objectMapper.writeValueAsString(ApiResult.error(errorCode.getCode(), message)));
+    }
+}
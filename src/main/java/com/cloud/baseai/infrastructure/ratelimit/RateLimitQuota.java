@@ -0,0 +1,24 @@
+package com.cloud.baseai.infrastructure.ratelimit;
+
+/**
+ * <h2>限流配额类型</h2>
+ *
+ * <p>每种配额独立计数，互不占用。</p>
+ */
+public enum RateLimitQuota {
+
+    /**
+     * API请求：每分钟令牌桶 + 每小时、每天窗口（每天限额随租户等级）
+     */
+    API_REQUESTS,
+
+    /**
+     * 聊天消息：每小时窗口，限额随租户等级
+     */
+    CHAT_MESSAGES,
+
+    /**
+     * 文档上传：每天窗口，限额随租户等级
+     */
+    DOCUMENT_UPLOADS
+}
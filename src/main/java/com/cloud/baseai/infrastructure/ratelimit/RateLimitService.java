@@ -0,0 +1,324 @@
+package com.cloud.baseai.infrastructure.ratelimit;
+
+import com.cloud.baseai.infrastructure.config.properties.RateLimitProperties;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <h2>分布式速率限制服务</h2>
+ *
+ * <p>每个调用方的每种配额在Redis中有一个令牌桶和按小时、按天的固定窗口计数器，
+ * 由一段Lua脚本一次完成检查和扣减，所有节点共享。取许可时会多预取少量许可放在本地，
+ * 后续请求直接在本地扣减，不访问Redis；预取量不超过最小限额的1%，
+ * 并在{@code lease-millis}后作废，节点间的超发因此很小。</p>
+ *
+ * <p>并发限制是每个节点上按调用方统计的在途请求数，不经过Redis，在途数归零时移除该调用方的记录。Redis不可用时按{@code fail-open}放行或拒绝。
+ * 令牌桶的补充使用节点时钟，要求各节点时钟大致同步。</p>
+ */
+@Component
+public class RateLimitService {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitService.class);
+
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    /**
+     * 检查令牌桶和小时、天窗口，可用许可不少于最小请求数时一次扣减，返回实际取得的许可数
+     */
+    private static final String ACQUIRE_SCRIPT = """
+            local now = tonumber(ARGV[1])
+            local capacity = tonumber(ARGV[2])
+            local rate = tonumber(ARGV[3])
+            local hourLimit = tonumber(ARGV[4])
+            local dayLimit = tonumber(ARGV[5])
+            local minPermits = tonumber(ARGV[6])
+            local available = tonumber(ARGV[7])
+            local tokens = 0
+            if capacity > 0 then
+              local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+              tokens = tonumber(bucket[1]) or capacity
+              local ts = tonumber(bucket[2]) or now
+              tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate)
+              available = math.min(available, math.floor(tokens))
+            end
+            if hourLimit > 0 then
+              available = math.min(available, hourLimit - tonumber(redis.call('GET', KEYS[2]) or '0'))
+            end
+            if dayLimit > 0 then
+              available = math.min(available, dayLimit - tonumber(redis.call('GET', KEYS[3]) or '0'))
+            end
+            local granted = 0
+            if available >= minPermits then
+              granted = available
+            end
+            if capacity > 0 then
+              redis.call('HSET', KEYS[1], 'tokens', tostring(tokens - granted), 'ts', tostring(now))
+              redis.call('PEXPIRE', KEYS[1], tostring(math.max(1000, math.ceil(capacity / rate))))
+            end
+            if granted > 0 then
+              if hourLimit > 0 and redis.call('INCRBY', KEYS[2], granted) == granted then
+                redis.call('PEXPIRE', KEYS[2], ARGV[8])
+              end
+              if dayLimit > 0 and redis.call('INCRBY', KEYS[3], granted) == granted then
+                redis.call('PEXPIRE', KEYS[3], ARGV[9])
+              end
+            end
+            return granted
+            """;
+
+    private final StringRedisTemplate redisTemplate;
+    private final RateLimitProperties properties;
+    private final TenantTierResolver tierResolver;
+    private final DefaultRedisScript<Long> acquireScript = new DefaultRedisScript<>(ACQUIRE_SCRIPT, Long.class);
+
+    private final Cache<String, Lease> leases = CacheBuilder.newBuilder()
+            .maximumSize(100000)
+            .expireAfterAccess(1, TimeUnit.MINUTES)
+            .build();
+    /**
+     * 调用方的在途请求数，只保存有在途请求的调用方，不能按容量或时间淘汰
+     */
+    private final ConcurrentMap<String, Integer> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<RateLimitQuota, Counter> rejectedCounters = new EnumMap<>(RateLimitQuota.class);
+    private final Counter remoteCounter;
+
+    public RateLimitService(StringRedisTemplate redisTemplate, RateLimitProperties properties,
+                            TenantTierResolver tierResolver, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.tierResolver = tierResolver;
+        for (RateLimitQuota quota : RateLimitQuota.values()) {
+            rejectedCounters.put(quota, Counter.builder("baseai.ratelimit.rejected")
+                    .description("被速率限制拒绝的次数")
+                    .tag("quota", quota.name())
+                    .register(meterRegistry));
+        }
+        this.remoteCounter = Counter.builder("baseai.ratelimit.remote.calls")
+                .description("访问Redis取许可的次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 按租户等级为调用方取得许可
+     *
+     * @param quota    配额类型
+     * @param tenantId 租户ID，为null时按免费版计算
+     * @param subject  调用方标识
+     * @param permits  需要的许可数
+     * @return 是否取得许可
+     */
+    public boolean tryAcquire(RateLimitQuota quota, Long tenantId, String subject, int permits) {
+        if (!Boolean.TRUE.equals(properties.getEnabled())) {
+            return true;
+        }
+        return tryAcquire(quota, tierResolver.resolve(tenantId), subject, permits);
+    }
+
+    /**
+     * 尝试为调用方取得许可
+     *
+     * @param quota   配额类型
+     * @param tier    调用方所属租户的等级，为null时使用全局限额
+     * @param subject 调用方标识（用户或IP）
+     * @param permits 需要的许可数
+     * @return 是否取得许可
+     */
+    public boolean tryAcquire(RateLimitQuota quota, RateLimitTier tier, String subject, int permits) {
+        if (!Boolean.TRUE.equals(properties.getEnabled()) || permits <= 0) {
+            return true;
+        }
+
+        String leaseKey = quota.name() + ":" + subject;
+        Lease lease = leases.getIfPresent(leaseKey);
+        long now = System.currentTimeMillis();
+        if (lease != null && lease.tryTake(permits, now)) {
+            return true;
+        }
+
+        Limits limits = limits(quota, tier);
+        if (limits.isUnlimited()) {
+            return true;
+        }
+
+        long granted;
+        try {
+            granted = acquireRemote(quota, subject, limits, permits, permits + limits.prefetch(properties), now);
+        } catch (Exception e) {
+            log.warn("速率限制检查失败: quota={}, subject={}, error={}", quota, subject, e.getMessage());
+            return Boolean.TRUE.equals(properties.getFailOpen());
+        }
+
+        if (granted < permits) {
+            rejectedCounters.get(quota).increment();
+            return false;
+        }
+        if (granted > permits) {
+            leases.put(leaseKey, new Lease(granted - permits, now + properties.getLeaseMillis()));
+        }
+        return true;
+    }
+
+    /**
+     * 尝试进入并发限制，返回的许可必须在请求结束时关闭
+     *
+     * @param subject 调用方标识
+     * @return 并发许可，超出并发限制时返回null
+     */
+    public Permit tryEnter(String subject) {
+        Integer limit = properties.getGlobal().getConcurrentRequests();
+        if (!Boolean.TRUE.equals(properties.getEnabled()) || limit == null || limit <= 0) {
+            return () -> {
+            };
+        }
+        AtomicBoolean entered = new AtomicBoolean();
+        inFlight.compute(subject, (key, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= limit) {
+                return count;
+            }
+            entered.set(true);
+            return current + 1;
+        });
+        if (!entered.get()) {
+            return null;
+        }
+        AtomicBoolean closed = new AtomicBoolean();
+        return () -> {
+            if (closed.compareAndSet(false, true)) {
+                inFlight.computeIfPresent(subject, (key, count) -> count > 1 ? count - 1 : null);
+            }
+        };
+    }
+
+    /**
+     * 调用方当前的在途请求数
+     */
+    int inFlight(String subject) {
+        return inFlight.getOrDefault(subject, 0);
+    }
+
+    // =================== 私有方法 ===================
+
+    private long acquireRemote(RateLimitQuota quota, String subject, Limits limits,
+                               long minPermits, long maxPermits, long now) {
+        remoteCounter.increment();
+        // 同一调用方的键放在同一个哈希槽，集群模式下脚本也能执行
+        String base = "ratelimit:{" + quota.name().toLowerCase(Locale.ROOT) + ":" + subject + "}";
+        List<String> keys = List.of(
+                base + ":bucket",
+                base + ":h:" + now / HOUR_MILLIS,
+                base + ":d:" + now / DAY_MILLIS);
+        Long granted = redisTemplate.execute(acquireScript, keys,
+                String.valueOf(now),
+                String.valueOf(limits.capacity()),
+                String.valueOf(limits.refillPerMillis()),
+                String.valueOf(limits.hourLimit()),
+                String.valueOf(limits.dayLimit()),
+                String.valueOf(minPermits),
+                String.valueOf(maxPermits),
+                String.valueOf(HOUR_MILLIS - now % HOUR_MILLIS),
+                String.valueOf(DAY_MILLIS - now % DAY_MILLIS));
+        return granted != null ? granted : 0;
+    }
+
+    private Limits limits(RateLimitQuota quota, RateLimitTier tier) {
+        RateLimitProperties.GlobalLimitProperties global = properties.getGlobal();
+        RateLimitProperties.TierLimitProperties tierLimits = tier != null ? tier.limits(properties) : null;
+        return switch (quota) {
+            case API_REQUESTS -> {
+                long perMinute = valueOf(global.getRequestsPerMinute());
+                double burst = Boolean.TRUE.equals(global.getEnableBurstProtection()) && global.getBurstMultiplier() != null
+                        ? global.getBurstMultiplier() : 1.0;
+                long dayLimit = tierLimits != null ? valueOf(tierLimits.getRequestsPerDay())
+                        : valueOf(global.getRequestsPerDay());
+                yield new Limits((long) (perMinute * burst), perMinute / 60000.0,
+                        valueOf(global.getRequestsPerHour()), dayLimit);
+            }
+            case CHAT_MESSAGES -> new Limits(0, 0, valueOf(tierLimits != null
+                    ? tierLimits.getChatMessagesPerHour() : properties.getUser().getFreeTier().getChatMessagesPerHour()), 0);
+            case DOCUMENT_UPLOADS -> new Limits(0, 0, 0, valueOf(tierLimits != null
+                    ? tierLimits.getDocumentUploadsPerDay() : properties.getUser().getFreeTier().getDocumentUploadsPerDay()));
+        };
+    }
+
+    private static long valueOf(Integer limit) {
+        return limit != null ? limit : 0;
+    }
+
+    /**
+     * 一种配额的限额，0表示该维度不限制
+     */
+    private record Limits(long capacity, double refillPerMillis, long hourLimit, long dayLimit) {
+
+        boolean isUnlimited() {
+            return capacity <= 0 && hourLimit <= 0 && dayLimit <= 0;
+        }
+
+        long prefetch(RateLimitProperties properties) {
+            long smallest = Long.MAX_VALUE;
+            for (long limit : new long[]{capacity, hourLimit, dayLimit}) {
+                if (limit > 0) {
+                    smallest = Math.min(smallest, limit);
+                }
+            }
+            return Math.min(properties.getLocalPrefetch(), smallest / 100);
+        }
+    }
+
+    /**
+     * 本地预取的许可
+     */
+    private static final class Lease {
+
+        private final AtomicLong remaining;
+        private final long expiresAt;
+
+        Lease(long remaining, long expiresAt) {
+            this.remaining = new AtomicLong(remaining);
+            this.expiresAt = expiresAt;
+        }
+
+        boolean tryTake(long permits, long now) {
+            if (now >= expiresAt) {
+                return false;
+            }
+            long current;
+            do {
+                current = remaining.get();
+                if (current < permits) {
+                    return false;
+                }
+            } while (!remaining.compareAndSet(current, current - permits));
+            return true;
+        }
+    }
+
+    /**
+     * 并发许可
+     */
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,47 @@
+package com.cloud.baseai.infrastructure.ratelimit;
+
+import com.cloud.baseai.infrastructure.config.properties.RateLimitProperties;
+
+import java.util.Locale;
+
+/**
+ * <h2>租户限流等级</h2>
+ *
+ * <p>由租户的套餐代码决定，套餐代码包含{@code enterprise}为企业版，
+ * 包含{@code premium}或{@code pro}为高级版，其余（包括试用）为免费版。</p>
+ */
+public enum RateLimitTier {
+
+    FREE,
+    PREMIUM,
+    ENTERPRISE;
+
+    /**
+     * 根据套餐代码确定等级
+     */
+    public static RateLimitTier fromPlanCode(String planCode) {
+        if (planCode == null) {
+            return FREE;
+        }
+        String code = planCode.toLowerCase(Locale.ROOT);
+        if (code.contains("enterprise")) {
+            return ENTERPRISE;
+        }
+        if (code.contains("premium") || code.contains("pro")) {
+            return PREMIUM;
+        }
+        return FREE;
+    }
+
+    /**
+     * 该等级的限额配置
+     */
+    public RateLimitProperties.TierLimitProperties limits(RateLimitProperties properties) {
+        RateLimitProperties.UserLimitProperties user = properties.getUser();
+        return switch (this) {
+            case FREE -> user.getFreeTier();
+            case PREMIUM -> user.getPremiumTier();
+            case ENTERPRISE -> user.getEnterpriseTier();
+        };
+    }
+}
@@ -0,0 +1,40 @@
+package com.cloud.baseai.infrastructure.ratelimit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <h2>方法级速率限制</h2>
+ *
+ * <p>标注在应用服务方法上，调用前按租户等级扣减配额，超出时抛出{@code SYS_RATE_001}。
+ * {@link #tenant()}、{@link #user()}和{@link #permits()}是SpEL表达式，可以引用方法参数，
+ * 例如{@code "#cmd.tenantId()"}。</p>
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RateLimited {
+
+    /**
+     * 配额类型
+     */
+    RateLimitQuota quota();
+
+    /**
+     * 租户ID表达式，为空时按免费版计算
+     */
+    String tenant() default "";
+
+    /**
+     * 用户ID表达式，为空时使用当前登录用户
+     */
+    String user() default "";
+
+    /**
+     * 本次调用消耗的许可数表达式
+     */
+    String permits() default "1";
+}
@@ -0,0 +1,70 @@
+package com.cloud.baseai.infrastructure.ratelimit;
+
+import com.cloud.baseai.domain.user.repository.TenantRepository;
+import com.cloud.baseai.infrastructure.config.properties.RateLimitProperties;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>租户限流等级解析</h2>
+ *
+ * <p>按租户ID在本地缓存等级，套餐变更最多在{@code tier-cache-seconds}后生效。
+ * 限流检查因此几乎不会访问数据库。</p>
+ */
+@Component
+public class TenantTierResolver {
+
+    private static final Logger log = LoggerFactory.getLogger(TenantTierResolver.class);
+
+    private final TenantRepository tenantRepository;
+    private final Cache<Long, RateLimitTier> tiers;
+
+    public TenantTierResolver(TenantRepository tenantRepository, RateLimitProperties properties) {
+        this.tenantRepository = tenantRepository;
+        this.tiers = CacheBuilder.newBuilder()
+                .maximumSize(100000)
+                .expireAfterWrite(properties.getTierCacheSeconds(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 租户的限流等级，租户为空或不存在时为免费版
+     */
+    public RateLimitTier resolve(Long tenantId) {
+        if (tenantId == null) {
+            return RateLimitTier.FREE;
+        }
+        try {
+            return tiers.get(tenantId, () -> tenantRepository.findById(tenantId)
+                    .map(tenant -> RateLimitTier.fromPlanCode(tenant.planCode()))
+                    .orElse(RateLimitTier.FREE));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            log.warn("查询租户限流等级失败，按免费版处理: tenantId={}", tenantId, e.getCause());
+            return RateLimitTier.FREE;
+        }
+    }
+
+    /**
+     * 多个租户中最高的等级，用户属于多个租户时按最宽松的限额计算
+     */
+    public RateLimitTier resolveHighest(Collection<Long> tenantIds) {
+        RateLimitTier highest = RateLimitTier.FREE;
+        if (tenantIds != null) {
+            for (Long tenantId : tenantIds) {
+                RateLimitTier tier = resolve(tenantId);
+                if (tier.compareTo(highest) > 0) {
+                    highest = tier;
+                }
+            }
+        }
+        return highest;
+    }
+}
@@ -0,0 +1,263 @@
+package com.cloud.baseai.infrastructure.ratelimit;
+
+import com.cloud.baseai.domain.mcp.model.ToolAuth;
+import com.cloud.baseai.domain.mcp.repository.ToolAuthRepository;
+import com.cloud.baseai.infrastructure.config.properties.McpProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>工具配额账本</h2>
+ *
+ * <p>租户工具配额的使用量在Redis中计数：调用前由Lua脚本一次完成"检查限额并增加"，
+ * 调用失败时退还。并发调用之间没有读改写竞争，也不再每次调用都更新
+ * {@code mcp_tool_tenant_auth}的同一行。</p>
+ *
+ * <p>Redis计数首次使用时以数据库中的{@code quota_used}为初值，计数变化后定期回写数据库。
+ * 账本关闭或Redis不可用时，改为在数据库上用一条带限额条件的UPDATE原子扣减；
+ * 回退期间Redis中的计数已经落后，本节点恢复访问Redis后（下一次预留或定期回写时）直接删除该计数。
+ * 删除对所有节点生效：随后任一节点的预留都以数据库值重新初始化，其他节点回写时读不到计数，
+ * 也不会用落后的值覆盖数据库。</p>
+ */
+@Component
+public class ToolQuotaLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(ToolQuotaLedger.class);
+
+    private static final String KEY_PREFIX = "mcp:quota:";
+
+    /**
+     * 计数不存在时以数据库值初始化，未超出限额时增加并返回新的使用量，
+     * 超出时返回 -(当前使用量) - 1
+     */
+    private static final String RESERVE_SCRIPT = """
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+              redis.call('SET', KEYS[1], ARGV[1])
+            end
+            redis.call('PEXPIRE', KEYS[1], ARGV[4])
+            local used = tonumber(redis.call('GET', KEYS[1]))
+            local limit = tonumber(ARGV[2])
+            local amount = tonumber(ARGV[3])
+            if limit >= 0 and used + amount > limit then
+              return -used - 1
+            end
+            return redis.call('INCRBY', KEYS[1], amount)
+            """;
+
+    private static final String REFUND_SCRIPT = """
+            local used = tonumber(redis.call('GET', KEYS[1]) or '-1')
+            if used >= tonumber(ARGV[1]) then
+              return redis.call('DECRBY', KEYS[1], ARGV[1])
+            end
+            return used
+            """;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ToolAuthRepository toolAuthRepo;
+    private final McpProperties.QuotaProperties properties;
+    private final DefaultRedisScript<Long> reserveScript = new DefaultRedisScript<>(RESERVE_SCRIPT, Long.class);
+    private final DefaultRedisScript<Long> refundScript = new DefaultRedisScript<>(REFUND_SCRIPT, Long.class);
+
+    /**
+     * Redis计数有变化、尚未回写数据库的授权
+     */
+    private final Set<QuotaKey> dirty = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 本节点回退到数据库扣减过、落后的Redis计数尚未删除的授权
+     */
+    private final Set<QuotaKey> stale = ConcurrentHashMap.newKeySet();
+
+    private final Counter rejectedCounter;
+    private final Counter fallbackCounter;
+
+    public ToolQuotaLedger(StringRedisTemplate redisTemplate, ToolAuthRepository toolAuthRepo,
+                           McpProperties mcpProperties, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.toolAuthRepo = toolAuthRepo;
+        this.properties = mcpProperties.getQuota();
+        this.rejectedCounter = Counter.builder("baseai.mcp.quota.rejected")
+                .description("因配额用完被拒绝的工具调用次数")
+                .register(meterRegistry);
+        this.fallbackCounter = Counter.builder("baseai.mcp.quota.fallback")
+                .description("Redis不可用时回退到数据库扣减配额的次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 为一次工具调用预留配额
+     *
+     * @param auth 租户的工具授权，其中的使用量只用于初始化Redis计数
+     * @return 预留结果
+     */
+    public Reservation reserve(ToolAuth auth) {
+        int used = auth.quotaUsed() != null ? auth.quotaUsed() : 0;
+        int limit = auth.quotaLimit() != null ? auth.quotaLimit() : -1;
+
+        if (Boolean.TRUE.equals(properties.getLedgerEnabled())) {
+            QuotaKey key = new QuotaKey(auth.toolId(), auth.tenantId());
+            try {
+                if (stale.contains(key)) {
+                    dropStale(List.of(key));
+                }
+                Long result = redisTemplate.execute(reserveScript, List.of(key.redisKey()),
+                        String.valueOf(used),
+                        String.valueOf(limit),
+                        "1",
+                        String.valueOf(TimeUnit.HOURS.toMillis(properties.getCounterTtlHours())));
+                if (result != null) {
+                    if (result < 0) {
+                        rejectedCounter.increment();
+                        return new Reservation(false, (int) (-result - 1));
+                    }
+                    dirty.add(key);
+                    return new Reservation(true, result.intValue());
+                }
+            } catch (Exception e) {
+                log.warn("Redis配额计数失败，回退到数据库: toolId={}, tenantId={}, error={}",
+                        auth.toolId(), auth.tenantId(), e.getMessage());
+            }
+            fallbackCounter.increment();
+            markStale(key);
+        }
+
+        if (toolAuthRepo.tryIncrementQuotaUsed(auth.toolId(), auth.tenantId(), 1)) {
+            return new Reservation(true, used + 1);
+        }
+        rejectedCounter.increment();
+        return new Reservation(false, used);
+    }
+
+    /**
+     * 退还预留的配额，工具调用失败时使用
+     */
+    public void refund(ToolAuth auth) {
+        QuotaKey key = new QuotaKey(auth.toolId(), auth.tenantId());
+        // 计数落后期间以数据库为准，直接在数据库上退还
+        if (Boolean.TRUE.equals(properties.getLedgerEnabled()) && !stale.contains(key)) {
+            try {
+                redisTemplate.execute(refundScript, List.of(key.redisKey()), "1");
+                dirty.add(key);
+                return;
+            } catch (Exception e) {
+                log.warn("Redis配额退还失败，回退到数据库: toolId={}, tenantId={}, error={}",
+                        auth.toolId(), auth.tenantId(), e.getMessage());
+            }
+            markStale(key);
+        }
+        toolAuthRepo.decrementQuotaUsed(auth.toolId(), auth.tenantId(), 1);
+    }
+
+    /**
+     * 丢弃授权的Redis计数，授权新建或撤销时调用，下次使用时从数据库重新加载
+     */
+    public void evict(Long toolId, Long tenantId) {
+        QuotaKey key = new QuotaKey(toolId, tenantId);
+        dirty.remove(key);
+        stale.remove(key);
+        try {
+            redisTemplate.delete(key.redisKey());
+        } catch (Exception e) {
+            // 下次预留前再尝试删除
+            stale.add(key);
+            log.warn("删除配额计数失败: toolId={}, tenantId={}, error={}", toolId, tenantId, e.getMessage());
+        }
+    }
+
+    /**
+     * 把有变化的Redis计数回写数据库
+     */
+    @Scheduled(fixedDelayString = "${baseai.mcp.quota.reconcile-interval-ms:10000}")
+    @PreDestroy
+    public void reconcile() {
+        if (!stale.isEmpty()) {
+            try {
+                dropStale(new ArrayList<>(stale));
+            } catch (Exception e) {
+                log.warn("删除落后的配额计数失败，稍后重试: count={}, error={}", stale.size(), e.getMessage());
+            }
+        }
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        // 先移出待回写集合再读取计数，读取之后的新变化会重新加入集合
+        List<QuotaKey> keys = new ArrayList<>(dirty);
+        dirty.removeAll(keys);
+
+        List<String> values;
+        try {
+            values = redisTemplate.opsForValue().multiGet(keys.stream().map(QuotaKey::redisKey).toList());
+        } catch (Exception e) {
+            dirty.addAll(keys);
+            log.warn("读取配额计数失败，稍后重试: count={}, error={}", keys.size(), e.getMessage());
+            return;
+        }
+        if (values == null) {
+            return;
+        }
+
+        for (int i = 0; i < keys.size(); i++) {
+            String value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            QuotaKey key = keys.get(i);
+            try {
+                toolAuthRepo.updateQuotaUsed(key.toolId(), key.tenantId(), Integer.parseInt(value));
+            } catch (Exception e) {
+                dirty.add(key);
+                log.warn("回写配额使用量失败: toolId={}, tenantId={}, error={}",
+                        key.toolId(), key.tenantId(), e.getMessage());
+            }
+        }
+        log.debug("配额使用量已回写: count={}", keys.size());
+    }
+
+    // =================== 私有方法 ===================
+
+    /**
+     * 记录计数已落后，且不再把它回写数据库
+     */
+    private void markStale(QuotaKey key) {
+        stale.add(key);
+        dirty.remove(key);
+    }
+
+    /**
+     * 删除落后的Redis计数，所有节点随后的预留脚本都会以数据库中的使用量重新初始化
+     */
+    private void dropStale(List<QuotaKey> keys) {
+        redisTemplate.delete(keys.stream().map(QuotaKey::redisKey).toList());
+        keys.forEach(stale::remove);
+    }
+
+    /**
+     * 配额预留结果
+     *
+     * @param granted 是否预留成功
+     * @param used    预留后（或被拒绝时）的使用量
+     */
+    public record Reservation(boolean granted, int used) {
+    }
+
+    private record QuotaKey(Long toolId, Long tenantId) {
+
+        String redisKey() {
+            return KEY_PREFIX + toolId + ":" + tenantId;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.cloud.baseai.infrastructure.repository.audit;
+
+import com.cloud.baseai.domain.audit.repository.AuditRollupRepository;
+import com.cloud.baseai.infrastructure.exception.AuditException;
+import com.cloud.baseai.infrastructure.exception.ErrorCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * <h2>审计统计汇总仓储实现类</h2>
+ *
+ * <p>汇总表{@code sys_audit_rollups}用{@code INSERT ... ON CONFLICT DO UPDATE}整桶覆盖写入，
+ * 聚合和写入在同一条SQL内完成，不经过应用内存。原始日志为null的租户记为0。</p>
+ */
+@Repository
+public class AuditRollupJdbcRepository implements AuditRollupRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditRollupJdbcRepository.class);
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO sys_audit_rollups (tenant_id, dimension, granularity, bucket_start, dimension_key, event_count)
+            """;
+
+    private static final String ON_CONFLICT_SQL = """
+            ON CONFLICT (tenant_id, dimension, granularity, bucket_start, dimension_key)
+            DO UPDATE SET event_count = EXCLUDED.event_count
+            """;
+
+    private static final String MINUTE_ROLLUP_SQL = UPSERT_SQL + """
+            SELECT COALESCE(tenant_id, 0), 'ACTION', 'MINUTE', date_trunc('minute', created_at), action, COUNT(*)
+            FROM sys_audit_logs
+            WHERE created_at >= ? AND created_at < ?
+            GROUP BY COALESCE(tenant_id, 0), date_trunc('minute', created_at), action
+            UNION ALL
+            SELECT COALESCE(tenant_id, 0), 'USER', 'MINUTE', date_trunc('minute', created_at), user_id::text, COUNT(*)
+            FROM sys_audit_logs
+            WHERE created_at >= ? AND created_at < ? AND user_id IS NOT NULL
+            GROUP BY COALESCE(tenant_id, 0), date_trunc('minute', created_at), user_id
+            """ + ON_CONFLICT_SQL;
+
+    private static final String COARSER_ROLLUP_SQL = UPSERT_SQL + """
+            SELECT tenant_id, dimension, ?, date_trunc(?, bucket_start AT TIME ZONE 'UTC') AT TIME ZONE 'UTC' AS coarse_start,
+                   dimension_key, SUM(event_count)
+            FROM sys_audit_rollups
+            WHERE granularity = ? AND bucket_start >= ? AND bucket_start < ?
+            GROUP BY tenant_id, dimension, coarse_start, dimension_key
+            """ + ON_CONFLICT_SQL;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AuditRollupJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Optional<OffsetDateTime> findCompactedUntil() {
+        return queryTime("""
+                SELECT MAX(bucket_start) + INTERVAL '1 minute' FROM sys_audit_rollups WHERE granularity = 'MINUTE'
+                """);
+    }
+
+    @Override
+    public Optional<OffsetDateTime> findEarliestLogTime() {
+        return queryTime("SELECT MIN(created_at) FROM sys_audit_logs");
+    }
+
+    @Override
+    public void rollupMinutes(OffsetDateTime from, OffsetDateTime to) {
+        execute("分钟", () -> jdbcTemplate.update(MINUTE_ROLLUP_SQL, from, to, from, to));
+    }
+
+    @Override
+    public void rollupHours(OffsetDateTime from, OffsetDateTime to) {
+        execute("小时", () -> jdbcTemplate.update(COARSER_ROLLUP_SQL,
+                Granularity.HOUR.name(), "hour", Granularity.MINUTE.name(), from, to));
+    }
+
+    @Override
+    public void rollupDays(OffsetDateTime from, OffsetDateTime to) {
+        execute("天", () -> jdbcTemplate.update(COARSER_ROLLUP_SQL,
+                Granularity.DAY.name(), "day", Granularity.HOUR.name(), from, to));
+    }
+
+    @Override
+    public Map<String, Long> sumRollups(Long tenantId, Dimension dimension, List<BucketRange> ranges) {
+        if (ranges.isEmpty()) {
+            return new HashMap<>();
+        }
+        StringBuilder sql = new StringBuilder(
+                "SELECT dimension_key, SUM(event_count) FROM sys_audit_rollups WHERE dimension = ?");
+        List<Object> args = new ArrayList<>();
+        args.add(dimension.name());
+        if (tenantId != null) {
+            sql.append(" AND tenant_id = ?");
+            args.add(tenantId);
+        }
+        sql.append(" AND (");
+        for (int i = 0; i < ranges.size(); i++) {
+            BucketRange range = ranges.get(i);
+            sql.append(i > 0 ? " OR " : "").append("(granularity = ? AND bucket_start >= ? AND bucket_start < ?)");
+            args.add(range.granularity().name());
+            args.add(range.start());
+            args.add(range.end());
+        }
+        sql.append(") GROUP BY dimension_key");
+        return queryCounts(sql.toString(), args);
+    }
+
+    @Override
+    public Map<String, Long> countRaw(Long tenantId, Dimension dimension, OffsetDateTime from, OffsetDateTime to) {
+        String column = dimension == Dimension.ACTION ? "action" : "user_id";
+        StringBuilder sql = new StringBuilder("SELECT ").append(column).append("::text, COUNT(*) FROM sys_audit_logs")
+                .append(" WHERE created_at >= ? AND created_at < ? AND ").append(column).append(" IS NOT NULL");
+        List<Object> args = new ArrayList<>(List.of(from, to));
+        if (tenantId != null) {
+            sql.append(" AND tenant_id = ?");
+            args.add(tenantId);
+        }
+        sql.append(" GROUP BY ").append(column);
+        return queryCounts(sql.toString(), args);
+    }
+
+    @Override
+    public int purgeBuckets(Granularity granularity, OffsetDateTime before) {
+        try {
+            return jdbcTemplate.update("DELETE FROM sys_audit_rollups WHERE granularity = ? AND bucket_start < ?",
+                    granularity.name(), before);
+        } catch (DataAccessException e) {
+            logger.error("清理审计统计汇总失败: granularity={}, before={}", granularity, before, e);
+            throw AuditException.technicalError(ErrorCode.BIZ_AUDIT_049, e);
+        }
+    }
+
+    // =================== 私有方法 ===================
+
+    private Optional<OffsetDateTime> queryTime(String sql) {
+        try {
+            return Optional.ofNullable(jdbcTemplate.queryForObject(sql,
+                    (rs, rowNum) -> rs.getObject(1, OffsetDateTime.class)));
+        } catch (DataAccessException e) {
+            logger.error("查询审计统计汇总进度失败", e);
+            throw AuditException.technicalError(ErrorCode.BIZ_AUDIT_049, e);
+        }
+    }
+
+    private Map<String, Long> queryCounts(String sql, List<Object> args) {
+        try {
+            Map<String, Long> counts = new HashMap<>();
+            jdbcTemplate.query(sql, rs -> {
+                counts.put(rs.getString(1), rs.getLong(2));
+            }, args.toArray());
+            return counts;
+        } catch (DataAccessException e) {
+            logger.error("查询审计统计失败", e);
+            throw AuditException.technicalError(ErrorCode.BIZ_AUDIT_049, e);
+        }
+    }
+
+    private void execute(String granularity, Runnable rollup) {
+        try {
+            rollup.run();
+        } catch (DataAccessException e) {
+            logger.error("重算{}级审计统计汇总失败", granularity, e);
+            throw AuditException.technicalError(ErrorCode.BIZ_AUDIT_049, e);
+        }
+    }
+}
@@ -8,6 +8,9 @@ import com.cloud.baseai.infrastructure.i18n.MessageManager;
 import com.cloud.baseai.infrastructure.persistence.audit.entity.SysAuditLogEntity;
 import com.cloud.baseai.infrastructure.persistence.audit.mapper.AuditMapper;
 import com.cloud.baseai.infrastructure.repository.audit.spring.SpringSysAuditLogRepo;
+import jakarta.persistence.criteria.Predicate;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
@@ -15,14 +18,25 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * <h2>系统审计日志仓储实现类</h2>
@@ -46,6 +60,45 @@ public class SysAuditLogJpaRepository implements SysAuditLogRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(SysAuditLogJpaRepository.class);
 
+    private static final String COPY_SQL = """
+            COPY sys_audit_logs (user_id, tenant_id, action, target_type, target_id, ip_address, user_agent,
+                                 detail, result_status, log_level, created_at)
+            FROM STDIN WITH (FORMAT csv)
+            """;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO sys_audit_logs (user_id, tenant_id, action, target_type, target_id, ip_address, user_agent,
+                                        detail, result_status, log_level, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, CAST(? AS JSONB), ?, ?, ?)
+            """;
+
+    private static final String STREAM_SELECT_SQL = """
+            SELECT id, tenant_id, user_id, action, target_type, target_id, ip_address, user_agent,
+                   detail::text AS detail, result_status, log_level, created_at
+            FROM sys_audit_logs
+            WHERE created_at IS NOT NULL
+            """;
+
+    /**
+     * 流式遍历时每页读取的行数
+     */
+    private static final int STREAM_PAGE_SIZE = 1000;
+
+    private static final RowMapper<SysAuditLog> AUDIT_LOG_ROW_MAPPER = (rs, rowNum) -> new SysAuditLog(
+            rs.getLong("id"),
+            rs.getObject("tenant_id", Long.class),
+            rs.getObject("user_id", Long.class),
+            rs.getString("action"),
+            rs.getString("target_type"),
+            rs.getObject("target_id", Long.class),
+            rs.getString("ip_address"),
+            rs.getString("user_agent"),
+            rs.getString("detail"),
+            rs.getString("result_status"),
+            rs.getString("log_level"),
+            rs.getObject("created_at", OffsetDateTime.class)
+    );
+
     /**
      * Spring Data JPA 仓储
      * <p>这是我们与数据库交互的最底层组件，提供了基础的CRUD操作和自定义查询方法。</p>
@@ -58,20 +111,28 @@ public class SysAuditLogJpaRepository implements SysAuditLogRepository {
      */
     private final AuditMapper mapper;
 
+    /**
+     * 批量写入使用的JDBC模板
+     */
+    private final JdbcTemplate jdbcTemplate;
+
     /**
      * 构造函数 - 依赖注入
      *
      * <p>确保所有必需的依赖都被正确初始化，避免空指针异常。</p>
      *
-     * @param springRepo Spring Data JPA 仓储
-     * @param mapper     实体转换器
+     * @param springRepo   Spring Data JPA 仓储
+     * @param mapper       实体转换器
+     * @param jdbcTemplate 批量写入使用的JDBC模板
      */
-    public SysAuditLogJpaRepository(SpringSysAuditLogRepo springRepo, AuditMapper mapper) {
+    public SysAuditLogJpaRepository(SpringSysAuditLogRepo springRepo, AuditMapper mapper,
+                                    JdbcTemplate jdbcTemplate) {
         Assert.notNull(springRepo, "SpringSysAuditLogRepo不能为null");
         Assert.notNull(mapper, "AuditMapper不能为null");
 
         this.springRepo = springRepo;
         this.mapper = mapper;
+        this.jdbcTemplate = jdbcTemplate;
 
         logger.info("审计日志仓储初始化完成");
     }
@@ -229,8 +290,9 @@ public class SysAuditLogJpaRepository implements SysAuditLogRepository {
             validateTimeRange(startTime, endTime);
 
             // 执行查询
-            Page<SysAuditLogEntity> entityPage = springRepo.findUserActions(
-                    userId, startTime, endTime, actions, pageable);
+            Page<SysAuditLogEntity> entityPage = springRepo.findAll(
+                    userActionsSpecification(userId, startTime, endTime, actions),
+                    withCreatedAtDescending(pageable));
 
             // 转换为领域对象
             Page<SysAuditLog> domainPage = entityPage.map(mapper::toDomain);
@@ -435,6 +497,94 @@ public class SysAuditLogJpaRepository implements SysAuditLogRepository {
         }
     }
 
+    /**
+     * 按操作类型统计指定用户的操作次数
+     *
+     * <p>分组统计在数据库中完成，只返回每种操作一行。</p>
+     *
+     * @param userId    用户ID
+     * @param startTime 开始时间
+     * @param endTime   结束时间
+     * @return 统计结果列表，每个元素包含操作类型和数量
+     * @throws AuditException 当统计操作失败时抛出
+     */
+    @Override
+    public List<Object[]> countUserActionsByAction(Long userId, OffsetDateTime startTime, OffsetDateTime endTime) {
+        if (userId == null || startTime == null || endTime == null) {
+            logger.warn("用户ID或时间范围参数为null，返回空列表");
+            return new ArrayList<>();
+        }
+
+        try {
+            validateTimeRange(startTime, endTime);
+
+            return springRepo.countUserActionsByAction(userId, startTime, endTime);
+
+        } catch (DataAccessException e) {
+            logger.error("按操作类型统计用户审计日志失败: userId={}", userId, e);
+            throw AuditException.technicalError(ErrorCode.BIZ_AUDIT_025, e);
+        }
+    }
+
+    /**
+     * 按时间顺序流式遍历审计日志
+     *
+     * <p>使用{@code (created_at, id)}键集分页：每页从上一页最后一行之后继续读取，
+     * 不使用OFFSET，翻到第几页的代价都相同。每页的行交给消费者后即可回收，
+     * 也不经过JPA持久化上下文，导出一年数据时堆内存占用与一页相当。</p>
+     *
+     * @return 遍历的记录数
+     * @throws AuditException 当读取失败时抛出
+     */
+    @Override
+    public long streamAuditLogs(Long tenantId, Long userId, OffsetDateTime startTime, OffsetDateTime endTime,
+                                List<String> actions, Consumer<SysAuditLog> consumer) {
+        Assert.notNull(consumer, "消费者不能为null");
+        validateTimeRange(startTime, endTime);
+
+        StringBuilder conditions = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+        appendCondition(conditions, args, "tenant_id = ?", tenantId);
+        appendCondition(conditions, args, "user_id = ?", userId);
+        appendCondition(conditions, args, "created_at >= ?", startTime);
+        appendCondition(conditions, args, "created_at <= ?", endTime);
+        if (actions != null && !actions.isEmpty()) {
+            conditions.append(" AND action IN (")
+                    .append(String.join(", ", Collections.nCopies(actions.size(), "?")))
+                    .append(')');
+            args.addAll(actions);
+        }
+
+        try {
+            long total = 0;
+            SysAuditLog last = null;
+            while (true) {
+                List<Object> pageArgs = new ArrayList<>(args);
+                StringBuilder sql = new StringBuilder(STREAM_SELECT_SQL).append(conditions);
+                if (last != null) {
+                    sql.append(" AND (created_at, id) > (?, ?)");
+                    pageArgs.add(last.createdAt());
+                    pageArgs.add(last.id());
+                }
+                sql.append(" ORDER BY created_at, id LIMIT ?");
+                pageArgs.add(STREAM_PAGE_SIZE);
+
+                List<SysAuditLog> page = jdbcTemplate.query(sql.toString(), AUDIT_LOG_ROW_MAPPER, pageArgs.toArray());
+                page.forEach(consumer);
+                total += page.size();
+                if (page.size() < STREAM_PAGE_SIZE) {
+                    logger.debug("流式遍历审计日志完成: tenantId={}, userId={}, 数量={}", tenantId, userId, total);
+                    return total;
+                }
+                last = page.getLast();
+            }
+
+        } catch (DataAccessException e) {
+            logger.error("流式读取审计日志失败: tenantId={}, userId={}", tenantId, userId, e);
+            throw AuditException.technicalError(ErrorCode.BIZ_AUDIT_047, e);
+        }
+    }
+
     /**
      * 删除指定时间之前的审计日志
      *
@@ -563,8 +713,152 @@ public class SysAuditLogJpaRepository implements SysAuditLogRepository {
         }
     }
 
+    /**
+     * 批量写入审计日志
+     *
+     * <p>PostgreSQL连接上使用COPY协议一次写入整批数据，没有逐行的语句往返和主键回填；
+     * 无法取得PostgreSQL连接时退回JDBC批量插入。整批在一个语句中完成，任一行失败则整批失败。</p>
+     *
+     * @param logs 要写入的审计日志
+     * @throws DataAccessException 写入失败时原样抛出
+     */
+    @Override
+    public void insertBatch(List<SysAuditLog> logs) {
+        if (logs.isEmpty()) {
+            return;
+        }
+
+        Long copied = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            if (!connection.isWrapperFor(PGConnection.class)) {
+                return null;
+            }
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+            try {
+                StringBuilder rows = new StringBuilder(logs.size() * 256);
+                for (SysAuditLog auditLog : logs) {
+                    appendCsvRow(rows, auditLog);
+                }
+                byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        });
+
+        if (copied == null) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, logs, logs.size(), (ps, auditLog) -> {
+                setNullableLong(ps, 1, auditLog.userId());
+                setNullableLong(ps, 2, auditLog.tenantId());
+                ps.setString(3, auditLog.action());
+                ps.setString(4, auditLog.targetType());
+                setNullableLong(ps, 5, auditLog.targetId());
+                ps.setString(6, auditLog.ipAddress());
+                ps.setString(7, auditLog.userAgent());
+                ps.setString(8, auditLog.detail());
+                ps.setString(9, auditLog.resultStatus());
+                ps.setString(10, auditLog.logLevel());
+                ps.setTimestamp(11, Timestamp.from(createdAt(auditLog).toInstant()));
+            });
+        }
+
+        logger.debug("批量写入审计日志完成: 数量={}, 方式={}", logs.size(), copied != null ? "COPY" : "JDBC");
+    }
+
     // =================== 私有辅助方法 ===================
 
+    /**
+     * 按COPY的CSV格式追加一行，空值写成不带引号的空字段
+     */
+    private static void appendCsvRow(StringBuilder rows, SysAuditLog auditLog) {
+        appendCsvValue(rows, auditLog.userId()).append(',');
+        appendCsvValue(rows, auditLog.tenantId()).append(',');
+        appendCsvValue(rows, auditLog.action()).append(',');
+        appendCsvValue(rows, auditLog.targetType()).append(',');
+        appendCsvValue(rows, auditLog.targetId()).append(',');
+        appendCsvValue(rows, auditLog.ipAddress()).append(',');
+        appendCsvValue(rows, auditLog.userAgent()).append(',');
+        appendCsvValue(rows, auditLog.detail()).append(',');
+        appendCsvValue(rows, auditLog.resultStatus()).append(',');
+        appendCsvValue(rows, auditLog.logLevel()).append(',');
+        appendCsvValue(rows, createdAt(auditLog).toString()).append('\n');
+    }
+
+    private static StringBuilder appendCsvValue(StringBuilder rows, Object value) {
+        if (value == null) {
+            return rows;
+        }
+        if (value instanceof Number) {
+            return rows.append(value);
+        }
+        String text = value.toString();
+        rows.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                rows.append('"');
+            }
+            rows.append(c);
+        }
+        return rows.append('"');
+    }
+
+    /**
+     * 用户操作查询条件，只为实际给出的条件生成谓词，时间条件直接作用在created_at上，规划器可以裁剪分区
+     */
+    private static Specification<SysAuditLogEntity> userActionsSpecification(
+            Long userId, OffsetDateTime startTime, OffsetDateTime endTime, List<String> actions) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (userId != null) {
+                predicates.add(cb.equal(root.get("userId"), userId));
+            }
+            if (startTime != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), startTime));
+            }
+            if (endTime != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("createdAt"), endTime));
+            }
+            if (actions != null && !actions.isEmpty()) {
+                predicates.add(root.get("action").in(actions));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * 调用方未指定排序时按创建时间倒序
+     */
+    private static Pageable withCreatedAtDescending(Pageable pageable) {
+        if (pageable.getSort().isSorted()) {
+            return pageable;
+        }
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                Sort.by(Sort.Direction.DESC, "createdAt"));
+    }
+
+    private static void appendCondition(StringBuilder conditions, List<Object> args, String condition, Object value) {
+        if (value != null) {
+            conditions.append(" AND ").append(condition);
+            args.add(value);
+        }
+    }
+
+    private static void setNullableLong(PreparedStatement ps, int index, Long value)
+            throws SQLException {
+        if (value != null) {
+            ps.setLong(index, value);
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
+    }
+
+    private static OffsetDateTime createdAt(SysAuditLog auditLog) {
+        return auditLog.createdAt() != null ? auditLog.createdAt() : OffsetDateTime.now();
+    }
+
     /**
      * 验证分页参数的合理性
      *
@@ -4,6 +4,7 @@ import com.cloud.baseai.infrastructure.persistence.audit.entity.SysAuditLogEntit
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -23,62 +24,13 @@ import java.util.Optional;
  * 所以我们使用了合适的索引、分页查询、以及优化的SQL语句来确保查询效率。</p>
  */
 @Repository
-public interface SpringSysAuditLogRepo extends JpaRepository<SysAuditLogEntity, Long> {
+public interface SpringSysAuditLogRepo extends JpaRepository<SysAuditLogEntity, Long>,
+        JpaSpecificationExecutor<SysAuditLogEntity> {
 
     // =================== 核心查询方法 ===================
 
-    /**
-     * 根据用户ID和时间范围查询审计日志
-     *
-     * <p>这个查询方法是审计系统中最常用的方法之一。
-     * 它能够根据多个条件快速找到相关的审计记录。我们使用JPQL来编写这个查询，
-     * 确保它能够充分利用数据库索引。</p>
-     *
-     * <p><b>查询逻辑说明：</b></p>
-     * <p>这个查询支持灵活的参数组合：</p>
-     * <ul>
-     * <li>如果userId为null，则查询所有用户的记录</li>
-     * <li>如果时间参数为null，则不限制时间范围</li>
-     * <li>如果actions为null或空，则不限制操作类型</li>
-     * </ul>
-     *
-     * @param userId    用户ID，null表示查询所有用户
-     * @param startTime 开始时间，null表示不限制开始时间
-     * @param endTime   结束时间，null表示不限制结束时间
-     * @param actions   操作类型列表，null或空表示所有操作类型
-     * @param pageable  分页参数，包含页码、页大小和排序信息
-     * @return 分页的查询结果
-     */
-    @Query("SELECT a FROM SysAuditLogEntity a WHERE " +
-            "(:userId IS NULL OR a.userId = :userId) " +
-            "AND (:tenantId IS NULL OR a.tenantId = :tenantId) " +
-            "AND (:startTime IS NULL OR a.createdAt >= :startTime) " +
-            "AND (:endTime IS NULL OR a.createdAt <= :endTime) " +
-            "AND (:actions IS NULL OR a.action IN :actions) " +
-            "ORDER BY a.createdAt DESC")
-    Page<SysAuditLogEntity> findUserActions(
-            @Param("userId") Long userId,
-            @Param("startTime") OffsetDateTime startTime,
-            @Param("endTime") OffsetDateTime endTime,
-            @Param("actions") List<String> actions,
-            Pageable pageable
-    );
-
-    @Query("SELECT a FROM SysAuditLogEntity a WHERE " +
-            "a.tenantId = :tenantId " +
-            "AND (:userId IS NULL OR a.userId = :userId) " +
-            "AND (:startTime IS NULL OR a.createdAt >= :startTime) " +
-            "AND (:endTime IS NULL OR a.createdAt <= :endTime) " +
-            "AND (:actions IS NULL OR a.action IN :actions) " +
-            "ORDER BY a.createdAt DESC")
-    Page<SysAuditLogEntity> findUserActionsWithTenant(
-            @Param("tenantId") Long tenantId,
-            @Param("userId") Long userId,
-            @Param("startTime") OffsetDateTime startTime,
-            @Param("endTime") OffsetDateTime endTime,
-            @Param("actions") List<String> actions,
-            Pageable pageable
-    );
+    // 可选条件的组合查询见SysAuditLogJpaRepository，按实际给出的条件拼接谓词。
+    // 不使用(:param IS NULL OR ...)的写法：它让规划器无法按created_at裁剪分区，也用不上索引。
 
     // =================== 租户相关查询 ===================
 
@@ -240,6 +192,25 @@ public interface SpringSysAuditLogRepo extends JpaRepository<SysAuditLogEntity,
             @Param("endTime") OffsetDateTime endTime
     );
 
+    /**
+     * 按操作类型统计指定用户的操作次数
+     *
+     * @param userId    用户ID
+     * @param startTime 开始时间
+     * @param endTime   结束时间
+     * @return 统计结果列表，每个元素包含[操作类型, 数量]
+     */
+    @Query("SELECT a.action, COUNT(a) FROM SysAuditLogEntity a WHERE " +
+            "a.userId = :userId " +
+            "AND a.createdAt >= :startTime AND a.createdAt <= :endTime " +
+            "GROUP BY a.action " +
+            "ORDER BY COUNT(a) DESC")
+    List<Object[]> countUserActionsByAction(
+            @Param("userId") Long userId,
+            @Param("startTime") OffsetDateTime startTime,
+            @Param("endTime") OffsetDateTime endTime
+    );
+
     // =================== 对象操作历史查询 ===================
 
     /**
@@ -301,8 +272,8 @@ public interface SpringSysAuditLogRepo extends JpaRepository<SysAuditLogEntity,
     @Query("SELECT a FROM SysAuditLogEntity a WHERE " +
             "a.tenantId = :tenantId " +
             "AND a.resultStatus = 'FAILED' " +
-            "AND (:startTime IS NULL OR a.createdAt >= :startTime) " +
-            "AND (:endTime IS NULL OR a.createdAt <= :endTime) " +
+            "AND a.createdAt >= :startTime " +
+            "AND a.createdAt <= :endTime " +
             "ORDER BY a.createdAt DESC")
     Page<SysAuditLogEntity> findFailedOperations(
             @Param("tenantId") Long tenantId,
@@ -6,8 +6,12 @@ import com.cloud.baseai.infrastructure.persistence.flow.entity.FlowRunLogEntity;
 import com.cloud.baseai.infrastructure.persistence.flow.mapper.FlowMapper;
 import com.cloud.baseai.infrastructure.repository.flow.spring.SpringFlowRunLogRepo;
 import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.OffsetDateTime;
 import java.util.List;
 
 /**
@@ -16,12 +20,20 @@ import java.util.List;
 @Repository
 public class FlowRunLogJpaRepository implements FlowRunLogRepository {
 
+    private static final String INSERT_SQL = """
+            INSERT INTO flow_run_logs (run_id, node_key, io_json, created_by, created_at)
+            VALUES (?, ?, CAST(? AS JSONB), ?, ?)
+            """;
+
     private final SpringFlowRunLogRepo springRepo;
     private final FlowMapper mapper;
+    private final JdbcTemplate jdbcTemplate;
 
-    public FlowRunLogJpaRepository(SpringFlowRunLogRepo springRepo, FlowMapper mapper) {
+    public FlowRunLogJpaRepository(SpringFlowRunLogRepo springRepo, FlowMapper mapper,
+                                   JdbcTemplate jdbcTemplate) {
         this.springRepo = springRepo;
         this.mapper = mapper;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     @Override
@@ -31,6 +43,25 @@ public class FlowRunLogJpaRepository implements FlowRunLogRepository {
         return mapper.toDomain(saved);
     }
 
+    @Override
+    public void insertBatch(List<FlowRunLog> logs) {
+        if (logs.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, logs, logs.size(), (ps, runLog) -> {
+            ps.setLong(1, runLog.runId());
+            ps.setString(2, runLog.nodeKey());
+            ps.setString(3, runLog.ioJson());
+            if (runLog.createdBy() != null) {
+                ps.setLong(4, runLog.createdBy());
+            } else {
+                ps.setNull(4, Types.BIGINT);
+            }
+            OffsetDateTime createdAt = runLog.createdAt() != null ? runLog.createdAt() : OffsetDateTime.now();
+            ps.setTimestamp(5, Timestamp.from(createdAt.toInstant()));
+        });
+    }
+
     @Override
     public List<FlowRunLog> findByRunId(Long runId) {
         List<FlowRunLogEntity> entities = springRepo.findByRunIdAndDeletedAtIsNull(
@@ -2,6 +2,7 @@ package com.cloud.baseai.infrastructure.repository.flow;
 
 import com.cloud.baseai.domain.flow.model.FlowSnapshot;
 import com.cloud.baseai.domain.flow.repository.FlowSnapshotRepository;
+import com.cloud.baseai.infrastructure.flow.service.FlowPlanCache;
 import com.cloud.baseai.infrastructure.persistence.flow.entity.FlowSnapshotEntity;
 import com.cloud.baseai.infrastructure.persistence.flow.mapper.FlowMapper;
 import com.cloud.baseai.infrastructure.repository.flow.spring.SpringFlowSnapshotRepo;
@@ -29,10 +30,12 @@ public class FlowSnapshotJpaRepository implements FlowSnapshotRepository {
 
     private final SpringFlowSnapshotRepo springRepo;
     private final FlowMapper mapper;
+    private final FlowPlanCache planCache;
 
-    public FlowSnapshotJpaRepository(SpringFlowSnapshotRepo springRepo, FlowMapper mapper) {
+    public FlowSnapshotJpaRepository(SpringFlowSnapshotRepo springRepo, FlowMapper mapper, FlowPlanCache planCache) {
         this.springRepo = springRepo;
         this.mapper = mapper;
+        this.planCache = planCache;
     }
 
     @Override
@@ -223,6 +226,7 @@ public class FlowSnapshotJpaRepository implements FlowSnapshotRepository {
 
             // 执行软删除
             springRepo.softDeleteById(id, OffsetDateTime.now());
+            planCache.invalidate(id);
 
             log.info("快照删除成功: id={}", id);
 
@@ -255,6 +259,7 @@ public class FlowSnapshotJpaRepository implements FlowSnapshotRepository {
 
             // 执行批量软删除
             springRepo.softDeleteByIds(validIds, OffsetDateTime.now());
+            planCache.invalidate(validIds);
 
             log.info("批量删除完成: 处理了{}个快照", validIds.size());
 
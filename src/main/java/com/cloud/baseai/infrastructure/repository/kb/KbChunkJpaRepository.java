@@ -5,13 +5,17 @@ import com.cloud.baseai.domain.kb.repository.ChunkRepository;
 import com.cloud.baseai.infrastructure.persistence.kb.entity.KbChunkEntity;
 import com.cloud.baseai.infrastructure.persistence.kb.mapper.KbMapper;
 import com.cloud.baseai.infrastructure.repository.kb.spring.SpringKbChunkRepo;
+import com.cloud.baseai.infrastructure.search.Bm25KeywordIndex;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -19,16 +23,21 @@ import java.util.stream.Collectors;
  *
  * <p>知识块仓储的JPA实现，处理知识块的CRUD操作和复杂查询。
  * 特别注意批量操作的性能优化，因为知识块数量通常很大。</p>
+ *
+ * <p>知识块的写入和删除会在事务提交后维护 {@link Bm25KeywordIndex} 倒排表，索引失败不影响知识块本身；
+ * 文本搜索优先使用BM25排序。</p>
  */
 @Repository
 public class KbChunkJpaRepository implements ChunkRepository {
 
     private final SpringKbChunkRepo springRepo;
     private final KbMapper mapper;
+    private final Bm25KeywordIndex keywordIndex;
 
-    public KbChunkJpaRepository(SpringKbChunkRepo springRepo, KbMapper mapper) {
+    public KbChunkJpaRepository(SpringKbChunkRepo springRepo, KbMapper mapper, Bm25KeywordIndex keywordIndex) {
         this.springRepo = springRepo;
         this.mapper = mapper;
+        this.keywordIndex = keywordIndex;
     }
 
     @Override
@@ -44,7 +53,9 @@ public class KbChunkJpaRepository implements ChunkRepository {
         }
 
         KbChunkEntity saved = springRepo.save(entity);
-        return mapper.toDomain(saved);
+        Chunk savedChunk = mapper.toDomain(saved);
+        keywordIndex.indexAfterCommit(List.of(savedChunk));
+        return savedChunk;
     }
 
     @Override
@@ -52,7 +63,9 @@ public class KbChunkJpaRepository implements ChunkRepository {
         List<KbChunkEntity> entities = mapper.toChunkEntityList(chunks);
 
         List<KbChunkEntity> saved = springRepo.saveAll(entities);
-        return mapper.toChunkDomainList(saved);
+        List<Chunk> savedChunks = mapper.toChunkDomainList(saved);
+        keywordIndex.indexAfterCommit(savedChunks);
+        return savedChunks;
     }
 
     @Override
@@ -88,6 +101,15 @@ public class KbChunkJpaRepository implements ChunkRepository {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<Chunk> findByDocumentIdAfter(Long documentId, Long afterChunkId, int limit) {
+        return springRepo.findByDocumentIdAndIdGreaterThanAndDeletedAtIsNullOrderByIdAsc(
+                        documentId, afterChunkId, PageRequest.of(0, limit))
+                .stream()
+                .map(mapper::toDomain)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public long countByDocumentId(Long documentId) {
         return springRepo.countByDocumentIdAndDeletedAtIsNull(documentId);
@@ -105,6 +127,22 @@ public class KbChunkJpaRepository implements ChunkRepository {
 
     @Override
     public List<Chunk> searchByText(Long tenantId, String query, int limit) {
+        if (keywordIndex.hasIndex(tenantId)) {
+            List<Long> rankedIds = keywordIndex.search(tenantId, query, limit).stream()
+                    .map(Bm25KeywordIndex.KeywordSearchResult::chunkId)
+                    .toList();
+            if (rankedIds.isEmpty()) {
+                return List.of();
+            }
+            Map<Long, Chunk> chunksById = findByIds(rankedIds).stream()
+                    .collect(Collectors.toMap(Chunk::id, Function.identity()));
+            return rankedIds.stream()
+                    .map(chunksById::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+        }
+
+        // 租户尚未建立倒排索引时回退到模糊匹配
         Pageable pageable = PageRequest.of(0, limit);
         return springRepo.searchByText(tenantId, query, pageable)
                 .getContent()
@@ -127,6 +165,7 @@ public class KbChunkJpaRepository implements ChunkRepository {
         List<KbChunkEntity> chunks = springRepo.findByDocumentIdAndDeletedAtIsNullOrderByChunkNo(documentId);
         chunks.forEach(chunk -> chunk.setDeletedAt(java.time.OffsetDateTime.now()));
         springRepo.saveAll(chunks);
+        keywordIndex.removeAfterCommit(chunks.stream().map(KbChunkEntity::getId).toList());
         return chunks.size();
     }
 }
\ No newline at end of file
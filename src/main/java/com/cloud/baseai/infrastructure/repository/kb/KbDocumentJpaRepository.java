@@ -6,6 +6,7 @@ import com.cloud.baseai.domain.kb.repository.DocumentRepository;
 import com.cloud.baseai.infrastructure.persistence.kb.entity.KbDocumentEntity;
 import com.cloud.baseai.infrastructure.persistence.kb.mapper.KbMapper;
 import com.cloud.baseai.infrastructure.repository.kb.spring.SpringKbDocumentRepo;
+import com.cloud.baseai.infrastructure.search.VectorIndexManager;
 import com.cloud.baseai.infrastructure.constants.KbConstants;
 import com.cloud.baseai.infrastructure.utils.KbUtils;
 import org.springframework.data.domain.Page;
@@ -13,6 +14,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
 import java.util.List;
@@ -37,10 +39,13 @@ public class KbDocumentJpaRepository implements DocumentRepository {
 
     private final SpringKbDocumentRepo springRepo;
     private final KbMapper mapper;
+    private final VectorIndexManager vectorIndexManager;
 
-    public KbDocumentJpaRepository(SpringKbDocumentRepo springRepo, KbMapper mapper) {
+    public KbDocumentJpaRepository(SpringKbDocumentRepo springRepo, KbMapper mapper,
+                                   VectorIndexManager vectorIndexManager) {
         this.springRepo = springRepo;
         this.mapper = mapper;
+        this.vectorIndexManager = vectorIndexManager;
     }
 
     @Override
@@ -131,7 +136,21 @@ public class KbDocumentJpaRepository implements DocumentRepository {
         entity.setDeletedAt(OffsetDateTime.now());
         entity.setUpdatedBy(deletedBy);
         springRepo.save(entity);
+        // 文档删除不会删除向量，需要让各节点的内存索引移除其知识块
+        vectorIndexManager.onDocumentDeleted(id);
 
         return true;
     }
+
+    @Override
+    @Transactional
+    public void refreshEmbeddedCount(Long documentId, String modelCode) {
+        springRepo.refreshEmbeddedCount(documentId, modelCode);
+    }
+
+    @Override
+    @Transactional
+    public void resetEmbeddedCount(Long documentId) {
+        springRepo.resetEmbeddedCount(documentId);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,102 @@
+package com.cloud.baseai.infrastructure.repository.kb;
+
+import com.cloud.baseai.domain.kb.model.EmbeddingJob;
+import com.cloud.baseai.domain.kb.model.EmbeddingJobStatus;
+import com.cloud.baseai.domain.kb.repository.EmbeddingJobRepository;
+import com.cloud.baseai.infrastructure.persistence.kb.entity.KbEmbeddingJobEntity;
+import com.cloud.baseai.infrastructure.repository.kb.spring.SpringKbEmbeddingJobRepo;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * <h2>向量生成任务仓储实现</h2>
+ *
+ * <p>所有状态变更都带有 {@code locked_by} 条件：租约被接管后，原节点的写入不会生效，
+ * 避免两个节点同时推进同一个任务的检查点。</p>
+ */
+@Repository
+public class KbEmbeddingJobJpaRepository implements EmbeddingJobRepository {
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final SpringKbEmbeddingJobRepo springRepo;
+
+    public KbEmbeddingJobJpaRepository(SpringKbEmbeddingJobRepo springRepo) {
+        this.springRepo = springRepo;
+    }
+
+    @Override
+    @Transactional
+    public List<EmbeddingJob> saveAll(List<EmbeddingJob> jobs) {
+        List<KbEmbeddingJobEntity> entities = jobs.stream()
+                .map(KbEmbeddingJobEntity::fromDomain)
+                .toList();
+        return springRepo.saveAll(entities).stream()
+                .map(KbEmbeddingJobEntity::toDomain)
+                .toList();
+    }
+
+    @Override
+    @Transactional
+    public List<EmbeddingJob> claim(String workerId, int limit, int leaseSeconds, int maxAttempts) {
+        springRepo.failAbandoned(maxAttempts);
+
+        List<KbEmbeddingJobEntity> claimable = springRepo.lockClaimable(maxAttempts, limit);
+        OffsetDateTime now = OffsetDateTime.now();
+        for (KbEmbeddingJobEntity entity : claimable) {
+            entity.setStatus(EmbeddingJobStatus.RUNNING);
+            entity.setLockedBy(workerId);
+            entity.setLockedUntil(now.plusSeconds(leaseSeconds));
+            entity.setAttempts(entity.getAttempts() + 1);
+            if (entity.getStartedAt() == null) {
+                entity.setStartedAt(now);
+            }
+        }
+        return springRepo.saveAll(claimable).stream()
+                .map(KbEmbeddingJobEntity::toDomain)
+                .toList();
+    }
+
+    @Override
+    @Transactional
+    public boolean checkpoint(Long jobId, String workerId, long lastChunkId,
+                              int processedDelta, int failedDelta, int leaseSeconds) {
+        return springRepo.checkpoint(jobId, workerId, lastChunkId, processedDelta, failedDelta, leaseSeconds) > 0;
+    }
+
+    @Override
+    @Transactional
+    public boolean renew(Long jobId, String workerId, int leaseSeconds) {
+        return springRepo.renew(jobId, workerId, leaseSeconds) > 0;
+    }
+
+    @Override
+    @Transactional
+    public void complete(Long jobId, String workerId) {
+        springRepo.complete(jobId, workerId);
+    }
+
+    @Override
+    @Transactional
+    public void release(Long jobId, String workerId, String error, int maxAttempts, int backoffSeconds) {
+        String truncated = error != null && error.length() > MAX_ERROR_LENGTH
+                ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        springRepo.release(jobId, workerId, truncated, maxAttempts, backoffSeconds);
+    }
+
+    @Override
+    @Transactional
+    public void requeue(Long jobId, String workerId, String reason) {
+        springRepo.requeue(jobId, workerId, reason);
+    }
+
+    @Override
+    public List<EmbeddingJob> findByTaskId(String taskId) {
+        return springRepo.findByTaskIdOrderById(taskId).stream()
+                .map(KbEmbeddingJobEntity::toDomain)
+                .toList();
+    }
+}
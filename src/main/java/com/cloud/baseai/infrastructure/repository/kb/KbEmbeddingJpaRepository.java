@@ -4,9 +4,13 @@ import com.cloud.baseai.domain.kb.model.Embedding;
 import com.cloud.baseai.domain.kb.repository.EmbeddingRepository;
 import com.cloud.baseai.infrastructure.persistence.kb.entity.KbEmbeddingEntity;
 import com.cloud.baseai.infrastructure.persistence.kb.mapper.KbMapper;
+import com.cloud.baseai.infrastructure.persistence.kb.mapper.PgVector;
 import com.cloud.baseai.infrastructure.repository.kb.spring.SpringKbEmbeddingRepo;
+import com.cloud.baseai.infrastructure.search.VectorIndexManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -22,7 +26,7 @@ import java.util.stream.Collectors;
  * <p><b>性能考虑：</b></p>
  * <ul>
  * <li>向量搜索查询使用原生SQL以获得最佳性能</li>
- * <li>向量数据需要特殊的序列化处理</li>
+ * <li>查询向量通过 {@link PgVector} 以pgvector二进制格式绑定，不再格式化为文本再由数据库CAST解析</li>
  * <li>大量向量操作时考虑批处理优化</li>
  * </ul>
  */
@@ -31,18 +35,69 @@ public class KbEmbeddingJpaRepository implements EmbeddingRepository {
 
     private static final Logger log = LoggerFactory.getLogger(KbEmbeddingJpaRepository.class);
 
+    /**
+     * 向量相似度搜索SQL
+     *
+     * <p>使用余弦距离操作符(<=>)排序，通过JOIN实现租户隔离。查询向量以二进制vector参数绑定，
+     * 同一个参数在SELECT和ORDER BY中各绑定一次。</p>
+     */
+    private static final String SEARCH_SIMILAR_SQL = """
+            SELECT e.chunk_id AS chunk_id,
+                   (1 - (e.embedding <=> ?)) AS score
+            FROM kb_embeddings e
+            JOIN kb_chunks c ON e.chunk_id = c.id
+            JOIN kb_documents d ON c.document_id = d.id
+            WHERE e.model_code = ?
+              AND d.tenant_id = ?
+              AND e.deleted_at IS NULL
+              AND c.deleted_at IS NULL
+              AND d.deleted_at IS NULL
+            ORDER BY e.embedding <=> ?
+            LIMIT ?
+            """;
+
+    /**
+     * 带阈值的向量相似度搜索SQL
+     *
+     * <p>阈值条件改写为距离上限（distance <= 1 - threshold），与排序表达式保持一致。</p>
+     */
+    private static final String SEARCH_SIMILAR_WITH_THRESHOLD_SQL = """
+            SELECT e.chunk_id AS chunk_id,
+                   (1 - (e.embedding <=> ?)) AS score
+            FROM kb_embeddings e
+            JOIN kb_chunks c ON e.chunk_id = c.id
+            JOIN kb_documents d ON c.document_id = d.id
+            WHERE e.model_code = ?
+              AND d.tenant_id = ?
+              AND e.deleted_at IS NULL
+              AND c.deleted_at IS NULL
+              AND d.deleted_at IS NULL
+              AND (e.embedding <=> ?) <= ?
+            ORDER BY e.embedding <=> ?
+            LIMIT ?
+            """;
+
+    private static final RowMapper<EmbeddingSearchResult> SEARCH_RESULT_MAPPER =
+            (rs, rowNum) -> new EmbeddingSearchResult(rs.getLong("chunk_id"), rs.getFloat("score"));
+
     private final SpringKbEmbeddingRepo springRepo;
     private final KbMapper mapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final VectorIndexManager vectorIndexManager;
 
-    public KbEmbeddingJpaRepository(SpringKbEmbeddingRepo springRepo, KbMapper mapper) {
+    public KbEmbeddingJpaRepository(SpringKbEmbeddingRepo springRepo, KbMapper mapper,
+                                    JdbcTemplate jdbcTemplate, VectorIndexManager vectorIndexManager) {
         this.springRepo = springRepo;
         this.mapper = mapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.vectorIndexManager = vectorIndexManager;
     }
 
     @Override
     public Embedding save(Embedding embedding) {
         KbEmbeddingEntity entity = KbEmbeddingEntity.fromDomain(embedding);
         KbEmbeddingEntity saved = springRepo.save(entity);
+        vectorIndexManager.onEmbeddingsSaved(List.of(embedding));
         return mapper.toDomain(saved);
     }
 
@@ -51,6 +106,7 @@ public class KbEmbeddingJpaRepository implements EmbeddingRepository {
         List<KbEmbeddingEntity> entities = mapper.toEmbeddingEntityList(embeddings);
 
         List<KbEmbeddingEntity> saved = springRepo.saveAll(entities);
+        vectorIndexManager.onEmbeddingsSaved(embeddings);
         return mapper.toEmbeddingDomainList(saved);
     }
 
@@ -72,15 +128,15 @@ public class KbEmbeddingJpaRepository implements EmbeddingRepository {
     public List<EmbeddingSearchResult> searchSimilar(float[] queryVector, String modelCode,
                                                      Long tenantId, int limit) {
         try {
-            // 将浮点数组转换为PostgreSQL向量格式
-            String vectorString = formatVectorForPostgreSQL(queryVector);
+            validateQueryVector(queryVector);
 
-            List<SpringKbEmbeddingRepo.EmbeddingSearchResultProjection> results =
-                    springRepo.searchSimilar(vectorString, modelCode, tenantId, limit);
-
-            return results.stream()
-                    .map(result -> new EmbeddingSearchResult(result.getChunkId(), result.getScore()))
-                    .collect(Collectors.toList());
+            return jdbcTemplate.query(SEARCH_SIMILAR_SQL, ps -> {
+                PgVector.bind(ps, 1, queryVector);
+                ps.setString(2, modelCode);
+                ps.setLong(3, tenantId);
+                PgVector.bind(ps, 4, queryVector);
+                ps.setInt(5, limit);
+            }, SEARCH_RESULT_MAPPER);
 
         } catch (Exception e) {
             log.error("向量搜索失败: modelCode={}, tenantId={}, limit={}", modelCode, tenantId, limit, e);
@@ -92,14 +148,17 @@ public class KbEmbeddingJpaRepository implements EmbeddingRepository {
     public List<EmbeddingSearchResult> searchSimilarWithThreshold(float[] queryVector, String modelCode,
                                                                   Long tenantId, int limit, float threshold) {
         try {
-            String vectorString = formatVectorForPostgreSQL(queryVector);
-
-            List<SpringKbEmbeddingRepo.EmbeddingSearchResultProjection> results =
-                    springRepo.searchSimilarWithThreshold(vectorString, modelCode, tenantId, threshold, limit);
-
-            return results.stream()
-                    .map(result -> new EmbeddingSearchResult(result.getChunkId(), result.getScore()))
-                    .collect(Collectors.toList());
+            validateQueryVector(queryVector);
+
+            return jdbcTemplate.query(SEARCH_SIMILAR_WITH_THRESHOLD_SQL, ps -> {
+                PgVector.bind(ps, 1, queryVector);
+                ps.setString(2, modelCode);
+                ps.setLong(3, tenantId);
+                PgVector.bind(ps, 4, queryVector);
+                ps.setDouble(5, 1.0d - threshold);
+                PgVector.bind(ps, 6, queryVector);
+                ps.setInt(7, limit);
+            }, SEARCH_RESULT_MAPPER);
 
         } catch (Exception e) {
             log.error("带阈值向量搜索失败: modelCode={}, tenantId={}, threshold={}, limit={}",
@@ -110,14 +169,18 @@ public class KbEmbeddingJpaRepository implements EmbeddingRepository {
 
     @Override
     public int deleteByChunkId(Long chunkId) {
-        return springRepo.deleteByChunkId(chunkId);
+        int deleted = springRepo.deleteByChunkId(chunkId);
+        vectorIndexManager.onChunkDeleted(chunkId);
+        return deleted;
     }
 
     @Override
     public int deleteByModelAndVersion(String modelCode, int vectorVersion) {
         // 由于复合主键，需要先查询再删除
         // 这里简化实现，实际可能需要更复杂的查询
-        return springRepo.deleteByModelCode(modelCode);
+        int deleted = springRepo.deleteByModelCode(modelCode);
+        vectorIndexManager.onModelDeleted(modelCode);
+        return deleted;
     }
 
     @Override
@@ -126,28 +189,15 @@ public class KbEmbeddingJpaRepository implements EmbeddingRepository {
     }
 
     /**
-     * 将float数组格式化为PostgreSQL向量字符串格式
-     *
-     * <p>PostgreSQL的vector类型要求特定的字符串格式，例如: '[0.1,0.2,0.3]'</p>
+     * 校验查询向量
      *
      * @param vector 向量数组
-     * @return PostgreSQL向量格式字符串
+     * @throws IllegalArgumentException 如果向量为空
      */
-    private String formatVectorForPostgreSQL(float[] vector) {
+    private void validateQueryVector(float[] vector) {
         if (vector == null || vector.length == 0) {
             throw new IllegalArgumentException("向量不能为空");
         }
-
-        StringBuilder sb = new StringBuilder("[");
-        for (int i = 0; i < vector.length; i++) {
-            if (i > 0) {
-                sb.append(",");
-            }
-            sb.append(vector[i]);
-        }
-        sb.append("]");
-
-        return sb.toString();
     }
 
     /**
@@ -39,6 +39,12 @@ public interface SpringKbChunkRepo extends JpaRepository<KbChunkEntity, Long> {
      */
     Page<KbChunkEntity> findByDocumentIdAndDeletedAtIsNull(Long documentId, Pageable pageable);
 
+    /**
+     * 按ID键集分页查询文档下的知识块
+     */
+    List<KbChunkEntity> findByDocumentIdAndIdGreaterThanAndDeletedAtIsNullOrderByIdAsc(Long documentId, Long id,
+                                                                                        Pageable pageable);
+
     /**
      * 统计文档下的知识块数量
      *
@@ -127,4 +127,33 @@ public interface SpringKbDocumentRepo extends JpaRepository<KbDocumentEntity, Lo
             "AND d.deletedAt IS NULL ORDER BY d.createdAt ASC")
     List<KbDocumentEntity> findDocumentsNeedingReprocessing(@Param("statusCodes") List<Integer> statusCodes,
                                                             Pageable pageable);
-}
\ No newline at end of file
+
+    /**
+     * 按已保存的向量重新计算向量生成进度
+     *
+     * <p>统计当前向量版本已有该模型向量的知识块数，结果只取决于表中的数据，
+     * 同一批次重复处理或并发批次交错执行都不会重复计数。</p>
+     *
+     * @param documentId 文档ID
+     * @param modelCode  嵌入模型代码
+     * @return 受影响的行数
+     */
+    @Modifying
+    @Query(value = "UPDATE kb_documents d SET embedded_count = (" +
+            "SELECT COUNT(*) FROM kb_chunks c " +
+            "WHERE c.document_id = d.id AND c.deleted_at IS NULL " +
+            "AND EXISTS (SELECT 1 FROM kb_embeddings e WHERE e.chunk_id = c.id AND e.model_code = :modelCode " +
+            "AND e.vector_version = c.vector_version AND e.deleted_at IS NULL)) " +
+            "WHERE d.id = :documentId", nativeQuery = true)
+    int refreshEmbeddedCount(@Param("documentId") Long documentId, @Param("modelCode") String modelCode);
+
+    /**
+     * 重置向量生成进度（重新生成向量前调用）
+     *
+     * @param documentId 文档ID
+     * @return 受影响的行数
+     */
+    @Modifying
+    @Query(value = "UPDATE kb_documents SET embedded_count = 0 WHERE id = :documentId", nativeQuery = true)
+    int resetEmbeddedCount(@Param("documentId") Long documentId);
+}
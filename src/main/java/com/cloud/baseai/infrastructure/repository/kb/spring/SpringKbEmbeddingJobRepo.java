@@ -0,0 +1,118 @@
+package com.cloud.baseai.infrastructure.repository.kb.spring;
+
+import com.cloud.baseai.infrastructure.persistence.kb.entity.KbEmbeddingJobEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * <h2>向量生成任务Spring Data JPA仓储</h2>
+ *
+ * <p>领取任务使用 {@code FOR UPDATE SKIP LOCKED}：多个节点并发领取时，
+ * 已被锁定的行会被跳过而不是等待，每个节点拿到互不重叠的任务。</p>
+ *
+ * <p>待处理任务的 {@code locked_until} 表示重试退避的截止时间，到期前不会被领取。</p>
+ */
+@Repository
+public interface SpringKbEmbeddingJobRepo extends JpaRepository<KbEmbeddingJobEntity, Long> {
+
+    /**
+     * 锁定可领取的任务（必须在事务中调用）
+     *
+     * @param maxAttempts 最大尝试次数
+     * @param limit       最多锁定数量
+     * @return 已加行锁的任务
+     */
+    @Query(value = "SELECT * FROM kb_embedding_jobs " +
+            "WHERE ((status = 0 AND (locked_until IS NULL OR locked_until < now())) " +
+            "OR (status = 1 AND locked_until < now())) " +
+            "AND attempts < :maxAttempts " +
+            "ORDER BY id " +
+            "LIMIT :limit " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<KbEmbeddingJobEntity> lockClaimable(@Param("maxAttempts") int maxAttempts, @Param("limit") int limit);
+
+    /**
+     * 推进检查点并续约，只有租约持有者可以更新
+     */
+    @Modifying
+    @Query(value = "UPDATE kb_embedding_jobs SET " +
+            "last_chunk_id = :lastChunkId, " +
+            "processed_chunks = processed_chunks + :processedDelta, " +
+            "failed_chunks = failed_chunks + :failedDelta, " +
+            "locked_until = now() + make_interval(secs => :leaseSeconds), " +
+            "updated_at = now() " +
+            "WHERE id = :id AND locked_by = :workerId AND status = 1", nativeQuery = true)
+    int checkpoint(@Param("id") Long id,
+                   @Param("workerId") String workerId,
+                   @Param("lastChunkId") long lastChunkId,
+                   @Param("processedDelta") int processedDelta,
+                   @Param("failedDelta") int failedDelta,
+                   @Param("leaseSeconds") int leaseSeconds);
+
+    /**
+     * 续约，只有租约持有者可以更新
+     */
+    @Modifying
+    @Query(value = "UPDATE kb_embedding_jobs SET locked_until = now() + make_interval(secs => :leaseSeconds), " +
+            "updated_at = now() " +
+            "WHERE id = :id AND locked_by = :workerId AND status = 1", nativeQuery = true)
+    int renew(@Param("id") Long id,
+              @Param("workerId") String workerId,
+              @Param("leaseSeconds") int leaseSeconds);
+
+    /**
+     * 标记任务完成，检查点之后已没有知识块，此前失败的知识块都已在重试中生成向量
+     */
+    @Modifying
+    @Query(value = "UPDATE kb_embedding_jobs SET status = 2, failed_chunks = 0, locked_by = NULL, locked_until = NULL, " +
+            "finished_at = now(), updated_at = now() " +
+            "WHERE id = :id AND locked_by = :workerId AND status = 1", nativeQuery = true)
+    int complete(@Param("id") Long id, @Param("workerId") String workerId);
+
+    /**
+     * 释放任务：未达最大尝试次数时退回待处理并在退避时间后才能再次领取，否则标记失败
+     */
+    @Modifying
+    @Query(value = "UPDATE kb_embedding_jobs SET " +
+            "status = CASE WHEN attempts >= :maxAttempts THEN 3 ELSE 0 END, " +
+            "finished_at = CASE WHEN attempts >= :maxAttempts THEN now() END, " +
+            "locked_until = CASE WHEN attempts >= :maxAttempts THEN NULL " +
+            "ELSE now() + make_interval(secs => :backoffSeconds) END, " +
+            "last_error = :error, locked_by = NULL, updated_at = now() " +
+            "WHERE id = :id AND locked_by = :workerId AND status = 1", nativeQuery = true)
+    int release(@Param("id") Long id,
+                @Param("workerId") String workerId,
+                @Param("error") String error,
+                @Param("maxAttempts") int maxAttempts,
+                @Param("backoffSeconds") int backoffSeconds);
+
+    /**
+     * 退回待处理并归还本次领取计入的尝试次数
+     */
+    @Modifying
+    @Query(value = "UPDATE kb_embedding_jobs SET status = 0, attempts = GREATEST(attempts - 1, 0), " +
+            "last_error = :reason, locked_by = NULL, locked_until = NULL, updated_at = now() " +
+            "WHERE id = :id AND locked_by = :workerId AND status = 1", nativeQuery = true)
+    int requeue(@Param("id") Long id,
+                @Param("workerId") String workerId,
+                @Param("reason") String reason);
+
+    /**
+     * 将租约过期且已耗尽尝试次数的任务标记为失败（节点多次在执行中崩溃的情况）
+     */
+    @Modifying
+    @Query(value = "UPDATE kb_embedding_jobs SET status = 3, finished_at = now(), updated_at = now(), " +
+            "last_error = COALESCE(last_error, '执行节点多次中断'), locked_by = NULL, locked_until = NULL " +
+            "WHERE status = 1 AND locked_until < now() AND attempts >= :maxAttempts", nativeQuery = true)
+    int failAbandoned(@Param("maxAttempts") int maxAttempts);
+
+    /**
+     * 查询同一批次的任务
+     */
+    List<KbEmbeddingJobEntity> findByTaskIdOrderById(String taskId);
+}
@@ -94,6 +94,24 @@ public class McpToolAuthJpaRepository implements ToolAuthRepository {
         springRepo.deleteByTenantId(tenantId);
     }
 
+    @Override
+    @Transactional
+    public boolean tryIncrementQuotaUsed(Long toolId, Long tenantId, int amount) {
+        return springRepo.incrementQuotaUsedWithinLimit(toolId, tenantId, amount) > 0;
+    }
+
+    @Override
+    @Transactional
+    public void decrementQuotaUsed(Long toolId, Long tenantId, int amount) {
+        springRepo.decrementQuotaUsed(toolId, tenantId, amount);
+    }
+
+    @Override
+    @Transactional
+    public void updateQuotaUsed(Long toolId, Long tenantId, int quotaUsed) {
+        springRepo.updateQuotaUsed(toolId, tenantId, quotaUsed);
+    }
+
     /**
      * 获取租户的启用授权列表
      *
@@ -112,18 +130,4 @@ public class McpToolAuthJpaRepository implements ToolAuthRepository {
         List<McpToolTenantAuthEntity> entities = springRepo.findByToolIdAndEnabledTrue(toolId);
         return mapper.toAuthDomainList(entities);
     }
-
-    /**
-     * 批量更新配额使用量
-     *
-     * <p>当需要批量重置或调整配额时使用。比如在月初重置所有租户的配额使用量。</p>
-     */
-    @Transactional
-    public void batchResetQuota(Long toolId) {
-        List<McpToolTenantAuthEntity> entities = springRepo.findByToolId(toolId);
-        entities.forEach(entity -> {
-            entity.setQuotaUsed(0);
-        });
-        springRepo.saveAll(entities);
-    }
 }
\ No newline at end of file
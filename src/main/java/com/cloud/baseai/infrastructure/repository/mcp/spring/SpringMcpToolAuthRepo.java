@@ -56,6 +56,37 @@ public interface SpringMcpToolAuthRepo extends JpaRepository<McpToolTenantAuthEn
     @Query("DELETE FROM McpToolTenantAuthEntity a WHERE a.tenantId = :tenantId")
     void deleteByTenantId(@Param("tenantId") Long tenantId);
 
+    /**
+     * 在配额限制内增加使用量，单条UPDATE完成检查和增加
+     */
+    @Modifying
+    @Query("UPDATE McpToolTenantAuthEntity a SET a.quotaUsed = COALESCE(a.quotaUsed, 0) + :amount " +
+            "WHERE a.toolId = :toolId AND a.tenantId = :tenantId " +
+            "AND (a.quotaLimit IS NULL OR COALESCE(a.quotaUsed, 0) + :amount <= a.quotaLimit)")
+    int incrementQuotaUsedWithinLimit(@Param("toolId") Long toolId,
+                                      @Param("tenantId") Long tenantId,
+                                      @Param("amount") int amount);
+
+    /**
+     * 减少使用量，不会减到0以下
+     */
+    @Modifying
+    @Query("UPDATE McpToolTenantAuthEntity a SET a.quotaUsed = a.quotaUsed - :amount " +
+            "WHERE a.toolId = :toolId AND a.tenantId = :tenantId AND a.quotaUsed >= :amount")
+    int decrementQuotaUsed(@Param("toolId") Long toolId,
+                           @Param("tenantId") Long tenantId,
+                           @Param("amount") int amount);
+
+    /**
+     * 写入使用量
+     */
+    @Modifying
+    @Query("UPDATE McpToolTenantAuthEntity a SET a.quotaUsed = :quotaUsed " +
+            "WHERE a.toolId = :toolId AND a.tenantId = :tenantId")
+    int updateQuotaUsed(@Param("toolId") Long toolId,
+                        @Param("tenantId") Long tenantId,
+                        @Param("quotaUsed") int quotaUsed);
+
     /**
      * 根据租户ID查找启用的授权
      */
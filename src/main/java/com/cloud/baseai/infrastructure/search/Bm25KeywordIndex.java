@@ -0,0 +1,439 @@
+package com.cloud.baseai.infrastructure.search;
+
+import com.cloud.baseai.domain.kb.model.Chunk;
+import com.cloud.baseai.infrastructure.config.properties.KnowledgeBaseProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <h2>BM25关键词索引</h2>
+ *
+ * <p>基于PostgreSQL表实现的倒排索引：知识块文本经 {@link CjkBigramTokenizer} 切分后，
+ * 每个词项写入 kb_chunk_terms，租户级的文档频率和平均长度分别维护在 kb_term_stats、kb_text_stats 中。
+ * 查询时只读取查询词项的倒排链并在数据库内完成BM25打分，替代对全部知识块的 ILIKE 扫描。</p>
+ *
+ * <p><b>评分公式：</b></p>
+ * <pre>
+ * score(D, Q) = Σ idf(t) · tf · (k1 + 1) / (tf + k1 · (1 - b + b · |D| / avgdl))
+ * idf(t)      = ln(1 + (N - df + 0.5) / (df + 0.5))
+ * </pre>
+ *
+ * <p><b>增量维护：</b>知识块保存时先删除旧的倒排记录再写入新记录，统计值随之增减；
+ * 知识块删除时移除倒排记录。文档频率的增减都按 (tenant_id, term) 排序写入，避免并发导入和删除互相死锁；
+ * 租户统计分成多个计数分片，每次写入随机选一个分片，并发导入不会在同一行上排队，读取时对分片求和。</p>
+ *
+ * <p><b>与知识块写入解耦：</b>仓储通过 {@link #indexAfterCommit} / {@link #removeAfterCommit} 维护索引，
+ * 索引在知识块事务提交后于独立事务中写入，失败只记录日志，不影响文档导入和删除。
+ * 漏掉的知识块可以通过 {@link #rebuildTenant} 补建。</p>
+ *
+ * <p>索引默认关闭，启用前需要先创建倒排表，并为已有租户执行 {@link #rebuildTenant}。</p>
+ */
+@Component
+public class Bm25KeywordIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(Bm25KeywordIndex.class);
+
+    private static final String DOCUMENT_TENANT_SQL =
+            "SELECT id, tenant_id FROM kb_documents WHERE id = ANY (?)";
+
+    private static final String INSERT_POSTING_SQL =
+            "INSERT INTO kb_chunk_terms (tenant_id, term, chunk_id, tf, doc_len) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String UPSERT_TERM_STATS_SQL = """
+            INSERT INTO kb_term_stats (tenant_id, term, doc_freq) VALUES (?, ?, ?)
+            ON CONFLICT (tenant_id, term) DO UPDATE SET doc_freq = kb_term_stats.doc_freq + EXCLUDED.doc_freq
+            """;
+
+    private static final String DECREMENT_TERM_STATS_SQL =
+            "UPDATE kb_term_stats SET doc_freq = doc_freq - ? WHERE tenant_id = ? AND term = ?";
+
+    private static final String UPSERT_TEXT_STATS_SQL = """
+            INSERT INTO kb_text_stats (tenant_id, shard, doc_count, total_length) VALUES (?, ?, ?, ?)
+            ON CONFLICT (tenant_id, shard) DO UPDATE SET
+                doc_count = kb_text_stats.doc_count + EXCLUDED.doc_count,
+                total_length = kb_text_stats.total_length + EXCLUDED.total_length
+            """;
+
+    /**
+     * 删除知识块的倒排记录，返回被删除的记录用于扣减统计
+     */
+    private static final String DELETE_POSTINGS_SQL = """
+            DELETE FROM kb_chunk_terms
+            WHERE chunk_id = ANY (?)
+            RETURNING tenant_id, term, chunk_id, doc_len
+            """;
+
+    /**
+     * BM25查询：先在倒排链上聚合出候选，再过滤已软删除的知识块和文档
+     */
+    private static final String SEARCH_SQL = """
+            WITH stats AS (
+                SELECT SUM(doc_count) AS doc_count,
+                       GREATEST(SUM(total_length)::float8 / NULLIF(SUM(doc_count), 0), 1) AS avg_len
+                FROM kb_text_stats
+                WHERE tenant_id = ?
+            ), q AS (
+                SELECT s.term, LN(1 + (st.doc_count - s.doc_freq + 0.5) / (s.doc_freq + 0.5)) AS idf
+                FROM kb_term_stats s, stats st
+                WHERE s.tenant_id = ?
+                  AND s.term = ANY (?)
+                  AND s.doc_freq > 0
+                  AND s.doc_freq <= st.doc_count * ?::float8
+            ), ranked AS (
+                SELECT p.chunk_id,
+                       SUM(q.idf * p.tf * (?::float8 + 1)
+                           / (p.tf + ?::float8 * (1 - ?::float8 + ?::float8 * p.doc_len / st.avg_len))) AS score
+                FROM q
+                JOIN kb_chunk_terms p ON p.tenant_id = ? AND p.term = q.term
+                CROSS JOIN stats st
+                GROUP BY p.chunk_id
+                ORDER BY score DESC
+                LIMIT ?
+            )
+            SELECT r.chunk_id, r.score
+            FROM ranked r
+            JOIN kb_chunks c ON c.id = r.chunk_id AND c.deleted_at IS NULL
+            JOIN kb_documents d ON d.id = c.document_id AND d.deleted_at IS NULL
+            ORDER BY r.score DESC
+            LIMIT ?
+            """;
+
+    private static final String HAS_INDEX_SQL =
+            "SELECT COALESCE(SUM(doc_count), 0) > 0 FROM kb_text_stats WHERE tenant_id = ?";
+
+    private static final String CLEAR_TENANT_SQL = """
+            WITH postings AS (DELETE FROM kb_chunk_terms WHERE tenant_id = ?),
+                 terms AS (DELETE FROM kb_term_stats WHERE tenant_id = ?)
+            DELETE FROM kb_text_stats WHERE tenant_id = ?
+            """;
+
+    private static final String REBUILD_PAGE_SQL = """
+            SELECT c.id, c.document_id, c.text
+            FROM kb_chunks c
+            JOIN kb_documents d ON d.id = c.document_id
+            WHERE d.tenant_id = ?
+              AND c.id > ?
+              AND c.deleted_at IS NULL
+              AND d.deleted_at IS NULL
+            ORDER BY c.id
+            LIMIT ?
+            """;
+
+    /**
+     * 候选集相对返回数量的放大倍数，抵消软删除文档被过滤掉的部分
+     */
+    private static final int CANDIDATE_MULTIPLIER = 2;
+
+    /**
+     * 租户统计的计数分片数
+     */
+    private static final int TEXT_STATS_SHARDS = 16;
+
+    private final KnowledgeBaseProperties.KeywordIndexProperties props;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate indexTx;
+    private final Timer searchTimer;
+    private final Timer indexTimer;
+
+    public Bm25KeywordIndex(KnowledgeBaseProperties kbProps,
+                            JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry) {
+        this.props = kbProps.getSearch().getKeywordIndex();
+        this.jdbcTemplate = jdbcTemplate;
+        this.indexTx = new TransactionTemplate(transactionManager);
+        this.indexTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.searchTimer = Timer.builder("kb.keyword.search.time")
+                .description("BM25关键词搜索耗时")
+                .register(meterRegistry);
+        this.indexTimer = Timer.builder("kb.keyword.index.time")
+                .description("BM25倒排索引写入耗时")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(props.getEnabled());
+    }
+
+    /**
+     * 判断租户是否已建立倒排索引
+     *
+     * @param tenantId 租户ID
+     * @return true如果租户至少有一个知识块被索引
+     */
+    public boolean hasIndex(Long tenantId) {
+        return isEnabled() && Boolean.TRUE.equals(jdbcTemplate.queryForObject(HAS_INDEX_SQL, Boolean.class, tenantId));
+    }
+
+    /**
+     * BM25关键词搜索
+     *
+     * @param tenantId 租户ID
+     * @param query    查询文本
+     * @param limit    返回结果数量上限
+     * @return 按BM25分数倒序的结果，分数未归一化
+     */
+    public List<KeywordSearchResult> search(Long tenantId, String query, int limit) {
+        if (!isEnabled() || tenantId == null || limit <= 0) {
+            return List.of();
+        }
+        List<String> terms = CjkBigramTokenizer.tokenize(query).stream()
+                .distinct()
+                .limit(props.getMaxQueryTerms())
+                .toList();
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        double k1 = props.getK1();
+        double b = props.getB();
+        return searchTimer.record(() -> jdbcTemplate.query(con -> {
+            Array termArray = con.createArrayOf("varchar", terms.toArray());
+            var ps = con.prepareStatement(SEARCH_SQL);
+            int i = 1;
+            ps.setLong(i++, tenantId);
+            ps.setLong(i++, tenantId);
+            ps.setArray(i++, termArray);
+            ps.setDouble(i++, props.getMaxDocFreqRatio());
+            ps.setDouble(i++, k1);
+            ps.setDouble(i++, k1);
+            ps.setDouble(i++, b);
+            ps.setDouble(i++, b);
+            ps.setLong(i++, tenantId);
+            ps.setInt(i++, limit * CANDIDATE_MULTIPLIER);
+            ps.setInt(i, limit);
+            return ps;
+        }, (rs, rowNum) -> new KeywordSearchResult(rs.getLong(1), rs.getFloat(2))));
+    }
+
+    /**
+     * 在当前事务提交后为知识块建立索引
+     *
+     * <p>索引写入失败不会回滚知识块，只记录日志。</p>
+     *
+     * @param chunks 已持久化的知识块
+     */
+    public void indexAfterCommit(List<Chunk> chunks) {
+        if (!isEnabled() || chunks == null || chunks.isEmpty()) {
+            return;
+        }
+        List<Chunk> snapshot = List.copyOf(chunks);
+        afterCommit(() -> runIsolated("写入", snapshot.size(), () -> indexChunks(snapshot)));
+    }
+
+    /**
+     * 在当前事务提交后移除知识块的倒排记录
+     *
+     * <p>查询会过滤已软删除的知识块，移除失败只会让统计值暂时偏大。</p>
+     *
+     * @param chunkIds 知识块ID列表
+     */
+    public void removeAfterCommit(List<Long> chunkIds) {
+        if (!isEnabled() || chunkIds == null || chunkIds.isEmpty()) {
+            return;
+        }
+        List<Long> snapshot = List.copyOf(chunkIds);
+        afterCommit(() -> runIsolated("移除", snapshot.size(), () -> removeChunks(snapshot)));
+    }
+
+    /**
+     * 为知识块建立（或重建）倒排索引
+     *
+     * <p>已索引过的知识块会先移除旧记录，因此同一方法同时处理新增和更新。</p>
+     *
+     * @param chunks 已持久化的知识块
+     */
+    public void indexChunks(List<Chunk> chunks) {
+        if (!isEnabled() || chunks == null || chunks.isEmpty()) {
+            return;
+        }
+        List<Chunk> indexable = chunks.stream()
+                .filter(chunk -> chunk.id() != null && chunk.documentId() != null)
+                .toList();
+        if (indexable.isEmpty()) {
+            return;
+        }
+
+        indexTimer.record(() -> {
+            removeChunks(indexable.stream().map(Chunk::id).toList());
+
+            Map<Long, Long> tenantByDocument = loadDocumentTenants(
+                    indexable.stream().map(Chunk::documentId).distinct().toList());
+
+            List<Object[]> postings = new ArrayList<>();
+            Map<TermKey, Integer> docFreqDelta = new TreeMap<>();
+            Map<Long, long[]> textStatsDelta = new TreeMap<>();
+
+            for (Chunk chunk : indexable) {
+                Long tenantId = tenantByDocument.get(chunk.documentId());
+                if (tenantId == null || chunk.deletedAt() != null) {
+                    continue;
+                }
+                Map<String, Integer> frequencies = CjkBigramTokenizer.termFrequencies(chunk.text());
+                if (frequencies.isEmpty()) {
+                    continue;
+                }
+                int docLength = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+                frequencies.forEach((term, tf) -> {
+                    postings.add(new Object[]{tenantId, term, chunk.id(), tf, docLength});
+                    docFreqDelta.merge(new TermKey(tenantId, term), 1, Integer::sum);
+                });
+                long[] stats = textStatsDelta.computeIfAbsent(tenantId, k -> new long[2]);
+                stats[0]++;
+                stats[1] += docLength;
+            }
+
+            if (postings.isEmpty()) {
+                return;
+            }
+            jdbcTemplate.batchUpdate(INSERT_POSTING_SQL, postings);
+            jdbcTemplate.batchUpdate(UPSERT_TERM_STATS_SQL, docFreqDelta.entrySet().stream()
+                    .map(e -> new Object[]{e.getKey().tenantId(), e.getKey().term(), e.getValue()})
+                    .toList());
+            updateTextStats(textStatsDelta, 1);
+
+            log.debug("BM25索引写入完成: chunks={}, postings={}", indexable.size(), postings.size());
+        });
+    }
+
+    /**
+     * 移除知识块的倒排记录
+     *
+     * @param chunkIds 知识块ID列表
+     */
+    public void removeChunks(List<Long> chunkIds) {
+        if (!isEnabled() || chunkIds == null || chunkIds.isEmpty()) {
+            return;
+        }
+        Map<TermKey, Integer> docFreqDelta = new TreeMap<>();
+        Map<Long, long[]> textStatsDelta = new TreeMap<>();
+        Set<Long> removedChunks = new HashSet<>();
+        jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement(DELETE_POSTINGS_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", chunkIds.toArray()));
+            return ps;
+        }, rs -> {
+            long tenantId = rs.getLong(1);
+            docFreqDelta.merge(new TermKey(tenantId, rs.getString(2)), 1, Integer::sum);
+            if (removedChunks.add(rs.getLong(3))) {
+                long[] stats = textStatsDelta.computeIfAbsent(tenantId, k -> new long[2]);
+                stats[0]++;
+                stats[1] += rs.getInt(4);
+            }
+        });
+        if (docFreqDelta.isEmpty()) {
+            return;
+        }
+
+        // 与写入路径相同的顺序加锁
+        jdbcTemplate.batchUpdate(DECREMENT_TERM_STATS_SQL, docFreqDelta.entrySet().stream()
+                .map(e -> new Object[]{e.getValue(), e.getKey().tenantId(), e.getKey().term()})
+                .toList());
+        updateTextStats(textStatsDelta, -1);
+    }
+
+    /**
+     * 重建租户的倒排索引
+     *
+     * <p>用于为启用索引之前写入的历史数据补建索引，按主键分页读取知识块。</p>
+     *
+     * @param tenantId 租户ID
+     * @return 已索引的知识块数量
+     */
+    public long rebuildTenant(Long tenantId) {
+        long startTime = System.currentTimeMillis();
+        jdbcTemplate.update(CLEAR_TENANT_SQL, tenantId, tenantId, tenantId);
+
+        long indexed = 0;
+        long lastId = 0;
+        int batchSize = props.getRebuildBatchSize();
+        while (true) {
+            List<Chunk> page = jdbcTemplate.query(REBUILD_PAGE_SQL, (rs, rowNum) -> new Chunk(
+                    rs.getLong(1), rs.getLong(2), null, rs.getString(3),
+                    null, null, null, null, null, null, null, null), tenantId, lastId, batchSize);
+            if (page.isEmpty()) {
+                break;
+            }
+            indexChunks(page);
+            indexed += page.size();
+            lastId = page.getLast().id();
+        }
+
+        log.info("BM25索引重建完成: tenantId={}, chunks={}, 耗时{}ms",
+                tenantId, indexed, System.currentTimeMillis() - startTime);
+        return indexed;
+    }
+
+    /**
+     * 把租户统计的增减写入随机选择的分片，各分片的值可以为负，只有总和有意义
+     */
+    private void updateTextStats(Map<Long, long[]> textStatsDelta, int sign) {
+        int shard = ThreadLocalRandom.current().nextInt(TEXT_STATS_SHARDS);
+        jdbcTemplate.batchUpdate(UPSERT_TEXT_STATS_SQL, textStatsDelta.entrySet().stream()
+                .map(e -> new Object[]{e.getKey(), shard, sign * e.getValue()[0], sign * e.getValue()[1]})
+                .toList());
+    }
+
+    private void runIsolated(String operation, int chunkCount, Runnable action) {
+        try {
+            indexTx.executeWithoutResult(status -> action.run());
+        } catch (RuntimeException e) {
+            log.warn("BM25索引{}失败，需要重建租户索引补齐: chunks={}, error={}", operation, chunkCount, e.getMessage());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private Map<Long, Long> loadDocumentTenants(List<Long> documentIds) {
+        Map<Long, Long> tenantByDocument = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement(DOCUMENT_TENANT_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", documentIds.toArray()));
+            return ps;
+        }, rs -> {
+            tenantByDocument.put(rs.getLong(1), rs.getLong(2));
+        });
+        return tenantByDocument;
+    }
+
+    /**
+     * 关键词搜索结果
+     *
+     * @param chunkId 知识块ID
+     * @param score   BM25分数
+     */
+    public record KeywordSearchResult(Long chunkId, Float score) {
+    }
+
+    private record TermKey(Long tenantId, String term) implements Comparable<TermKey> {
+        @Override
+        public int compareTo(TermKey other) {
+            int byTenant = tenantId.compareTo(other.tenantId);
+            return byTenant != 0 ? byTenant : term.compareTo(other.term);
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.cloud.baseai.infrastructure.search;
+
+import com.cloud.baseai.domain.kb.repository.EmbeddingRepository.EmbeddingSearchResult;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <h2>HNSW近似最近邻索引</h2>
+ *
+ * <p>分层可导航小世界图（Hierarchical Navigable Small World）的进程内实现，
+ * 用于在小规模知识库上替代pgvector查询。向量在写入时归一化并保存在 {@link OffHeapVectorStore} 中，
+ * 距离定义为 1 - 点积，与pgvector的余弦距离（<=>）一致，返回的分数即余弦相似度。</p>
+ *
+ * <p><b>并发模型：</b></p>
+ * <ul>
+ * <li>搜索持有读锁，可以并发执行</li>
+ * <li>插入和删除持有写锁，串行执行</li>
+ * <li>删除只打墓碑标记，节点仍参与图遍历以保持连通性，结果中会被过滤</li>
+ * </ul>
+ */
+final class HnswVectorIndex {
+
+    private static final int MAX_LEVEL_CAP = 16;
+    private static final int[] EMPTY_LINKS = {0};
+
+    private final int dimension;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final OffHeapVectorStore vectors;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 邻接表：节点 -> 层 -> [邻居数量, 邻居1, 邻居2, ...]
+     */
+    private int[][][] links = new int[64][][];
+    private long[] chunkIds = new long[64];
+    private final Map<Long, Integer> nodeByChunk = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    HnswVectorIndex(int dimension, int m, int efConstruction) {
+        if (dimension <= 0 || m < 2 || efConstruction < m) {
+            throw new IllegalArgumentException("无效的HNSW参数: dimension=" + dimension
+                    + ", m=" + m + ", efConstruction=" + efConstruction);
+        }
+        this.dimension = dimension;
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.vectors = new OffHeapVectorStore(dimension);
+    }
+
+    /**
+     * 插入或替换知识块的向量
+     *
+     * <p>已存在的知识块会先打墓碑，再以新节点插入。</p>
+     *
+     * @param chunkId 知识块ID
+     * @param vector  向量数据
+     */
+    void upsert(long chunkId, float[] vector) {
+        if (vector == null || vector.length != dimension) {
+            throw new IllegalArgumentException(String.format("向量维度不匹配，期望%d维，实际%d维",
+                    dimension, vector == null ? 0 : vector.length));
+        }
+        float[] normalized = normalize(vector);
+
+        lock.writeLock().lock();
+        try {
+            Integer existing = nodeByChunk.get(chunkId);
+            if (existing != null) {
+                markDeleted(existing);
+            }
+
+            int node = vectors.add(normalized);
+            ensureCapacity(node + 1);
+            chunkIds[node] = chunkId;
+            nodeByChunk.put(chunkId, node);
+
+            int level = randomLevel();
+            links[node] = new int[level + 1][];
+            for (int l = 0; l <= level; l++) {
+                links[node][l] = new int[1 + capacity(l)];
+            }
+
+            if (entryPoint < 0) {
+                entryPoint = node;
+                maxLevel = level;
+                return;
+            }
+
+            int current = entryPoint;
+            for (int l = maxLevel; l > level; l--) {
+                current = greedyClosest(normalized, current, l);
+            }
+
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                List<Candidate> candidates = searchLayer(normalized, current, efConstruction, l);
+                int linkCount = Math.min(m, candidates.size());
+                for (int i = 0; i < linkCount; i++) {
+                    int neighbor = candidates.get(i).node();
+                    addLink(node, neighbor, l, normalized);
+                    addLink(neighbor, node, l, null);
+                }
+                current = candidates.getFirst().node();
+            }
+
+            if (level > maxLevel) {
+                maxLevel = level;
+                entryPoint = node;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除知识块的向量
+     *
+     * @param chunkId 知识块ID
+     * @return true如果索引中存在该知识块
+     */
+    boolean remove(long chunkId) {
+        lock.writeLock().lock();
+        try {
+            Integer node = nodeByChunk.remove(chunkId);
+            if (node == null) {
+                return false;
+            }
+            markDeleted(node);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 近似最近邻搜索
+     *
+     * @param query 查询向量
+     * @param k     返回结果数量
+     * @param ef    搜索时的候选集大小，越大召回率越高
+     * @return 按相似度倒序的结果
+     */
+    List<EmbeddingSearchResult> search(float[] query, int k, int ef) {
+        if (query == null || query.length != dimension || k <= 0) {
+            return List.of();
+        }
+        float[] normalized = normalize(query);
+
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0 || nodeByChunk.isEmpty()) {
+                return List.of();
+            }
+
+            int current = entryPoint;
+            for (int l = maxLevel; l > 0; l--) {
+                current = greedyClosest(normalized, current, l);
+            }
+
+            List<Candidate> candidates = searchLayer(normalized, current, Math.max(ef, k), 0);
+            List<EmbeddingSearchResult> results = new ArrayList<>(Math.min(k, candidates.size()));
+            for (Candidate candidate : candidates) {
+                if (deleted.get(candidate.node())) {
+                    continue;
+                }
+                results.add(new EmbeddingSearchResult(chunkIds[candidate.node()], 1.0f - candidate.distance()));
+                if (results.size() == k) {
+                    break;
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 有效（未删除）的向量数量
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return nodeByChunk.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 墓碑节点占全部节点的比例，过高时应重建索引
+     */
+    double deletedRatio() {
+        lock.readLock().lock();
+        try {
+            int total = vectors.size();
+            return total == 0 ? 0.0 : (double) deletedCount / total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return vectors.allocatedBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int dimension() {
+        return dimension;
+    }
+
+    // =================== 图操作 ===================
+
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        float currentDistance = distance(query, current);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int[] neighbors = neighborsAt(current, level);
+            for (int i = 1; i <= neighbors[0]; i++) {
+                int neighbor = neighbors[i];
+                float d = distance(query, neighbor);
+                if (d < currentDistance) {
+                    currentDistance = d;
+                    current = neighbor;
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 在单层内做最佳优先搜索
+     *
+     * @return 按距离升序排列的候选节点
+     */
+    private List<Candidate> searchLayer(float[] query, int entry, int ef, int level) {
+        BitSet visited = new BitSet(vectors.size());
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distance));
+        PriorityQueue<Candidate> nearest = new PriorityQueue<>(
+                Comparator.comparingDouble(Candidate::distance).reversed());
+
+        Candidate start = new Candidate(entry, distance(query, entry));
+        visited.set(entry);
+        candidates.add(start);
+        nearest.add(start);
+
+        while (!candidates.isEmpty()) {
+            Candidate closest = candidates.poll();
+            if (closest.distance() > nearest.peek().distance() && nearest.size() >= ef) {
+                break;
+            }
+
+            int[] neighbors = neighborsAt(closest.node(), level);
+            for (int i = 1; i <= neighbors[0]; i++) {
+                int neighbor = neighbors[i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+
+                float d = distance(query, neighbor);
+                if (nearest.size() < ef || d < nearest.peek().distance()) {
+                    Candidate candidate = new Candidate(neighbor, d);
+                    candidates.add(candidate);
+                    nearest.add(candidate);
+                    if (nearest.size() > ef) {
+                        nearest.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> sorted = new ArrayList<>(nearest);
+        sorted.sort(Comparator.comparingDouble(Candidate::distance));
+        return sorted;
+    }
+
+    /**
+     * 添加一条有向边，超出容量时只保留距离最近的邻居
+     *
+     * @param fromVector 起点向量，为null时从存储中读取
+     */
+    private void addLink(int from, int to, int level, float[] fromVector) {
+        int[] neighbors = links[from][level];
+        int count = neighbors[0];
+        int cap = neighbors.length - 1;
+
+        if (count < cap) {
+            neighbors[count + 1] = to;
+            neighbors[0] = count + 1;
+            return;
+        }
+
+        float[] base = fromVector != null ? fromVector : vectors.get(from);
+        List<Candidate> all = new ArrayList<>(cap + 1);
+        for (int i = 1; i <= count; i++) {
+            all.add(new Candidate(neighbors[i], distance(base, neighbors[i])));
+        }
+        all.add(new Candidate(to, distance(base, to)));
+        all.sort(Comparator.comparingDouble(Candidate::distance));
+
+        for (int i = 0; i < cap; i++) {
+            neighbors[i + 1] = all.get(i).node();
+        }
+        neighbors[0] = cap;
+    }
+
+    private int[] neighborsAt(int node, int level) {
+        int[][] nodeLinks = links[node];
+        return level < nodeLinks.length ? nodeLinks[level] : EMPTY_LINKS;
+    }
+
+    private float distance(float[] query, int node) {
+        return 1.0f - vectors.dot(node, query);
+    }
+
+    private void markDeleted(int node) {
+        if (!deleted.get(node)) {
+            deleted.set(node);
+            deletedCount++;
+        }
+    }
+
+    private int capacity(int level) {
+        return level == 0 ? maxM0 : m;
+    }
+
+    private int randomLevel() {
+        double r = ThreadLocalRandom.current().nextDouble();
+        int level = (int) Math.floor(-Math.log(1.0 - r) * levelMultiplier);
+        return Math.min(level, MAX_LEVEL_CAP);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > links.length) {
+            int newLength = Math.max(required, links.length * 2);
+            links = Arrays.copyOf(links, newLength);
+            chunkIds = Arrays.copyOf(chunkIds, newLength);
+        }
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0.0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        float[] normalized = new float[vector.length];
+        if (norm == 0.0) {
+            return normalized;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    private record Candidate(int node, float distance) {
+    }
+}
@@ -0,0 +1,86 @@
+package com.cloud.baseai.infrastructure.search;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <h2>堆外向量存储</h2>
+ *
+ * <p>按固定大小的段分配直接内存（DirectByteBuffer）存放定长float向量，
+ * 避免上万个1536维的float[]进入Java堆、拉长GC停顿。向量按节点编号顺序追加，
+ * 段满后分配新段，已有数据不发生拷贝。</p>
+ *
+ * <p>写入由调用方的写锁保护；读取只使用绝对位置访问，不修改缓冲区状态，可以并发进行。</p>
+ */
+final class OffHeapVectorStore {
+
+    private static final int VECTORS_PER_SEGMENT = 1024;
+
+    private final int dimension;
+    private final List<FloatBuffer> segments = new ArrayList<>();
+    private int size;
+
+    OffHeapVectorStore(int dimension) {
+        this.dimension = dimension;
+    }
+
+    /**
+     * 追加一个向量
+     *
+     * @param vector 向量数据，长度必须等于维度
+     * @return 向量的槽位编号
+     */
+    int add(float[] vector) {
+        int slot = size;
+        int segmentIndex = slot / VECTORS_PER_SEGMENT;
+        if (segmentIndex == segments.size()) {
+            segments.add(ByteBuffer
+                    .allocateDirect(VECTORS_PER_SEGMENT * dimension * Float.BYTES)
+                    .order(ByteOrder.nativeOrder())
+                    .asFloatBuffer());
+        }
+        segments.get(segmentIndex).put((slot % VECTORS_PER_SEGMENT) * dimension, vector);
+        size++;
+        return slot;
+    }
+
+    /**
+     * 计算指定槽位向量与查询向量的点积
+     */
+    float dot(int slot, float[] query) {
+        FloatBuffer segment = segments.get(slot / VECTORS_PER_SEGMENT);
+        int offset = (slot % VECTORS_PER_SEGMENT) * dimension;
+        float sum = 0f;
+        for (int i = 0; i < dimension; i++) {
+            sum += segment.get(offset + i) * query[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 读取指定槽位的向量副本
+     */
+    float[] get(int slot) {
+        float[] vector = new float[dimension];
+        segments.get(slot / VECTORS_PER_SEGMENT).get((slot % VECTORS_PER_SEGMENT) * dimension, vector);
+        return vector;
+    }
+
+    int dimension() {
+        return dimension;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 已分配的堆外内存字节数
+     */
+    long allocatedBytes() {
+        return (long) segments.size() * VECTORS_PER_SEGMENT * dimension * Float.BYTES;
+    }
+}
@@ -0,0 +1,688 @@
+package com.cloud.baseai.infrastructure.search;
+
+import com.cloud.baseai.domain.kb.model.Embedding;
+import com.cloud.baseai.domain.kb.repository.EmbeddingRepository.EmbeddingSearchResult;
+import com.cloud.baseai.infrastructure.config.properties.KnowledgeBaseProperties;
+import com.cloud.baseai.infrastructure.persistence.kb.mapper.PgVector;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * <h2>进程内向量索引管理器</h2>
+ *
+ * <p>为每个（租户, 模型）维护一个可选的 {@link HnswVectorIndex}，作为pgvector查询的前置层。
+ * 热点租户的知识库通常不大，但查询频繁，每次都走三表JOIN的向量查询代价很高；
+ * 命中内存索引时查询在进程内完成，数据库只承担冷启动加载。</p>
+ *
+ * <p><b>分层策略：</b></p>
+ * <ul>
+ * <li><b>冷启动：</b>首次查询触发异步加载，本次查询回退到数据库；加载失败或没有向量时按退避间隔重试</li>
+ * <li><b>规模超限：</b>向量数超过阈值的租户不建索引，始终走数据库</li>
+ * <li><b>容量上限：</b>索引数达到上限时释放最久未访问的索引</li>
+ * <li><b>增量同步：</b>仓储的 saveAll/deleteByChunkId 在事务提交后同步到已加载的索引；
+ * 向量删除和文档删除同时通过Redis发布订阅通知其他节点，新增向量在其他节点上等到定期刷新后可见</li>
+ * <li><b>结果校验：</b>内存命中的结果返回前按主键核对向量、知识块和文档都未删除，
+ * 通知丢失时也不会返回已删除的内容</li>
+ * <li><b>定期刷新：</b>超过刷新间隔后后台重建，期间继续使用旧索引，重建期间的增量变更在切换前重放到新索引</li>
+ * </ul>
+ *
+ * <p>加载和召回率抽样在专用的小线程池中执行，线程池满时直接丢弃：抽样只影响指标，
+ * 被丢弃的加载会在下次查询时重新安排，查询线程不会被拖去同步加载索引。</p>
+ *
+ * <p><b>监控指标：</b></p>
+ * <ul>
+ * <li>kb.vector.search.time{tier=memory|sql}：两条路径的查询耗时</li>
+ * <li>kb.vector.index.requests{result=...}：内存命中与各类回退原因</li>
+ * <li>kb.vector.index.recall：抽样对比数据库结果得到的recall@k</li>
+ * <li>kb.vector.index.count / vectors / offheap.bytes：索引驻留情况</li>
+ * </ul>
+ */
+@Component
+public class VectorIndexManager implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorIndexManager.class);
+
+    private static final String COUNT_SQL = """
+            SELECT COUNT(*)
+            FROM kb_embeddings e
+            JOIN kb_chunks c ON e.chunk_id = c.id
+            JOIN kb_documents d ON c.document_id = d.id
+            WHERE e.model_code = ?
+              AND d.tenant_id = ?
+              AND e.deleted_at IS NULL
+              AND c.deleted_at IS NULL
+              AND d.deleted_at IS NULL
+            """;
+
+    private static final String LOAD_SQL = """
+            SELECT e.chunk_id, e.embedding
+            FROM kb_embeddings e
+            JOIN kb_chunks c ON e.chunk_id = c.id
+            JOIN kb_documents d ON c.document_id = d.id
+            WHERE e.model_code = ?
+              AND d.tenant_id = ?
+              AND e.deleted_at IS NULL
+              AND c.deleted_at IS NULL
+              AND d.deleted_at IS NULL
+            ORDER BY e.chunk_id, e.vector_version
+            """;
+
+    private static final String CHUNK_TENANT_SQL = """
+            SELECT c.id, d.tenant_id
+            FROM kb_chunks c
+            JOIN kb_documents d ON c.document_id = d.id
+            WHERE c.id = ANY (?)
+            """;
+
+    private static final String DOCUMENT_CHUNKS_SQL = "SELECT id FROM kb_chunks WHERE document_id = ?";
+
+    /**
+     * 核对内存索引命中的知识块仍然有效
+     */
+    private static final String LIVE_CHUNKS_SQL = """
+            SELECT DISTINCT e.chunk_id
+            FROM kb_embeddings e
+            JOIN kb_chunks c ON e.chunk_id = c.id
+            JOIN kb_documents d ON c.document_id = d.id
+            WHERE e.chunk_id = ANY (?)
+              AND e.model_code = ?
+              AND e.deleted_at IS NULL
+              AND c.deleted_at IS NULL
+              AND d.deleted_at IS NULL
+            """;
+
+    static final String OP_CHUNKS = "CHUNKS";
+    static final String OP_MODEL = "MODEL";
+
+    /**
+     * 单条失效通知携带的知识块ID上限
+     */
+    private static final int NOTIFY_BATCH_SIZE = 1000;
+
+    private static final int LOAD_FETCH_SIZE = 500;
+    private static final double REBUILD_DELETED_RATIO = 0.3;
+
+    private final KnowledgeBaseProperties.MemoryIndexProperties props;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTx;
+    private final AsyncTaskExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final StringRedisTemplate redisTemplate;
+    private final byte[] channel;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ConcurrentMap<IndexKey, IndexHolder> holders = new ConcurrentHashMap<>();
+
+    private final Timer memorySearchTimer;
+    private final Timer sqlSearchTimer;
+    private final DistributionSummary recallSummary;
+    private final ConcurrentMap<String, Counter> requestCounters = new ConcurrentHashMap<>();
+
+    public VectorIndexManager(KnowledgeBaseProperties kbProps,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              @Qualifier("vectorIndexExecutor") AsyncTaskExecutor executor,
+                              MeterRegistry meterRegistry,
+                              StringRedisTemplate redisTemplate,
+                              RedisMessageListenerContainer listenerContainer) {
+        this.props = kbProps.getSearch().getMemoryIndex();
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.redisTemplate = redisTemplate;
+        this.channel = props.getInvalidationChannel().getBytes(StandardCharsets.UTF_8);
+        if (listenerContainer != null && Boolean.TRUE.equals(props.getEnabled())) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(props.getInvalidationChannel()));
+        }
+
+        this.memorySearchTimer = Timer.builder("kb.vector.search.time")
+                .description("向量搜索耗时")
+                .tag("tier", "memory")
+                .register(meterRegistry);
+        this.sqlSearchTimer = Timer.builder("kb.vector.search.time")
+                .description("向量搜索耗时")
+                .tag("tier", "sql")
+                .register(meterRegistry);
+        this.recallSummary = DistributionSummary.builder("kb.vector.index.recall")
+                .description("内存索引相对数据库结果的recall@k抽样")
+                .register(meterRegistry);
+
+        Gauge.builder("kb.vector.index.count", holders, Map::size)
+                .description("驻留的内存向量索引数量")
+                .register(meterRegistry);
+        Gauge.builder("kb.vector.index.vectors", this, VectorIndexManager::totalVectors)
+                .description("内存向量索引中的向量总数")
+                .register(meterRegistry);
+        Gauge.builder("kb.vector.index.offheap.bytes", this, VectorIndexManager::totalOffHeapBytes)
+                .description("内存向量索引占用的堆外内存")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 分层向量搜索
+     *
+     * <p>索引就绪时在内存中完成搜索，否则执行传入的数据库查询。</p>
+     *
+     * @param queryVector 查询向量
+     * @param modelCode   模型代码
+     * @param tenantId    租户ID
+     * @param limit       返回结果数量上限
+     * @param sqlSearch   数据库查询（回退路径）
+     * @return 按相似度倒序的搜索结果
+     */
+    public List<EmbeddingSearchResult> search(float[] queryVector, String modelCode, Long tenantId, int limit,
+                                              Supplier<List<EmbeddingSearchResult>> sqlSearch) {
+        if (!Boolean.TRUE.equals(props.getEnabled()) || tenantId == null || modelCode == null) {
+            return timedSqlSearch(sqlSearch);
+        }
+
+        IndexHolder holder = acquire(new IndexKey(tenantId, modelCode));
+        HnswVectorIndex index = holder == null ? null : holder.index;
+        if (index == null || index.dimension() != queryVector.length) {
+            countRequest(holder == null ? "capacity" : holder.state.name().toLowerCase());
+            return timedSqlSearch(sqlSearch);
+        }
+
+        countRequest("hit");
+        List<EmbeddingSearchResult> results = memorySearchTimer.record(() -> dropDeleted(holder, modelCode,
+                index.search(queryVector, limit, Math.max(props.getEfSearch(), limit))));
+
+        if (ThreadLocalRandom.current().nextDouble() < props.getRecallSampleRate()) {
+            try {
+                executor.execute(() -> sampleRecall(results, sqlSearch));
+            } catch (TaskRejectedException e) {
+                countRequest("sample_dropped");
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 向量保存后同步到已加载的索引
+     *
+     * <p>处于事务中时延迟到提交之后，避免回滚的数据进入索引。</p>
+     *
+     * @param embeddings 已保存的向量
+     */
+    public void onEmbeddingsSaved(List<Embedding> embeddings) {
+        if (embeddings == null || embeddings.isEmpty() || holders.isEmpty()) {
+            return;
+        }
+        Set<String> loadedModels = holders.keySet().stream()
+                .map(IndexKey::modelCode)
+                .collect(Collectors.toSet());
+        List<Embedding> relevant = embeddings.stream()
+                .filter(e -> loadedModels.contains(e.modelCode()) && e.embedding() != null)
+                .toList();
+        if (!relevant.isEmpty()) {
+            afterCommit(() -> applySaved(relevant));
+        }
+    }
+
+    /**
+     * 知识块向量删除后同步到所有已加载的索引，并通知其他节点
+     *
+     * @param chunkId 知识块ID
+     */
+    public void onChunkDeleted(Long chunkId) {
+        if (chunkId == null || !Boolean.TRUE.equals(props.getEnabled())) {
+            return;
+        }
+        afterCommit(() -> {
+            removeChunks(List.of(chunkId));
+            publish(OP_CHUNKS, String.valueOf(chunkId));
+        });
+    }
+
+    /**
+     * 文档软删除后从所有节点的索引中移除其知识块
+     *
+     * <p>文档删除不会删除向量，不处理时内存索引会一直返回已删除文档的知识块，直到下次全量刷新。</p>
+     *
+     * @param documentId 文档ID
+     */
+    public void onDocumentDeleted(Long documentId) {
+        if (documentId == null || !Boolean.TRUE.equals(props.getEnabled())) {
+            return;
+        }
+        afterCommit(() -> {
+            List<Long> chunkIds = jdbcTemplate.queryForList(DOCUMENT_CHUNKS_SQL, Long.class, documentId);
+            removeChunks(chunkIds);
+            for (int from = 0; from < chunkIds.size(); from += NOTIFY_BATCH_SIZE) {
+                List<Long> batch = chunkIds.subList(from, Math.min(from + NOTIFY_BATCH_SIZE, chunkIds.size()));
+                publish(OP_CHUNKS, batch.stream().map(String::valueOf).collect(Collectors.joining(",")));
+            }
+        });
+    }
+
+    /**
+     * 模型向量整体删除后释放相关索引，并通知其他节点
+     *
+     * @param modelCode 模型代码
+     */
+    public void onModelDeleted(String modelCode) {
+        if (modelCode == null || !Boolean.TRUE.equals(props.getEnabled())) {
+            return;
+        }
+        afterCommit(() -> {
+            removeModel(modelCode);
+            publish(OP_MODEL, modelCode);
+        });
+    }
+
+    /**
+     * 处理其他节点发布的失效通知
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 3);
+        if (parts.length < 3 || nodeId.equals(parts[1])) {
+            return;
+        }
+        try {
+            if (OP_CHUNKS.equals(parts[0])) {
+                removeChunks(Arrays.stream(parts[2].split(",")).map(Long::valueOf).toList());
+            } else if (OP_MODEL.equals(parts[0])) {
+                removeModel(parts[2]);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("忽略无效的向量索引失效通知: {}", parts[2]);
+        }
+    }
+
+    /**
+     * 定期释放空闲索引，并为墓碑过多或超过刷新间隔的索引安排后台重建
+     */
+    @Scheduled(fixedDelayString = "${baseai.knowledge-base.search.memory-index.maintenance-interval-ms:60000}")
+    public void maintain() {
+        if (holders.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long idleMillis = props.getIdleEvictSeconds() * 1000L;
+
+        holders.entrySet().removeIf(entry -> {
+            boolean idle = now - entry.getValue().lastAccess > idleMillis;
+            if (idle) {
+                log.info("释放空闲向量索引: tenantId={}, modelCode={}",
+                        entry.getKey().tenantId(), entry.getKey().modelCode());
+            }
+            return idle;
+        });
+
+        holders.forEach((key, holder) -> {
+            HnswVectorIndex index = holder.index;
+            if (index != null && index.deletedRatio() > REBUILD_DELETED_RATIO) {
+                scheduleLoad(key, holder);
+            }
+        });
+    }
+
+    // =================== 索引加载 ===================
+
+    private IndexHolder acquire(IndexKey key) {
+        IndexHolder holder = holders.get(key);
+        if (holder == null) {
+            if (holders.size() >= props.getMaxIndexes() && !evictLeastRecentlyUsed()) {
+                return null;
+            }
+            IndexHolder created = new IndexHolder();
+            holder = holders.putIfAbsent(key, created);
+            if (holder == null) {
+                holder = created;
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        holder.lastAccess = now;
+        long sinceLoad = now - holder.loadedAt;
+        boolean due = switch (holder.state) {
+            case COLD -> true;
+            case EMPTY, FAILED -> sinceLoad > props.getRetryBackoffSeconds() * 1000L;
+            case READY, TOO_LARGE -> sinceLoad > props.getRefreshIntervalSeconds() * 1000L;
+        };
+        if (due) {
+            scheduleLoad(key, holder);
+        }
+        return holder;
+    }
+
+    /**
+     * 释放最久未访问且不在加载中的索引
+     *
+     * @return true如果释放了一个索引
+     */
+    private boolean evictLeastRecentlyUsed() {
+        Map.Entry<IndexKey, IndexHolder> eldest = null;
+        for (Map.Entry<IndexKey, IndexHolder> entry : holders.entrySet()) {
+            if (entry.getValue().loading.get()) {
+                continue;
+            }
+            if (eldest == null || entry.getValue().lastAccess < eldest.getValue().lastAccess) {
+                eldest = entry;
+            }
+        }
+        if (eldest == null || !holders.remove(eldest.getKey(), eldest.getValue())) {
+            return false;
+        }
+        log.debug("索引数达到上限，释放最久未访问的向量索引: tenantId={}, modelCode={}",
+                eldest.getKey().tenantId(), eldest.getKey().modelCode());
+        return true;
+    }
+
+    private void scheduleLoad(IndexKey key, IndexHolder holder) {
+        if (!holder.loading.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    load(key, holder);
+                } catch (Exception e) {
+                    holder.state = IndexState.FAILED;
+                    holder.loadedAt = System.currentTimeMillis();
+                    log.warn("加载向量索引失败: tenantId={}, modelCode={}", key.tenantId(), key.modelCode(), e);
+                } finally {
+                    holder.finishRebuild(null);
+                    holder.loading.set(false);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // 线程池已满，本次不加载，下次查询再安排
+            holder.loading.set(false);
+            log.debug("向量索引加载任务被丢弃: tenantId={}, modelCode={}", key.tenantId(), key.modelCode());
+        }
+    }
+
+    private void load(IndexKey key, IndexHolder holder) {
+        long startTime = System.currentTimeMillis();
+        holder.beginRebuild();
+
+        Long count = jdbcTemplate.queryForObject(COUNT_SQL, Long.class, key.modelCode(), key.tenantId());
+        if (count == null || count == 0 || count > props.getMaxVectorsPerIndex()) {
+            holder.finishRebuild(null);
+            holder.index = null;
+            holder.state = count == null || count == 0 ? IndexState.EMPTY : IndexState.TOO_LARGE;
+            holder.loadedAt = System.currentTimeMillis();
+            log.debug("跳过向量索引构建: tenantId={}, modelCode={}, count={}", key.tenantId(), key.modelCode(), count);
+            return;
+        }
+
+        HnswVectorIndex[] built = new HnswVectorIndex[1];
+        readOnlyTx.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+            PgVector.enableBinaryTransfer(con);
+            var ps = con.prepareStatement(LOAD_SQL);
+            ps.setFetchSize(LOAD_FETCH_SIZE);
+            ps.setString(1, key.modelCode());
+            ps.setLong(2, key.tenantId());
+            return ps;
+        }, rs -> {
+            float[] vector = PgVector.toFloatArray(rs.getObject(2));
+            if (vector == null || vector.length == 0) {
+                return;
+            }
+            if (built[0] == null) {
+                built[0] = new HnswVectorIndex(vector.length, props.getM(), props.getEfConstruction());
+            }
+            built[0].upsert(rs.getLong(1), vector);
+        }));
+
+        // 加载查询之后提交的变更在切换前重放，切换后新的变更直接写入新索引
+        synchronized (holder) {
+            int replayed = holder.finishRebuild(built[0]);
+            if (built[0] != null && built[0].size() > props.getMaxVectorsPerIndex()) {
+                holder.index = null;
+                holder.state = IndexState.TOO_LARGE;
+            } else {
+                holder.index = built[0];
+                holder.state = built[0] == null ? IndexState.EMPTY : IndexState.READY;
+            }
+            // 没有建成索引但期间有新向量写入时，下次查询立即重新加载
+            holder.loadedAt = built[0] == null && replayed > 0 ? 0 : System.currentTimeMillis();
+        }
+
+        log.info("向量索引加载完成: tenantId={}, modelCode={}, vectors={}, 耗时{}ms",
+                key.tenantId(), key.modelCode(), built[0] == null ? 0 : built[0].size(),
+                System.currentTimeMillis() - startTime);
+    }
+
+    private void applySaved(List<Embedding> embeddings) {
+        List<Long> chunkIds = embeddings.stream().map(Embedding::chunkId).distinct().toList();
+        Map<Long, Long> tenantByChunk = new HashMap<>();
+        jdbcTemplate.query(CHUNK_TENANT_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", chunkIds.toArray())),
+                rs -> {
+                    tenantByChunk.put(rs.getLong(1), rs.getLong(2));
+                });
+
+        for (Embedding embedding : embeddings) {
+            Long tenantId = tenantByChunk.get(embedding.chunkId());
+            IndexHolder holder = tenantId == null ? null : holders.get(new IndexKey(tenantId, embedding.modelCode()));
+            if (holder == null) {
+                continue;
+            }
+            if (holder.state == IndexState.EMPTY) {
+                // 之前没有向量的索引有了数据，下次查询立即加载，不等退避间隔
+                holder.loadedAt = 0;
+            }
+            holder.write(index -> {
+                if (embedding.embedding().length != index.dimension()) {
+                    return;
+                }
+                if (index.size() >= props.getMaxVectorsPerIndex()) {
+                    if (holder.index == index) {
+                        holder.index = null;
+                        holder.state = IndexState.TOO_LARGE;
+                    }
+                    return;
+                }
+                index.upsert(embedding.chunkId(), embedding.embedding());
+            });
+        }
+    }
+
+    // =================== 失效处理 ===================
+
+    private void removeChunks(List<Long> chunkIds) {
+        if (chunkIds.isEmpty() || holders.isEmpty()) {
+            return;
+        }
+        holders.values().forEach(holder -> holder.write(index -> chunkIds.forEach(index::remove)));
+    }
+
+    private void removeModel(String modelCode) {
+        holders.keySet().removeIf(key -> key.modelCode().equals(modelCode));
+    }
+
+    /**
+     * 过滤掉已删除的命中，并从索引中移除，兜底失效通知丢失或尚未送达的情况
+     */
+    private List<EmbeddingSearchResult> dropDeleted(IndexHolder holder, String modelCode,
+                                                    List<EmbeddingSearchResult> results) {
+        if (results.isEmpty()) {
+            return results;
+        }
+        Long[] chunkIds = results.stream().map(EmbeddingSearchResult::chunkId).toArray(Long[]::new);
+        Set<Long> live = new HashSet<>();
+        jdbcTemplate.query(LIVE_CHUNKS_SQL, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", chunkIds));
+            ps.setString(2, modelCode);
+        }, rs -> {
+            live.add(rs.getLong(1));
+        });
+        if (live.size() == results.size()) {
+            return results;
+        }
+
+        List<Long> deleted = results.stream()
+                .map(EmbeddingSearchResult::chunkId)
+                .filter(chunkId -> !live.contains(chunkId))
+                .toList();
+        holder.write(index -> deleted.forEach(index::remove));
+        countRequest("stale_dropped");
+        return results.stream()
+                .filter(result -> live.contains(result.chunkId()))
+                .collect(Collectors.toList());
+    }
+
+    private void publish(String op, String payload) {
+        if (redisTemplate == null) {
+            return;
+        }
+        byte[] body = String.join("\n", op, nodeId, payload).getBytes(StandardCharsets.UTF_8);
+        try {
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, body));
+        } catch (Exception e) {
+            // 其他节点在返回结果前仍会核对删除状态，并在定期刷新时重建
+            log.warn("发布向量索引失效通知失败: op={}, error={}", op, e.getMessage());
+        }
+    }
+
+    // =================== 指标 ===================
+
+    private List<EmbeddingSearchResult> timedSqlSearch(Supplier<List<EmbeddingSearchResult>> sqlSearch) {
+        return sqlSearchTimer.record(sqlSearch);
+    }
+
+    private void sampleRecall(List<EmbeddingSearchResult> memoryResults,
+                              Supplier<List<EmbeddingSearchResult>> sqlSearch) {
+        try {
+            List<EmbeddingSearchResult> exact = timedSqlSearch(sqlSearch);
+            if (exact.isEmpty()) {
+                return;
+            }
+            Set<Long> returned = memoryResults.stream()
+                    .map(EmbeddingSearchResult::chunkId)
+                    .collect(Collectors.toSet());
+            long matched = exact.stream().filter(r -> returned.contains(r.chunkId())).count();
+            recallSummary.record((double) matched / exact.size());
+        } catch (Exception e) {
+            log.debug("召回率抽样失败", e);
+        }
+    }
+
+    private void countRequest(String result) {
+        requestCounters.computeIfAbsent(result, r -> Counter.builder("kb.vector.index.requests")
+                .description("向量搜索的分层命中统计")
+                .tag("result", r)
+                .register(meterRegistry)).increment();
+    }
+
+    private double totalVectors() {
+        return holders.values().stream()
+                .map(holder -> holder.index)
+                .filter(Objects::nonNull)
+                .mapToInt(HnswVectorIndex::size)
+                .sum();
+    }
+
+    private double totalOffHeapBytes() {
+        return holders.values().stream()
+                .map(holder -> holder.index)
+                .filter(Objects::nonNull)
+                .mapToLong(HnswVectorIndex::offHeapBytes)
+                .sum();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // =================== 内部数据结构 ===================
+
+    private record IndexKey(Long tenantId, String modelCode) {
+    }
+
+    private enum IndexState {
+        COLD, READY, EMPTY, TOO_LARGE, FAILED
+    }
+
+    private static final class IndexHolder {
+        private volatile HnswVectorIndex index;
+        private volatile IndexState state = IndexState.COLD;
+        private volatile long loadedAt;
+        private volatile long lastAccess = System.currentTimeMillis();
+        private final AtomicBoolean loading = new AtomicBoolean(false);
+
+        /**
+         * 重建期间到达的增量变更，由对象锁保护
+         */
+        private final List<Consumer<HnswVectorIndex>> pendingWrites = new ArrayList<>();
+        private boolean rebuilding;
+
+        /**
+         * 将变更应用到当前索引，重建期间同时记录下来，待新索引切换前重放
+         */
+        synchronized void write(Consumer<HnswVectorIndex> change) {
+            if (rebuilding) {
+                pendingWrites.add(change);
+            }
+            HnswVectorIndex current = index;
+            if (current != null) {
+                change.accept(current);
+            }
+        }
+
+        synchronized void beginRebuild() {
+            rebuilding = true;
+            pendingWrites.clear();
+        }
+
+        /**
+         * 结束重建，把记录的变更重放到新索引
+         *
+         * @return 重建期间记录的变更数
+         */
+        synchronized int finishRebuild(HnswVectorIndex rebuilt) {
+            int count = pendingWrites.size();
+            if (rebuilt != null) {
+                pendingWrites.forEach(change -> change.accept(rebuilt));
+            }
+            pendingWrites.clear();
+            rebuilding = false;
+            return count;
+        }
+    }
+}
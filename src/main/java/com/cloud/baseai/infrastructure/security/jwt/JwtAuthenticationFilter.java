@@ -4,6 +4,7 @@ import com.cloud.baseai.infrastructure.config.properties.SecurityProperties;
 import com.cloud.baseai.infrastructure.security.UserPrincipal;
 import com.cloud.baseai.infrastructure.security.service.CustomUserDetailsService;
 import com.cloud.baseai.infrastructure.security.service.LoginProtectionService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -36,7 +37,7 @@ import java.util.Set;
  * <ol>
  * <li><b>令牌提取：</b>从Authorization头、查询参数或自定义头中提取JWT</li>
  * <li><b>令牌验证：</b>验证签名、过期时间、黑名单状态等</li>
- * <li><b>用户加载：</b>根据令牌信息加载完整的用户详情</li>
+ * <li><b>用户加载：</b>默认从数据库加载用户并校验账户状态，开启{@code principal-from-claims}时直接从令牌Claims构建用户主体</li>
  * <li><b>权限设置：</b>在Security上下文中设置用户认证状态</li>
  * <li><b>请求传递：</b>将请求传递给下一个过滤器或控制器</li>
  * </ol>
@@ -117,11 +118,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             log.debug("处理JWT认证: {} {}", method, requestURI);
         }
 
+        // 已经写出错误响应时不再继续过滤器链，其余情况在finally中只继续一次
+        boolean proceed = true;
         try {
             // 快速跳过公开路径
             if (isPublicPath(requestURI)) {
                 log.debug("公开路径，跳过JWT认证: {}", requestURI);
-                filterChain.doFilter(request, response);
                 return;
             }
 
@@ -129,7 +131,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             if (SecurityContextHolder.getContext().getAuthentication() != null &&
                     SecurityContextHolder.getContext().getAuthentication().isAuthenticated()) {
                 log.debug("用户已认证，跳过JWT处理");
-                filterChain.doFilter(request, response);
                 return;
             }
 
@@ -137,7 +138,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String jwt = extractJwtFromRequest(request);
             if (jwt == null) {
                 log.debug("请求中未找到JWT令牌: {} {}", method, requestURI);
-                filterChain.doFilter(request, response);
                 return;
             }
 
@@ -146,6 +146,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             if (securityProperties.getJwt().isEnableDeviceFingerprint() &&
                     (deviceFingerprint == null || deviceFingerprint.trim().isEmpty())) {
                 log.warn("缺少必需的设备指纹: {} {}", method, requestURI);
+                proceed = false;
                 response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "设备指纹验证失败");
                 return;
             }
@@ -156,49 +157,48 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // ========== 步骤4：检查IP是否被封禁（防暴力破解） ==========
             if (loginProtectionService.isIpBlocked(clientIp)) {
                 log.warn("IP地址被封禁: ip={}, uri={}", clientIp, requestURI);
+                proceed = false;
                 response.sendError(HttpServletResponse.SC_NOT_ACCEPTABLE, "请求过于频繁，请稍后再试");
                 return;
             }
 
-            // ========== 步骤5：验证JWT令牌 ==========
-            if (!jwtTokenService.validateToken(jwt, deviceFingerprint)) {
+            // ========== 步骤5：验证JWT令牌（只解析一次，后续步骤复用Claims） ==========
+            Claims claims = jwtTokenService.validateAndParseClaims(jwt, deviceFingerprint);
+            if (claims == null) {
                 log.debug("JWT令牌验证失败: {} {}", method, requestURI);
                 // 记录失败尝试
                 loginProtectionService.recordFailedAttempt(clientIp);
-                filterChain.doFilter(request, response);
                 return;
             }
 
-            // ========== 步骤6：提取用户ID并加载用户信息 ==========
-            Long userId = jwtTokenService.getUserIdFromToken(jwt);
-            if (userId == null) {
-                log.warn("无法从JWT中提取用户ID");
-                filterChain.doFilter(request, response);
-                return;
-            }
+            // ========== 步骤6：提取用户ID ==========
+            Long userId = Long.valueOf(claims.getSubject());
 
             // 在MDC中添加用户信息用于日志
             MDC.put("userId", userId.toString());
 
-            // ========== 步骤7：加载用户详细信息 ==========
-            UserDetails userDetails = userDetailsService.loadUserById(userId);
+            // ========== 步骤7：构建用户主体 ==========
+            UserDetails userDetails = securityProperties.getJwt().isPrincipalFromClaims()
+                    ? jwtTokenService.buildPrincipalFromClaims(claims)
+                    : userDetailsService.loadUserById(userId);
             if (userDetails == null) {
                 log.warn("无法加载用户信息: userId={}", userId);
-                filterChain.doFilter(request, response);
                 return;
             }
 
             // ========== 步骤8：检查用户账户状态 ==========
             if (!validateUserAccountStatus(userDetails)) {
                 log.warn("用户账户状态异常: userId={}", userId);
+                proceed = false;
                 response.sendError(HttpServletResponse.SC_FORBIDDEN, "账户状态异常");
                 return;
             }
 
             // ========== 步骤9：验证IP地址（如果启用） ==========
             if (securityProperties.getAuth().isEnableIpValidation()) {
-                if (!validateIpAddress(clientIp, jwt)) {
+                if (!validateIpAddress(clientIp, claims)) {
                     log.warn("IP地址验证失败: userId={}, ip={}", userId, clientIp);
+                    proceed = false;
                     response.sendError(HttpServletResponse.SC_FORBIDDEN, "IP地址验证失败");
                     return;
                 }
@@ -221,10 +221,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // 清理可能的部分认证状态
             SecurityContextHolder.clearContext();
         } finally {
-            // 传递请求到下一个过滤器
-            filterChain.doFilter(request, response);
-            // 清理MDC
-            MDC.clear();
+            try {
+                // 传递请求到下一个过滤器
+                if (proceed) {
+                    filterChain.doFilter(request, response);
+                }
+            } finally {
+                // 清理MDC
+                MDC.clear();
+            }
         }
     }
 
@@ -383,9 +388,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     /**
      * 验证IP地址是否允许
      */
-    private boolean validateIpAddress(String clientIp, String jwt) {
+    private boolean validateIpAddress(String clientIp, Claims claims) {
         // 从JWT中获取原始IP
-        String tokenIp = jwtTokenService.getIpFromToken(jwt);
+        String tokenIp = claims.get("ip", String.class);
 
         if (tokenIp != null && !tokenIp.equals(clientIp)) {
             // 检查是否在允许的IP范围内
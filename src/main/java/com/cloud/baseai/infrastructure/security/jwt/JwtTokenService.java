@@ -3,17 +3,18 @@ package com.cloud.baseai.infrastructure.security.jwt;
 import com.cloud.baseai.infrastructure.config.properties.SecurityProperties;
 import com.cloud.baseai.infrastructure.security.UserPrincipal;
 import com.cloud.baseai.infrastructure.security.service.CustomUserDetailsService;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
@@ -25,6 +26,7 @@ import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Date;
 import java.util.List;
@@ -43,6 +45,10 @@ import java.util.stream.Collectors;
  * <li>令牌刷新策略</li>
  * <li>配置化密钥管理</li>
  * </ul>
+ *
+ * <p><b>验证快速路径：</b>验签通过的Claims按令牌哈希缓存到令牌过期，同一令牌的后续请求不再验签；
+ * 黑名单先经过{@link TokenRevocationFilter}本地判定，只有可能已撤销的令牌才查询Redis，
+ * 并且令牌和用户两个黑名单在一次{@code MGET}中读取。</p>
  */
 @Component
 public class JwtTokenService {
@@ -58,6 +64,12 @@ public class JwtTokenService {
     private final SecurityProperties securityProps;
     private final RedisTemplate<String, Object> redisTemplate;
     private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocationFilter revocationFilter;
+
+    /**
+     * 已验签的Claims，键为令牌的SHA-256哈希
+     */
+    private final Cache<String, Claims> verifiedClaims;
 
     /**
      * RSA密钥对（用于高安全性场景）
@@ -75,10 +87,17 @@ public class JwtTokenService {
      */
     public JwtTokenService(SecurityProperties securityProps,
                            RedisTemplate<String, Object> redisTemplate,
-                           CustomUserDetailsService userDetailsService) {
+                           CustomUserDetailsService userDetailsService,
+                           TokenRevocationFilter revocationFilter) {
         this.securityProps = securityProps;
         this.redisTemplate = redisTemplate;
         this.userDetailsService = userDetailsService;
+        this.revocationFilter = revocationFilter;
+        // 条目在令牌过期时由读取方剔除，写入后的过期时间只用于回收长期不再使用的令牌
+        this.verifiedClaims = CacheBuilder.newBuilder()
+                .maximumSize(securityProps.getJwt().getClaimsCacheSize())
+                .expireAfterWrite(securityProps.getJwt().getAccessTokenExpiration(), TimeUnit.MILLISECONDS)
+                .build();
 
         try {
             if (securityProps.getJwt().isUseRsa()) {
@@ -191,30 +210,38 @@ public class JwtTokenService {
      * @return 是否有效
      */
     public boolean validateToken(String token, String deviceFingerprint) {
+        return validateAndParseClaims(token, deviceFingerprint) != null;
+    }
+
+    /**
+     * 验证令牌并返回其Claims
+     *
+     * <p>与{@link #validateToken(String, String)}的检查相同，验证通过时返回Claims，
+     * 调用方无需再次解析令牌。</p>
+     *
+     * @param token             要验证的令牌
+     * @param deviceFingerprint 设备指纹
+     * @return 验证通过时返回Claims，否则返回null
+     */
+    public Claims validateAndParseClaims(String token, String deviceFingerprint) {
         if (token == null || token.trim().isEmpty()) {
-            return false;
+            return null;
         }
 
         try {
             // 解析令牌
             Claims claims = parseTokenClaims(token);
             if (claims == null) {
-                return false;
+                return null;
             }
 
             String jti = claims.getId();
             Long userId = Long.valueOf(claims.getSubject());
 
-            // 1. 检查令牌黑名单
-            if (isTokenBlacklisted(jti)) {
-                log.debug("令牌在黑名单中: jti={}", jti);
-                return false;
-            }
-
-            // 2. 检查用户级黑名单（修复的关键点）
-            if (isUserBlacklisted(userId)) {
-                log.debug("用户在黑名单中: userId={}", userId);
-                return false;
+            // 1. 检查令牌和用户级黑名单，本地过滤器判定未撤销时不查询Redis
+            if (revocationFilter.mightBeRevoked(jti, userId) && isBlacklisted(jti, userId, claims.getIssuedAt())) {
+                log.debug("令牌或用户在黑名单中: jti={}, userId={}", jti, userId);
+                return null;
             }
 
             // 3. 验证设备指纹
@@ -223,7 +250,7 @@ public class JwtTokenService {
                 if (storedFingerprint != null && !verifyFingerprint(deviceFingerprint, storedFingerprint)) {
                     log.warn("设备指纹验证失败: jti={}, userId={}", jti, userId);
                     recordSecurityEvent(userId, "FINGERPRINT_MISMATCH", jti);
-                    return false;
+                    return null;
                 }
             }
 
@@ -234,7 +261,7 @@ public class JwtTokenService {
             }
 
             log.debug("令牌验证通过: jti={}", jti);
-            return true;
+            return claims;
 
         } catch (ExpiredJwtException e) {
             log.debug("令牌已过期: {}", e.getMessage());
@@ -244,7 +271,7 @@ public class JwtTokenService {
             log.error("令牌验证失败: {}", e.getMessage());
         }
 
-        return false;
+        return null;
     }
 
     /**
@@ -285,7 +312,7 @@ public class JwtTokenService {
             Long userId = Long.valueOf(claims.getSubject());
 
             // 检查用户是否被封禁
-            if (isUserBlacklisted(userId)) {
+            if (isUserBlacklisted(userId, claims.getIssuedAt())) {
                 throw new SecurityException("用户已被封禁");
             }
 
@@ -300,12 +327,7 @@ public class JwtTokenService {
             }
 
             // 简化实现：从令牌中提取基本信息
-            List<String> roles = claims.get("roles", List.class);
-            List<Long> tenantIds = claims.get("tenantIds", List.class);
-            String username = claims.get("username", String.class);
-            String email = claims.get("email", String.class);
-
-            UserPrincipal userPrincipal = createUserPrincipalFromClaims(userId, username, email, roles, tenantIds);
+            UserPrincipal userPrincipal = createUserPrincipalFromClaims(claims);
 
             String newAccessToken = generateAccessToken(userPrincipal, deviceFingerprint, null);
 
@@ -340,6 +362,8 @@ public class JwtTokenService {
                 if (ttl > 0) {
                     String key = TOKEN_BLACKLIST_PREFIX + jti;
                     redisTemplate.opsForValue().set(key, true, ttl, TimeUnit.MILLISECONDS);
+                    revocationFilter.tokenRevoked(jti);
+                    verifiedClaims.invalidate(tokenHash(token));
 
                     log.info("令牌已撤销: jti={}", jti);
                     recordSecurityEvent(userId, "TOKEN_REVOKED", jti);
@@ -354,18 +378,23 @@ public class JwtTokenService {
     /**
      * 撤销用户的所有令牌
      *
+     * <p>黑名单记录撤销时间，此前签发的令牌全部失效，用户重新登录后签发的令牌不受影响。
+     * 令牌签发时间只精确到秒，与撤销同一秒内签发的令牌也会被拒绝。</p>
+     *
      * @param userId 用户ID
      */
     public void revokeAllUserTokens(Long userId) {
         try {
-            // 将用户ID加入全局黑名单
+            // 将用户ID和撤销时间加入全局黑名单
             String userBlacklistKey = USER_BLACKLIST_PREFIX + userId;
             long maxExpiration = Math.max(
                     securityProps.getJwt().getAccessTokenExpiration(),
                     securityProps.getJwt().getRefreshTokenExpiration()
             );
 
-            redisTemplate.opsForValue().set(userBlacklistKey, true, maxExpiration, TimeUnit.MILLISECONDS);
+            redisTemplate.opsForValue().set(userBlacklistKey, System.currentTimeMillis(),
+                    maxExpiration, TimeUnit.MILLISECONDS);
+            revocationFilter.userRevoked(userId);
 
             // 清除用户相关的缓存
             clearUserCache(userId);
@@ -380,6 +409,18 @@ public class JwtTokenService {
 
     // =================== 信息提取方法 ===================
 
+    /**
+     * 从已验证的Claims构建用户主体
+     *
+     * <p>角色、租户等信息取自令牌签发时的快照，不查询数据库。</p>
+     *
+     * @param claims 已验证的令牌Claims
+     * @return 用户主体
+     */
+    public UserPrincipal buildPrincipalFromClaims(Claims claims) {
+        return createUserPrincipalFromClaims(claims);
+    }
+
     /**
      * 从令牌中提取用户ID
      */
@@ -579,9 +620,26 @@ public class JwtTokenService {
 
     /**
      * 解析令牌获取Claims（带缓存）
+     *
+     * <p>验签通过的Claims按令牌哈希缓存，命中时只检查是否已过期。</p>
      */
-    @Cacheable(value = "jwt-claims", key = "#token", unless = "#result == null", condition = "#token.length() < 1000")
     public Claims parseTokenClaims(String token) {
+        if (token == null) {
+            return null;
+        }
+
+        String hash = tokenHash(token);
+        Claims cached = verifiedClaims.getIfPresent(hash);
+        if (cached != null) {
+            Date expiration = cached.getExpiration();
+            if (expiration == null || expiration.getTime() > System.currentTimeMillis()) {
+                return cached;
+            }
+            verifiedClaims.invalidate(hash);
+            log.debug("令牌已过期: jti={}", cached.getId());
+            return null;
+        }
+
         try {
             JwtParserBuilder parser = Jwts.parser()
                     .requireIssuer(securityProps.getJwt().getIssuer());
@@ -592,9 +650,11 @@ public class JwtTokenService {
                 parser.setSigningKey(hmacSecretKey);
             }
 
-            return parser.build()
+            Claims claims = parser.build()
                     .parseSignedClaims(token)
                     .getPayload();
+            verifiedClaims.put(hash, claims);
+            return claims;
 
         } catch (Exception e) {
             log.debug("解析令牌失败: {}", e.getMessage());
@@ -602,6 +662,30 @@ public class JwtTokenService {
         }
     }
 
+    /**
+     * 在一次Redis往返中检查令牌和用户是否在黑名单中
+     */
+    private boolean isBlacklisted(String jti, Long userId, Date issuedAt) {
+        List<String> keys = new ArrayList<>(2);
+        if (jti != null) {
+            keys.add(TOKEN_BLACKLIST_PREFIX + jti);
+        }
+        if (userId != null) {
+            keys.add(USER_BLACKLIST_PREFIX + userId);
+        }
+        if (keys.isEmpty()) {
+            return false;
+        }
+        List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+        if (values == null || values.size() < keys.size()) {
+            return false;
+        }
+        if (jti != null && values.get(0) != null) {
+            return true;
+        }
+        return userId != null && issuedBeforeRevocation(issuedAt, values.get(keys.size() - 1));
+    }
+
     /**
      * 检查令牌是否在黑名单中
      */
@@ -615,10 +699,25 @@ public class JwtTokenService {
     /**
      * 检查用户是否在黑名单中
      */
-    private boolean isUserBlacklisted(Long userId) {
+    private boolean isUserBlacklisted(Long userId, Date issuedAt) {
         if (userId == null) return false;
         String key = USER_BLACKLIST_PREFIX + userId;
-        return redisTemplate.hasKey(key);
+        return issuedBeforeRevocation(issuedAt, redisTemplate.opsForValue().get(key));
+    }
+
+    /**
+     * 判断令牌是否签发于用户级撤销之前
+     *
+     * <p>旧版本黑名单的值不是撤销时间，按撤销该用户的全部令牌处理。</p>
+     */
+    private static boolean issuedBeforeRevocation(Date issuedAt, Object revokedAt) {
+        if (revokedAt == null) {
+            return false;
+        }
+        if (!(revokedAt instanceof Number revokedAtMillis) || issuedAt == null) {
+            return true;
+        }
+        return issuedAt.getTime() <= revokedAtMillis.longValue();
     }
 
     /**
@@ -630,6 +729,13 @@ public class JwtTokenService {
                 expiration, TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * 计算令牌哈希，作为Claims缓存的键
+     */
+    private String tokenHash(String token) {
+        return DigestUtils.sha256Hex(token);
+    }
+
     /**
      * 哈希设备指纹
      */
@@ -667,8 +773,9 @@ public class JwtTokenService {
     /**
      * 清除用户缓存
      */
-    @CacheEvict(value = "jwt-claims", allEntries = true)
     public void clearUserCache(Long userId) {
+        String subject = String.valueOf(userId);
+        verifiedClaims.asMap().values().removeIf(claims -> subject.equals(claims.getSubject()));
         log.debug("清除用户JWT缓存: userId={}", userId);
     }
 
@@ -701,24 +808,25 @@ public class JwtTokenService {
     }
 
     /**
-     * 从Claims创建UserPrincipal（用于令牌刷新）
+     * 从Claims创建UserPrincipal（用于令牌刷新和请求认证）
      */
-    private UserPrincipal createUserPrincipalFromClaims(Long userId,
-                                                        String username,
-                                                        String email,
-                                                        List<String> roles,
-                                                        List<Long> tenantIds) {
-        // 这里创建一个简化的UserPrincipal用于令牌刷新
-        // TODO 实际项目中应该通过UserDetailsService重新加载完整信息
+    @SuppressWarnings("unchecked")
+    private UserPrincipal createUserPrincipalFromClaims(Claims claims) {
+        List<String> roles = claims.get("roles", List.class);
+        List<Object> tenantIds = claims.get("tenantIds", List.class);
+
         return UserPrincipal.builder()
-                .id(userId)
-                .username(username)
-                .email(email)
-                .password("") // 刷新场景不需要密码
-                .authorities(roles.stream()
-                        .map(role -> new org.springframework.security.core.authority.SimpleGrantedAuthority("ROLE_" + role))
+                .id(Long.valueOf(claims.getSubject()))
+                .username(claims.get("username", String.class))
+                .email(claims.get("email", String.class))
+                .password("") // 令牌认证场景不需要密码
+                .authorities(roles == null ? List.of() : roles.stream()
+                        .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                        .collect(Collectors.toList()))
+                // JSON反序列化出的数字可能是Integer，统一转为Long
+                .tenantIds(tenantIds == null ? List.of() : tenantIds.stream()
+                        .map(id -> Long.valueOf(id.toString()))
                         .collect(Collectors.toList()))
-                .tenantIds(tenantIds)
                 .enabled(true)
                 .accountNonExpired(true)
                 .accountNonLocked(true)
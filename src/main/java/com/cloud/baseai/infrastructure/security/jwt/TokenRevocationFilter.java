@@ -0,0 +1,158 @@
+package com.cloud.baseai.infrastructure.security.jwt;
+
+import com.cloud.baseai.infrastructure.config.properties.SecurityProperties;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <h2>令牌撤销布隆过滤器</h2>
+ *
+ * <p>在本地维护所有已撤销令牌和用户的布隆过滤器。过滤器判定"一定未撤销"的令牌
+ * 不再查询Redis黑名单，绝大多数请求因此不产生Redis往返；判定"可能已撤销"时
+ * 仍以Redis中的黑名单为准。</p>
+ *
+ * <p>过滤器定期从Redis黑名单全量重建，既剔除已过期的撤销记录，也兜底订阅断开期间错过的通知；
+ * 任一节点撤销令牌时通过发布订阅通知所有节点立即加入。重建失败或尚未完成首次重建时
+ * 过滤器视为未就绪，所有请求回退到查询Redis。</p>
+ */
+@Component
+public class TokenRevocationFilter implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationFilter.class);
+
+    static final String BLACKLIST_PREFIX = "jwt:blacklist:";
+    static final String TOKEN_ENTRY = "token:";
+    static final String USER_ENTRY = "user:";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final SecurityProperties.RevocationFilterProperties properties;
+    private final byte[] channel;
+
+    private volatile BloomFilter<CharSequence> filter;
+    private volatile BloomFilter<CharSequence> building;
+    private volatile boolean ready;
+
+    public TokenRevocationFilter(RedisTemplate<String, Object> redisTemplate,
+                                 RedisMessageListenerContainer listenerContainer,
+                                 SecurityProperties securityProperties) {
+        this.redisTemplate = redisTemplate;
+        this.properties = securityProperties.getJwt().getRevocationFilter();
+        this.channel = properties.getChannel().getBytes(StandardCharsets.UTF_8);
+        this.filter = newFilter();
+        if (properties.isEnabled()) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(properties.getChannel()));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 令牌或其所属用户是否可能已被撤销
+     *
+     * <p>返回false时可以确定未撤销；返回true时需要查询Redis黑名单确认。</p>
+     */
+    public boolean mightBeRevoked(String jti, Long userId) {
+        if (!properties.isEnabled() || !ready) {
+            return true;
+        }
+        BloomFilter<CharSequence> current = filter;
+        return (jti != null && current.mightContain(TOKEN_ENTRY + jti))
+                || (userId != null && current.mightContain(USER_ENTRY + userId));
+    }
+
+    /**
+     * 记录令牌撤销，本节点立即生效并通知其他节点
+     */
+    public void tokenRevoked(String jti) {
+        revoked(TOKEN_ENTRY + jti);
+    }
+
+    /**
+     * 记录用户的所有令牌撤销，本节点立即生效并通知其他节点
+     */
+    public void userRevoked(Long userId) {
+        revoked(USER_ENTRY + userId);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        add(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 从Redis黑名单全量重建过滤器
+     */
+    @Scheduled(fixedDelayString = "${baseai.security.jwt.revocation-filter.rebuild-interval-ms:60000}",
+            initialDelayString = "${baseai.security.jwt.revocation-filter.rebuild-interval-ms:60000}")
+    public synchronized void rebuild() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        // 重建期间收到的通知同时写入新旧两个过滤器，切换时不会丢失
+        BloomFilter<CharSequence> next = newFilter();
+        building = next;
+        long count = 0;
+        ScanOptions options = ScanOptions.scanOptions().match(BLACKLIST_PREFIX + "*").count(1000).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                next.put(cursor.next().substring(BLACKLIST_PREFIX.length()));
+                count++;
+            }
+            filter = next;
+            ready = true;
+            log.debug("令牌撤销过滤器已重建: entries={}", count);
+        } catch (Exception e) {
+            ready = false;
+            log.warn("令牌撤销过滤器重建失败，回退到逐请求查询Redis: {}", e.getMessage());
+        } finally {
+            building = null;
+        }
+    }
+
+    // =================== 私有方法 ===================
+
+    private void revoked(String entry) {
+        add(entry);
+        try {
+            byte[] body = entry.getBytes(StandardCharsets.UTF_8);
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, body));
+        } catch (Exception e) {
+            // 其他节点最迟在下一次重建时看到这条撤销
+            log.warn("发布令牌撤销通知失败: entry={}, error={}", entry, e.getMessage());
+        }
+    }
+
+    private void add(String entry) {
+        // 先读正在重建的过滤器：此时读到null说明重建尚未开始，新过滤器会从Redis扫描到这条记录
+        BloomFilter<CharSequence> next = building;
+        if (next != null) {
+            next.put(entry);
+        }
+        filter.put(entry);
+    }
+
+    private BloomFilter<CharSequence> newFilter() {
+        return BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8),
+                properties.getExpectedInsertions(), properties.getFalsePositiveRate());
+    }
+}
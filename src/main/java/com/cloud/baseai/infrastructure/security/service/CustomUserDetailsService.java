@@ -9,6 +9,9 @@ import com.cloud.baseai.domain.user.repository.UserTenantRepository;
 import com.cloud.baseai.infrastructure.security.UserPrincipal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -17,7 +20,10 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -44,7 +50,8 @@ import java.util.stream.Collectors;
  *
  * <p><b>性能优化策略</b></p>
  * <p>用户信息查询是一个高频操作，我们采用了多种优化策略：</p>
- * <p>1. 使用Spring Cache进行用户信息缓存</p>
+ * <p>1. 使用Spring Cache缓存按用户ID加载的用户信息（JWT认证路径）；
+ * 登录路径不缓存，避免改密码后旧密码哈希仍能通过校验</p>
  * <p>2. 批量查询减少数据库往返次数</p>
  * <p>3. 延迟加载非关键信息</p>
  * <p>4. 合理设置事务边界避免不必要的锁等待</p>
@@ -70,16 +77,23 @@ public class CustomUserDetailsService implements UserDetailsService {
      */
     private final UserTenantRepository userTenantRepository;
 
+    /**
+     * 缓存管理器，用于在用户状态变更后清除用户详情缓存
+     */
+    private final ObjectProvider<CacheManager> cacheManager;
+
     /**
      * 构造函数，注入所需的仓储依赖
      */
     public CustomUserDetailsService(
             UserRepository userRepository,
             UserRoleRepository userRoleRepository,
-            UserTenantRepository userTenantRepository) {
+            UserTenantRepository userTenantRepository,
+            ObjectProvider<CacheManager> cacheManager) {
         this.userRepository = userRepository;
         this.userRoleRepository = userRoleRepository;
         this.userTenantRepository = userTenantRepository;
+        this.cacheManager = cacheManager;
     }
 
     /**
@@ -99,12 +113,13 @@ public class CustomUserDetailsService implements UserDetailsService {
      * <p>我们设计了智能的用户名解析策略，支持用户使用用户名或邮箱登录。
      * 这种灵活性大大提升了用户体验。</p>
      *
+     * <p>结果不缓存：返回的主体携带密码哈希，缓存后改密码前的旧密码在缓存过期前仍能登录。</p>
+     *
      * @param username 用户输入的用户名（可能是用户名、邮箱等）
      * @return 完整的用户详情对象
      * @throws UsernameNotFoundException 当用户不存在时抛出
      */
     @Override
-    @Cacheable(value = "user-details", key = "#username", unless = "#result == null")
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         log.debug("开始加载用户详情: username={}", username);
 
@@ -188,15 +203,40 @@ public class CustomUserDetailsService implements UserDetailsService {
      * 刷新用户详情缓存
      *
      * <p>当用户的权限或状态发生变化时，我们需要主动刷新缓存，
-     * 确保用户在下次访问时能获取到最新的权限信息。</p>
+     * 确保用户在下次访问时能获取到最新的权限信息。按用户ID和用户名、邮箱两种键都清除，
+     * 在事务中调用时等到提交后再清除，避免并发请求在提交前把旧数据重新放回缓存。
+     * 缓存的清除会通知到其他节点。</p>
      *
      * @param userId 需要刷新缓存的用户ID
      */
     public void refreshUserCache(Long userId) {
+        CacheManager manager = cacheManager.getIfAvailable();
+        Cache cache = manager != null ? manager.getCache("user-details") : null;
+        if (cache == null || userId == null) {
+            return;
+        }
+
+        List<Object> keys = new ArrayList<>();
+        keys.add("user-id:" + userId);
+        userRepository.findById(userId).ifPresent(user -> {
+            keys.add(user.username());
+            if (user.email() != null) {
+                keys.add(user.email());
+            }
+        });
+
+        Runnable evict = () -> keys.forEach(cache::evict);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        } else {
+            evict.run();
+        }
         log.info("刷新用户缓存: userId={}", userId);
-        // 这里应该调用缓存管理器的evict方法
-        // cacheManager.getCache("user-details").evict("user-id:" + userId);
-        // 同时也要清除用户名相关的缓存
     }
 
     // =================== 私有辅助方法 ===================
@@ -243,8 +243,7 @@ public class LoginProtectionService {
             String attemptKey = FAILED_ATTEMPT_KEY + identifier;
             String captchaKey = CAPTCHA_REQUIRED_KEY + identifier;
 
-            redisTemplate.delete(attemptKey);
-            redisTemplate.delete(captchaKey);
+            redisTemplate.delete(List.of(attemptKey, captchaKey));
 
             log.debug("重置失败计数: identifier={}", identifier);
 
@@ -201,9 +201,10 @@ COMMENT ON COLUMN sys_user_roles.created_at IS '授权时间';
  * 审计与安全日志表
  ******************************************************************************/
 
+-- 按created_at每月一个分区（UTC对齐），分区由应用提前创建，过期数据按整个分区删除或分离
 CREATE TABLE IF NOT EXISTS sys_audit_logs
 (
-    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY,
     user_id       BIGINT,                     -- 操作用户
     tenant_id     BIGINT,                     -- 所属租户
     action        VARCHAR(64) NOT NULL,       -- 操作类型（如LOGIN、UPDATE、DELETE等）
@@ -214,8 +215,9 @@ CREATE TABLE IF NOT EXISTS sys_audit_logs
     detail        JSONB,                      -- 详细内容
     result_status VARCHAR(16),                -- 操作结果（success, fail, partial等）
     log_level     VARCHAR(16) DEFAULT 'info', -- 日志等级
-    created_at    TIMESTAMPTZ DEFAULT now()
-);
+    created_at    TIMESTAMPTZ NOT NULL DEFAULT now(),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
 COMMENT ON TABLE sys_audit_logs IS '系统审计操作日志表，记录用户关键操作与安全事件';
 COMMENT ON COLUMN sys_audit_logs.user_id IS '操作用户ID';
 COMMENT ON COLUMN sys_audit_logs.tenant_id IS '操作所属租户ID';
@@ -228,6 +230,46 @@ COMMENT ON COLUMN sys_audit_logs.detail IS '操作详情内容（JSON）';
 COMMENT ON COLUMN sys_audit_logs.result_status IS '操作结果状态';
 COMMENT ON COLUMN sys_audit_logs.log_level IS '日志等级';
 COMMENT ON COLUMN sys_audit_logs.created_at IS '操作时间';
+-- 导出按(created_at, id)键集分页，租户和用户维度各一个有序索引
+CREATE INDEX idx_sys_audit_logs_tenant_created ON sys_audit_logs (tenant_id, created_at, id);
+CREATE INDEX idx_sys_audit_logs_user_created ON sys_audit_logs (user_id, created_at, id);
+-- 兜底分区，正常情况下应为空；当月和之后三个月的分区先建好，其余由应用按月补建
+CREATE TABLE IF NOT EXISTS sys_audit_logs_default PARTITION OF sys_audit_logs DEFAULT;
+DO
+$$
+    DECLARE
+        month_start TIMESTAMP;
+    BEGIN
+        FOR i IN 0..3
+            LOOP
+                month_start := date_trunc('month', now() AT TIME ZONE 'UTC') + make_interval(months => i);
+                EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF sys_audit_logs FOR VALUES FROM (%L) TO (%L)',
+                               'sys_audit_logs_p' || to_char(month_start, 'YYYYMM'),
+                               month_start AT TIME ZONE 'UTC', (month_start + INTERVAL '1 month') AT TIME ZONE 'UTC');
+            END LOOP;
+    END
+$$;
+
+/** 审计统计汇总表 */
+CREATE TABLE IF NOT EXISTS sys_audit_rollups
+(
+    tenant_id     BIGINT      NOT NULL,    -- 所属租户，原始日志无租户时为0
+    dimension     VARCHAR(16) NOT NULL,    -- 统计维度（ACTION、USER）
+    granularity   VARCHAR(8)  NOT NULL,    -- 时间桶粒度（MINUTE、HOUR、DAY）
+    bucket_start  TIMESTAMPTZ NOT NULL,    -- 时间桶起点（UTC对齐）
+    dimension_key VARCHAR(64) NOT NULL,    -- 维度取值（操作类型或用户ID）
+    event_count   BIGINT      NOT NULL,    -- 日志条数
+    PRIMARY KEY (tenant_id, dimension, granularity, bucket_start, dimension_key)
+);
+COMMENT ON TABLE sys_audit_rollups IS '审计日志统计汇总表，按租户、维度和时间桶预聚合日志条数';
+COMMENT ON COLUMN sys_audit_rollups.tenant_id IS '所属租户ID，无租户为0';
+COMMENT ON COLUMN sys_audit_rollups.dimension IS '统计维度';
+COMMENT ON COLUMN sys_audit_rollups.granularity IS '时间桶粒度';
+COMMENT ON COLUMN sys_audit_rollups.bucket_start IS '时间桶起点';
+COMMENT ON COLUMN sys_audit_rollups.dimension_key IS '维度取值';
+COMMENT ON COLUMN sys_audit_rollups.event_count IS '日志条数';
+-- 汇总进度查询和过期分钟桶清理按粒度和时间扫描
+CREATE INDEX idx_sys_audit_rollups_granularity ON sys_audit_rollups (granularity, bucket_start);
 
 ------------------------------------------------------------------------------
 
@@ -247,6 +289,7 @@ CREATE TABLE IF NOT EXISTS kb_documents
     lang_code      VARCHAR(5)  DEFAULT 'auto',
     parsing_status SMALLINT    DEFAULT 0,
     chunk_count    INT         DEFAULT 0,
+    embedded_count INT         DEFAULT 0,
     sha256         VARCHAR(64) UNIQUE,
     created_by     BIGINT       NOT NULL,
     updated_by     BIGINT,
@@ -267,6 +310,7 @@ COMMENT ON COLUMN kb_documents.source_uri IS '文档原始地址或上传路径'
 COMMENT ON COLUMN kb_documents.mime_type IS '文档MIME类型（用于选择解析器）';
 COMMENT ON COLUMN kb_documents.lang_code IS '文档语言代码（如en、zh-CN，默认auto）';
 COMMENT ON COLUMN kb_documents.parsing_status IS '解析状态：0待解析、1成功、2失败';
+COMMENT ON COLUMN kb_documents.embedded_count IS '已生成向量的知识块数量（向量生成进度）';
 COMMENT ON COLUMN kb_documents.chunk_count IS '分块切片数量';
 COMMENT ON COLUMN kb_documents.sha256 IS '文档内容SHA256哈希，防重复';
 COMMENT ON COLUMN kb_documents.created_by IS '文档创建人用户ID';
@@ -310,6 +354,54 @@ COMMENT ON COLUMN kb_chunks.created_at IS '知识块创建时间';
 COMMENT ON COLUMN kb_chunks.updated_at IS '知识块更新时间';
 COMMENT ON COLUMN kb_chunks.deleted_at IS '知识块软删除时间';
 
+/** 知识块关键词倒排表（BM25） */
+CREATE TABLE IF NOT EXISTS kb_chunk_terms
+(
+    tenant_id BIGINT      NOT NULL,
+    term      VARCHAR(64) NOT NULL,
+    chunk_id  BIGINT      NOT NULL,
+    tf        INT         NOT NULL,
+    doc_len   INT         NOT NULL,
+    PRIMARY KEY (tenant_id, term, chunk_id),
+    FOREIGN KEY (chunk_id) REFERENCES kb_chunks (id) ON DELETE CASCADE
+);
+CREATE INDEX idx_kb_chunk_terms_chunk ON kb_chunk_terms (chunk_id);
+COMMENT ON TABLE kb_chunk_terms IS '知识块关键词倒排表，每行为一个词项在一个知识块中的出现记录';
+COMMENT ON COLUMN kb_chunk_terms.tenant_id IS '归属租户ID';
+COMMENT ON COLUMN kb_chunk_terms.term IS '词项（中日韩文字为二元组，其余为单词）';
+COMMENT ON COLUMN kb_chunk_terms.chunk_id IS '知识块ID';
+COMMENT ON COLUMN kb_chunk_terms.tf IS '词项在知识块中的出现次数';
+COMMENT ON COLUMN kb_chunk_terms.doc_len IS '知识块的词项总数（BM25长度归一化）';
+
+/** 词项文档频率表（BM25） */
+CREATE TABLE IF NOT EXISTS kb_term_stats
+(
+    tenant_id BIGINT      NOT NULL,
+    term      VARCHAR(64) NOT NULL,
+    doc_freq  BIGINT      NOT NULL DEFAULT 0,
+    PRIMARY KEY (tenant_id, term)
+);
+COMMENT ON TABLE kb_term_stats IS '租户级词项文档频率，用于计算IDF';
+COMMENT ON COLUMN kb_term_stats.tenant_id IS '归属租户ID';
+COMMENT ON COLUMN kb_term_stats.term IS '词项';
+COMMENT ON COLUMN kb_term_stats.doc_freq IS '包含该词项的知识块数量';
+
+/** 租户文本统计表（BM25） */
+CREATE TABLE IF NOT EXISTS kb_text_stats
+(
+    tenant_id    BIGINT   NOT NULL,
+    shard        SMALLINT NOT NULL DEFAULT 0,
+    doc_count    BIGINT   NOT NULL DEFAULT 0,
+    total_length BIGINT   NOT NULL DEFAULT 0,
+    PRIMARY KEY (tenant_id, shard),
+    FOREIGN KEY (tenant_id) REFERENCES sys_tenants (id) ON DELETE CASCADE
+);
+COMMENT ON TABLE kb_text_stats IS '租户级倒排索引统计，用于计算平均文档长度；按分片累加，读取时求和';
+COMMENT ON COLUMN kb_text_stats.tenant_id IS '租户ID';
+COMMENT ON COLUMN kb_text_stats.shard IS '计数分片，并发导入分散写入不同分片，避免争用同一行';
+COMMENT ON COLUMN kb_text_stats.doc_count IS '已建立索引的知识块数量';
+COMMENT ON COLUMN kb_text_stats.total_length IS '已建立索引的知识块词项总数';
+
 /** 知识块向量表 */
 CREATE TABLE IF NOT EXISTS kb_embeddings
 (
@@ -336,6 +428,46 @@ COMMENT ON COLUMN kb_embeddings.created_by IS 'Embedding生成用户ID';
 COMMENT ON COLUMN kb_embeddings.created_at IS 'Embedding生成时间';
 COMMENT ON COLUMN kb_embeddings.deleted_at IS 'Embedding软删除时间';
 
+/** 向量生成任务表 */
+CREATE TABLE IF NOT EXISTS kb_embedding_jobs
+(
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    task_id          VARCHAR(64) NOT NULL,
+    document_id      BIGINT      NOT NULL,
+    model_code       VARCHAR(32) NOT NULL,
+    status           SMALLINT    NOT NULL DEFAULT 0,
+    total_chunks     INT         NOT NULL DEFAULT 0,
+    processed_chunks INT         NOT NULL DEFAULT 0,
+    failed_chunks    INT         NOT NULL DEFAULT 0,
+    last_chunk_id    BIGINT      NOT NULL DEFAULT 0,
+    attempts         INT         NOT NULL DEFAULT 0,
+    locked_by        VARCHAR(128),
+    locked_until     TIMESTAMPTZ,
+    last_error       TEXT,
+    created_by       BIGINT      NOT NULL,
+    created_at       TIMESTAMPTZ DEFAULT now(),
+    updated_at       TIMESTAMPTZ DEFAULT now(),
+    started_at       TIMESTAMPTZ,
+    finished_at      TIMESTAMPTZ,
+    FOREIGN KEY (document_id) REFERENCES kb_documents (id) ON DELETE CASCADE,
+    FOREIGN KEY (created_by) REFERENCES sys_users (id) ON DELETE RESTRICT
+);
+CREATE INDEX idx_kb_embedding_jobs_task ON kb_embedding_jobs (task_id);
+CREATE INDEX idx_kb_embedding_jobs_claim ON kb_embedding_jobs (status, id) WHERE status IN (0, 1);
+COMMENT ON TABLE kb_embedding_jobs IS '向量生成任务表，按文档拆分，支持断点续跑';
+COMMENT ON COLUMN kb_embedding_jobs.task_id IS '任务批次ID，同一次批量请求的文档共享';
+COMMENT ON COLUMN kb_embedding_jobs.document_id IS '待处理的文档ID';
+COMMENT ON COLUMN kb_embedding_jobs.model_code IS '嵌入模型代码';
+COMMENT ON COLUMN kb_embedding_jobs.status IS '状态：0待处理、1执行中、2已完成、3失败';
+COMMENT ON COLUMN kb_embedding_jobs.total_chunks IS '需要处理的知识块总数';
+COMMENT ON COLUMN kb_embedding_jobs.processed_chunks IS '已成功生成向量的知识块数';
+COMMENT ON COLUMN kb_embedding_jobs.failed_chunks IS '各次尝试中生成失败的知识块累计数，任务完成时清零';
+COMMENT ON COLUMN kb_embedding_jobs.last_chunk_id IS '检查点：已处理到的最大知识块ID';
+COMMENT ON COLUMN kb_embedding_jobs.attempts IS '被领取执行的次数';
+COMMENT ON COLUMN kb_embedding_jobs.locked_by IS '持有租约的工作节点';
+COMMENT ON COLUMN kb_embedding_jobs.locked_until IS '执行中为租约到期时间，过期后可被其他节点接管；待处理时为重试退避截止时间';
+COMMENT ON COLUMN kb_embedding_jobs.last_error IS '最近一次执行的错误信息';
+
 /** 标签字典表 */
 CREATE TABLE IF NOT EXISTS kb_tags
 (
@@ -0,0 +1,124 @@
+package com.cloud.baseai.application.chat.service;
+
+import com.cloud.baseai.application.chat.command.SendMessageCommand;
+import com.cloud.baseai.application.flow.service.FlowOrchestrationAppService;
+import com.cloud.baseai.application.kb.service.EmbeddingIngestionPipeline;
+import com.cloud.baseai.application.kb.service.KnowledgeBaseAppService;
+import com.cloud.baseai.application.mcp.service.McpApplicationService;
+import com.cloud.baseai.domain.chat.model.ChatThread;
+import com.cloud.baseai.domain.chat.repository.ChatCitationRepository;
+import com.cloud.baseai.domain.chat.repository.ChatMessageRepository;
+import com.cloud.baseai.domain.chat.repository.ChatThreadRepository;
+import com.cloud.baseai.domain.chat.repository.ChatUsageRepository;
+import com.cloud.baseai.domain.chat.service.ChatProcessingService;
+import com.cloud.baseai.domain.chat.service.UsageCalculationService;
+import com.cloud.baseai.domain.kb.model.Chunk;
+import com.cloud.baseai.domain.kb.model.Document;
+import com.cloud.baseai.domain.kb.model.ParsingStatus;
+import com.cloud.baseai.domain.kb.repository.*;
+import com.cloud.baseai.domain.kb.service.DocumentProcessingService;
+import com.cloud.baseai.domain.kb.service.VectorSearchService;
+import com.cloud.baseai.infrastructure.config.properties.ChatProperties;
+import com.cloud.baseai.infrastructure.config.properties.KnowledgeBaseProperties;
+import com.cloud.baseai.infrastructure.config.properties.RateLimitProperties;
+import com.cloud.baseai.infrastructure.external.llm.factory.ChatModelFactory;
+import com.cloud.baseai.infrastructure.external.llm.factory.EmbeddingModelFactory;
+import com.cloud.baseai.infrastructure.external.llm.model.ChatCompletionResult;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * <h2>对话知识上下文查询次数测试</h2>
+ *
+ * <p>一次RAG对话读取知识库的次数应与引用数量无关：知识块正文随向量搜索结果一起返回，
+ * 构建LLM上下文时不再逐个回查知识块。</p>
+ */
+public class ChatKnowledgeContextQueryTest {
+
+    @Test
+    @DisplayName("topK=10时知识库查询次数为常数，且与topK=3相同")
+    void knowledgeQueriesDoNotGrowWithCitations() {
+        int queriesForThree = sendMessageAndCountKbQueries(3);
+        int queriesForTen = sendMessageAndCountKbQueries(10);
+
+        assertEquals(queriesForThree, queriesForTen);
+        // chunk + document + chunk_tags + tags 各一次
+        assertEquals(4, queriesForTen);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int sendMessageAndCountKbQueries(int topK) {
+        DocumentRepository documentRepo = mock(DocumentRepository.class);
+        ChunkRepository chunkRepo = mock(ChunkRepository.class);
+        EmbeddingRepository embeddingRepo = mock(EmbeddingRepository.class);
+        TagRepository tagRepo = mock(TagRepository.class);
+        ChunkTagRepository chunkTagRepo = mock(ChunkTagRepository.class);
+        EmbeddingJobRepository jobRepo = mock(EmbeddingJobRepository.class);
+        VectorSearchService vectorService = mock(VectorSearchService.class);
+        EmbeddingModelFactory embeddingFactory = mock(EmbeddingModelFactory.class);
+
+        KnowledgeBaseProperties kbProps = new KnowledgeBaseProperties();
+        kbProps.getSearch().setDefaultTopK(topK);
+
+        List<Long> chunkIds = LongStream.rangeClosed(1, topK).boxed().toList();
+        OffsetDateTime now = OffsetDateTime.now();
+        when(embeddingFactory.generateEmbedding(anyString(), anyString())).thenReturn(new float[]{1f});
+        when(vectorService.search(any(), anyString(), anyLong(), anyInt(), anyFloat()))
+                .thenReturn(chunkIds.stream()
+                        .map(id -> new VectorSearchService.SearchResult(id, 0.9f, "HIGH"))
+                        .toList());
+        when(chunkRepo.findByIds(anyList())).thenReturn(chunkIds.stream()
+                .map(id -> new Chunk(id, 100L, id.intValue(), "内容-" + id, "zh", 1, 1,
+                        1L, null, now, now, null))
+                .toList());
+        when(documentRepo.findByIds(anyList())).thenReturn(List.of(new Document(100L, 1L, "文档", "TXT", null,
+                "text/plain", "zh", ParsingStatus.SUCCESS, topK, topK, "sha", 1L, 1L, now, now, null)));
+        when(chunkTagRepo.findTagIdsByChunkIds(anyList())).thenReturn(Map.of());
+        when(tagRepo.findByIds(anyList())).thenReturn(List.of());
+
+        KnowledgeBaseAppService kbService = new KnowledgeBaseAppService(documentRepo, chunkRepo, embeddingRepo,
+                tagRepo, chunkTagRepo, jobRepo, mock(DocumentProcessingService.class), vectorService,
+                embeddingFactory, mock(EmbeddingIngestionPipeline.class), kbProps,
+                new TaskExecutorAdapter(new SyncTaskExecutor()));
+
+        ChatThreadRepository threadRepo = mock(ChatThreadRepository.class);
+        ChatMessageRepository messageRepo = mock(ChatMessageRepository.class);
+        ChatModelFactory chatModelFactory = mock(ChatModelFactory.class);
+        when(threadRepo.findById(9L)).thenReturn(Optional.of(new ChatThread(9L, 1L, 2L, "t", "gpt-4o", 0.7f,
+                null, 2L, 2L, now, now, null)));
+        when(messageRepo.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(chatModelFactory.generateCompletion(anyMap()))
+                .thenReturn(ChatCompletionResult.success("回答", 10, 5, 20, 0.0));
+
+        ChatApplicationService chatService = new ChatApplicationService(threadRepo, messageRepo,
+                mock(ChatCitationRepository.class), mock(ChatUsageRepository.class),
+                mock(ChatProcessingService.class), mock(UsageCalculationService.class), chatModelFactory,
+                kbService, mock(McpApplicationService.class), mock(FlowOrchestrationAppService.class),
+                new ChatProperties(), new RateLimitProperties(), kbProps);
+
+        chatService.sendMessage(9L, new SendMessageCommand("什么是向量检索", null, true, false,
+                null, null, false));
+
+        ArgumentCaptor<Map<String, Object>> context = ArgumentCaptor.forClass(Map.class);
+        verify(chatModelFactory).generateCompletion(context.capture());
+        assertEquals(topK, ((List<String>) context.getValue().get("knowledgeContext")).size());
+
+        return Stream.of(documentRepo, chunkRepo, embeddingRepo, tagRepo, chunkTagRepo)
+                .mapToInt(repo -> mockingDetails(repo).getInvocations().size())
+                .sum();
+    }
+}
@@ -0,0 +1,139 @@
+package com.cloud.baseai.application.chat.service;
+
+import com.cloud.baseai.application.chat.command.SendMessageCommand;
+import com.cloud.baseai.application.chat.dto.ChatStreamEvent;
+import com.cloud.baseai.application.flow.service.FlowOrchestrationAppService;
+import com.cloud.baseai.application.kb.service.KnowledgeBaseAppService;
+import com.cloud.baseai.application.mcp.service.McpApplicationService;
+import com.cloud.baseai.domain.chat.model.ChatMessage;
+import com.cloud.baseai.domain.chat.model.ChatThread;
+import com.cloud.baseai.domain.chat.model.MessageRole;
+import com.cloud.baseai.domain.chat.repository.ChatCitationRepository;
+import com.cloud.baseai.domain.chat.repository.ChatMessageRepository;
+import com.cloud.baseai.domain.chat.repository.ChatThreadRepository;
+import com.cloud.baseai.domain.chat.repository.ChatUsageRepository;
+import com.cloud.baseai.domain.chat.service.ChatProcessingService;
+import com.cloud.baseai.domain.chat.service.UsageCalculationService;
+import com.cloud.baseai.infrastructure.config.properties.ChatProperties;
+import com.cloud.baseai.infrastructure.config.properties.KnowledgeBaseProperties;
+import com.cloud.baseai.infrastructure.config.properties.RateLimitProperties;
+import com.cloud.baseai.infrastructure.external.llm.factory.ChatModelFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * <h2>流式对话测试</h2>
+ */
+public class ChatStreamingTest {
+
+    private final ChatThreadRepository threadRepo = mock(ChatThreadRepository.class);
+    private final ChatMessageRepository messageRepo = mock(ChatMessageRepository.class);
+    private final ChatModelFactory chatModelFactory = mock(ChatModelFactory.class);
+    private final UsageCalculationService usageService = mock(UsageCalculationService.class);
+
+    @Test
+    @DisplayName("片段逐个推送，生成结束后保存完整的助手消息和使用统计")
+    void persistsFullMessageAtCompletion() {
+        stubThread();
+        when(chatModelFactory.streamCompletion(anyMap())).thenReturn(Flux.just("你好", "，", "世界"));
+
+        StepVerifier.create(service().streamMessage(9L, command()))
+                .expectNextMatches(event -> "start".equals(event.event()))
+                .expectNextMatches(event -> "step".equals(event.event()))
+                .expectNextMatches(event -> "step".equals(event.event()))
+                .expectNextMatches(event -> "step".equals(event.event()))
+                .expectNext(ChatStreamEvent.chunk("你好"), ChatStreamEvent.chunk("，"), ChatStreamEvent.chunk("世界"))
+                .expectNextMatches(event -> "complete".equals(event.event())
+                        && "你好，世界".equals(((Map<?, ?>) event.data()).get("content")))
+                .verifyComplete();
+
+        ArgumentCaptor<ChatMessage> saved = ArgumentCaptor.forClass(ChatMessage.class);
+        verify(messageRepo, times(2)).save(saved.capture());
+        ChatMessage assistant = saved.getAllValues().get(1);
+        assertEquals(MessageRole.ASSISTANT, assistant.role());
+        assertEquals("你好，世界", assistant.content());
+        verify(usageService).recordUsage(eq(1L), eq("gpt-4o"), anyLong(), anyLong(), anyDouble());
+    }
+
+    @Test
+    @DisplayName("客户端取消时中断模型请求，并保存已生成的部分内容")
+    void cancellationStopsUpstreamAndSavesPartialContent() {
+        stubThread();
+        AtomicBoolean upstreamCancelled = new AtomicBoolean();
+        when(chatModelFactory.streamCompletion(anyMap())).thenReturn(
+                Flux.concat(Flux.just("部分"), Flux.<String>never())
+                        .doOnCancel(() -> upstreamCancelled.set(true)));
+
+        StepVerifier.create(service().streamMessage(9L, command()))
+                .expectNextCount(4)
+                .expectNext(ChatStreamEvent.chunk("部分"))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        assertTrue(upstreamCancelled.get());
+        ArgumentCaptor<ChatMessage> saved = ArgumentCaptor.forClass(ChatMessage.class);
+        verify(messageRepo, timeout(2000).times(2)).save(saved.capture());
+        assertEquals("部分", saved.getAllValues().get(1).content());
+    }
+
+    @Test
+    @DisplayName("模型持续输出超过最长时间时中断，返回错误事件并保存部分内容")
+    void totalDeadlineAppliesEvenWhenChunksKeepArriving() {
+        stubThread();
+        AtomicBoolean upstreamCancelled = new AtomicBoolean();
+        when(chatModelFactory.streamCompletion(anyMap())).thenReturn(
+                Flux.interval(Duration.ofMillis(100)).map(i -> "字")
+                        .doOnCancel(() -> upstreamCancelled.set(true)));
+        ChatProperties chatProps = new ChatProperties();
+        chatProps.getStream().setTimeoutSeconds(1);
+
+        StepVerifier.create(service(chatProps).streamMessage(9L, command())
+                        .filter(event -> !"chunk".equals(event.event())))
+                .expectNextCount(4)
+                .expectNextMatches(event -> "error".equals(event.event()))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+
+        assertTrue(upstreamCancelled.get());
+        ArgumentCaptor<ChatMessage> saved = ArgumentCaptor.forClass(ChatMessage.class);
+        verify(messageRepo, timeout(2000).times(2)).save(saved.capture());
+        assertTrue(saved.getAllValues().get(1).content().startsWith("字"));
+    }
+
+    private void stubThread() {
+        OffsetDateTime now = OffsetDateTime.now();
+        when(threadRepo.findById(9L)).thenReturn(Optional.of(new ChatThread(9L, 1L, 2L, "t", "gpt-4o", 0.7f,
+                null, 2L, 2L, now, now, null)));
+        when(messageRepo.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private SendMessageCommand command() {
+        return new SendMessageCommand("介绍一下", null, false, false, null, null, true);
+    }
+
+    private ChatApplicationService service() {
+        return service(new ChatProperties());
+    }
+
+    private ChatApplicationService service(ChatProperties chatProps) {
+        return new ChatApplicationService(threadRepo, messageRepo, mock(ChatCitationRepository.class),
+                mock(ChatUsageRepository.class), mock(ChatProcessingService.class), usageService,
+                chatModelFactory, mock(KnowledgeBaseAppService.class), mock(McpApplicationService.class),
+                mock(FlowOrchestrationAppService.class), chatProps, new RateLimitProperties(),
+                new KnowledgeBaseProperties());
+    }
+}
@@ -0,0 +1,243 @@
+package com.cloud.baseai.application.kb.service;
+
+import com.cloud.baseai.application.kb.dto.VectorGenerationStats;
+import com.cloud.baseai.domain.kb.model.Chunk;
+import com.cloud.baseai.domain.kb.model.Embedding;
+import com.cloud.baseai.domain.kb.repository.DocumentRepository;
+import com.cloud.baseai.domain.kb.repository.EmbeddingRepository;
+import com.cloud.baseai.infrastructure.config.properties.KnowledgeBaseProperties;
+import com.cloud.baseai.infrastructure.external.llm.factory.EmbeddingModelFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * <h2>向量生成流水线测试</h2>
+ */
+public class EmbeddingIngestionPipelineTest {
+
+    @Test
+    @DisplayName("按提供商批量大小分批，失败批次重试后成功，并发不超过上限")
+    void batchesRetriesAndBoundsConcurrency() {
+        EmbeddingModelFactory factory = mock(EmbeddingModelFactory.class);
+        EmbeddingRepository embeddingRepo = mock(EmbeddingRepository.class);
+        DocumentRepository documentRepo = mock(DocumentRepository.class);
+
+        KnowledgeBaseProperties kbProps = new KnowledgeBaseProperties();
+        kbProps.getEmbedding().setProviderBatchSizes(Map.of("openai", 10));
+        kbProps.getEmbedding().setMaxInFlightBatches(2);
+        kbProps.getEmbedding().setRetryBackoffMillis(1L);
+
+        AtomicInteger calls = new AtomicInteger();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(factory.resolveProvider("m")).thenReturn("openai");
+        when(factory.generateEmbeddings(anyList(), eq("m"))).thenAnswer(invocation -> {
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            try {
+                Thread.sleep(5);
+                if (calls.incrementAndGet() == 1) {
+                    throw new IllegalStateException("rate limited");
+                }
+                List<String> texts = invocation.getArgument(0);
+                return texts.stream().map(t -> new float[]{1f}).toList();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+
+        List<Chunk> chunks = LongStream.rangeClosed(1, 95)
+                .mapToObj(id -> new Chunk(id, 7L, (int) id, "text-" + id, "zh", 1, 1,
+                        1L, null, OffsetDateTime.now(), OffsetDateTime.now(), null))
+                .toList();
+
+        VectorGenerationStats stats = new EmbeddingIngestionPipeline(factory, embeddingRepo, documentRepo, kbProps)
+                .run(7L, chunks, "m", 1L);
+
+        assertEquals(95, stats.successCount());
+        assertEquals(0, stats.failureCount());
+        assertEquals(11, calls.get());
+        assertTrue(maxInFlight.get() <= 2);
+        verify(embeddingRepo, times(10)).saveAll(anyList());
+        verify(documentRepo, times(10)).refreshEmbeddedCount(7L, "m");
+    }
+
+    @Test
+    @DisplayName("重试耗尽的批次计为失败，之前完成的批次照常保存")
+    void exhaustedBatchIsReported() {
+        EmbeddingModelFactory factory = mock(EmbeddingModelFactory.class);
+        EmbeddingRepository embeddingRepo = mock(EmbeddingRepository.class);
+        KnowledgeBaseProperties kbProps = new KnowledgeBaseProperties();
+        kbProps.getEmbedding().setBatchSize(2);
+        kbProps.getEmbedding().setMaxInFlightBatches(1);
+        kbProps.getEmbedding().setMaxAttempts(2);
+        kbProps.getEmbedding().setRetryBackoffMillis(1L);
+
+        when(factory.resolveProvider("m")).thenReturn("custom");
+        when(factory.generateEmbeddings(anyList(), eq("m"))).thenAnswer(invocation -> {
+            List<String> texts = invocation.getArgument(0);
+            if (texts.contains("bad")) {
+                throw new IllegalStateException("boom");
+            }
+            return texts.stream().map(t -> new float[]{1f}).toList();
+        });
+
+        List<Chunk> chunks = List.of(
+                new Chunk(1L, 1L, 0, "a", "en", 1, 1, 1L, null, null, null, null),
+                new Chunk(2L, 1L, 1, "b", "en", 1, 1, 1L, null, null, null, null),
+                new Chunk(3L, 1L, 2, "bad", "en", 1, 1, 1L, null, null, null, null));
+
+        VectorGenerationStats stats = new EmbeddingIngestionPipeline(factory, embeddingRepo,
+                mock(DocumentRepository.class), kbProps).run(null, chunks, "m", 1L);
+
+        assertEquals(2, stats.successCount());
+        assertEquals(1, stats.failureCount());
+        assertEquals(1, stats.errors().size());
+        assertEquals(List.of(3L), stats.failedChunkIds());
+        verify(factory, times(3)).generateEmbeddings(anyList(), eq("m"));
+        verify(embeddingRepo).saveAll(argThat((List<Embedding> list) -> list.size() == 2));
+    }
+
+    @Test
+    @DisplayName("批次重试耗尽后取消仍在请求中的批次")
+    void exhaustedBatchCancelsOutstandingBatches() {
+        EmbeddingModelFactory factory = mock(EmbeddingModelFactory.class);
+        EmbeddingRepository embeddingRepo = mock(EmbeddingRepository.class);
+        KnowledgeBaseProperties kbProps = new KnowledgeBaseProperties();
+        kbProps.getEmbedding().setBatchSize(1);
+        kbProps.getEmbedding().setMaxInFlightBatches(3);
+        kbProps.getEmbedding().setMaxAttempts(1);
+
+        CountDownLatch slowStarted = new CountDownLatch(2);
+        AtomicInteger interrupted = new AtomicInteger();
+        when(factory.resolveProvider("m")).thenReturn("custom");
+        when(factory.generateEmbeddings(anyList(), eq("m"))).thenAnswer(invocation -> {
+            List<String> texts = invocation.getArgument(0);
+            if (texts.contains("bad")) {
+                slowStarted.await();
+                throw new IllegalStateException("boom");
+            }
+            slowStarted.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                interrupted.incrementAndGet();
+                throw e;
+            }
+            return List.of(new float[]{1f});
+        });
+
+        List<Chunk> chunks = List.of(
+                new Chunk(1L, 1L, 0, "bad", "en", 1, 1, 1L, null, null, null, null),
+                new Chunk(2L, 1L, 1, "a", "en", 1, 1, 1L, null, null, null, null),
+                new Chunk(3L, 1L, 2, "b", "en", 1, 1, 1L, null, null, null, null),
+                new Chunk(4L, 1L, 3, "c", "en", 1, 1, 1L, null, null, null, null));
+
+        long start = System.currentTimeMillis();
+        VectorGenerationStats stats = new EmbeddingIngestionPipeline(factory, embeddingRepo,
+                mock(DocumentRepository.class), kbProps).run(null, chunks, "m", 1L);
+
+        assertTrue(System.currentTimeMillis() - start < 10_000);
+        assertEquals(0, stats.successCount());
+        assertEquals(4, stats.failureCount());
+        assertEquals(Set.of(1L, 2L, 3L, 4L), Set.copyOf(stats.failedChunkIds()));
+        verify(factory, times(3)).generateEmbeddings(anyList(), eq("m"));
+        verify(embeddingRepo, never()).saveAll(anyList());
+        await(() -> interrupted.get() == 2);
+    }
+
+    @Test
+    @DisplayName("开始前被取消的批次归还提供商额度")
+    void cancelledQueuedBatchesReturnTheirPermits() {
+        EmbeddingModelFactory factory = mock(EmbeddingModelFactory.class);
+        KnowledgeBaseProperties kbProps = new KnowledgeBaseProperties();
+        kbProps.getEmbedding().setBatchSize(1);
+        kbProps.getEmbedding().setMaxInFlightBatches(3);
+        kbProps.getEmbedding().setMaxAttempts(1);
+
+        when(factory.resolveProvider("m")).thenReturn("custom");
+        when(factory.generateEmbeddings(anyList(), eq("m"))).thenThrow(new IllegalStateException("boom"));
+
+        List<Chunk> chunks = List.of(
+                new Chunk(1L, 1L, 0, "bad", "en", 1, 1, 1L, null, null, null, null),
+                new Chunk(2L, 1L, 1, "a", "en", 1, 1, 1L, null, null, null, null),
+                new Chunk(3L, 1L, 2, "b", "en", 1, 1, 1L, null, null, null, null));
+
+        // 只执行第一个批次，其余批次一直排队，直到被取消
+        QueueingExecutor executor = new QueueingExecutor();
+        EmbeddingIngestionPipeline pipeline = new EmbeddingIngestionPipeline(factory, mock(EmbeddingRepository.class),
+                mock(DocumentRepository.class), kbProps, executor);
+        assertEquals(3, pipeline.availablePermits("custom"));
+
+        VectorGenerationStats stats = pipeline.run(null, chunks, "m", 1L);
+
+        assertEquals(3, stats.failureCount());
+        assertEquals(2, executor.queued.size());
+        verify(factory, times(1)).generateEmbeddings(anyList(), eq("m"));
+        assertEquals(3, pipeline.availablePermits("custom"));
+    }
+
+    private static void await(java.util.function.BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static class QueueingExecutor extends AbstractExecutorService {
+
+        private final List<Runnable> queued = new ArrayList<>();
+        private boolean first = true;
+
+        @Override
+        public synchronized void execute(Runnable command) {
+            if (first) {
+                first = false;
+                Thread.ofVirtual().start(command);
+            } else {
+                queued.add(command);
+            }
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.cloud.baseai.application.kb.service;
+
+import com.cloud.baseai.application.kb.dto.VectorGenerationStats;
+import com.cloud.baseai.domain.kb.model.Chunk;
+import com.cloud.baseai.domain.kb.model.EmbeddingJob;
+import com.cloud.baseai.domain.kb.model.EmbeddingJobStatus;
+import com.cloud.baseai.domain.kb.repository.ChunkRepository;
+import com.cloud.baseai.domain.kb.repository.EmbeddingJobRepository;
+import com.cloud.baseai.infrastructure.config.properties.KnowledgeBaseProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * <h2>向量生成任务消费者测试</h2>
+ */
+public class EmbeddingJobWorkerTest {
+
+    private final EmbeddingJobRepository jobRepo = mock(EmbeddingJobRepository.class);
+    private final ChunkRepository chunkRepo = mock(ChunkRepository.class);
+    private final EmbeddingIngestionPipeline pipeline = mock(EmbeddingIngestionPipeline.class);
+
+    @Test
+    @DisplayName("从检查点继续处理，逐页推进检查点后完成任务")
+    void resumesFromCheckpoint() {
+        EmbeddingJob job = runningJob(40L);
+        when(chunkRepo.findByDocumentIdAfter(7L, 40L, 2)).thenReturn(chunks(41, 42));
+        when(chunkRepo.findByDocumentIdAfter(7L, 42L, 2)).thenReturn(chunks(43, 43));
+        when(chunkRepo.findByDocumentIdAfter(7L, 43L, 2)).thenReturn(List.of());
+        when(pipeline.run(eq(7L), anyList(), eq("m"), eq(1L)))
+                .thenAnswer(invocation -> new VectorGenerationStats(
+                        invocation.<List<Chunk>>getArgument(1).size(), 0, List.of()));
+        when(jobRepo.checkpoint(anyLong(), anyString(), anyLong(), anyInt(), anyInt(), anyInt())).thenReturn(true);
+
+        worker().execute(job);
+
+        verify(chunkRepo, never()).findByDocumentIdAfter(7L, 0L, 2);
+        verify(jobRepo).checkpoint(eq(5L), anyString(), eq(42L), eq(2), eq(0), anyInt());
+        verify(jobRepo).checkpoint(eq(5L), anyString(), eq(43L), eq(1), eq(0), anyInt());
+        verify(jobRepo).complete(eq(5L), anyString());
+        verify(jobRepo, never()).release(anyLong(), anyString(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("部分知识块失败时检查点停在第一个失败之前，任务退避后重试而不是完成")
+    void partialFailureKeepsFailedChunksForRetry() {
+        EmbeddingJob job = runningJob(40L);
+        when(chunkRepo.findByDocumentIdAfter(7L, 40L, 4)).thenReturn(chunks(41, 44));
+        when(pipeline.run(eq(7L), anyList(), eq("m"), eq(1L))).thenReturn(new VectorGenerationStats(
+                1, 3, List.of("批次 2 失败: rate limited"), List.of(43L, 42L, 44L)));
+        when(jobRepo.checkpoint(anyLong(), anyString(), anyLong(), anyInt(), anyInt(), anyInt())).thenReturn(true);
+
+        worker(4).execute(job);
+
+        verify(jobRepo).checkpoint(eq(5L), anyString(), eq(41L), eq(1), eq(3), anyInt());
+        verify(jobRepo).release(eq(5L), anyString(), contains("rate limited"), eq(5), eq(30));
+        verify(jobRepo, never()).complete(anyLong(), anyString());
+        verify(chunkRepo, times(1)).findByDocumentIdAfter(anyLong(), anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("第一个知识块就失败时不推进检查点，退避时间随尝试次数翻倍")
+    void failureAtPageStartKeepsCheckpoint() {
+        EmbeddingJob job = runningJob(40L, 3);
+        when(chunkRepo.findByDocumentIdAfter(7L, 40L, 2)).thenReturn(chunks(41, 42));
+        when(pipeline.run(eq(7L), anyList(), eq("m"), eq(1L))).thenReturn(new VectorGenerationStats(
+                0, 2, List.of("批次 1 失败: timeout"), List.of(41L, 42L)));
+        when(jobRepo.checkpoint(anyLong(), anyString(), anyLong(), anyInt(), anyInt(), anyInt())).thenReturn(true);
+
+        worker().execute(job);
+
+        verify(jobRepo).checkpoint(eq(5L), anyString(), eq(40L), eq(0), eq(2), anyInt());
+        verify(jobRepo).release(eq(5L), anyString(), anyString(), eq(5), eq(120));
+        verify(jobRepo, never()).complete(anyLong(), anyString());
+    }
+
+    @Test
+    @DisplayName("租约被接管后停止处理，不再推进或完成任务")
+    void stopsWhenLeaseLost() {
+        EmbeddingJob job = runningJob(0L);
+        when(chunkRepo.findByDocumentIdAfter(7L, 0L, 2)).thenReturn(chunks(1, 2));
+        when(pipeline.run(eq(7L), anyList(), eq("m"), eq(1L))).thenReturn(new VectorGenerationStats(2, 0, List.of()));
+        when(jobRepo.checkpoint(anyLong(), anyString(), anyLong(), anyInt(), anyInt(), anyInt())).thenReturn(false);
+
+        worker().execute(job);
+
+        verify(chunkRepo, times(1)).findByDocumentIdAfter(anyLong(), anyLong(), anyInt());
+        verify(jobRepo, never()).complete(anyLong(), anyString());
+        verify(jobRepo, never()).release(anyLong(), anyString(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("执行异常时释放任务以便重新领取")
+    void releasesOnFailure() {
+        EmbeddingJob job = runningJob(0L);
+        when(chunkRepo.findByDocumentIdAfter(7L, 0L, 2)).thenReturn(chunks(1, 2));
+        when(pipeline.run(eq(7L), anyList(), eq("m"), eq(1L))).thenThrow(new IllegalStateException("provider down"));
+
+        worker().execute(job);
+
+        verify(jobRepo).release(eq(5L), anyString(), eq("provider down"), eq(5), eq(30));
+        verify(jobRepo, never()).complete(anyLong(), anyString());
+    }
+
+    @Test
+    @DisplayName("处理一页期间由心跳续约，续约失败后不再处理下一页")
+    void heartbeatRenewsLeaseAndStopsWhenLost() {
+        EmbeddingJob job = runningJob(0L);
+        EmbeddingJobWorker worker = worker();
+        when(chunkRepo.findByDocumentIdAfter(7L, 0L, 2)).thenReturn(chunks(1, 2));
+        when(chunkRepo.findByDocumentIdAfter(7L, 2L, 2)).thenReturn(chunks(3, 4));
+        when(jobRepo.renew(eq(5L), anyString(), anyInt())).thenReturn(true, false);
+        when(pipeline.run(eq(7L), anyList(), eq("m"), eq(1L))).thenAnswer(invocation -> {
+            // 模拟一页处理期间的两次心跳
+            worker.renewLeases();
+            worker.renewLeases();
+            return new VectorGenerationStats(2, 0, List.of());
+        });
+        when(jobRepo.checkpoint(anyLong(), anyString(), anyLong(), anyInt(), anyInt(), anyInt())).thenReturn(true);
+
+        worker.execute(job);
+
+        verify(jobRepo, times(2)).renew(eq(5L), anyString(), anyInt());
+        verify(pipeline, times(1)).run(anyLong(), anyList(), anyString(), anyLong());
+        verify(jobRepo, never()).complete(anyLong(), anyString());
+        verify(jobRepo, never()).release(anyLong(), anyString(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("节点停止时退回任务且不消耗尝试次数")
+    void requeuesOnShutdown() {
+        EmbeddingJob job = runningJob(0L);
+        EmbeddingJobWorker worker = worker();
+        when(chunkRepo.findByDocumentIdAfter(7L, 0L, 2)).thenReturn(chunks(1, 2));
+        when(pipeline.run(eq(7L), anyList(), eq("m"), eq(1L))).thenAnswer(invocation -> {
+            worker.shutdown();
+            return new VectorGenerationStats(2, 0, List.of());
+        });
+        when(jobRepo.checkpoint(anyLong(), anyString(), anyLong(), anyInt(), anyInt(), anyInt())).thenReturn(true);
+
+        worker.execute(job);
+
+        verify(jobRepo).requeue(eq(5L), anyString(), anyString());
+        verify(jobRepo, never()).release(anyLong(), anyString(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("执行器拒绝时任务立即退回队列，不在轮询线程上执行")
+    void releasesJobRejectedByExecutor() {
+        KnowledgeBaseProperties kbProps = new KnowledgeBaseProperties();
+        EmbeddingJobWorker worker = new EmbeddingJobWorker(jobRepo, chunkRepo, pipeline, kbProps,
+                new TaskExecutorAdapter(task -> {
+                    throw new TaskRejectedException("full");
+                }), new SimpleMeterRegistry());
+        when(jobRepo.claim(anyString(), anyInt(), anyInt(), anyInt())).thenReturn(List.of(runningJob(0L)));
+
+        worker.poll();
+
+        verify(jobRepo).release(eq(5L), anyString(), contains("full"), eq(5), eq(0));
+        verifyNoInteractions(chunkRepo, pipeline);
+    }
+
+    @Test
+    @DisplayName("按模型限速：透支额度后等待补足")
+    void throughputLimiterThrottles() throws InterruptedException {
+        ModelThroughputLimiter limiter = new ModelThroughputLimiter(model -> "slow".equals(model) ? 100 : 0);
+
+        long start = System.nanoTime();
+        limiter.acquire("fast", 10_000);
+        limiter.acquire("slow", 100);
+        limiter.acquire("slow", 20);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis >= 150, "elapsed=" + elapsedMillis);
+    }
+
+    private EmbeddingJobWorker worker() {
+        return worker(2);
+    }
+
+    private EmbeddingJobWorker worker(int pageSize) {
+        KnowledgeBaseProperties kbProps = new KnowledgeBaseProperties();
+        kbProps.getEmbeddingJob().setPageSize(pageSize);
+        return new EmbeddingJobWorker(jobRepo, chunkRepo, pipeline, kbProps,
+                new TaskExecutorAdapter(new SyncTaskExecutor()), new SimpleMeterRegistry());
+    }
+
+    private static EmbeddingJob runningJob(long checkpoint) {
+        return runningJob(checkpoint, 1);
+    }
+
+    private static EmbeddingJob runningJob(long checkpoint, int attempts) {
+        OffsetDateTime now = OffsetDateTime.now();
+        return new EmbeddingJob(5L, "task", 7L, "m", EmbeddingJobStatus.RUNNING, 3, 0, 0, checkpoint, attempts,
+                "worker", now.plusMinutes(2), null, 1L, now, now, now, null);
+    }
+
+    private static List<Chunk> chunks(long fromId, long toId) {
+        return LongStream.rangeClosed(fromId, toId)
+                .mapToObj(id -> new Chunk(id, 7L, (int) id, "text-" + id, "zh", 1, 1,
+                        1L, null, OffsetDateTime.now(), OffsetDateTime.now(), null))
+                .toList();
+    }
+}
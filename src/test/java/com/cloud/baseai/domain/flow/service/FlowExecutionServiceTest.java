@@ -0,0 +1,336 @@
+package com.cloud.baseai.domain.flow.service;
+
+import com.cloud.baseai.domain.flow.model.FlowSnapshot;
+import com.cloud.baseai.domain.flow.repository.FlowRunLogRepository;
+import com.cloud.baseai.domain.flow.repository.FlowRunRepository;
+import com.cloud.baseai.domain.flow.repository.FlowSnapshotRepository;
+import com.cloud.baseai.infrastructure.config.properties.FlowProperties;
+import com.cloud.baseai.infrastructure.exception.ErrorCode;
+import com.cloud.baseai.infrastructure.exception.FlowOrchestrationException;
+import com.cloud.baseai.infrastructure.flow.executor.NodeExecutor;
+import com.cloud.baseai.infrastructure.flow.model.FlowExecutionContext;
+import com.cloud.baseai.infrastructure.flow.model.NodeExecutionInfo;
+import com.cloud.baseai.infrastructure.flow.service.FlowPlanCache;
+import com.cloud.baseai.infrastructure.flow.service.FlowRunLogWriter;
+import com.cloud.baseai.infrastructure.flow.service.NodeExecutorManager;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * <h2>流程并行调度测试</h2>
+ */
+public class FlowExecutionServiceTest {
+
+    private static final String FAN_IN_SNAPSHOT = """
+            {
+              "nodes": [
+                {"id": 1, "nodeTypeCode": "TEST", "nodeKey": "a", "name": "a"},
+                {"id": 2, "nodeTypeCode": "TEST", "nodeKey": "b", "name": "b"},
+                {"id": 3, "nodeTypeCode": "TEST", "nodeKey": "c", "name": "c"},
+                {"id": 4, "nodeTypeCode": "TEST", "nodeKey": "merge", "name": "merge"}
+              ],
+              "executionPlan": ["a", "b", "c", "merge"],
+              "dependencyGraph": {"merge": ["a", "b", "c"]}
+            }
+            """;
+
+    private static final String RETRY_SNAPSHOT = """
+            {
+              "nodes": [
+                {"id": 1, "nodeTypeCode": "TEST", "nodeKey": "flaky", "name": "flaky",
+                 "retryPolicyJson": "{\\"maxRetries\\": 2}"}
+              ],
+              "executionPlan": ["flaky"],
+              "dependencyGraph": {}
+            }
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final FlowProperties flowProperties = new FlowProperties();
+    private final FlowSnapshotRepository snapshotRepo = mock(FlowSnapshotRepository.class);
+    private final FlowPlanCache planCache = new FlowPlanCache(objectMapper, flowProperties);
+
+    @Test
+    @DisplayName("互不依赖的分支并行执行，运行耗时接近关键路径")
+    void runsIndependentBranchesInParallel() throws Exception {
+        NodeExecutor executor = testExecutor((nodeKey, input) -> {
+            if ("merge".equals(nodeKey)) {
+                return Map.of("inputs", input.keySet().stream().filter(key -> key.endsWith("_output")).sorted().toList());
+            }
+            Thread.sleep(300);
+            return Map.of("value", nodeKey);
+        });
+
+        FlowExecutionService service = service(executor);
+        long start = System.nanoTime();
+        JsonNode result = objectMapper.readTree(service.executeFlow(1L, snapshot(), Map.of(), 1));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals("SUCCESS", result.get("status").asText());
+        assertEquals("[\"a_output\",\"b_output\",\"c_output\"]",
+                result.at("/nodeResults/merge/inputs").toString());
+        assertTrue(elapsedMillis < 800, "elapsed=" + elapsedMillis);
+    }
+
+    @Test
+    @DisplayName("节点失败时立即取消同一运行中的其他节点")
+    void failureCancelsSiblings() throws Exception {
+        CountDownLatch siblingStarted = new CountDownLatch(1);
+        AtomicBoolean siblingInterrupted = new AtomicBoolean();
+        NodeExecutor executor = testExecutor((nodeKey, input) -> {
+            switch (nodeKey) {
+                case "a" -> {
+                    siblingStarted.await(2, TimeUnit.SECONDS);
+                    throw new IllegalStateException("boom");
+                }
+                case "b" -> {
+                    siblingStarted.countDown();
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        siblingInterrupted.set(true);
+                        throw e;
+                    }
+                }
+                default -> {
+                }
+            }
+            return Map.of("value", nodeKey);
+        });
+
+        FlowExecutionService service = service(executor);
+        long start = System.nanoTime();
+        JsonNode result = objectMapper.readTree(service.executeFlow(1L, snapshot(), Map.of(), 1));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals("ERROR", result.get("status").asText());
+        assertFalse(result.at("/partialResults").has("merge"));
+        assertTrue(elapsedMillis < 5_000, "elapsed=" + elapsedMillis);
+        Thread.sleep(200);
+        assertTrue(siblingInterrupted.get());
+    }
+
+    @Test
+    @DisplayName("节点失败后由定时器按退避时间重新派发，直到成功")
+    void retriesFailedNodeAfterBackoff() throws Exception {
+        flowProperties.getExecution().setRetryBackoffMs(50L);
+        AtomicInteger attempts = new AtomicInteger();
+        NodeExecutor executor = testExecutor((nodeKey, input) -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IllegalStateException("transient");
+            }
+            return Map.of("attempts", attempts.get());
+        });
+
+        FlowSnapshot snapshot = FlowSnapshot.fromPersistence(11L, 1L, "retry", 1, RETRY_SNAPSHOT, 1L, null, null);
+        JsonNode result = objectMapper.readTree(service(executor).executeFlow(2L, snapshot, Map.of(), 1));
+
+        assertEquals("SUCCESS", result.get("status").asText());
+        assertEquals(3, result.at("/nodeResults/flaky/attempts").asInt());
+        assertEquals(2, result.at("/summary/totalRetries").asInt());
+    }
+
+    @Test
+    @DisplayName("运行数和排队数达到上限时拒绝新的运行")
+    void rejectsRunsBeyondAdmissionLimit() throws Exception {
+        flowProperties.getExecution().setMaxConcurrentRuns(1);
+        flowProperties.getExecution().setMaxQueuedRuns(0);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FlowExecutionService service = service(testExecutor((nodeKey, input) -> {
+            running.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Map.of();
+        }));
+
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> first = caller.submit(() -> service.executeFlow(1L, snapshot(), Map.of(), 1));
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+            assertEquals(1.0, meterRegistry.get("flow.runs.active").gauge().value());
+
+            FlowOrchestrationException rejected = assertThrows(FlowOrchestrationException.class,
+                    () -> service.executeFlow(2L, snapshot(), Map.of(), 1));
+            assertEquals(ErrorCode.BIZ_FLOW_077, rejected.getErrorCode());
+
+            release.countDown();
+            assertTrue(first.get(5, TimeUnit.SECONDS).contains("SUCCESS"));
+            assertEquals(0.0, meterRegistry.get("flow.runs.active").gauge().value());
+        } finally {
+            release.countDown();
+            caller.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("同一快照只编译一次，命中计划缓存时不再加载快照")
+    void reusesCompiledPlanAcrossRuns() throws Exception {
+        when(snapshotRepo.findById(10L)).thenReturn(Optional.of(snapshot()));
+        FlowExecutionService service = service(testExecutor((nodeKey, input) -> Map.of("value", nodeKey)));
+
+        String first = service.executeFlowBySnapshotId(1L, 10L, Map.of(), 1);
+        var plan = planCache.getIfPresent(10L).orElseThrow();
+        String second = service.executeFlowBySnapshotId(2L, 10L, Map.of(), 1);
+
+        assertTrue(first.contains("SUCCESS"));
+        assertTrue(second.contains("SUCCESS"));
+        assertSame(plan, planCache.getIfPresent(10L).orElseThrow());
+        verify(snapshotRepo, times(1)).findById(10L);
+    }
+
+    @Test
+    @DisplayName("其他节点删除快照后通知失效，再次执行时重新加载并拒绝已删除的快照")
+    void deletedSnapshotIsNotExecutedFromCache() throws Exception {
+        FlowSnapshot deleted = FlowSnapshot.fromPersistence(10L, 1L, "fan-in", 1, FAN_IN_SNAPSHOT, 1L, null,
+                OffsetDateTime.now());
+        when(snapshotRepo.findById(10L)).thenReturn(Optional.of(snapshot()), Optional.of(deleted));
+        FlowExecutionService service = service(testExecutor((nodeKey, input) -> Map.of("value", nodeKey)));
+        assertTrue(service.executeFlowBySnapshotId(1L, 10L, Map.of(), 1).contains("SUCCESS"));
+
+        Message message = mock(Message.class);
+        when(message.getBody()).thenReturn("SNAPSHOT\nother-node\n10".getBytes(StandardCharsets.UTF_8));
+        planCache.onMessage(message, null);
+
+        FlowOrchestrationException rejected = assertThrows(FlowOrchestrationException.class,
+                () -> service.executeFlowBySnapshotId(2L, 10L, Map.of(), 1));
+        assertEquals(ErrorCode.BIZ_FLOW_066, rejected.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("上游结果在下游全部结束后释放，终端节点结果保留，峰值内存计入已释放的结果")
+    void releasesConsumedResultsAndReportsPeakMemory() throws Exception {
+        flowProperties.getStreaming().setReleaseConsumedResults(true);
+        FlowExecutionService service = service(testExecutor((nodeKey, input) -> "merge".equals(nodeKey)
+                ? Map.of("upstreams", input.keySet().stream().filter(key -> key.endsWith("_output")).count())
+                : Map.of("payload", "x".repeat(100_000))));
+
+        JsonNode result = objectMapper.readTree(service.executeFlow(1L, snapshot(), Map.of(), 1));
+
+        assertEquals("SUCCESS", result.get("status").asText());
+        assertEquals(3, result.at("/nodeResults/merge/upstreams").asInt());
+        assertEquals(1, result.get("nodeResults").size());
+        assertEquals(3, result.get("releasedNodes").size());
+        assertEquals(4, result.at("/summary/completedNodes").asInt());
+        assertTrue(result.at("/summary/peakMemoryUsage").asLong() > 3 * 200_000L);
+        assertEquals(1, meterRegistry.get("flow.run.peak_memory").summary().count());
+    }
+
+    @Test
+    @DisplayName("并行节点抛出Error时运行立即失败，不等到运行超时")
+    void errorInParallelNodeFailsRun() throws Exception {
+        FlowExecutionService service = service(testExecutor((nodeKey, input) -> {
+            if ("a".equals(nodeKey)) {
+                throw new AssertionError("boom");
+            }
+            Thread.sleep(100);
+            return Map.of("value", nodeKey);
+        }));
+
+        long start = System.nanoTime();
+        JsonNode result = objectMapper.readTree(service.executeFlow(1L, snapshot(), Map.of(), 1));
+
+        assertEquals("ERROR", result.get("status").asText());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5_000);
+    }
+
+    @Test
+    @DisplayName("运行被停止后，仍在执行的节点线程结束前继续占用运行许可")
+    void stoppedRunHoldsPermitUntilNodeThreadsFinish() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        FlowExecutionService service = service(testExecutor((nodeKey, input) -> {
+            started.countDown();
+            // 模拟不响应中断的阻塞调用
+            while (release.getCount() > 0) {
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                }
+            }
+            return Map.of();
+        }));
+
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> run = caller.submit(() -> service.executeFlow(1L, snapshot(), Map.of(), 1));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            while (service.getRunningTaskCount() == 0) {
+                Thread.sleep(10);
+            }
+            service.stopExecution(1L);
+            assertThrows(ExecutionException.class, () -> run.get(5, TimeUnit.SECONDS));
+            assertEquals(1.0, meterRegistry.get("flow.runs.active").gauge().value());
+
+            release.countDown();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (meterRegistry.get("flow.runs.active").gauge().value() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(0.0, meterRegistry.get("flow.runs.active").gauge().value());
+        } finally {
+            release.countDown();
+            caller.shutdownNow();
+        }
+    }
+
+    private FlowExecutionService service(NodeExecutor executor) {
+        NodeExecutorManager executorManager = mock(NodeExecutorManager.class);
+        when(executorManager.getExecutor(anyString())).thenReturn(executor);
+        when(executorManager.getSupportedNodeTypes()).thenReturn(Set.of("TEST"));
+        return new FlowExecutionService(objectMapper, executorManager, snapshotRepo,
+                mock(FlowRunRepository.class),
+                new FlowRunLogWriter(mock(FlowRunLogRepository.class), objectMapper, flowProperties, meterRegistry),
+                flowProperties, planCache, meterRegistry);
+    }
+
+    private static FlowSnapshot snapshot() {
+        return FlowSnapshot.fromPersistence(10L, 1L, "fan-in", 1, FAN_IN_SNAPSHOT, 1L, null, null);
+    }
+
+    private static NodeExecutor testExecutor(NodeBody body) {
+        return new NodeExecutor() {
+            @Override
+            public List<String> getSupportedNodeTypes() {
+                return List.of("TEST");
+            }
+
+            @Override
+            public Map<String, Object> execute(NodeExecutionInfo nodeInfo,
+                                               Map<String, Object> input,
+                                               FlowExecutionContext context) {
+                try {
+                    return body.run(nodeInfo.nodeKey(), input);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                } catch (Exception e) {
+                    throw e instanceof RuntimeException runtime ? runtime : new IllegalStateException(e);
+                }
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface NodeBody {
+        Map<String, Object> run(String nodeKey, Map<String, Object> input) throws Exception;
+    }
+}
@@ -0,0 +1,169 @@
+package com.cloud.baseai.infrastructure.audit;
+
+import com.cloud.baseai.domain.audit.model.SysAuditLog;
+import com.cloud.baseai.domain.audit.repository.SysAuditLogRepository;
+import com.cloud.baseai.infrastructure.config.properties.AuditProperties;
+import com.cloud.baseai.infrastructure.exception.AuditException;
+import com.cloud.baseai.infrastructure.exception.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * <h2>审计入库管道测试</h2>
+ */
+public class AuditIngestionPipelineTest {
+
+    @TempDir
+    Path walDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("数据库不可用时记录留在预写日志中，重启后回放入库且不重复回放")
+    void replaysUnwrittenRecordsAfterRestart() throws Exception {
+        SysAuditLogRepository unavailable = repository(logs -> {
+            throw new QueryTimeoutException("database down");
+        });
+        AuditIngestionPipeline first = new AuditIngestionPipeline(unavailable, properties(), meterRegistry);
+        IntStream.range(0, 10).forEach(i -> first.submit(auditLog("action-" + i)));
+        first.shutdown();
+
+        List<String> written = new CopyOnWriteArrayList<>();
+        AuditIngestionPipeline second = new AuditIngestionPipeline(
+                repository(logs -> logs.forEach(log -> written.add(log.action()))), properties(), meterRegistry);
+        second.submit(auditLog("after-restart"));
+        awaitIdle(second);
+        second.shutdown();
+
+        assertEquals(IntStream.range(0, 10).mapToObj(i -> "action-" + i).toList(), written.subList(0, 10));
+        assertEquals("after-restart", written.get(10));
+        assertEquals(11, written.size());
+
+        written.clear();
+        AuditIngestionPipeline third = new AuditIngestionPipeline(
+                repository(logs -> logs.forEach(log -> written.add(log.action()))), properties(), meterRegistry);
+        Thread.sleep(200);
+        third.shutdown();
+        assertTrue(written.isEmpty());
+    }
+
+    @Test
+    @DisplayName("未入库记录达到容量上限时调用方在等待超时后收到BIZ_AUDIT_046")
+    void rejectsWhenCapacityIsExhausted() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AuditProperties properties = properties();
+        properties.getIngestion().setCapacity(2);
+        properties.getIngestion().setOfferTimeoutMs(50L);
+        AuditIngestionPipeline pipeline = new AuditIngestionPipeline(
+                repository(logs -> release.await(5, TimeUnit.SECONDS)), properties, meterRegistry);
+        try {
+            pipeline.submit(auditLog("a"));
+            pipeline.submit(auditLog("b"));
+
+            AuditException rejected = assertThrows(AuditException.class, () -> pipeline.submit(auditLog("c")));
+            assertEquals(ErrorCode.BIZ_AUDIT_046, rejected.getErrorCode());
+            assertEquals(1.0, meterRegistry.get("audit.ingest.rejected").counter().count());
+
+            release.countDown();
+            awaitIdle(pipeline);
+            pipeline.submit(auditLog("d"));
+        } finally {
+            release.countDown();
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("批量中的坏数据逐条定位后跳过，其余记录正常入库")
+    void skipsPoisonRecords() throws Exception {
+        List<String> written = new CopyOnWriteArrayList<>();
+        AuditIngestionPipeline pipeline = new AuditIngestionPipeline(repository(logs -> {
+            if (logs.stream().anyMatch(log -> "bad".equals(log.action()))) {
+                throw new DataIntegrityViolationException("constraint");
+            }
+            logs.forEach(log -> written.add(log.action()));
+        }), properties(), meterRegistry);
+
+        List.of("a", "bad", "b").forEach(action -> pipeline.submit(auditLog(action)));
+        awaitIdle(pipeline);
+        pipeline.shutdown();
+
+        assertEquals(List.of("a", "b"), written);
+        assertEquals(1.0, meterRegistry.get("audit.ingest.failed").counter().count());
+    }
+
+    @Test
+    @DisplayName("写入时出现意外错误，入库线程退避后重试同一批而不是退出")
+    void keepsWritingAfterUnexpectedError() throws Exception {
+        List<String> written = new CopyOnWriteArrayList<>();
+        AtomicBoolean failed = new AtomicBoolean();
+        AuditIngestionPipeline pipeline = new AuditIngestionPipeline(repository(logs -> {
+            if (failed.compareAndSet(false, true)) {
+                throw new NoClassDefFoundError("driver");
+            }
+            logs.forEach(log -> written.add(log.action()));
+        }), properties(), meterRegistry);
+
+        pipeline.submit(auditLog("a"));
+        awaitIdle(pipeline);
+        pipeline.submit(auditLog("b"));
+        awaitIdle(pipeline);
+        pipeline.shutdown();
+
+        assertEquals(List.of("a", "b"), written);
+        assertEquals(1.0, meterRegistry.get("audit.ingest.retried").counter().count());
+    }
+
+    private AuditProperties properties() {
+        AuditProperties properties = new AuditProperties();
+        AuditProperties.IngestionProperties ingestion = properties.getIngestion();
+        ingestion.setWalDir(walDir.toString());
+        ingestion.setFlushIntervalMs(20L);
+        ingestion.setRetryBackoffMs(20L);
+        return properties;
+    }
+
+    private static SysAuditLog auditLog(String action) {
+        return SysAuditLog.create(1L, 2L, action, "USER", 3L, "{\"detail\":\"" + action + "\"}");
+    }
+
+    private static void awaitIdle(AuditIngestionPipeline pipeline) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pipeline.backlog() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, pipeline.backlog());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SysAuditLogRepository repository(BatchWriter writer) {
+        SysAuditLogRepository repository = mock(SysAuditLogRepository.class);
+        doAnswer(invocation -> {
+            writer.write(List.copyOf((List<SysAuditLog>) invocation.getArgument(0)));
+            return null;
+        }).when(repository).insertBatch(anyList());
+        return repository;
+    }
+
+    @FunctionalInterface
+    private interface BatchWriter {
+        void write(List<SysAuditLog> logs) throws Exception;
+    }
+}
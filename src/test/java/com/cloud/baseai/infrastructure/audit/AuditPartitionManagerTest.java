@@ -0,0 +1,83 @@
+package com.cloud.baseai.infrastructure.audit;
+
+import com.cloud.baseai.domain.audit.repository.SysAuditLogRepository;
+import com.cloud.baseai.infrastructure.config.properties.AuditProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AuditPartitionManagerTest {
+
+    private static final OffsetDateTime NOW = OffsetDateTime.of(2026, 10, 16, 2, 15, 0, 0, ZoneOffset.UTC);
+
+    private JdbcTemplate jdbcTemplate;
+    private SysAuditLogRepository auditLogRepository;
+    private AuditProperties properties;
+    private AuditPartitionManager manager;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        auditLogRepository = mock(SysAuditLogRepository.class);
+        properties = new AuditProperties();
+        properties.getRetention().setDefaultDays(400);
+        properties.getRetention().setByLevel(Map.of("ERROR", 450, "DEBUG", 30));
+        manager = new AuditPartitionManager(jdbcTemplate, auditLogRepository, properties);
+    }
+
+    @Test
+    void createsUpcomingPartitionsAndDropsExpiredOnes() {
+        partitioned(true);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("sys_audit_logs"))).thenReturn(List.of(
+                "sys_audit_logs_default", "sys_audit_logs_p202506", "sys_audit_logs_p202507", "sys_audit_logs_p202508"));
+
+        manager.maintain(NOW);
+
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS sys_audit_logs_p202610 PARTITION OF sys_audit_logs"
+                + " FOR VALUES FROM ('2026-10-01T00:00Z') TO ('2026-11-01T00:00Z')");
+        verify(jdbcTemplate).execute(startsWith("CREATE TABLE IF NOT EXISTS sys_audit_logs_p202701 "));
+        verify(jdbcTemplate, times(4)).execute(startsWith("CREATE TABLE"));
+
+        // 保留450天（取各级别最大值），截止到2025-07-23，只有整月都在截止时间之前的分区被删除
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS sys_audit_logs_p202506");
+        verify(jdbcTemplate, never()).execute("DROP TABLE IF EXISTS sys_audit_logs_p202507");
+        verify(jdbcTemplate, never()).execute(contains("sys_audit_logs_default"));
+        verify(jdbcTemplate).update("DELETE FROM sys_audit_logs_default WHERE created_at < ?", NOW.minusDays(450));
+        verifyNoInteractions(auditLogRepository);
+    }
+
+    @Test
+    void detachesInsteadOfDroppingWhenConfigured() {
+        partitioned(true);
+        properties.getPartition().setRetentionAction("DETACH");
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("sys_audit_logs")))
+                .thenReturn(List.of("sys_audit_logs_p202001"));
+
+        manager.maintain(NOW);
+
+        verify(jdbcTemplate).execute("ALTER TABLE sys_audit_logs DETACH PARTITION sys_audit_logs_p202001");
+        verify(jdbcTemplate, never()).execute(startsWith("DROP TABLE"));
+    }
+
+    @Test
+    void fallsBackToRowDeletesForUnpartitionedTable() {
+        partitioned(false);
+
+        manager.maintain(NOW);
+
+        verify(auditLogRepository).deleteOldAuditLogs(NOW.minusDays(450));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    private void partitioned(boolean partitioned) {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), eq("sys_audit_logs"))).thenReturn(partitioned);
+    }
+}
@@ -0,0 +1,64 @@
+package com.cloud.baseai.infrastructure.audit;
+
+import com.cloud.baseai.domain.audit.model.SysAuditLog;
+import com.cloud.baseai.domain.audit.repository.SysAuditLogRepository;
+import com.cloud.baseai.infrastructure.audit.export.AuditExportFormat;
+import com.cloud.baseai.infrastructure.config.properties.AuditProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * <h2>审计报告文件存储测试</h2>
+ */
+public class AuditReportStoreTest {
+
+    private static final int ROWS = 200_000;
+
+    @TempDir
+    Path reportDir;
+
+    @Test
+    @DisplayName("明细逐行流式写入报告文件，完成后才出现在报告目录中且可按ID查找")
+    @SuppressWarnings("unchecked")
+    void streamsRowsIntoReportFile() throws Exception {
+        SysAuditLogRepository repository = mock(SysAuditLogRepository.class);
+        when(repository.streamAuditLogs(eq(1L), isNull(), any(), any(), isNull(), any())).thenAnswer(invocation -> {
+            Consumer<SysAuditLog> consumer = invocation.getArgument(5);
+            OffsetDateTime now = OffsetDateTime.now();
+            for (long id = 1; id <= ROWS; id++) {
+                consumer.accept(new SysAuditLog(id, 1L, 2L, "USER_LOGIN", "USER", id, "10.0.0.1",
+                        "agent", "{\"seq\":" + id + "}", "SUCCESS", "INFO", now));
+            }
+            return (long) ROWS;
+        });
+        AuditProperties properties = new AuditProperties();
+        properties.getReporting().setOutputLocation(reportDir.toString());
+        AuditReportStore store = new AuditReportStore(repository, properties);
+
+        Path file = store.exportLogs("MONTHLY_20240101_abc", AuditExportFormat.CSV, 1L, null,
+                OffsetDateTime.now().minusDays(30), OffsetDateTime.now(), null);
+
+        assertEquals(file, store.find("MONTHLY_20240101_abc").orElseThrow());
+        try (Stream<Path> files = Files.list(reportDir)) {
+            assertEquals(1, files.count());
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            assertEquals(ROWS + 1, reader.lines().count());
+        }
+
+        assertTrue(store.find("../etc/passwd").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> store.saveText("../x", "txt", "x"));
+    }
+}
@@ -0,0 +1,117 @@
+package com.cloud.baseai.infrastructure.audit;
+
+import com.cloud.baseai.domain.audit.repository.AuditRollupRepository;
+import com.cloud.baseai.domain.audit.repository.AuditRollupRepository.BucketRange;
+import com.cloud.baseai.domain.audit.repository.AuditRollupRepository.Dimension;
+import com.cloud.baseai.domain.audit.repository.AuditRollupRepository.Granularity;
+import com.cloud.baseai.infrastructure.config.properties.AuditProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AuditRollupServiceTest {
+
+    private AuditRollupRepository repository;
+    private AuditRollupService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(AuditRollupRepository.class);
+        service = new AuditRollupService(repository, new AuditProperties(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void plansCoarsestBucketsForTheMiddleOfTheRange() {
+        OffsetDateTime from = utc(2026, 3, 1, 22, 15);
+        OffsetDateTime to = utc(2026, 3, 4, 2, 40);
+
+        assertEquals(List.of(
+                new BucketRange(Granularity.MINUTE, from, utc(2026, 3, 1, 23, 0)),
+                new BucketRange(Granularity.HOUR, utc(2026, 3, 1, 23, 0), utc(2026, 3, 2, 0, 0)),
+                new BucketRange(Granularity.DAY, utc(2026, 3, 2, 0, 0), utc(2026, 3, 4, 0, 0)),
+                new BucketRange(Granularity.HOUR, utc(2026, 3, 4, 0, 0), utc(2026, 3, 4, 2, 0)),
+                new BucketRange(Granularity.MINUTE, utc(2026, 3, 4, 2, 0), to)
+        ), AuditRollupService.plan(from, to));
+
+        assertEquals(List.of(new BucketRange(Granularity.MINUTE, from, utc(2026, 3, 1, 23, 5))),
+                AuditRollupService.plan(from, utc(2026, 3, 1, 23, 5)));
+        assertEquals(List.of(new BucketRange(Granularity.HOUR, utc(2026, 3, 1, 10, 0), utc(2026, 3, 1, 14, 0))),
+                AuditRollupService.plan(utc(2026, 3, 1, 10, 0), utc(2026, 3, 1, 14, 0)));
+    }
+
+    @Test
+    void mergesLivePartialAfterTheWatermark() {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        OffsetDateTime watermark = now.truncatedTo(ChronoUnit.MINUTES).minusMinutes(2);
+        OffsetDateTime start = now.minusHours(6).truncatedTo(ChronoUnit.MINUTES);
+        when(repository.findCompactedUntil()).thenReturn(Optional.of(watermark));
+        when(repository.sumRollups(eq(7L), eq(Dimension.ACTION), anyList()))
+                .thenReturn(new HashMap<>(Map.of("LOGIN", 100L, "LOGOUT", 40L)));
+        when(repository.countRaw(7L, Dimension.ACTION, watermark, now))
+                .thenReturn(Map.of("LOGIN", 3L, "EXPORT", 1L));
+
+        Map<String, Long> counts = service.count(7L, Dimension.ACTION, start, now);
+
+        assertEquals(Map.of("LOGIN", 103L, "LOGOUT", 40L, "EXPORT", 1L), counts);
+        verify(repository).sumRollups(7L, Dimension.ACTION, AuditRollupService.plan(start, watermark));
+        verify(repository, times(1)).countRaw(any(), any(), any(), any());
+    }
+
+    @Test
+    void readsRawLogsForEndFractionWhoseMinuteBucketsArePurged() {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        OffsetDateTime end = now.minusHours(new AuditProperties().getRollup().getMinuteRetentionHours()).plusSeconds(1);
+        OffsetDateTime start = end.minusHours(6);
+        OffsetDateTime rolledFrom = start.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+        OffsetDateTime rolledTo = end.truncatedTo(ChronoUnit.HOURS);
+        when(repository.findCompactedUntil()).thenReturn(Optional.of(now.truncatedTo(ChronoUnit.MINUTES)));
+        when(repository.sumRollups(eq(7L), eq(Dimension.ACTION), anyList()))
+                .thenReturn(new HashMap<>(Map.of("LOGIN", 10L)));
+        when(repository.countRaw(7L, Dimension.ACTION, rolledTo, end)).thenReturn(Map.of("LOGIN", 2L));
+
+        Map<String, Long> counts = service.count(7L, Dimension.ACTION, start, end);
+
+        assertEquals(Map.of("LOGIN", 12L), counts);
+        verify(repository).sumRollups(7L, Dimension.ACTION, AuditRollupService.plan(rolledFrom, rolledTo));
+        verify(repository).countRaw(7L, Dimension.ACTION, start, rolledFrom);
+    }
+
+    @Test
+    void compactsRecentWindowAndCatchesUpFromEarliestLog() {
+        OffsetDateTime now = utc(2026, 3, 10, 12, 0).plusSeconds(45);
+        when(repository.findEarliestLogTime()).thenReturn(Optional.of(utc(2026, 3, 8, 9, 30).plusSeconds(10)));
+
+        service.compact(now);
+        verify(repository).rollupMinutes(utc(2026, 3, 8, 9, 30), utc(2026, 3, 9, 9, 30));
+        verify(repository).rollupHours(utc(2026, 3, 8, 9, 0), utc(2026, 3, 9, 9, 30));
+        verify(repository).rollupDays(utc(2026, 3, 8, 0, 0), utc(2026, 3, 9, 9, 30));
+
+        service.compact(now);
+        verify(repository).rollupMinutes(utc(2026, 3, 9, 9, 30), utc(2026, 3, 10, 9, 30));
+
+        // 追平后每轮只重算最近一小时
+        service.compact(now);
+        service.compact(now);
+        verify(repository).rollupMinutes(utc(2026, 3, 10, 9, 30), utc(2026, 3, 10, 12, 0));
+        verify(repository).rollupMinutes(utc(2026, 3, 10, 11, 0), utc(2026, 3, 10, 12, 0));
+        verify(repository, never()).purgeBuckets(eq(Granularity.HOUR), any());
+    }
+
+    private static OffsetDateTime utc(int year, int month, int day, int hour, int minute) {
+        return OffsetDateTime.of(year, month, day, hour, minute, 0, 0, ZoneOffset.UTC);
+    }
+}
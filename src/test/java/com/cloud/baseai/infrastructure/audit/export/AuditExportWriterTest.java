@@ -0,0 +1,104 @@
+package com.cloud.baseai.infrastructure.audit.export;
+
+import com.cloud.baseai.domain.audit.model.SysAuditLog;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <h2>审计日志导出写入器测试</h2>
+ */
+public class AuditExportWriterTest {
+
+    private static final OffsetDateTime CREATED_AT = OffsetDateTime.of(2024, 1, 1, 8, 0, 0, 0, ZoneOffset.UTC);
+
+    @Test
+    @DisplayName("CSV写出BOM和表头，含逗号、引号、换行的值加引号转义")
+    void escapesCsvValues() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (AuditExportWriter writer = AuditExportWriter.open(AuditExportFormat.CSV, out)) {
+            writer.write(auditLog(1L, "{\"a\":\"x,y\"}"));
+            assertEquals(1, writer.rowCount());
+        }
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertTrue(lines[0].startsWith("\uFEFFid,tenantId,userId,action"));
+        assertEquals("1,10,20,USER_LOGIN,USER,30,127.0.0.1,,SUCCESS,INFO,2024-01-01T08:00Z,\"{\"\"a\"\":\"\"x,y\"\"}\"",
+                lines[1]);
+    }
+
+    @Test
+    @DisplayName("JSONL每行一个对象，空值字段省略")
+    void writesOneObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (AuditExportWriter writer = AuditExportWriter.open(AuditExportFormat.JSONL, out)) {
+            writer.write(auditLog(1L, "{}"));
+            writer.write(auditLog(2L, null));
+        }
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode second = new ObjectMapper().readTree(lines[1]);
+        assertEquals(2, second.get("id").asLong());
+        assertEquals("USER_LOGIN", second.get("action").asText());
+        assertFalse(second.has("detail"));
+    }
+
+    @Test
+    @DisplayName("XLSX达到单表行数上限时续写到新工作表，工作簿清单列出全部工作表")
+    void rollsOverToNewSheet() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (AuditExportWriter writer = new XlsxAuditExportWriter(out, 3)) {
+            for (long id = 1; id <= 5; id++) {
+                writer.write(auditLog(id, "<b>&</b>"));
+            }
+        }
+
+        Map<String, String> entries = unzip(out.toByteArray());
+        assertEquals(3, countOccurrences(entries.get("xl/worksheets/sheet1.xml"), "<row>"));
+        assertEquals(3, countOccurrences(entries.get("xl/worksheets/sheet2.xml"), "<row>"));
+        assertEquals(2, countOccurrences(entries.get("xl/worksheets/sheet3.xml"), "<row>"));
+        assertEquals(3, countOccurrences(entries.get("xl/workbook.xml"), "<sheet "));
+        assertTrue(entries.get("xl/worksheets/sheet1.xml").contains("&lt;b&gt;&amp;&lt;/b&gt;"));
+        assertTrue(entries.containsKey("[Content_Types].xml"));
+        assertTrue(entries.containsKey("_rels/.rels"));
+        assertTrue(entries.containsKey("xl/_rels/workbook.xml.rels"));
+    }
+
+    private static SysAuditLog auditLog(Long id, String detail) {
+        return new SysAuditLog(id, 10L, 20L, "USER_LOGIN", "USER", 30L, "127.0.0.1", null,
+                detail, "SUCCESS", "INFO", CREATED_AT);
+    }
+
+    private static Map<String, String> unzip(byte[] bytes) throws Exception {
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    private static int countOccurrences(String text, String token) {
+        int count = 0;
+        for (int i = text.indexOf(token); i >= 0; i = text.indexOf(token, i + token.length())) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,70 @@
+package com.cloud.baseai.infrastructure.cache.embedding;
+
+import com.cloud.baseai.infrastructure.config.properties.KnowledgeBaseProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class EmbeddingCacheTest {
+
+    private final float[] vector = {0.12345f, -0.5f, 0.98765f, 0.0f};
+
+    private StringRedisTemplate redisTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private EmbeddingCache cache;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new EmbeddingCache(redisTemplate, new KnowledgeBaseProperties(), meterRegistry);
+    }
+
+    @Test
+    void storesVectorsAsHalfPrecisionAndServesLocalHits() {
+        cache.put("text-embedding-3-small", "hello world", vector);
+
+        float[] cached = cache.get("text-embedding-3-small", "hello world", 0.00002);
+
+        assertArrayEquals(vector, cached, 1e-3f);
+        assertNull(cache.get("text-embedding-3-large", "hello world", 0.00013));
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+        assertEquals(1.0, meterRegistry.get("baseai.embedding.cache.requests").tag("result", "local_hit").counter().count());
+        assertTrue(meterRegistry.get("baseai.embedding.cache.saved.cost").counter().count() > 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void readsVectorsWrittenByOtherNodesFromRedis() {
+        byte[] encoded = EmbeddingCache.encode(vector);
+        when(redisTemplate.execute(any(RedisCallback.class))).thenReturn(Arrays.asList(null, encoded));
+
+        List<float[]> results = cache.getAll("text-embedding-v3", List.of("a", "b"), 0.0000007);
+
+        assertNull(results.get(0));
+        assertArrayEquals(vector, results.get(1), 1e-3f);
+        // Redis命中后回填本地缓存，再次查询不访问Redis
+        assertArrayEquals(vector, cache.get("text-embedding-v3", "b", 0.0000007), 1e-3f);
+        verify(redisTemplate, times(1)).execute(any(RedisCallback.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void treatsRedisFailureAsMiss() {
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        assertNull(cache.get("text-embedding-v3", "a", 0.0000007));
+        assertEquals(1.0, meterRegistry.get("baseai.embedding.cache.requests").tag("result", "miss").counter().count());
+    }
+}
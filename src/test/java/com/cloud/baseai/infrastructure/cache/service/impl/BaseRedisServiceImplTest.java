@@ -0,0 +1,89 @@
+package com.cloud.baseai.infrastructure.cache.service.impl;
+
+import com.cloud.baseai.infrastructure.config.properties.CacheProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.*;
+
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class BaseRedisServiceImplTest {
+
+    private RedisTemplate<String, Object> redisTemplate;
+    private RedisOperations<String, Object> pipelineOperations;
+    private ValueOperations<String, Object> pipelineValues;
+    private BaseRedisServiceImpl redisService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        pipelineOperations = mock(RedisOperations.class);
+        pipelineValues = mock(ValueOperations.class);
+        when(pipelineOperations.opsForValue()).thenReturn(pipelineValues);
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, SessionCallback.class).execute(pipelineOperations);
+            return List.of();
+        });
+
+        CacheProperties properties = new CacheProperties();
+        properties.getRedis().setPipelineBatchSize(1000);
+        properties.getRedis().setScanBatchSize(500);
+        redisService = new BaseRedisServiceImpl(redisTemplate, properties, new ObjectMapper(),
+                mock(RedisConnectionFactory.class), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void multiSetSendsEntriesInPipelinedBatches() {
+        Map<String, Object> entries = new LinkedHashMap<>();
+        for (int i = 0; i < 2500; i++) {
+            entries.put("warm:" + i, "value-" + i);
+        }
+        entries.put("warm:null", null);
+        entries.put(" ", "blank-key");
+
+        long written = redisService.multiSet(entries, Duration.ofMinutes(5));
+
+        assertEquals(2500, written);
+        verify(redisTemplate, times(3)).executePipelined(any(SessionCallback.class));
+        verify(pipelineValues, times(2500)).set(any(), any(), eq(Duration.ofMinutes(5)));
+        verify(pipelineValues).set("baseai:warm:42", "value-42", Duration.ofMinutes(5));
+        verify(redisTemplate, never()).opsForValue();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void clearCacheScansAndUnlinksInBoundedBatches() {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            keys.add("baseai:session:" + i);
+        }
+        Iterator<String> iterator = keys.iterator();
+        Cursor<String> cursor = mock(Cursor.class);
+        when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> iterator.next());
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+        List<Integer> batchSizes = new ArrayList<>();
+        when(redisTemplate.unlink(anyCollection())).thenAnswer(invocation -> {
+            int size = invocation.getArgument(0, Collection.class).size();
+            batchSizes.add(size);
+            return (long) size;
+        });
+
+        long cleared = redisService.clearCache("session:*");
+
+        assertEquals(1200, cleared);
+        assertEquals(List.of(500, 500, 200), batchSizes);
+        verify(redisTemplate, never()).keys(any());
+        verify(cursor).close();
+    }
+}
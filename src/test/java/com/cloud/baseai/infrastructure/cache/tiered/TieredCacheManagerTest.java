@@ -0,0 +1,116 @@
+package com.cloud.baseai.infrastructure.cache.tiered;
+
+import com.cloud.baseai.infrastructure.config.properties.CacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TieredCacheManagerTest {
+
+    private RedisTemplate<String, Object> redisTemplate;
+    private ValueOperations<String, Object> valueOperations;
+    private List<String> published;
+    private SimpleMeterRegistry meterRegistry;
+    private TieredCacheManager cacheManager;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        published = new ArrayList<>();
+        RedisConnection connection = mock(RedisConnection.class);
+        when(connection.publish(any(), any())).thenAnswer(invocation -> {
+            published.add(new String(invocation.getArgument(1, byte[].class), StandardCharsets.UTF_8));
+            return 1L;
+        });
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0, RedisCallback.class).doInRedis(connection));
+
+        CacheProperties properties = new CacheProperties();
+        CacheProperties.CacheSpec localOnly = new CacheProperties.CacheSpec();
+        localOnly.setLocalOnly(true);
+        properties.getTiered().getCaches().put("jwt-claims", localOnly);
+        meterRegistry = new SimpleMeterRegistry();
+        cacheManager = new TieredCacheManager(redisTemplate, properties, meterRegistry);
+    }
+
+    @Test
+    void readsThroughRedisOnceThenServesFromLocalCache() {
+        when(valueOperations.get("baseai:cache:chatResponses::h1")).thenReturn("answer");
+        Cache cache = cacheManager.getCache("chatResponses");
+
+        assertEquals("answer", cache.get("h1", String.class));
+        assertEquals("answer", cache.get("h1", String.class));
+
+        verify(valueOperations, times(1)).get(any());
+        assertEquals(1.0, meterRegistry.get("baseai.cache.remote.hit").tag("cache", "chatResponses").counter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tags("cache", "chatResponses", "result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void putWritesBothTiersAndOtherNodesDropTheirLocalCopy() {
+        Cache cache = cacheManager.getCache("chatResponses");
+        cache.put("h2", "v1");
+
+        verify(valueOperations).set("baseai:cache:chatResponses::h2", "v1", Duration.ofSeconds(3600));
+        assertEquals(List.of("EVICT\n" + cacheManager.getNodeId() + "\nchatResponses\nh2"), published);
+
+        // 自己发出的通知不影响本地副本
+        cacheManager.onMessage(message(published.get(0)), null);
+        assertEquals("v1", cache.get("h2", String.class));
+        verify(valueOperations, never()).get(any());
+
+        cacheManager.onMessage(message("EVICT\nother-node\nchatResponses\nh2"), null);
+        when(valueOperations.get("baseai:cache:chatResponses::h2")).thenReturn("v2");
+        assertEquals("v2", cache.get("h2", String.class));
+    }
+
+    @Test
+    void localOnlyCacheNeverTouchesRedisButStillBroadcasts() {
+        Cache cache = cacheManager.getCache("jwt-claims");
+
+        assertNull(cache.get("token"));
+        assertEquals("claims", cache.get("token", () -> "claims"));
+        cache.evict("token");
+
+        verify(redisTemplate, never()).opsForValue();
+        verify(redisTemplate, never()).unlink(any(String.class));
+        assertEquals(2, published.size());
+    }
+
+    @Test
+    void redisFailureIsTreatedAsMiss() {
+        when(valueOperations.get(any())).thenThrow(new RedisConnectionFailureException("down"));
+        Cache cache = cacheManager.getCache("chatResponses");
+
+        assertNull(cache.get("h3"));
+        assertEquals("loaded", cache.get("h3", () -> "loaded"));
+        assertEquals("loaded", cache.get("h3", String.class));
+        assertEquals(2.0, meterRegistry.get("baseai.cache.remote.miss").tag("cache", "chatResponses").counter().count());
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage("baseai:cache:invalidation".getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
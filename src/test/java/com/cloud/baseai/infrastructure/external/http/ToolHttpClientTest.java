@@ -0,0 +1,128 @@
+package com.cloud.baseai.infrastructure.external.http;
+
+import com.cloud.baseai.infrastructure.config.properties.McpProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolHttpClientTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private ToolHttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/echo", exchange -> respond(exchange, "{\"ok\":true}"));
+        server.createContext("/query", exchange -> respond(exchange,
+                "{\"query\":\"" + exchange.getRequestURI().getRawQuery() + "\"}"));
+        server.createContext("/large", exchange -> respond(exchange, "{\"data\":\"" + "x".repeat(4096) + "\"}"));
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(3000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, "{}");
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        McpProperties properties = new McpProperties();
+        properties.getHttp().setMaxResponseBytes(1024);
+        properties.getHttp().setBreakerFailureThreshold(2);
+        client = new ToolHttpClient(properties, new ObjectMapper(), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void parsesJsonResponse() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        ResponseEntity<Map> response = client.exchange(HttpMethod.POST, baseUrl + "/echo", headers,
+                Map.of("q", 1), Map.class, 5);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(true, response.getBody().get("ok"));
+    }
+
+    @Test
+    void encodesNonAsciiAndSpacesInTheUrl() {
+        ResponseEntity<Map> response = client.exchange(HttpMethod.GET, baseUrl + "/query?city=北京&q=a b",
+                null, null, Map.class, 5);
+
+        assertEquals("city=%E5%8C%97%E4%BA%AC&q=a%20b", response.getBody().get("query"));
+    }
+
+    @Test
+    void rejectsResponsesOverTheSizeCap() {
+        ToolHttpClient.ToolHttpException e = assertThrows(ToolHttpClient.ToolHttpException.class,
+                () -> client.exchange(HttpMethod.GET, baseUrl + "/large", null, null, Map.class, 5));
+        assertInstanceOf(org.springframework.core.io.buffer.DataBufferLimitException.class, e.getCause());
+    }
+
+    @Test
+    void callDeadlineIsEnforcedAndRepeatedFailuresOpenTheBreaker() {
+        long start = System.currentTimeMillis();
+        ToolHttpClient.ToolHttpException timeout = assertThrows(ToolHttpClient.ToolHttpException.class,
+                () -> client.exchange(HttpMethod.GET, baseUrl + "/slow", null, null, Map.class, 1));
+        assertTrue(timeout.getMessage().contains("超时"));
+        assertTrue(System.currentTimeMillis() - start < 2500);
+
+        assertThrows(ToolHttpClient.ToolHttpException.class,
+                () -> client.exchange(HttpMethod.GET, baseUrl + "/slow", null, null, Map.class, 1));
+
+        // 同一端点熔断后立即拒绝，不再发出请求
+        ToolHttpClient.ToolHttpException open = assertThrows(ToolHttpClient.ToolHttpException.class,
+                () -> client.exchange(HttpMethod.GET, baseUrl + "/echo", null, null, Map.class, 5));
+        assertTrue(open.getMessage().contains("熔断"));
+    }
+
+    @Test
+    void interruptedCallsDoNotOpenTheBreaker() {
+        Thread.currentThread().interrupt();
+        for (int i = 0; i < 3; i++) {
+            ToolHttpClient.ToolHttpException e = assertThrows(ToolHttpClient.ToolHttpException.class,
+                    () -> client.exchange(HttpMethod.GET, baseUrl + "/slow", null, null, Map.class, 5));
+            assertInstanceOf(InterruptedException.class, e.getCause());
+        }
+        assertTrue(Thread.interrupted());
+
+        ResponseEntity<Map> response = client.exchange(HttpMethod.GET, baseUrl + "/echo", null, null, Map.class, 5);
+        assertEquals(200, response.getStatusCode().value());
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
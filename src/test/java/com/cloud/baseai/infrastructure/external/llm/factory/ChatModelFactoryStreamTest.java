@@ -0,0 +1,149 @@
+package com.cloud.baseai.infrastructure.external.llm.factory;
+
+import com.cloud.baseai.infrastructure.config.properties.LlmProperties;
+import com.cloud.baseai.infrastructure.external.llm.service.ChatCompletionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * <h2>流式对冲与故障转移测试</h2>
+ */
+public class ChatModelFactoryStreamTest {
+
+    private final ChatCompletionService openai = mock(ChatCompletionService.class);
+    private final ChatCompletionService qwen = mock(ChatCompletionService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("首选提供商超过对冲延迟未出首字时并发请求备用提供商，先出首字者胜出并取消另一方")
+    void hedgesSlowPrimary() {
+        AtomicBoolean primaryCancelled = new AtomicBoolean();
+        when(openai.streamCompletion(anyMap())).thenReturn(Flux.just("慢")
+                .delaySubscription(Duration.ofSeconds(10))
+                .doOnCancel(() -> primaryCancelled.set(true)));
+        when(qwen.streamCompletion(anyMap())).thenReturn(Flux.just("快", "答"));
+
+        ChatModelFactory factory = factory(Duration.ofMillis(50));
+        Map<String, Object> context = new HashMap<>(Map.of("model", "gpt-4o"));
+
+        StepVerifier.create(factory.streamCompletion(context))
+                .expectNext("快", "答")
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+
+        assertTrue(primaryCancelled.get());
+        assertEquals("gpt-4o", context.get("model"));
+        verify(qwen).streamCompletion(argThat(ctx -> "qwen-plus".equals(ctx.get("model"))));
+        assertEquals(1, meterRegistry.get("llm.stream.ttft").tag("provider", "qwen").timer().count());
+        assertEquals(1, meterRegistry.get("llm.stream.attempts").tag("reason", "hedge").counter().count());
+    }
+
+    @Test
+    @DisplayName("首选提供商在首个片段前失败时立即切换，不等待对冲延迟")
+    void failsOverBeforeFirstChunk() {
+        when(openai.streamCompletion(anyMap())).thenReturn(Flux.error(new IllegalStateException("503")));
+        when(qwen.streamCompletion(anyMap())).thenReturn(Flux.just("备用"));
+
+        StepVerifier.create(factory(Duration.ofSeconds(30)).streamCompletion(new HashMap<>(Map.of("model", "gpt-4o"))))
+                .expectNext("备用")
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+
+        assertEquals(1, meterRegistry.get("llm.stream.attempts").tag("reason", "failover").counter().count());
+    }
+
+    @Test
+    @DisplayName("首选提供商及时出首字时不发起对冲")
+    void fastPrimaryIsNotHedged() {
+        when(openai.streamCompletion(anyMap())).thenReturn(Flux.just("首选"));
+
+        StepVerifier.create(factory(Duration.ofSeconds(30)).streamCompletion(new HashMap<>(Map.of("model", "gpt-4o"))))
+                .expectNext("首选")
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+
+        verify(qwen, never()).streamCompletion(anyMap());
+    }
+
+    @Test
+    @DisplayName("首个片段前连续失败后标记不健康，不再参与对冲，请求路径不做健康检查")
+    void marksProviderUnhealthyFromStreamFailures() {
+        ChatModelFactory factory = factory(Duration.ofMillis(50));
+        when(qwen.streamCompletion(anyMap())).thenReturn(Flux.error(new IllegalStateException("503")));
+        when(openai.streamCompletion(anyMap())).thenReturn(Flux.just("备用"));
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(factory.streamCompletion(new HashMap<>(Map.of("model", "qwen-plus"))))
+                    .expectNext("备用")
+                    .expectComplete()
+                    .verify(Duration.ofSeconds(5));
+        }
+        clearInvocations(openai, qwen);
+
+        when(openai.streamCompletion(anyMap())).thenReturn(Flux.just("慢").delaySubscription(Duration.ofMillis(300)));
+        StepVerifier.create(factory.streamCompletion(new HashMap<>(Map.of("model", "gpt-4o"))))
+                .expectNext("慢")
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+
+        verify(openai, never()).isHealthy();
+        verify(qwen, never()).isHealthy();
+        verify(qwen, never()).streamCompletion(anyMap());
+    }
+
+    @Test
+    @DisplayName("后台只探测不健康的提供商，探测成功后恢复")
+    void probesOnlyUnhealthyProviders() {
+        ChatModelFactory factory = factory(Duration.ofSeconds(30));
+        when(qwen.streamCompletion(anyMap())).thenReturn(Flux.error(new IllegalStateException("503")));
+        when(openai.streamCompletion(anyMap())).thenReturn(Flux.just("备用"));
+        for (int i = 0; i < 3; i++) {
+            factory.streamCompletion(new HashMap<>(Map.of("model", "qwen-plus"))).blockLast(Duration.ofSeconds(5));
+        }
+        clearInvocations(openai, qwen);
+
+        factory.refreshProviderHealth();
+        verify(openai, never()).isHealthy();
+        verify(qwen).isHealthy();
+
+        when(qwen.streamCompletion(anyMap())).thenReturn(Flux.just("恢复"));
+        StepVerifier.create(factory.streamCompletion(new HashMap<>(Map.of("model", "qwen-plus"))))
+                .expectNext("恢复")
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    private ChatModelFactory factory(Duration hedgeDelay) {
+        when(openai.isHealthy()).thenReturn(true);
+        when(qwen.isHealthy()).thenReturn(true);
+
+        LlmProperties properties = new LlmProperties();
+        properties.getStreamHedging().setInitialDelay(hedgeDelay);
+        properties.getStreamHedging().setMinDelay(Duration.ZERO);
+        properties.getStreamHedging().setMaxDelay(Duration.ofMinutes(1));
+
+        ApplicationContext applicationContext = mock(ApplicationContext.class);
+        when(applicationContext.containsBean("openAIChatCompletionService")).thenReturn(true);
+        when(applicationContext.containsBean("qwenChatCompletionService")).thenReturn(true);
+        when(applicationContext.getBean("openAIChatCompletionService", ChatCompletionService.class)).thenReturn(openai);
+        when(applicationContext.getBean("qwenChatCompletionService", ChatCompletionService.class)).thenReturn(qwen);
+
+        ChatModelFactory factory = new ChatModelFactory(properties, applicationContext, meterRegistry);
+        factory.initialize();
+        return factory;
+    }
+}
@@ -0,0 +1,110 @@
+package com.cloud.baseai.infrastructure.flow.executor;
+
+import com.cloud.baseai.domain.flow.model.NodeTypes;
+import com.cloud.baseai.infrastructure.config.properties.FlowProperties;
+import com.cloud.baseai.infrastructure.exception.ErrorCode;
+import com.cloud.baseai.infrastructure.exception.FlowOrchestrationException;
+import com.cloud.baseai.infrastructure.flow.expression.ExpressionEngine;
+import com.cloud.baseai.infrastructure.flow.model.DataStream;
+import com.cloud.baseai.infrastructure.flow.model.FlowExecutionContext;
+import com.cloud.baseai.infrastructure.flow.model.NodeExecutionInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <h2>流式数据节点测试</h2>
+ */
+public class DataNodeExecutorStreamingTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final FlowProperties flowProperties = new FlowProperties();
+    private final ExpressionEngine expressionEngine = new ExpressionEngine(flowProperties);
+    private final DataNodeExecutor executor = new DataNodeExecutor(objectMapper, expressionEngine, flowProperties);
+    private final FlowExecutionContext context = new FlowExecutionContext(1L, 1L, 1L, 1L, Map.of());
+
+    @AfterEach
+    void tearDown() {
+        expressionEngine.shutdown();
+    }
+
+    @Test
+    @DisplayName("分割、过滤、连接节点输出惰性数据流，遍历时才按块计算且每块不超过块大小")
+    void chainsLazyChunkedStreams() throws Exception {
+        String text = String.join("\n", IntStream.range(0, 10).mapToObj(i -> "line-" + i).toList());
+        Map<String, Object> split = executor.execute(node(NodeTypes.SPLITTER,
+                Map.of("strategy", "delimiter", "streaming", true, "chunkSize", 3)), Map.of("text", text), context);
+        assertInstanceOf(DataStream.class, split.get("chunks"));
+
+        AtomicInteger evaluated = new AtomicInteger();
+        DataStream counted = ((DataStream) split.get("chunks"))
+                .mapChunks(chunk -> {
+                    evaluated.addAndGet(chunk.size());
+                    return chunk;
+                }, "count");
+        Map<String, Object> filtered = executor.execute(node(NodeTypes.FILTER, Map.of(
+                        "source", "split_output.chunks",
+                        "condition", Map.of("type", "expression", "expression", "!item.endsWith('3')"))),
+                Map.of("split_output", Map.of("chunks", counted), "_context", Map.of()), context);
+        assertEquals(0, evaluated.get());
+        assertFalse(filtered.containsKey("split_output"));
+
+        Map<String, Object> merged = executor.execute(node(NodeTypes.MERGER, Map.of(
+                        "sources", List.of("filtered", "tail"), "strategy", "concat")),
+                Map.of("filtered", filtered.get("chunks"), "tail", List.of("extra")), context);
+        DataStream items = (DataStream) merged.get("items");
+
+        Iterator<List<Object>> chunks = items.chunkIterator();
+        while (chunks.hasNext()) {
+            assertTrue(chunks.next().size() <= 3);
+        }
+        assertEquals(10, evaluated.get());
+
+        List<Object> expected = new ArrayList<>(IntStream.range(0, 10).filter(i -> i != 3)
+                .mapToObj(i -> "line-" + i).toList());
+        expected.add("extra");
+        assertEquals(expected, items.toList());
+        assertEquals(objectMapper.writeValueAsString(expected), objectMapper.writeValueAsString(items));
+    }
+
+    @Test
+    @DisplayName("流式过滤在下游遍历时出错，异常归属于过滤节点")
+    void lazyFilterErrorsAreAttributedToFilterNode() {
+        flowProperties.getExpression().setFilterTimeoutMs(100L);
+        Map<String, Object> filtered = executor.execute(node(NodeTypes.FILTER, Map.of(
+                        "source", "items", "streaming", true,
+                        "condition", Map.of("type", "expression", "expression", "(() => { while (true) {} })()"))),
+                Map.of("items", List.of(1, 2, 3)), context);
+
+        DataStream items = (DataStream) filtered.get("items");
+        FlowOrchestrationException e = assertThrows(FlowOrchestrationException.class, items::toList);
+        assertEquals(ErrorCode.BIZ_FLOW_040, e.getErrorCode());
+        assertEquals("filter", e.getMessageArgs()[0]);
+    }
+
+    @Test
+    @DisplayName("深度合并结果与逐层复制一致，且不修改来源数据")
+    void deepMergeDoesNotMutateSources() {
+        Map<String, Object> first = new HashMap<>(Map.of("user", new HashMap<>(Map.of("name", "a", "age", 1))));
+        Map<String, Object> second = Map.of("user", Map.of("age", 2, "city", "x"));
+        Map<String, Object> third = Map.of("user", Map.of("city", "y"));
+
+        Map<String, Object> merged = executor.execute(node(NodeTypes.MERGER, Map.of(
+                        "sources", List.of("first", "second", "third"), "deepMerge", true)),
+                Map.of("first", first, "second", second, "third", third), context);
+
+        assertEquals(Map.of("name", "a", "age", 2, "city", "y"), merged.get("user"));
+        assertEquals(Map.of("name", "a", "age", 1), first.get("user"));
+    }
+
+    private static NodeExecutionInfo node(String type, Map<String, Object> config) {
+        return new NodeExecutionInfo(1L, type, type.toLowerCase(), type, null, null, Map.of(), config);
+    }
+}
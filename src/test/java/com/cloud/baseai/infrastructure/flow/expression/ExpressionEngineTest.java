@@ -0,0 +1,136 @@
+package com.cloud.baseai.infrastructure.flow.expression;
+
+import com.cloud.baseai.infrastructure.config.properties.FlowProperties;
+import com.cloud.baseai.infrastructure.exception.ErrorCode;
+import com.cloud.baseai.infrastructure.exception.FlowOrchestrationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <h2>流程表达式引擎测试</h2>
+ */
+public class ExpressionEngineTest {
+
+    private final ExpressionEngine engine = new ExpressionEngine(new FlowProperties());
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    @DisplayName("相同表达式只编译一次，绑定变量按属性语法访问且只读")
+    void compilesOnceAndBindsReadOnlyVariables() {
+        CompiledExpression first = engine.compile(CompiledExpression.Kind.CONDITION, "item.price > ctx_min;");
+        CompiledExpression second = engine.compile(CompiledExpression.Kind.CONDITION, "item.price > ctx_min;");
+        assertSame(first, second);
+
+        ExpressionBindings shared = ExpressionBindings.of(Map.of("ctx_min", 10));
+        try (ExpressionSession session = engine.openSession()) {
+            assertTrue(session.test(first, shared.with("item", Map.of("price", 12.5))));
+            assertFalse(session.test(first, shared.with("item", Map.of("price", 3))));
+
+            CompiledExpression mutate = engine.compile(CompiledExpression.Kind.SCRIPT,
+                    "'use strict'; input.items.push(1); return true;");
+            assertThrows(IllegalStateException.class, () -> session.evaluate(mutate,
+                    ExpressionBindings.of(Map.of("input", Map.of("items", new ArrayList<>(List.of(0)))))));
+        }
+
+        CompiledExpression script = engine.compile(CompiledExpression.Kind.SCRIPT, """
+                var total = input.numbers.reduce((sum, n) => sum + n, 0);
+                return { total: total, average: total / input.numbers.length, empty: utils.isEmpty(input.numbers) };
+                """);
+        try (ExpressionSession session = engine.openSession()) {
+            Object result = session.evaluate(script, ExpressionBindings.of(Map.of("input", Map.of("numbers", List.of(1, 2, 3)))));
+            assertEquals(Map.of("total", 6, "average", 2, "empty", false), result);
+        }
+    }
+
+    @Test
+    @DisplayName("语法错误在编译阶段抛出")
+    void rejectsSyntaxErrorsAtCompileTime() {
+        FlowOrchestrationException e = assertThrows(FlowOrchestrationException.class,
+                () -> engine.compile(CompiledExpression.Kind.CONDITION, "item.price >"));
+        assertEquals(ErrorCode.BIZ_FLOW_079, e.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("死循环脚本在截止时间被取消，之后引擎仍可正常求值")
+    void cancelsRunawayScripts() {
+        CompiledExpression loop = engine.compile(CompiledExpression.Kind.SCRIPT, "while (true) {}");
+
+        long start = System.nanoTime();
+        FlowOrchestrationException e = assertThrows(FlowOrchestrationException.class, () -> {
+            try (ExpressionSession session = engine.openSession(Duration.ofMillis(200))) {
+                session.evaluate(loop, ExpressionBindings.empty());
+            }
+        });
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(ErrorCode.BIZ_FLOW_078, e.getErrorCode());
+        assertTrue(elapsedMillis < 3_000, "elapsed=" + elapsedMillis);
+
+        CompiledExpression ok = engine.compile(CompiledExpression.Kind.CONDITION, "1 + 1 === 2");
+        try (ExpressionSession session = engine.openSession()) {
+            assertTrue(session.test(ok, ExpressionBindings.empty()));
+        }
+    }
+
+    @Test
+    @DisplayName("复用同一上下文时，上一次运行写入的全局变量和对utils的修改对下一次运行不可见")
+    void pooledContextsDoNotLeakGlobalsBetweenRuns() {
+        CompiledExpression leak = engine.compile(CompiledExpression.Kind.SCRIPT, "leaked = tenant; return true;");
+        CompiledExpression viaGlobal = engine.compile(CompiledExpression.Kind.SCRIPT,
+                "globalThis.leaked = tenant; utils.isEmpty = function() { return false; }; return true;");
+        CompiledExpression read = engine.compile(CompiledExpression.Kind.SCRIPT,
+                "return [typeof leaked, utils.isEmpty([])];");
+
+        // 上下文池容量为默认值，单线程串行借还时总是复用同一个上下文
+        try (ExpressionSession session = engine.openSession()) {
+            assertThrows(IllegalStateException.class,
+                    () -> session.evaluate(leak, ExpressionBindings.of(Map.of("tenant", "a"))));
+            assertThrows(IllegalStateException.class,
+                    () -> session.evaluate(viaGlobal, ExpressionBindings.of(Map.of("tenant", "a"))));
+        }
+        try (ExpressionSession session = engine.openSession()) {
+            assertEquals(List.of("undefined", true), session.evaluate(read, ExpressionBindings.of(Map.of("tenant", "b"))));
+        }
+    }
+
+    @Test
+    @DisplayName("多个线程并发求值同一表达式，结果互不干扰")
+    void evaluatesConcurrently() throws Exception {
+        CompiledExpression expression = engine.compile(CompiledExpression.Kind.CONDITION, "n * 2");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    try (ExpressionSession session = engine.openSession()) {
+                        for (int n = 0; n < 500; n++) {
+                            if (!Integer.valueOf(n * 2).equals(session.evaluate(expression,
+                                    ExpressionBindings.of(Map.of("n", n))))) {
+                                return false;
+                            }
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.cloud.baseai.infrastructure.flow.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <h2>执行上下文结果释放测试</h2>
+ */
+class FlowExecutionContextTest {
+
+    private final List<String> lines = IntStream.range(0, 1000).mapToObj(i -> "line-" + i).toList();
+
+    @Test
+    @DisplayName("没有数据流时释放结果立即扣除内存估算")
+    void releasedResultIsFreed() {
+        FlowExecutionContext context = new FlowExecutionContext(1L, 1L, 1L, 1L, Map.of());
+        context.saveNodeResult("split", Map.of("chunks", lines));
+        long retained = context.getMemoryUsage();
+
+        assertTrue(context.releaseNodeResult("split"));
+        assertTrue(context.getMemoryUsage() < retained);
+        assertTrue(context.isNodeExecuted("split"));
+    }
+
+    @Test
+    @DisplayName("下游数据流仍引用上游结果时，释放不扣除内存估算，直到数据流也被释放")
+    void resultReferencedByStreamStaysCounted() {
+        FlowExecutionContext context = new FlowExecutionContext(1L, 1L, 1L, 1L, Map.of());
+        context.saveNodeResult("split", Map.of("chunks", lines));
+        context.saveNodeResult("filter", Map.of("items", DataStream.of(lines, 100)));
+        context.saveNodeResult("output", Map.of("count", 1));
+        long retained = context.getMemoryUsage();
+
+        assertTrue(context.releaseNodeResult("split"));
+        assertNull(context.getNodeResult("split"));
+        assertEquals(retained, context.getMemoryUsage());
+
+        assertTrue(context.releaseNodeResult("filter"));
+        assertTrue(context.getMemoryUsage() < retained);
+        assertEquals(retained, context.getPeakMemoryUsage());
+    }
+}
@@ -0,0 +1,135 @@
+package com.cloud.baseai.infrastructure.flow.service;
+
+import com.cloud.baseai.domain.flow.model.FlowRunLog;
+import com.cloud.baseai.domain.flow.repository.FlowRunLogRepository;
+import com.cloud.baseai.infrastructure.config.properties.FlowProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * <h2>流程运行日志异步写入测试</h2>
+ */
+public class FlowRunLogWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final FlowProperties flowProperties = new FlowProperties();
+    private final FlowRunLogRepository runLogRepo = mock(FlowRunLogRepository.class);
+    private final List<List<FlowRunLog>> batches = new CopyOnWriteArrayList<>();
+
+    @Test
+    @DisplayName("日志批量写入，刷新返回时此前的日志均已落库，且不记录上游完整输出")
+    void flushWritesPendingLogsInBatches() throws Exception {
+        recordBatches();
+        FlowRunLogWriter writer = writer();
+
+        for (int i = 0; i < 50; i++) {
+            writer.append(1L, "node" + i, "SUCCESS", Map.of("a_output", Map.of("big", "x".repeat(100)), "k", i),
+                    Map.of("value", i));
+        }
+        assertTrue(writer.flush(1L, Duration.ofSeconds(5)));
+
+        List<FlowRunLog> written = batches.stream().flatMap(List::stream).toList();
+        assertEquals(50, written.size());
+        assertTrue(batches.size() < 50, "batches=" + batches.size());
+        verify(runLogRepo, never()).save(any());
+
+        JsonNode first = objectMapper.readTree(written.getFirst().ioJson());
+        assertFalse(first.at("/input").has("a_output"));
+        assertEquals("a", first.at("/input/_upstreams/0").asText());
+        writer.shutdown();
+    }
+
+    @Test
+    @DisplayName("超长日志被截断，缓冲区写满时丢弃最早的日志并计数")
+    void truncatesAndDropsWhenFull() throws Exception {
+        flowProperties.getRunLog().setMaxPayloadChars(200);
+        flowProperties.getRunLog().setBufferCapacity(4);
+        flowProperties.getRunLog().setBatchSize(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            batches.add(List.copyOf(invocation.getArgument(0)));
+            return null;
+        }).when(runLogRepo).insertBatch(anyList());
+        FlowRunLogWriter writer = writer();
+
+        // 等写入线程取走第一条并阻塞在入库上，之后的积压数才是确定的
+        writer.append(1L, "node0", "SUCCESS", null, Map.of("text", "y".repeat(1000)));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i < 20; i++) {
+            writer.append(1L, "node" + i, "SUCCESS", null, Map.of("text", "y".repeat(1000)));
+        }
+        assertEquals(4, writer.backlog());
+        assertEquals(4, (int) meterRegistry.get("flow.run_logs.backlog").gauge().value());
+        assertTrue(meterRegistry.get("flow.run_logs.dropped").counter().count() >= 15);
+
+        release.countDown();
+        assertTrue(writer.flush(1L, Duration.ofSeconds(5)));
+        JsonNode output = objectMapper.readTree(batches.getLast().getFirst().ioJson()).at("/output");
+        assertTrue(output.get("truncated").asBoolean());
+        assertEquals(100, output.get("preview").asText().length());
+        assertEquals("node19", batches.getLast().getFirst().nodeKey());
+        writer.shutdown();
+    }
+
+    @Test
+    @DisplayName("缓冲区按字节数限制，刷新只等待本运行的日志")
+    void boundsBufferByBytesAndFlushesPerRun() throws Exception {
+        flowProperties.getRunLog().setBufferMaxBytes(10_000L);
+        flowProperties.getRunLog().setBatchSize(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(runLogRepo).insertBatch(anyList());
+        FlowRunLogWriter writer = writer();
+
+        writer.append(1L, "node0", "SUCCESS", null, Map.of("text", "y".repeat(1000)));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i < 20; i++) {
+            writer.append(1L, "node" + i, "SUCCESS", null, Map.of("text", "y".repeat(1000)));
+        }
+        assertTrue(meterRegistry.get("flow.run_logs.backlog_bytes").gauge().value() <= 10_000);
+        assertTrue(meterRegistry.get("flow.run_logs.dropped").counter().count() > 0);
+
+        // 其他运行没有积压的日志，不等待运行1的写入
+        long start = System.nanoTime();
+        assertTrue(writer.flush(2L, Duration.ofSeconds(5)));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+        assertFalse(writer.flush(1L, Duration.ofMillis(50)));
+
+        release.countDown();
+        assertTrue(writer.flush(1L, Duration.ofSeconds(5)));
+        writer.shutdown();
+    }
+
+    private void recordBatches() {
+        doAnswer(invocation -> {
+            batches.add(List.copyOf(invocation.getArgument(0)));
+            return null;
+        }).when(runLogRepo).insertBatch(anyList());
+    }
+
+    private FlowRunLogWriter writer() {
+        return new FlowRunLogWriter(runLogRepo, objectMapper, flowProperties, meterRegistry);
+    }
+}
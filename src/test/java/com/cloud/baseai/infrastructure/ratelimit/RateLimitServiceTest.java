@@ -0,0 +1,99 @@
+package com.cloud.baseai.infrastructure.ratelimit;
+
+import com.cloud.baseai.infrastructure.config.properties.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class RateLimitServiceTest {
+
+    private StringRedisTemplate redisTemplate;
+    private RateLimitProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitService rateLimitService;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        properties = new RateLimitProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimitService = new RateLimitService(redisTemplate, properties, mock(TenantTierResolver.class), meterRegistry);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void prefetchedPermitsAreServedLocally() {
+        // 默认每分钟100次、突发2倍，容量200，最多预取2个
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(3L);
+
+        assertTrue(rateLimitService.tryAcquire(RateLimitQuota.API_REQUESTS, (RateLimitTier) null, "u:1", 1));
+        assertTrue(rateLimitService.tryAcquire(RateLimitQuota.API_REQUESTS, (RateLimitTier) null, "u:1", 1));
+        assertTrue(rateLimitService.tryAcquire(RateLimitQuota.API_REQUESTS, (RateLimitTier) null, "u:1", 1));
+
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+        assertEquals(1.0, meterRegistry.get("baseai.ratelimit.remote.calls").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rejectsWhenRedisGrantsNothing() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(0L);
+
+        assertFalse(rateLimitService.tryAcquire(RateLimitQuota.CHAT_MESSAGES, RateLimitTier.FREE, "u:1", 1));
+        assertEquals(1.0, meterRegistry.get("baseai.ratelimit.rejected").tag("quota", "CHAT_MESSAGES")
+                .counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redisFailureFollowsFailOpen() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        assertTrue(rateLimitService.tryAcquire(RateLimitQuota.API_REQUESTS, (RateLimitTier) null, "ip:1", 1));
+        properties.setFailOpen(false);
+        assertFalse(rateLimitService.tryAcquire(RateLimitQuota.API_REQUESTS, (RateLimitTier) null, "ip:1", 1));
+    }
+
+    @Test
+    void concurrencyIsLimitedPerSubject() {
+        properties.getGlobal().setConcurrentRequests(1);
+
+        RateLimitService.Permit first = rateLimitService.tryEnter("u:1");
+        assertNotNull(first);
+        assertNull(rateLimitService.tryEnter("u:1"));
+        assertNotNull(rateLimitService.tryEnter("u:2"));
+
+        first.close();
+        assertNotNull(rateLimitService.tryEnter("u:1"));
+    }
+
+    @Test
+    void inFlightCountIsDroppedOnlyWhenAllPermitsAreClosed() {
+        properties.getGlobal().setConcurrentRequests(2);
+
+        RateLimitService.Permit first = rateLimitService.tryEnter("u:1");
+        RateLimitService.Permit second = rateLimitService.tryEnter("u:1");
+        assertNull(rateLimitService.tryEnter("u:1"));
+
+        // 重复关闭不能释放其他请求的许可
+        first.close();
+        first.close();
+        assertEquals(1, rateLimitService.inFlight("u:1"));
+        RateLimitService.Permit third = rateLimitService.tryEnter("u:1");
+        assertNotNull(third);
+        assertNull(rateLimitService.tryEnter("u:1"));
+
+        second.close();
+        third.close();
+        assertEquals(0, rateLimitService.inFlight("u:1"));
+    }
+}
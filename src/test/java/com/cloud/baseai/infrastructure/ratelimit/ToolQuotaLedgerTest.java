@@ -0,0 +1,114 @@
+package com.cloud.baseai.infrastructure.ratelimit;
+
+import com.cloud.baseai.domain.mcp.model.ToolAuth;
+import com.cloud.baseai.domain.mcp.repository.ToolAuthRepository;
+import com.cloud.baseai.infrastructure.config.properties.McpProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ToolQuotaLedgerTest {
+
+    private StringRedisTemplate redisTemplate;
+    private ToolAuthRepository toolAuthRepo;
+    private ToolQuotaLedger ledger;
+
+    private final ToolAuth auth = ToolAuth.create(1L, 7L, "key", 10);
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        toolAuthRepo = mock(ToolAuthRepository.class);
+        ledger = new ToolQuotaLedger(redisTemplate, toolAuthRepo, new McpProperties(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reservesInRedisAndReconcilesChangedCounters() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(4L);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(List.of("mcp:quota:1:7"))).thenReturn(List.of("4"));
+
+        ToolQuotaLedger.Reservation reservation = ledger.reserve(auth);
+        assertTrue(reservation.granted());
+        assertEquals(4, reservation.used());
+        verify(toolAuthRepo, never()).tryIncrementQuotaUsed(any(), any(), anyInt());
+
+        ledger.reconcile();
+        ledger.reconcile();
+        verify(toolAuthRepo, times(1)).updateQuotaUsed(1L, 7L, 4);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rejectsWhenRedisReportsQuotaExhausted() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(-11L);
+
+        ToolQuotaLedger.Reservation reservation = ledger.reserve(auth);
+        assertFalse(reservation.granted());
+        assertEquals(10, reservation.used());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fallsBackToConditionalUpdateWhenRedisIsDown() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        when(toolAuthRepo.tryIncrementQuotaUsed(1L, 7L, 1)).thenReturn(true, false);
+
+        assertTrue(ledger.reserve(auth).granted());
+        assertFalse(ledger.reserve(auth).granted());
+
+        ledger.refund(auth);
+        verify(toolAuthRepo).decrementQuotaUsed(1L, 7L, 1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reseedsCounterFromDatabaseAfterFallback() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"))
+                .thenReturn(6L);
+        when(toolAuthRepo.tryIncrementQuotaUsed(1L, 7L, 1)).thenReturn(true);
+
+        assertTrue(ledger.reserve(auth).granted());
+        ledger.refund(auth);
+        verify(toolAuthRepo).decrementQuotaUsed(1L, 7L, 1);
+
+        assertTrue(ledger.reserve(auth).granted());
+        verify(redisTemplate).delete(List.of("mcp:quota:1:7"));
+        ledger.reconcile();
+        verify(redisTemplate, times(1)).delete(anyCollection());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deletesStaleCounterFromRedisOnceItRecovers() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        when(redisTemplate.delete(anyCollection()))
+                .thenThrow(new RedisConnectionFailureException("down"))
+                .thenReturn(1L);
+        when(toolAuthRepo.tryIncrementQuotaUsed(1L, 7L, 1)).thenReturn(true);
+
+        assertTrue(ledger.reserve(auth).granted());
+
+        // 没有后续预留，定期回写也会删除计数，其他节点随后都从数据库重新初始化
+        ledger.reconcile();
+        ledger.reconcile();
+        ledger.reconcile();
+        verify(redisTemplate, times(2)).delete(List.of("mcp:quota:1:7"));
+        verify(toolAuthRepo, never()).updateQuotaUsed(any(), any(), anyInt());
+    }
+}
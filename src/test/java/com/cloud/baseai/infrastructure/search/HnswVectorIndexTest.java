@@ -0,0 +1,119 @@
+package com.cloud.baseai.infrastructure.search;
+
+import com.cloud.baseai.domain.kb.repository.EmbeddingRepository.EmbeddingSearchResult;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <h2>HNSW索引测试</h2>
+ *
+ * <p>以暴力余弦检索为基准验证召回率，并对比两者的查询耗时。</p>
+ */
+public class HnswVectorIndexTest {
+
+    private static final int DIMENSION = 128;
+    private static final int VECTOR_COUNT = 5_000;
+    private static final int QUERY_COUNT = 200;
+    private static final int TOP_K = 10;
+
+    @Test
+    @DisplayName("召回率与暴力检索对比")
+    void recallAgainstBruteForce() {
+        Random random = new Random(11);
+        float[][] data = new float[VECTOR_COUNT][];
+        HnswVectorIndex index = new HnswVectorIndex(DIMENSION, 16, 200);
+        for (int i = 0; i < VECTOR_COUNT; i++) {
+            data[i] = randomVector(random);
+            index.upsert(i, data[i]);
+        }
+
+        long matched = 0;
+        long indexNanos = 0;
+        long bruteNanos = 0;
+        for (int q = 0; q < QUERY_COUNT; q++) {
+            float[] query = randomVector(random);
+
+            long start = System.nanoTime();
+            Set<Long> approximate = index.search(query, TOP_K, 200).stream()
+                    .map(EmbeddingSearchResult::chunkId)
+                    .collect(Collectors.toSet());
+            indexNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            List<Long> exact = bruteForce(data, query);
+            bruteNanos += System.nanoTime() - start;
+
+            matched += exact.stream().filter(approximate::contains).count();
+        }
+
+        double recall = (double) matched / (QUERY_COUNT * TOP_K);
+        System.out.printf("HNSW recall@%d=%.3f, 平均 %.1f µs/查询; 暴力检索平均 %.1f µs/查询%n",
+                TOP_K, recall, indexNanos / 1000.0 / QUERY_COUNT, bruteNanos / 1000.0 / QUERY_COUNT);
+
+        assertTrue(recall > 0.9, "召回率过低: " + recall);
+    }
+
+    @Test
+    @DisplayName("删除和替换后结果保持一致")
+    void removeAndUpsert() {
+        Random random = new Random(3);
+        HnswVectorIndex index = new HnswVectorIndex(DIMENSION, 8, 32);
+        float[] target = randomVector(random);
+        index.upsert(1L, target);
+        for (long id = 2; id < 200; id++) {
+            index.upsert(id, randomVector(random));
+        }
+
+        List<EmbeddingSearchResult> results = index.search(target, 1, 50);
+        assertEquals(1L, results.getFirst().chunkId());
+        assertEquals(1.0f, results.getFirst().score(), 1e-4);
+
+        assertTrue(index.remove(1L));
+        assertFalse(index.remove(1L));
+        assertTrue(index.search(target, 5, 50).stream().noneMatch(r -> r.chunkId() == 1L));
+        assertEquals(198, index.size());
+
+        index.upsert(2L, target);
+        assertEquals(2L, index.search(target, 1, 50).getFirst().chunkId());
+        assertEquals(198, index.size());
+        assertTrue(index.deletedRatio() > 0);
+    }
+
+    private static List<Long> bruteForce(float[][] data, float[] query) {
+        PriorityQueue<long[]> heap = new PriorityQueue<>(Comparator.comparingDouble(e -> Double.longBitsToDouble(e[1])));
+        double queryNorm = norm(query);
+        for (int i = 0; i < data.length; i++) {
+            double dot = 0;
+            for (int d = 0; d < DIMENSION; d++) {
+                dot += data[i][d] * query[d];
+            }
+            double cosine = dot / (norm(data[i]) * queryNorm);
+            heap.add(new long[]{i, Double.doubleToLongBits(cosine)});
+            if (heap.size() > TOP_K) {
+                heap.poll();
+            }
+        }
+        return heap.stream().map(e -> e[0]).toList();
+    }
+
+    private static double norm(float[] vector) {
+        double sum = 0;
+        for (float v : vector) {
+            sum += v * v;
+        }
+        return Math.sqrt(sum);
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,128 @@
+package com.cloud.baseai.infrastructure.security.jwt;
+
+import com.cloud.baseai.infrastructure.config.properties.SecurityProperties;
+import com.cloud.baseai.infrastructure.security.UserPrincipal;
+import com.cloud.baseai.infrastructure.security.service.CustomUserDetailsService;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class JwtTokenServiceTest {
+
+    private RedisTemplate<String, Object> redisTemplate;
+    private ValueOperations<String, Object> valueOperations;
+    private TokenRevocationFilter revocationFilter;
+    private JwtTokenService tokenService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        Cursor<String> emptyCursor = mock(Cursor.class);
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(emptyCursor);
+
+        SecurityProperties properties = new SecurityProperties();
+        properties.getJwt().setUseRsa(false);
+        revocationFilter = new TokenRevocationFilter(redisTemplate, mock(RedisMessageListenerContainer.class), properties);
+        tokenService = new JwtTokenService(properties, redisTemplate, mock(CustomUserDetailsService.class), revocationFilter);
+    }
+
+    @Test
+    void validTokenIsServedWithoutRedisOnceTheFilterIsReady() {
+        String token = tokenService.generateAccessToken(principal());
+        revocationFilter.rebuild();
+
+        Claims first = tokenService.validateAndParseClaims(token, null);
+        Claims second = tokenService.validateAndParseClaims(token, null);
+
+        assertNotNull(first);
+        assertSame(first, second);
+        verify(valueOperations, never()).multiGet(anyCollection());
+        verify(redisTemplate, never()).hasKey(any());
+
+        UserPrincipal principal = tokenService.buildPrincipalFromClaims(first);
+        assertEquals(42L, principal.getId());
+        assertTrue(principal.belongsToTenant(7L));
+        assertTrue(principal.hasRole("ADMIN"));
+    }
+
+    @Test
+    void revokedTokenIsCheckedInOneRoundTrip() {
+        String token = tokenService.generateAccessToken(principal());
+        revocationFilter.rebuild();
+
+        tokenService.revokeToken(token);
+        when(valueOperations.multiGet(anyCollection())).thenReturn(Arrays.asList(true, null));
+
+        assertNull(tokenService.validateAndParseClaims(token, null));
+        verify(valueOperations, times(1)).multiGet(anyCollection());
+    }
+
+    @Test
+    void disabledUsersExistingTokenIsRejected() {
+        String token = tokenService.generateAccessToken(principal());
+        revocationFilter.rebuild();
+        assertNotNull(tokenService.validateAndParseClaims(token, null));
+
+        // 禁用账户时撤销其全部令牌，黑名单记录撤销时间
+        tokenService.revokeAllUserTokens(42L);
+        ArgumentCaptor<Object> revokedAt = ArgumentCaptor.forClass(Object.class);
+        verify(valueOperations).set(eq("jwt:blacklist:user:42"), revokedAt.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        when(valueOperations.multiGet(anyCollection())).thenReturn(Arrays.asList(null, revokedAt.getValue()));
+
+        assertNull(tokenService.validateAndParseClaims(token, null));
+        verify(redisTemplate).execute(any(RedisCallback.class));
+    }
+
+    @Test
+    void tokenIssuedAfterUserRevocationIsAccepted() {
+        String token = tokenService.generateAccessToken(principal());
+        revocationFilter.rebuild();
+        long issuedAt = tokenService.validateAndParseClaims(token, null).getIssuedAt().getTime();
+        revocationFilter.userRevoked(42L);
+        when(valueOperations.multiGet(anyCollection())).thenReturn(Arrays.asList(null, issuedAt - 1000));
+
+        assertNotNull(tokenService.validateAndParseClaims(token, null));
+    }
+
+    @Test
+    void fallsBackToRedisUntilTheFilterIsBuilt() {
+        String token = tokenService.generateAccessToken(principal());
+        when(valueOperations.multiGet(anyCollection())).thenReturn(Arrays.asList(null, null));
+
+        assertTrue(tokenService.validateToken(token));
+        verify(valueOperations).multiGet(anyCollection());
+    }
+
+    private static UserPrincipal principal() {
+        return UserPrincipal.builder()
+                .id(42L)
+                .username("alice")
+                .email("alice@example.com")
+                .password("")
+                .authorities(List.of(new SimpleGrantedAuthority("ROLE_ADMIN")))
+                .tenantIds(List.of(7L))
+                .build();
+    }
+}
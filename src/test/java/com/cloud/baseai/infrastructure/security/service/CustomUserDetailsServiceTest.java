@@ -0,0 +1,52 @@
+package com.cloud.baseai.infrastructure.security.service;
+
+import com.cloud.baseai.domain.user.model.User;
+import com.cloud.baseai.domain.user.repository.UserRepository;
+import com.cloud.baseai.domain.user.repository.UserRoleRepository;
+import com.cloud.baseai.domain.user.repository.UserTenantRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * <h2>用户详情缓存刷新测试</h2>
+ */
+class CustomUserDetailsServiceTest {
+
+    @Test
+    @DisplayName("刷新缓存同时清除用户ID、用户名和邮箱三种键")
+    @SuppressWarnings("unchecked")
+    void refreshEvictsEveryKeyForm() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findById(7L)).thenReturn(Optional.of(
+                new User(7L, "alice", "hash", "alice@example.com", null, null, null, null, null)));
+        CacheManager cacheManager = new ConcurrentMapCacheManager("user-details");
+        ObjectProvider<CacheManager> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(cacheManager);
+
+        Cache cache = cacheManager.getCache("user-details");
+        assertNotNull(cache);
+        cache.put("user-id:7", "principal");
+        cache.put("alice", "principal");
+        cache.put("alice@example.com", "principal");
+        cache.put("user-id:8", "other");
+
+        CustomUserDetailsService service = new CustomUserDetailsService(userRepository,
+                mock(UserRoleRepository.class), mock(UserTenantRepository.class), provider);
+        service.refreshUserCache(7L);
+
+        assertNull(cache.get("user-id:7"));
+        assertNull(cache.get("alice"));
+        assertNull(cache.get("alice@example.com"));
+        assertNotNull(cache.get("user-id:8"));
+    }
+}
@@ -0,0 +1,103 @@
+package com.cloud.baseai.performance;
+
+import com.cloud.baseai.domain.audit.model.SysAuditLog;
+import com.cloud.baseai.domain.audit.repository.SysAuditLogRepository;
+import com.cloud.baseai.infrastructure.audit.AuditIngestionPipeline;
+import com.cloud.baseai.infrastructure.config.properties.AuditProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * <h2>审计入库管道吞吐测试</h2>
+ *
+ * <p>多个线程并发提交审计日志，经过预写日志和后台批量写入到一个只计数的仓储，
+ * 计时到全部记录入库为止。数据库本身的COPY速度不在本测试范围内。</p>
+ */
+public class AuditIngestionPerformanceTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int EVENTS_PER_PRODUCER = 50_000;
+
+    @TempDir
+    Path walDir;
+
+    @Test
+    @DisplayName("4个线程提交20万条审计日志，端到端吞吐不低于每秒5万条")
+    void sustainsFiftyThousandEventsPerSecond() throws Exception {
+        AtomicLong written = new AtomicLong();
+        SysAuditLogRepository repository = mock(SysAuditLogRepository.class);
+        doAnswer(invocation -> {
+            written.addAndGet(((List<?>) invocation.getArgument(0)).size());
+            return null;
+        }).when(repository).insertBatch(anyList());
+
+        AuditProperties properties = new AuditProperties();
+        properties.getIngestion().setWalDir(walDir.toString());
+        properties.getIngestion().setFlushIntervalMs(5L);
+        AuditIngestionPipeline pipeline = new AuditIngestionPipeline(repository, properties, new SimpleMeterRegistry());
+        ExecutorService producers = Executors.newFixedThreadPool(PRODUCERS);
+        try {
+            // 预热
+            submitAll(pipeline, producers, 5_000);
+            awaitWritten(written, PRODUCERS * 5_000L);
+
+            written.set(0);
+            long start = System.nanoTime();
+            submitAll(pipeline, producers, EVENTS_PER_PRODUCER);
+            long total = (long) PRODUCERS * EVENTS_PER_PRODUCER;
+            awaitWritten(written, total);
+            long elapsedNanos = System.nanoTime() - start;
+
+            double eventsPerSecond = total * 1_000_000_000.0 / elapsedNanos;
+            System.out.printf("审计入库管道: %d 条, 总耗时 %d ms, %.0f 条/秒%n",
+                    total, elapsedNanos / 1_000_000, eventsPerSecond);
+
+            assertEquals(total, written.get());
+            assertTrue(eventsPerSecond >= 50_000, "eventsPerSecond=" + (long) eventsPerSecond);
+        } finally {
+            producers.shutdownNow();
+            pipeline.shutdown();
+        }
+    }
+
+    private static void submitAll(AuditIngestionPipeline pipeline, ExecutorService producers, int perProducer)
+            throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            long userId = p;
+            futures.add(producers.submit(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    pipeline.submit(SysAuditLog.create(1L, userId, "USER_LOGIN", "USER", (long) i,
+                            "{\"ip\":\"10.0.0.1\",\"sequence\":" + i + "}"));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void awaitWritten(AtomicLong written, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (written.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+}
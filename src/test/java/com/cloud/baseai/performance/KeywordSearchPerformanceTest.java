@@ -0,0 +1,145 @@
+package com.cloud.baseai.performance;
+
+import com.cloud.baseai.infrastructure.config.properties.KnowledgeBaseProperties;
+import com.cloud.baseai.infrastructure.search.Bm25KeywordIndex;
+import com.cloud.baseai.infrastructure.search.CjkBigramTokenizer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * <h2>BM25关键词搜索性能测试</h2>
+ *
+ * <p>分词测试总是执行；吞吐量测试需要一个可写的PostgreSQL实例，通过系统属性启用：</p>
+ * <pre>
+ * mvn test -Dtest=KeywordSearchPerformanceTest \
+ *     -Dkb.bm25.benchmark.url=jdbc:postgresql://localhost:5432/baseai \
+ *     -Dkb.bm25.benchmark.user=postgres -Dkb.bm25.benchmark.password=postgres \
+ *     -Dkb.bm25.benchmark.tenant-id=1 -Dkb.bm25.benchmark.user-id=1
+ * </pre>
+ *
+ * <p>默认生成100万个知识块（kb.bm25.benchmark.chunks），依次测量建索引吞吐和并发查询吞吐。
+ * 生成的数据归属指定租户，测试结束后不会自动清理。</p>
+ */
+public class KeywordSearchPerformanceTest {
+
+    private static final String VOCABULARY = "向量数据库检索增强生成模型知识库文档分块嵌入语义相似度搜索排序召回率"
+            + "租户权限审计日志流程编排节点执行缓存令牌限流工具调用异步队列批量处理性能优化";
+
+    @Test
+    @DisplayName("中日韩文本按二元组切分")
+    void tokenizeMixedText() {
+        assertEquals(List.of("向量", "量搜", "搜索", "pgvector", "hnsw"),
+                CjkBigramTokenizer.tokenize("向量搜索：PgVector，HNSW"));
+        assertEquals(List.of("图", "api", "v2"), CjkBigramTokenizer.tokenize("图 API v2"));
+        assertEquals(List.of("abc123"), CjkBigramTokenizer.tokenize("ＡＢＣ１２３"));
+        assertEquals(2, CjkBigramTokenizer.termFrequencies("知识 知识").get("知识"));
+    }
+
+    @Test
+    @DisplayName("百万知识块建索引与查询吞吐量")
+    @EnabledIfSystemProperty(named = "kb.bm25.benchmark.url", matches = ".+")
+    void millionChunkThroughput() throws Exception {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                System.getProperty("kb.bm25.benchmark.url"),
+                System.getProperty("kb.bm25.benchmark.user", "postgres"),
+                System.getProperty("kb.bm25.benchmark.password", ""));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        long tenantId = Long.getLong("kb.bm25.benchmark.tenant-id", 1L);
+        long userId = Long.getLong("kb.bm25.benchmark.user-id", 1L);
+        int chunkCount = Integer.getInteger("kb.bm25.benchmark.chunks", 1_000_000);
+        int chunksPerDocument = 1_000;
+
+        KnowledgeBaseProperties kbProps = new KnowledgeBaseProperties();
+        kbProps.getSearch().getKeywordIndex().setEnabled(true);
+        kbProps.getSearch().getKeywordIndex().setRebuildBatchSize(2_000);
+        Bm25KeywordIndex index = new Bm25KeywordIndex(kbProps, jdbcTemplate,
+                new DataSourceTransactionManager(dataSource), new SimpleMeterRegistry());
+
+        Random random = new Random(2024);
+        jdbcTemplate.update("INSERT INTO dict_source_types (code, label) VALUES ('BENCH', '基准测试') ON CONFLICT DO NOTHING");
+
+        long seedStart = System.currentTimeMillis();
+        for (int doc = 0; doc < chunkCount / chunksPerDocument; doc++) {
+            Long documentId = jdbcTemplate.queryForObject("""
+                    INSERT INTO kb_documents (tenant_id, title, source_type, created_by)
+                    VALUES (?, ?, 'BENCH', ?) RETURNING id
+                    """, Long.class, tenantId, "bm25-benchmark-" + doc, userId);
+            List<Object[]> rows = new ArrayList<>(chunksPerDocument);
+            for (int chunkNo = 0; chunkNo < chunksPerDocument; chunkNo++) {
+                String text = randomText(random, 200 + random.nextInt(300));
+                rows.add(new Object[]{documentId, chunkNo, text, text.length(), userId});
+            }
+            jdbcTemplate.batchUpdate("""
+                    INSERT INTO kb_chunks (document_id, chunk_no, text, token_size, created_by)
+                    VALUES (?, ?, ?, ?, ?)
+                    """, rows);
+        }
+        System.out.printf("生成 %d 个知识块耗时 %d ms%n", chunkCount, System.currentTimeMillis() - seedStart);
+
+        long indexStart = System.currentTimeMillis();
+        long indexed = index.rebuildTenant(tenantId);
+        long indexMillis = System.currentTimeMillis() - indexStart;
+        System.out.printf("建索引: %d 个知识块, 耗时 %d ms, %.0f 块/秒%n",
+                indexed, indexMillis, indexed * 1000.0 / Math.max(indexMillis, 1));
+
+        int threads = Integer.getInteger("kb.bm25.benchmark.threads", 16);
+        int queriesPerThread = 200;
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            queries.add(randomText(random, 4 + random.nextInt(8)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Integer>> futures = new ArrayList<>();
+        long queryStart = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * queriesPerThread;
+            futures.add(executor.submit(() -> {
+                int hits = 0;
+                for (int i = 0; i < queriesPerThread; i++) {
+                    hits += index.search(tenantId, queries.get((offset + i) % queries.size()), 20).size();
+                }
+                return hits;
+            }));
+        }
+        long totalHits = 0;
+        for (Future<Integer> future : futures) {
+            totalHits += future.get();
+        }
+        long queryNanos = System.nanoTime() - queryStart;
+        executor.shutdown();
+
+        int totalQueries = threads * queriesPerThread;
+        System.out.printf("查询: %d 线程, %d 次, %.0f QPS, 平均 %.2f ms/查询, 平均命中 %.1f%n",
+                threads, totalQueries, totalQueries / (queryNanos / 1e9),
+                queryNanos / 1e6 / totalQueries * threads, (double) totalHits / totalQueries);
+
+        assertFalse(index.search(tenantId, queries.getFirst(), 10).isEmpty());
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(VOCABULARY.charAt(random.nextInt(VOCABULARY.length())));
+            if (random.nextInt(20) == 0) {
+                text.append('，');
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,108 @@
+package com.cloud.baseai.performance;
+
+import com.cloud.baseai.infrastructure.persistence.kb.mapper.PgVector;
+import com.cloud.baseai.infrastructure.persistence.kb.mapper.VectorType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <h2>向量参数编码性能测试</h2>
+ *
+ * <p>对比原有的文本格式（'[0.1,0.2,...]'）与pgvector二进制格式在1536维向量上的编解码开销。
+ * 文本路径在客户端格式化、在数据库端再解析一次；二进制路径两端都是定长拷贝。</p>
+ */
+public class VectorEncodingPerformanceTest {
+
+    private static final int DIMENSION = 1536;
+    private static final int WARMUP_ROUNDS = 2_000;
+    private static final int MEASURE_ROUNDS = 5_000;
+
+    @Test
+    @DisplayName("二进制格式往返后数据一致")
+    void binaryRoundTripPreservesVector() throws Exception {
+        float[] vector = randomVector(new Random(7));
+
+        PgVector encoded = new PgVector(vector);
+        byte[] bytes = new byte[encoded.lengthInBytes()];
+        encoded.toBytes(bytes, 0);
+
+        PgVector decoded = new PgVector();
+        decoded.setByteValue(bytes, 0);
+
+        assertEquals(4 + DIMENSION * Float.BYTES, bytes.length);
+        assertArrayEquals(vector, decoded.toArray());
+
+        PgVector fromText = new PgVector();
+        fromText.setValue(encoded.getValue());
+        assertArrayEquals(vector, fromText.toArray());
+    }
+
+    @Test
+    @DisplayName("文本与二进制向量编码耗时对比")
+    void compareTextAndBinaryEncoding() {
+        VectorType textConverter = new VectorType();
+        float[][] vectors = new float[64][];
+        Random random = new Random(42);
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomVector(random);
+        }
+
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += textRoundTrip(textConverter, vectors[i % vectors.length]);
+            sink += binaryRoundTrip(vectors[i % vectors.length]);
+        }
+
+        long textStart = System.nanoTime();
+        long textBytes = 0;
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            textBytes += textRoundTrip(textConverter, vectors[i % vectors.length]);
+        }
+        long textNanos = System.nanoTime() - textStart;
+
+        long binaryStart = System.nanoTime();
+        long binaryBytes = 0;
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            binaryBytes += binaryRoundTrip(vectors[i % vectors.length]);
+        }
+        long binaryNanos = System.nanoTime() - binaryStart;
+
+        System.out.printf("文本格式: 平均 %.2f µs/向量, 平均载荷 %d 字节%n",
+                textNanos / 1000.0 / MEASURE_ROUNDS, textBytes / MEASURE_ROUNDS);
+        System.out.printf("二进制格式: 平均 %.2f µs/向量, 平均载荷 %d 字节 (sink=%d)%n",
+                binaryNanos / 1000.0 / MEASURE_ROUNDS, binaryBytes / MEASURE_ROUNDS, sink);
+
+        // 二进制载荷固定为 4 + 4 * 维度 字节，显著小于文本格式
+        assertTrue(binaryBytes < textBytes);
+    }
+
+    private static int textRoundTrip(VectorType converter, float[] vector) {
+        String text = converter.convertToDatabaseColumn(vector);
+        float[] parsed = converter.convertToEntityAttribute(text);
+        return text.length() + parsed.length - vector.length;
+    }
+
+    private static int binaryRoundTrip(float[] vector) {
+        PgVector encoded = new PgVector(vector);
+        byte[] bytes = new byte[encoded.lengthInBytes()];
+        encoded.toBytes(bytes, 0);
+
+        PgVector decoded = new PgVector();
+        decoded.setByteValue(bytes, 0);
+        return bytes.length + decoded.toArray().length - vector.length;
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}